@@ -0,0 +1,57 @@
+// Prueba de carga del dashboard con k6 (https://k6.io)
+//
+// Cada usuario virtual carga el dashboard como el frontend: valoración, historial del portfolio,
+// gráficos de cripto y de fondo y noticias, en paralelo, y espera unos segundos antes de repetir.
+//
+// Uso (backend arrancado y un usuario con compras en BD):
+//   k6 run -e BASE_URL=http://localhost:8080 -e USER_ID=1 loadtest/dashboard.js
+//
+// Para comparar hilos de plataforma y virtuales, ejecutar dos veces cambiando
+// spring.threads.virtual.enabled y comparar http_reqs (peticiones/s) y http_req_duration.
+import http from 'k6/http';
+import { check, sleep } from 'k6';
+
+const BASE_URL = __ENV.BASE_URL || 'http://localhost:8080';
+const USER_ID = __ENV.USER_ID || '1';
+const MAX_VUS = parseInt(__ENV.MAX_VUS || '500', 10);
+
+export const options = {
+    scenarios: {
+        dashboard: {
+            executor: 'ramping-vus',
+            startVUs: 0,
+            stages: [
+                { duration: '30s', target: MAX_VUS },
+                { duration: '2m', target: MAX_VUS },
+                { duration: '15s', target: 0 },
+            ],
+            gracefulRampDown: '10s',
+        },
+    },
+    thresholds: {
+        http_req_failed: ['rate<0.01'],
+        'http_req_duration{endpoint:valuation}': ['p(95)<2000'],
+        'http_req_duration{endpoint:history}': ['p(95)<3000'],
+    },
+};
+
+function get(path, endpoint) {
+    return ['GET', `${BASE_URL}${path}`, null, { tags: { endpoint } }];
+}
+
+export default function () {
+    const responses = http.batch([
+        get(`/portfolio/valuation/${USER_ID}`, 'valuation'),
+        get(`/portfolio/history/${USER_ID}?days=30`, 'history'),
+        get('/api/coingecko/history/BTC/30/eur?maxPoints=200', 'crypto-chart'),
+        get('/api/finnhub/candles/SPY/D/30?maxPoints=200', 'fund-chart'),
+        get('/api/news/crypto', 'news'),
+    ]);
+
+    for (const response of responses) {
+        check(response, { 'status 200': (r) => r.status === 200 });
+    }
+
+    // Tiempo de lectura del usuario antes de recargar
+    sleep(2 + Math.random() * 3);
+}
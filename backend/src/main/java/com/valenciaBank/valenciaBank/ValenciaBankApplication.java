@@ -3,8 +3,10 @@ package com.valenciaBank.valenciaBank;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
 import org.springframework.context.annotation.ComponentScan;
+import org.springframework.scheduling.annotation.EnableScheduling;
 
 @SpringBootApplication
+@EnableScheduling // Refrescos programados (libro de precios, noticias)
 @ComponentScan(basePackages = {"com.valenciaBank.valenciaBank"}) // Asegúrate de que este paquete se está escaneando
 public class ValenciaBankApplication {
 
@@ -0,0 +1,51 @@
+package com.valenciaBank.valenciaBank.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.task.SimpleAsyncTaskExecutor;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+@Configuration
+public class AsyncConfig {
+
+    /**
+     * Executor para llamadas concurrentes a proveedores externos (fan-out de históricos, etc).
+     * El ritmo real lo marca el rate limiter de cada proveedor y las llamadas en vuelo el
+     * límite de ProviderRegistry (providers.*.max-concurrent).
+     *
+     * Con spring.threads.virtual.enabled=true cada tarea va en su propio hilo virtual, como las
+     * peticiones de Tomcat; si no, un pool fijo de hilos de plataforma.
+     */
+    @Bean(name = "providerExecutor")
+    public Executor providerExecutor(@Value("${spring.threads.virtual.enabled:false}") boolean virtualThreads,
+                                     @Value("${providers.executor.pool-size:8}") int poolSize,
+                                     @Value("${providers.executor.queue-capacity:100}") int queueCapacity) {
+        if (virtualThreads) {
+            SimpleAsyncTaskExecutor executor = new SimpleAsyncTaskExecutor("provider-");
+            executor.setVirtualThreads(true);
+            return executor;
+        }
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(poolSize);
+        executor.setMaxPoolSize(poolSize);
+        executor.setQueueCapacity(queueCapacity);
+        executor.setThreadNamePrefix("provider-");
+        executor.setWaitForTasksToCompleteOnShutdown(false);
+        executor.initialize();
+        return executor;
+    }
+
+    /**
+     * Hilos virtuales para valorar el portfolio: un hilo por precio a consultar, sin pool.
+     * Las llamadas en vuelo a cada proveedor las limita ProviderRegistry (providers.*.max-concurrent).
+     */
+    @Bean(name = "pricingExecutor", destroyMethod = "shutdown")
+    public ExecutorService pricingExecutor() {
+        return Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("pricing-", 0).factory());
+    }
+}
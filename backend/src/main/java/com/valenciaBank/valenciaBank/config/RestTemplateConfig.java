@@ -1,14 +1,157 @@
 package com.valenciaBank.valenciaBank.config;
 
+import com.valenciaBank.valenciaBank.service.ExternalProvider;
+import com.valenciaBank.valenciaBank.service.HttpPoolMetrics;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.client.ClientHttpRequest;
+import org.springframework.http.client.ClientHttpRequestFactory;
+import org.springframework.http.client.ReactorNettyClientRequestFactory;
 import org.springframework.web.client.RestTemplate;
+import reactor.netty.http.HttpProtocol;
+import reactor.netty.http.client.HttpClient;
+import reactor.netty.resources.ConnectionProvider;
 
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.time.Duration;
+import java.util.EnumMap;
+import java.util.Map;
+
+/**
+ * RestTemplate compartido por los servicios de proveedores externos.
+ *
+ * - Pool de conexiones con keep-alive (Reactor Netty), con límite de conexiones por host
+ *   (providers.<proveedor>.max-connections) y espera acotada cuando el pool está lleno
+ * - HTTP/2 si el servidor lo negocia por ALPN; si no, HTTP/1.1
+ * - Respuestas comprimidas (gzip/deflate) descomprimidas automáticamente
+ * - Timeouts de conexión y de respuesta por proveedor, según el host de la URL
+ */
 @Configuration
 public class RestTemplateConfig {
 
+    private static final Logger log = LoggerFactory.getLogger(RestTemplateConfig.class);
+
+    private static final int HTTPS_PORT = 443;
+
+    /**
+     * Pool de conexiones a los proveedores (se cierra al parar la aplicación)
+     */
+    @Bean(destroyMethod = "dispose")
+    public ConnectionProvider providerConnectionProvider(Environment environment, HttpPoolMetrics poolMetrics) {
+        ConnectionProvider.Builder builder = ConnectionProvider.builder("providers");
+        configurePool(builder, environment, environment.getProperty("providers.http.max-connections", Integer.class, 50),
+                poolMetrics);
+        for (ExternalProvider provider : ExternalProvider.values()) {
+            int maxConnections = environment.getProperty(
+                    "providers." + provider.getKey() + ".max-connections", Integer.class, 10);
+            // La configuración por host no hereda la general: se repite entera
+            builder.forRemoteHost(InetSocketAddress.createUnresolved(provider.getHost(), HTTPS_PORT),
+                    spec -> configurePool(spec, environment, maxConnections, poolMetrics));
+        }
+        return builder.build();
+    }
+
+    private static <S extends ConnectionProvider.ConnectionPoolSpec<S>> void configurePool(
+            S spec, Environment environment, int maxConnections, HttpPoolMetrics poolMetrics) {
+        spec.maxConnections(maxConnections)
+                .pendingAcquireTimeout(Duration.ofMillis(
+                        environment.getProperty("providers.http.pending-acquire-timeout-ms", Long.class, 5000L)))
+                .maxIdleTime(Duration.ofMillis(
+                        environment.getProperty("providers.http.max-idle-time-ms", Long.class, 30000L)))
+                .maxLifeTime(Duration.ofMillis(
+                        environment.getProperty("providers.http.max-life-time-ms", Long.class, 300000L)))
+                .evictInBackground(Duration.ofMillis(
+                        environment.getProperty("providers.http.evict-interval-ms", Long.class, 30000L)))
+                .metrics(true, () -> poolMetrics);
+    }
+
     @Bean
-    public RestTemplate restTemplate() {
-        return new RestTemplate();
+    public RestTemplate restTemplate(ConnectionProvider providerConnectionProvider, Environment environment) {
+        HttpClient httpClient = providerHttpClient(providerConnectionProvider, environment);
+
+        Map<ExternalProvider, ClientHttpRequestFactory> byProvider = new EnumMap<>(ExternalProvider.class);
+        for (ExternalProvider provider : ExternalProvider.values()) {
+            Duration connectTimeout = connectTimeout(environment, provider);
+            Duration readTimeout = readTimeout(environment, provider);
+            byProvider.put(provider, requestFactory(httpClient, connectTimeout, readTimeout));
+            log.info("Cliente HTTP {}: conexión {} ms, respuesta {} ms", provider.getKey(),
+                    connectTimeout.toMillis(), readTimeout.toMillis());
+        }
+        ClientHttpRequestFactory fallback = requestFactory(httpClient,
+                connectTimeout(environment, null), readTimeout(environment, null));
+
+        return new RestTemplate(new HostRoutingRequestFactory(byProvider, fallback));
+    }
+
+    /**
+     * HttpClient común (pool, compresión, redirecciones, HTTP/2) para RestTemplate y WebClient
+     */
+    static HttpClient providerHttpClient(ConnectionProvider providerConnectionProvider, Environment environment) {
+        HttpClient httpClient = HttpClient.create(providerConnectionProvider)
+                .compress(true)
+                .followRedirect(true) // Como el cliente anterior (HttpURLConnection)
+                .keepAlive(true);
+        if (environment.getProperty("providers.http.http2", Boolean.class, true)) {
+            httpClient = httpClient.protocol(HttpProtocol.H2, HttpProtocol.HTTP11);
+        }
+        return httpClient;
+    }
+
+    /**
+     * Timeout de conexión del proveedor (providers.<proveedor>.connect-timeout-ms) o el general si es null
+     */
+    static Duration connectTimeout(Environment environment, ExternalProvider provider) {
+        long general = environment.getProperty("providers.http.connect-timeout-ms", Long.class, 5000L);
+        return Duration.ofMillis(provider == null ? general : environment.getProperty(
+                "providers." + provider.getKey() + ".connect-timeout-ms", Long.class, general));
+    }
+
+    /**
+     * Timeout de respuesta del proveedor (providers.<proveedor>.read-timeout-ms) o el general si es null
+     */
+    static Duration readTimeout(Environment environment, ExternalProvider provider) {
+        long general = environment.getProperty("providers.http.read-timeout-ms", Long.class, 15000L);
+        return Duration.ofMillis(provider == null ? general : environment.getProperty(
+                "providers." + provider.getKey() + ".read-timeout-ms", Long.class, general));
+    }
+
+    private static ClientHttpRequestFactory requestFactory(HttpClient httpClient, Duration connectTimeout,
+                                                           Duration readTimeout) {
+        ReactorNettyClientRequestFactory factory = new ReactorNettyClientRequestFactory(httpClient);
+        factory.setConnectTimeout(connectTimeout);
+        // exchange: hasta recibir las cabeceras; read: entre fragmentos del cuerpo
+        factory.setExchangeTimeout(readTimeout);
+        factory.setReadTimeout(readTimeout);
+        return factory;
+    }
+
+    /**
+     * Elige la factoría (y con ella los timeouts) según el proveedor al que pertenece el host
+     * de la petición (ExternalProvider.fromHost); los hosts desconocidos usan la general.
+     * Todas comparten el mismo HttpClient y, por tanto, el mismo pool de conexiones
+     */
+    static class HostRoutingRequestFactory implements ClientHttpRequestFactory {
+
+        private final Map<ExternalProvider, ClientHttpRequestFactory> byProvider;
+        private final ClientHttpRequestFactory fallback;
+
+        HostRoutingRequestFactory(Map<ExternalProvider, ClientHttpRequestFactory> byProvider,
+                                  ClientHttpRequestFactory fallback) {
+            this.byProvider = byProvider;
+            this.fallback = fallback;
+        }
+
+        @Override
+        public ClientHttpRequest createRequest(URI uri, HttpMethod httpMethod) throws IOException {
+            ExternalProvider provider = ExternalProvider.fromHost(uri.getHost());
+            ClientHttpRequestFactory factory = provider != null ? byProvider.get(provider) : null;
+            return (factory != null ? factory : fallback).createRequest(uri, httpMethod);
+        }
     }
 }
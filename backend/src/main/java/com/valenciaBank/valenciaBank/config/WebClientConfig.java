@@ -0,0 +1,75 @@
+package com.valenciaBank.valenciaBank.config;
+
+import com.valenciaBank.valenciaBank.service.ExternalProvider;
+import io.netty.channel.ChannelOption;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+import org.springframework.http.client.reactive.ReactorClientHttpConnector;
+import org.springframework.web.reactive.function.client.ClientRequest;
+import org.springframework.web.reactive.function.client.ExchangeFilterFunction;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.netty.http.client.HttpClient;
+import reactor.netty.http.client.HttpClientRequest;
+import reactor.netty.resources.ConnectionProvider;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * WebClient compartido para las llamadas reactivas a proveedores (ver CryptoService).
+ *
+ * - Mismo HttpClient y pool de conexiones que el RestTemplate (RestTemplateConfig)
+ * - Timeout de respuesta por proveedor según el host; el de conexión es el general
+ *   (providers.http.connect-timeout-ms) porque es una opción del cliente, no de la petición
+ * - Tamaño máximo de respuesta en memoria (providers.http.max-response-kb): por encima la
+ *   petición falla con DataBufferLimitException en lugar de acumular el cuerpo entero
+ */
+@Configuration
+public class WebClientConfig {
+
+    private static final Logger log = LoggerFactory.getLogger(WebClientConfig.class);
+
+    @Bean
+    public WebClient providerWebClient(ConnectionProvider providerConnectionProvider, Environment environment) {
+        HttpClient httpClient = RestTemplateConfig.providerHttpClient(providerConnectionProvider, environment)
+                .option(ChannelOption.CONNECT_TIMEOUT_MILLIS,
+                        (int) RestTemplateConfig.connectTimeout(environment, null).toMillis())
+                .responseTimeout(RestTemplateConfig.readTimeout(environment, null));
+
+        Map<String, Duration> timeoutByHost = new HashMap<>();
+        for (ExternalProvider provider : ExternalProvider.values()) {
+            timeoutByHost.put(provider.getHost(), RestTemplateConfig.readTimeout(environment, provider));
+        }
+        int maxResponseKb = environment.getProperty("providers.http.max-response-kb", Integer.class, 16384);
+        log.info("WebClient de proveedores: respuestas de hasta {} KB en memoria", maxResponseKb);
+
+        return WebClient.builder()
+                .clientConnector(new ReactorClientHttpConnector(httpClient))
+                .codecs(codecs -> codecs.defaultCodecs().maxInMemorySize(maxResponseKb * 1024))
+                .filter(responseTimeoutByHost(timeoutByHost))
+                .build();
+    }
+
+    /**
+     * Aplica a cada petición el timeout de respuesta de su proveedor (entre lecturas de red)
+     */
+    private static ExchangeFilterFunction responseTimeoutByHost(Map<String, Duration> timeoutByHost) {
+        return (request, next) -> {
+            String host = request.url().getHost() != null ? request.url().getHost().toLowerCase() : "";
+            Duration timeout = timeoutByHost.get(host);
+            if (timeout == null) {
+                return next.exchange(request);
+            }
+            return next.exchange(ClientRequest.from(request)
+                    .httpRequest(httpRequest -> {
+                        HttpClientRequest nativeRequest = httpRequest.getNativeRequest();
+                        nativeRequest.responseTimeout(timeout);
+                    })
+                    .build());
+        };
+    }
+}
@@ -6,6 +6,7 @@ import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import reactor.core.publisher.Mono;
 
 @RestController
 @CrossOrigin(origins = "http://localhost:5173/home") //ESTO ES PARA QUITAR EL FALLO CORS
@@ -16,25 +17,24 @@ public class API_InversionesCryptoController {
     @Autowired
     private  CryptoService cryptoService;
 
+    // Los GET a Alpha Vantage devuelven Mono: Spring MVC libera el hilo mientras llega la respuesta
+
     // ✅ GET - Devuelve datos de criptomonedas
     @GetMapping("/digitalCurrencyDaily")
-    public ResponseEntity<String> getDigitalCurrencyDaily(@RequestParam String symbol, @RequestParam String market) {
-        String data = cryptoService.llamarAPI(symbol, market);
-        return ResponseEntity.ok(data);
+    public Mono<ResponseEntity<String>> getDigitalCurrencyDaily(@RequestParam String symbol, @RequestParam String market) {
+        return cryptoService.llamarAPIMono(symbol, market).map(ResponseEntity::ok);
     }
 
     // ✅ GET - Devuelve datos de ETFs e Índices Bursátiles (NEW)
     @GetMapping("/equityDaily")
-    public ResponseEntity<String> getEquityDaily(@RequestParam String symbol) {
-        String data = cryptoService.llamarEquityAPI(symbol);
-        return ResponseEntity.ok(data);
+    public Mono<ResponseEntity<String>> getEquityDaily(@RequestParam String symbol) {
+        return cryptoService.llamarEquityAPIMono(symbol).map(ResponseEntity::ok);
     }
 
     // ✅ GET - Devuelve perfil de un ETF con sus holdings (NEW)
     @GetMapping("/etfProfile")
-    public ResponseEntity<String> getETFProfile(@RequestParam String symbol) {
-        String data = cryptoService.getETFProfile(symbol);
-        return ResponseEntity.ok(data);
+    public Mono<ResponseEntity<String>> getETFProfile(@RequestParam String symbol) {
+        return cryptoService.getETFProfileMono(symbol).map(ResponseEntity::ok);
     }
 
     // Meter el json manualmente (no usarlo)
@@ -1,6 +1,8 @@
 package com.valenciaBank.valenciaBank.controller;
 
+import com.valenciaBank.valenciaBank.service.ChartService;
 import com.valenciaBank.valenciaBank.service.CoinGeckoService;
+import com.valenciaBank.valenciaBank.utils.ColumnarSeries;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
@@ -13,6 +15,9 @@ public class CoinGeckoController {
     @Autowired
     private CoinGeckoService coinGeckoService;
 
+    @Autowired
+    private ChartService chartService;
+
     /**
      * Obtener precio actual de una criptomoneda
      * GET /api/coingecko/price/{symbol}/{currency}
@@ -34,16 +39,20 @@ public class CoinGeckoController {
 
     /**
      * Obtener datos históricos de una criptomoneda
-     * GET /api/coingecko/history/{symbol}/{days}/{currency}
+     * GET /api/coingecko/history/{symbol}/{days}/{currency}?maxPoints=200
      * Ejemplo: GET /api/coingecko/history/BTC/30/EUR
+     * Con maxPoints la serie se reduce en el servidor (LTTB) a como mucho ese número de puntos
      */
     @GetMapping("/history/{symbol}/{days}/{currency}")
     public ResponseEntity<?> getCryptoHistory(
             @PathVariable String symbol,
             @PathVariable int days,
-            @PathVariable String currency) {
+            @PathVariable String currency,
+            @RequestParam(required = false) Integer maxPoints) {
         try {
-            String data = coinGeckoService.getCryptoHistory(symbol, days, currency);
+            String data = maxPoints != null && maxPoints > 0
+                    ? chartService.getCryptoHistory(symbol, days, currency, maxPoints)
+                    : coinGeckoService.getCryptoHistory(symbol, days, currency);
             return ResponseEntity.ok()
                     .contentType(MediaType.APPLICATION_JSON)
                     .body(data);
@@ -51,4 +60,26 @@ public class CoinGeckoController {
             return ResponseEntity.badRequest().body("{\"error\": \"" + e.getMessage() + "\"}");
         }
     }
+
+    /**
+     * Datos históricos en formato columnar (timestamps en delta + una columna por serie)
+     * GET /api/coingecko/history/{symbol}/{days}/{currency}
+     * Accept: application/vnd.valenciabank.columnar+json
+     */
+    @GetMapping(value = "/history/{symbol}/{days}/{currency}", produces = ColumnarSeries.MEDIA_TYPE)
+    public ResponseEntity<?> getCryptoHistoryColumnar(
+            @PathVariable String symbol,
+            @PathVariable int days,
+            @PathVariable String currency,
+            @RequestParam(required = false) Integer maxPoints) {
+        try {
+            String data = chartService.getCryptoHistoryColumnar(symbol, days, currency,
+                    maxPoints != null ? maxPoints : 0);
+            return ResponseEntity.ok()
+                    .contentType(MediaType.parseMediaType(ColumnarSeries.MEDIA_TYPE))
+                    .body(data);
+        } catch (Exception e) {
+            return ResponseEntity.badRequest().body("{\"error\": \"" + e.getMessage() + "\"}");
+        }
+    }
 }
@@ -1,14 +1,19 @@
 package com.valenciaBank.valenciaBank.controller;
 
 import com.valenciaBank.valenciaBank.model.CryptoPrice;
+import com.valenciaBank.valenciaBank.model.PriceQuote;
 import com.valenciaBank.valenciaBank.repository.CryptoPriceRepository;
 import com.valenciaBank.valenciaBank.service.CryptoService;
+import com.valenciaBank.valenciaBank.service.PriceBookService;
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
 import java.util.HashMap;
 import java.util.Iterator;
 import java.util.List;
@@ -25,6 +30,9 @@ public class CryptoPriceController {
     @Autowired
     private CryptoService cryptoService;
 
+    @Autowired
+    private PriceBookService priceBookService;
+
     /**
      * Obtener todos los precios almacenados
      */
@@ -41,6 +49,19 @@ public class CryptoPriceController {
             @PathVariable String symbol,
             @PathVariable String market) {
         Map<String, Object> response = new HashMap<>();
+
+        // Primero el libro de precios en memoria (sin I/O), después la BD
+        Optional<PriceQuote> quote = priceBookService.getQuote(symbol, market);
+        if (quote.isPresent()) {
+            response.put("success", true);
+            response.put("price", quote.get().getPrice());
+            response.put("change24h", quote.get().getChange24h());
+            response.put("lastUpdated", LocalDateTime.ofInstant(
+                    Instant.ofEpochMilli(quote.get().getTimestamp()), ZoneId.systemDefault()));
+            response.put("symbol", quote.get().getSymbol());
+            response.put("market", quote.get().getCurrency());
+            return ResponseEntity.ok(response);
+        }
         
         Optional<CryptoPrice> price = cryptoPriceRepository.findBySymbolAndMarket(symbol, market);
         if (price.isPresent()) {
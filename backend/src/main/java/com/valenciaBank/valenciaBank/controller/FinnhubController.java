@@ -1,6 +1,8 @@
 package com.valenciaBank.valenciaBank.controller;
 
+import com.valenciaBank.valenciaBank.service.ChartService;
 import com.valenciaBank.valenciaBank.service.YahooFinanceService;
+import com.valenciaBank.valenciaBank.utils.ColumnarSeries;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
@@ -13,6 +15,9 @@ public class FinnhubController {
     @Autowired
     private YahooFinanceService yahooFinanceService;
 
+    @Autowired
+    private ChartService chartService;
+
     /**
      * Obtener datos actuales de un ETF/Fondo
      * GET /api/finnhub/etf/{symbol}
@@ -36,14 +41,18 @@ public class FinnhubController {
      * GET /api/finnhub/candles/{symbol}/{resolution}/{days}
      * Nota: resolution se ignora internamente, Yahoo Finance elige automáticamente
      * Ejemplo: GET /api/finnhub/candles/SPY/D/30
+     * Con maxPoints las velas se agregan en el servidor (OHLC por buckets) a como mucho ese número
      */
     @GetMapping("/candles/{symbol}/{resolution}/{days}")
     public ResponseEntity<?> getEtfCandles(
             @PathVariable String symbol,
             @PathVariable String resolution,
-            @PathVariable int days) {
+            @PathVariable int days,
+            @RequestParam(required = false) Integer maxPoints) {
         try {
-            String data = yahooFinanceService.getCandles(symbol, days);
+            String data = maxPoints != null && maxPoints > 0
+                    ? chartService.getCandles(symbol, days, maxPoints)
+                    : yahooFinanceService.getCandles(symbol, days);
             return ResponseEntity.ok()
                     .contentType(MediaType.APPLICATION_JSON)
                     .body(data);
@@ -52,6 +61,27 @@ public class FinnhubController {
         }
     }
 
+    /**
+     * Velas en formato columnar (timestamps en delta + columnas o/h/l/c/v)
+     * GET /api/finnhub/candles/{symbol}/{resolution}/{days}
+     * Accept: application/vnd.valenciabank.columnar+json
+     */
+    @GetMapping(value = "/candles/{symbol}/{resolution}/{days}", produces = ColumnarSeries.MEDIA_TYPE)
+    public ResponseEntity<?> getEtfCandlesColumnar(
+            @PathVariable String symbol,
+            @PathVariable String resolution,
+            @PathVariable int days,
+            @RequestParam(required = false) Integer maxPoints) {
+        try {
+            String data = chartService.getCandlesColumnar(symbol, days, maxPoints != null ? maxPoints : 0);
+            return ResponseEntity.ok()
+                    .contentType(MediaType.parseMediaType(ColumnarSeries.MEDIA_TYPE))
+                    .body(data);
+        } catch (Exception e) {
+            return ResponseEntity.badRequest().body("{\"error\": \"" + e.getMessage() + "\"}");
+        }
+    }
+
     /**
      * Buscar ETF/Fondo por nombre
      * GET /api/finnhub/search/{query}
@@ -0,0 +1,31 @@
+package com.valenciaBank.valenciaBank.controller;
+
+import com.valenciaBank.valenciaBank.service.IndicatorService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.Map;
+
+@RestController
+@RequestMapping("/api/indicators")
+public class IndicatorController {
+
+    @Autowired
+    private IndicatorService indicatorService;
+
+    /**
+     * Indicadores técnicos precalculados (SMA, EMA, MACD, RSI, Bollinger) de los últimos días
+     * GET /api/indicators/{symbol}?days=90
+     */
+    @GetMapping("/{symbol}")
+    public ResponseEntity<Map<String, Object>> getIndicators(@PathVariable String symbol,
+                                                             @RequestParam(defaultValue = "90") int days) {
+        Map<String, Object> result = indicatorService.getIndicators(symbol.toUpperCase(), days);
+        if (result.containsKey("error")) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND).body(result);
+        }
+        return ResponseEntity.ok(result);
+    }
+}
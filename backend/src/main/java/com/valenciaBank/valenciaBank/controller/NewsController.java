@@ -1,12 +1,17 @@
 package com.valenciaBank.valenciaBank.controller;
 
 import com.valenciaBank.valenciaBank.model.NewsArticle;
+import com.valenciaBank.valenciaBank.model.Position;
+import com.valenciaBank.valenciaBank.service.NewsArchiveService;
 import com.valenciaBank.valenciaBank.service.NewsScraperService;
+import com.valenciaBank.valenciaBank.service.PositionService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 
 @RestController
 @RequestMapping("/api/news")
@@ -15,6 +20,57 @@ public class NewsController {
     @Autowired
     private NewsScraperService newsScraperService;
 
+    @Autowired
+    private NewsArchiveService newsArchiveService;
+
+    @Autowired
+    private PositionService positionService;
+
+    /**
+     * Titulares de los activos que tiene el usuario (posiciones con cantidad), a partir del índice
+     * símbolo -> noticias calculado en cada refresco
+     * GET /api/news/for-user/{userId}?limit=20
+     */
+    @GetMapping("/for-user/{userId}")
+    public ResponseEntity<Map<String, Object>> getNewsForUser(@PathVariable Long userId,
+                                                              @RequestParam(defaultValue = "20") int limit) {
+        List<String> symbols = positionService.getAllPositions(userId).stream()
+                .filter(position -> position.getQuantity() != null && position.getQuantity() > 0)
+                .map(Position::getSymbol)
+                .distinct()
+                .toList();
+        List<NewsArticle> articles = newsScraperService.getNewsForSymbols(symbols, Math.min(limit, 100));
+
+        Map<String, Object> response = new LinkedHashMap<>();
+        response.put("symbols", symbols);
+        response.put("articles", articles);
+        response.put("count", articles.size());
+        return ResponseEntity.ok(response);
+    }
+
+    /**
+     * Buscar en el archivo de noticias, paginado por cursor
+     * GET /api/news?category=crypto&q=BTC ETF&before={nextCursor}&limit=20
+     * Todos los parámetros son opcionales; nextCursor es null en la última página
+     */
+    @GetMapping
+    public ResponseEntity<Map<String, Object>> searchNews(
+            @RequestParam(required = false) String category,
+            @RequestParam(required = false) String q,
+            @RequestParam(required = false) String before,
+            @RequestParam(required = false) Integer limit) {
+        try {
+            NewsArchiveService.NewsPage page = newsArchiveService.search(category, q, before, limit);
+            Map<String, Object> response = new LinkedHashMap<>();
+            response.put("articles", page.articles());
+            response.put("count", page.articles().size());
+            response.put("nextCursor", page.nextCursor());
+            return ResponseEntity.ok(response);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+        }
+    }
+
     /**
      * Obtener noticias de criptomonedas
      * GET /api/news/crypto
@@ -2,6 +2,8 @@ package com.valenciaBank.valenciaBank.controller;
 
 import com.valenciaBank.valenciaBank.model.CryptoPurchase;
 import com.valenciaBank.valenciaBank.service.PortfolioService;
+import com.valenciaBank.valenciaBank.service.ValuationService;
+import com.valenciaBank.valenciaBank.utils.ColumnarSeries;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
@@ -17,6 +19,9 @@ public class PortfolioController {
     @Autowired
     private PortfolioService portfolioService;
 
+    @Autowired
+    private ValuationService valuationService;
+
     // GET: Obtener todo el portfolio del usuario
     @GetMapping("/user/{userId}")
     public ResponseEntity<List<CryptoPurchase>> getPortfolio(@PathVariable Long userId) {
@@ -115,6 +120,20 @@ public class PortfolioController {
         }
     }
 
+    // GET: Valoración conjunta de criptos y fondos con precios actuales
+    @GetMapping("/valuation/{userId}")
+    public ResponseEntity<Map<String, Object>> getValuation(@PathVariable Long userId) {
+        try {
+            Map<String, Object> valuation = valuationService.getValuation(userId);
+            return ResponseEntity.ok(valuation);
+        } catch (Exception e) {
+            return ResponseEntity.badRequest().body(Map.of(
+                    "success", false,
+                    "error", "Error al obtener valoración: " + e.getMessage()
+            ));
+        }
+    }
+
     // GET: Obtener historial de valor del portfolio para gráficos
     @GetMapping("/history/{userId}")
     public ResponseEntity<Map<String, Object>> getPortfolioHistory(
@@ -130,4 +149,20 @@ public class PortfolioController {
             ));
         }
     }
+
+    // GET: Historial del portfolio en formato columnar (Accept: application/vnd.valenciabank.columnar+json)
+    @GetMapping(value = "/history/{userId}", produces = ColumnarSeries.MEDIA_TYPE)
+    public ResponseEntity<Map<String, Object>> getPortfolioHistoryColumnar(
+            @PathVariable Long userId,
+            @RequestParam(defaultValue = "30") int days) {
+        try {
+            Map<String, Object> history = portfolioService.getPortfolioHistoryColumnar(userId, days);
+            return ResponseEntity.ok(history);
+        } catch (Exception e) {
+            return ResponseEntity.badRequest().body(Map.of(
+                    "success", false,
+                    "error", "Error al obtener historial: " + e.getMessage()
+            ));
+        }
+    }
 }
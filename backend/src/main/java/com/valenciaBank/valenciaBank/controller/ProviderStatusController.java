@@ -0,0 +1,60 @@
+package com.valenciaBank.valenciaBank.controller;
+
+import com.valenciaBank.valenciaBank.service.HistoryMemoryCache;
+import com.valenciaBank.valenciaBank.service.HttpPoolMetrics;
+import com.valenciaBank.valenciaBank.service.ProviderRegistry;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.Map;
+
+@RestController
+@RequestMapping("/api/providers")
+public class ProviderStatusController {
+
+    @Autowired
+    private ProviderRegistry providerRegistry;
+
+    @Autowired
+    private HistoryMemoryCache historyMemoryCache;
+
+    @Autowired
+    private HttpPoolMetrics httpPoolMetrics;
+
+    /**
+     * Estado de los proveedores externos: rate limit (esperas y rechazos) y circuit breaker
+     * GET /api/providers/status
+     */
+    @GetMapping("/status")
+    public ResponseEntity<Map<String, Object>> getStatus() {
+        return ResponseEntity.ok(providerRegistry.getStatus());
+    }
+
+    /**
+     * Salud agregada: UP, o DEGRADED si algún proveedor se está sirviendo desde su fallback
+     * GET /api/providers/health
+     */
+    @GetMapping("/health")
+    public ResponseEntity<Map<String, Object>> getHealth() {
+        return ResponseEntity.ok(providerRegistry.getHealth());
+    }
+
+    /**
+     * Métricas de la caché en memoria de históricos (entradas, bytes, aciertos, expulsiones)
+     * GET /api/providers/cache
+     */
+    @GetMapping("/cache")
+    public ResponseEntity<Map<String, Object>> getCacheMetrics() {
+        return ResponseEntity.ok(historyMemoryCache.getMetrics());
+    }
+
+    /**
+     * Pool de conexiones HTTP por host (en uso, libres y peticiones esperando conexión)
+     * GET /api/providers/connections
+     */
+    @GetMapping("/connections")
+    public ResponseEntity<Map<String, Object>> getConnectionMetrics() {
+        return ResponseEntity.ok(httpPoolMetrics.getMetrics());
+    }
+}
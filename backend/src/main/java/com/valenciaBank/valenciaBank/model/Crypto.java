@@ -1,13 +1,23 @@
 package com.valenciaBank.valenciaBank.model;
 
 import jakarta.persistence.*;
+import org.springframework.data.domain.Persistable;
 
 import java.time.LocalDate;
 
+/**
+ * Vela diaria de Alpha Vantage por cripto y fecha.
+ *
+ * Implementa Persistable para que save/saveAll de filas nuevas haga un INSERT directo
+ * (sin el SELECT previo de merge sobre la clave compuesta) y así se puedan agrupar en lotes JDBC.
+ *
+ * El orden de columnas de la clave compuesta lo decide Hibernate (normalmente alfabético: date, name),
+ * así que las consultas por símbolo y rango de fechas tienen su propio índice (name, date).
+ */
 @Entity
-@Table(name = "CRYPTO")
+@Table(name = "CRYPTO", indexes = @Index(name = "idx_crypto_name_date", columnList = "name, date"))
 @IdClass(CryptoId.class)
-public class Crypto {
+public class Crypto implements Persistable<CryptoId> {
 
     @Id
     @Column(name = "name")
@@ -32,6 +42,9 @@ public class Crypto {
     @Column(name = "VOLUME")
     private Double volume;
 
+    // Nueva hasta que se persiste o se carga de BD
+    @Transient
+    private boolean isNew = true;
 
     public Crypto() {
     }
@@ -46,6 +59,22 @@ public class Crypto {
         this.volume = volume;
     }
 
+    @Override
+    public CryptoId getId() {
+        return new CryptoId(name, date);
+    }
+
+    @Override
+    public boolean isNew() {
+        return isNew;
+    }
+
+    @PostLoad
+    @PostPersist
+    void markNotNew() {
+        this.isNew = false;
+    }
+
     public LocalDate getDate() {
         return date;
     }
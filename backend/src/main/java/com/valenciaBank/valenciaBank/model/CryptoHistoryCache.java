@@ -6,6 +6,9 @@ import java.time.LocalDateTime;
 /**
  * Entidad para almacenar datos históricos de criptomonedas en caché
  * Evita hacer llamadas repetidas a CoinGecko y respeta los rate limits
+ *
+ * Ya no se escribe: los históricos se guardan en la serie canónica (CryptoPricePoint).
+ * Se mantiene solo como fallback de lectura de los JSON guardados anteriormente.
  */
 @Entity
 @Table(name = "CRYPTO_HISTORY_CACHE",
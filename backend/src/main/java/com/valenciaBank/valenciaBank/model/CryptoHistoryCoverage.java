@@ -0,0 +1,154 @@
+package com.valenciaBank.valenciaBank.model;
+
+import jakarta.persistence.*;
+import java.time.LocalDateTime;
+
+/**
+ * Qué tramo de la serie canónica (CRYPTO_PRICE_POINT) está completo para un símbolo,
+ * moneda y resolución, y hasta cuándo se considera al día.
+ * - coveredFrom: desde este timestamp no faltan puntos
+ * - lastPoint: último timestamp guardado (desde aquí se completa la cola)
+ * - expiresAt: a partir de aquí hay que pedir la cola a CoinGecko
+ */
+@Entity
+@Table(name = "CRYPTO_HISTORY_COVERAGE",
+    uniqueConstraints = @UniqueConstraint(name = "uk_history_coverage",
+        columnNames = {"symbol", "currency", "granularity"})
+)
+public class CryptoHistoryCoverage {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(nullable = false, length = 20)
+    private String symbol;
+
+    @Column(nullable = false, length = 10)
+    private String currency;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 10)
+    private HistoryGranularity granularity;
+
+    @Column(nullable = false)
+    private Long coveredFrom; // Epoch ms
+
+    @Column(nullable = false)
+    private Long lastPoint; // Epoch ms
+
+    @Column(nullable = false)
+    private LocalDateTime lastFetched;
+
+    @Column(nullable = false)
+    private LocalDateTime expiresAt;
+
+    public CryptoHistoryCoverage() {
+    }
+
+    public CryptoHistoryCoverage(String symbol, String currency, HistoryGranularity granularity) {
+        this.symbol = symbol;
+        this.currency = currency;
+        this.granularity = granularity;
+    }
+
+    /**
+     * Cobertura de una serie sin puntos todavía: la fila existe para poder bloquearla durante la
+     * primera fusión, pero no cubre ninguna ventana ni está al día
+     */
+    public static CryptoHistoryCoverage empty(String symbol, String currency, HistoryGranularity granularity) {
+        CryptoHistoryCoverage coverage = new CryptoHistoryCoverage(symbol, currency, granularity);
+        coverage.coveredFrom = Long.MAX_VALUE;
+        coverage.lastPoint = Long.MIN_VALUE;
+        coverage.lastFetched = LocalDateTime.now();
+        coverage.expiresAt = coverage.lastFetched;
+        return coverage;
+    }
+
+    /**
+     * Verificar si la cola de la serie sigue al día
+     */
+    public boolean isValid() {
+        return expiresAt != null && LocalDateTime.now().isBefore(expiresAt);
+    }
+
+    /**
+     * Indica si hay puntos completos desde windowStart (epoch ms)
+     */
+    public boolean covers(long windowStart) {
+        return coveredFrom != null && coveredFrom <= windowStart;
+    }
+
+    /**
+     * Registrar una descarga: la cola queda al día durante un intervalo de la resolución
+     */
+    public void markFetched() {
+        this.lastFetched = LocalDateTime.now();
+        this.expiresAt = lastFetched.plusNanos(granularity.getIntervalMs() * 1_000_000L);
+    }
+
+    // Getters y setters
+    public Long getId() {
+        return id;
+    }
+
+    public void setId(Long id) {
+        this.id = id;
+    }
+
+    public String getSymbol() {
+        return symbol;
+    }
+
+    public void setSymbol(String symbol) {
+        this.symbol = symbol;
+    }
+
+    public String getCurrency() {
+        return currency;
+    }
+
+    public void setCurrency(String currency) {
+        this.currency = currency;
+    }
+
+    public HistoryGranularity getGranularity() {
+        return granularity;
+    }
+
+    public void setGranularity(HistoryGranularity granularity) {
+        this.granularity = granularity;
+    }
+
+    public Long getCoveredFrom() {
+        return coveredFrom;
+    }
+
+    public void setCoveredFrom(Long coveredFrom) {
+        this.coveredFrom = coveredFrom;
+    }
+
+    public Long getLastPoint() {
+        return lastPoint;
+    }
+
+    public void setLastPoint(Long lastPoint) {
+        this.lastPoint = lastPoint;
+    }
+
+    public LocalDateTime getLastFetched() {
+        return lastFetched;
+    }
+
+    public void setLastFetched(LocalDateTime lastFetched) {
+        this.lastFetched = lastFetched;
+    }
+
+    public LocalDateTime getExpiresAt() {
+        return expiresAt;
+    }
+
+    public void setExpiresAt(LocalDateTime expiresAt) {
+        this.expiresAt = expiresAt;
+    }
+}
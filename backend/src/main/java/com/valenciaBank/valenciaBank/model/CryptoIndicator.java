@@ -0,0 +1,244 @@
+package com.valenciaBank.valenciaBank.model;
+
+import jakarta.persistence.*;
+import org.springframework.data.domain.Persistable;
+
+import java.time.LocalDate;
+
+/**
+ * Indicadores técnicos de una cripto para un día, calculados al ingerir sus velas (IndicatorEngine).
+ *
+ * Además de los valores guarda el estado de las medias exponenciales y del RSI, para que la
+ * siguiente ingesta continúe desde aquí sin recalcular la serie completa.
+ * Los indicadores que aún no tienen suficientes velas quedan a null.
+ */
+@Entity
+@Table(name = "CRYPTO_INDICATOR")
+@IdClass(CryptoId.class)
+public class CryptoIndicator implements Persistable<CryptoId> {
+
+    @Id
+    @Column(name = "name")
+    private String name;
+
+    @Id
+    @Column(name = "date")
+    private LocalDate date;
+
+    private Double close; // Cierre del día
+
+    private Double sma20;
+
+    private Double sma50;
+
+    private Double ema12;
+
+    private Double ema26;
+
+    private Double macd;
+
+    private Double macdSignal;
+
+    private Double macdHistogram;
+
+    private Double rsi14;
+
+    private Double bollingerUpper;
+
+    private Double bollingerLower;
+
+    // Estado para continuar el cálculo
+    @Column(nullable = false)
+    private Long sequence; // Velas procesadas hasta este día incluido
+
+    private Double emaFastState;
+
+    private Double emaSlowState;
+
+    private Double signalState;
+
+    private Double avgGainState;
+
+    private Double avgLossState;
+
+    @Transient
+    private boolean isNew = true;
+
+    public CryptoIndicator() {
+    }
+
+    public CryptoIndicator(String name, LocalDate date, Double close) {
+        this.name = name;
+        this.date = date;
+        this.close = close;
+    }
+
+    @Override
+    public CryptoId getId() {
+        return new CryptoId(name, date);
+    }
+
+    @Override
+    public boolean isNew() {
+        return isNew;
+    }
+
+    @PostLoad
+    @PostPersist
+    void markNotNew() {
+        this.isNew = false;
+    }
+
+    // Getters y setters
+    public String getName() {
+        return name;
+    }
+
+    public void setName(String name) {
+        this.name = name;
+    }
+
+    public LocalDate getDate() {
+        return date;
+    }
+
+    public void setDate(LocalDate date) {
+        this.date = date;
+    }
+
+    public Double getClose() {
+        return close;
+    }
+
+    public void setClose(Double close) {
+        this.close = close;
+    }
+
+    public Double getSma20() {
+        return sma20;
+    }
+
+    public void setSma20(Double sma20) {
+        this.sma20 = sma20;
+    }
+
+    public Double getSma50() {
+        return sma50;
+    }
+
+    public void setSma50(Double sma50) {
+        this.sma50 = sma50;
+    }
+
+    public Double getEma12() {
+        return ema12;
+    }
+
+    public void setEma12(Double ema12) {
+        this.ema12 = ema12;
+    }
+
+    public Double getEma26() {
+        return ema26;
+    }
+
+    public void setEma26(Double ema26) {
+        this.ema26 = ema26;
+    }
+
+    public Double getMacd() {
+        return macd;
+    }
+
+    public void setMacd(Double macd) {
+        this.macd = macd;
+    }
+
+    public Double getMacdSignal() {
+        return macdSignal;
+    }
+
+    public void setMacdSignal(Double macdSignal) {
+        this.macdSignal = macdSignal;
+    }
+
+    public Double getMacdHistogram() {
+        return macdHistogram;
+    }
+
+    public void setMacdHistogram(Double macdHistogram) {
+        this.macdHistogram = macdHistogram;
+    }
+
+    public Double getRsi14() {
+        return rsi14;
+    }
+
+    public void setRsi14(Double rsi14) {
+        this.rsi14 = rsi14;
+    }
+
+    public Double getBollingerUpper() {
+        return bollingerUpper;
+    }
+
+    public void setBollingerUpper(Double bollingerUpper) {
+        this.bollingerUpper = bollingerUpper;
+    }
+
+    public Double getBollingerLower() {
+        return bollingerLower;
+    }
+
+    public void setBollingerLower(Double bollingerLower) {
+        this.bollingerLower = bollingerLower;
+    }
+
+    public Long getSequence() {
+        return sequence;
+    }
+
+    public void setSequence(Long sequence) {
+        this.sequence = sequence;
+    }
+
+    public Double getEmaFastState() {
+        return emaFastState;
+    }
+
+    public void setEmaFastState(Double emaFastState) {
+        this.emaFastState = emaFastState;
+    }
+
+    public Double getEmaSlowState() {
+        return emaSlowState;
+    }
+
+    public void setEmaSlowState(Double emaSlowState) {
+        this.emaSlowState = emaSlowState;
+    }
+
+    public Double getSignalState() {
+        return signalState;
+    }
+
+    public void setSignalState(Double signalState) {
+        this.signalState = signalState;
+    }
+
+    public Double getAvgGainState() {
+        return avgGainState;
+    }
+
+    public void setAvgGainState(Double avgGainState) {
+        this.avgGainState = avgGainState;
+    }
+
+    public Double getAvgLossState() {
+        return avgLossState;
+    }
+
+    public void setAvgLossState(Double avgLossState) {
+        this.avgLossState = avgLossState;
+    }
+}
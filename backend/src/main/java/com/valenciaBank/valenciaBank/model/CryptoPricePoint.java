@@ -0,0 +1,120 @@
+package com.valenciaBank.valenciaBank.model;
+
+import jakarta.persistence.*;
+
+/**
+ * Punto de la serie histórica canónica de una criptomoneda (una fila por timestamp).
+ * Sustituye a guardar un JSON completo por cada valor de days: los puntos se guardan
+ * una vez por resolución y cualquier ventana se obtiene por rango de timestamp.
+ */
+@Entity
+@Table(name = "CRYPTO_PRICE_POINT",
+    uniqueConstraints = @UniqueConstraint(name = "uk_price_point",
+        columnNames = {"symbol", "currency", "granularity", "ts"}),
+    indexes = @Index(name = "idx_price_point_series", columnList = "symbol,currency,granularity,ts")
+)
+public class CryptoPricePoint {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(nullable = false, length = 20)
+    private String symbol; // BTC, ETH, etc.
+
+    @Column(nullable = false, length = 10)
+    private String currency; // EUR, USD
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 10)
+    private HistoryGranularity granularity;
+
+    @Column(name = "ts", nullable = false)
+    private Long timestamp; // Epoch ms
+
+    @Column(nullable = false)
+    private Double price;
+
+    private Double marketCap;
+
+    private Double totalVolume;
+
+    public CryptoPricePoint() {
+    }
+
+    public CryptoPricePoint(String symbol, String currency, HistoryGranularity granularity, Long timestamp,
+                            Double price, Double marketCap, Double totalVolume) {
+        this.symbol = symbol;
+        this.currency = currency;
+        this.granularity = granularity;
+        this.timestamp = timestamp;
+        this.price = price;
+        this.marketCap = marketCap;
+        this.totalVolume = totalVolume;
+    }
+
+    // Getters y setters
+    public Long getId() {
+        return id;
+    }
+
+    public void setId(Long id) {
+        this.id = id;
+    }
+
+    public String getSymbol() {
+        return symbol;
+    }
+
+    public void setSymbol(String symbol) {
+        this.symbol = symbol;
+    }
+
+    public String getCurrency() {
+        return currency;
+    }
+
+    public void setCurrency(String currency) {
+        this.currency = currency;
+    }
+
+    public HistoryGranularity getGranularity() {
+        return granularity;
+    }
+
+    public void setGranularity(HistoryGranularity granularity) {
+        this.granularity = granularity;
+    }
+
+    public Long getTimestamp() {
+        return timestamp;
+    }
+
+    public void setTimestamp(Long timestamp) {
+        this.timestamp = timestamp;
+    }
+
+    public Double getPrice() {
+        return price;
+    }
+
+    public void setPrice(Double price) {
+        this.price = price;
+    }
+
+    public Double getMarketCap() {
+        return marketCap;
+    }
+
+    public void setMarketCap(Double marketCap) {
+        this.marketCap = marketCap;
+    }
+
+    public Double getTotalVolume() {
+        return totalVolume;
+    }
+
+    public void setTotalVolume(Double totalVolume) {
+        this.totalVolume = totalVolume;
+    }
+}
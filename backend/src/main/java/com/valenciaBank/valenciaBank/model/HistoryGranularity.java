@@ -0,0 +1,72 @@
+package com.valenciaBank.valenciaBank.model;
+
+/**
+ * Resolución de las series de CoinGecko según el rango pedido (market_chart):
+ * - 1 día: un punto cada 5 minutos
+ * - 2 a 90 días: un punto por hora
+ * - más de 90 días: un punto por día
+ *
+ * Cada resolución se guarda una sola vez por símbolo y moneda; cualquier ventana de días
+ * se sirve recortando la serie de su resolución.
+ */
+public enum HistoryGranularity {
+
+    MINUTE_5(5L * 60_000, 1),
+    HOURLY(3_600_000L, 90),
+    DAILY(86_400_000L, 0);
+
+    public static final long DAY_MS = 86_400_000L;
+
+    // Intervalo entre puntos: también es lo que tarda en aparecer un punto nuevo
+    private final long intervalMs;
+    // Días que se conservan (0 = sin límite)
+    private final int retentionDays;
+
+    HistoryGranularity(long intervalMs, int retentionDays) {
+        this.intervalMs = intervalMs;
+        this.retentionDays = retentionDays;
+    }
+
+    public static HistoryGranularity forDays(int days) {
+        if (days <= 1) {
+            return MINUTE_5;
+        }
+        return days <= 90 ? HOURLY : DAILY;
+    }
+
+    public long getIntervalMs() {
+        return intervalMs;
+    }
+
+    public int getRetentionDays() {
+        return retentionDays;
+    }
+
+    /**
+     * Días a pedir a CoinGecko para cubrir una ventana completa de esta resolución
+     */
+    public int fetchDays(int days) {
+        return switch (this) {
+            case MINUTE_5 -> 1;
+            case HOURLY -> Math.min(90, Math.max(2, days));
+            case DAILY -> Math.max(1, days);
+        };
+    }
+
+    /**
+     * Días a pedir para completar solo la cola desde el último punto guardado.
+     * Por debajo de 2 días CoinGecko devuelve puntos cada 5 minutos, así que la serie
+     * horaria pide como mínimo 2; la diaria usa interval=daily y admite cualquier rango.
+     */
+    public int topUpDays(long lastPointMs, long nowMs) {
+        int gapDays = (int) Math.max(1, (nowMs - lastPointMs + DAY_MS - 1) / DAY_MS);
+        return fetchDays(gapDays);
+    }
+
+    /**
+     * Parámetros extra de market_chart para obtener esta resolución
+     */
+    public String queryParams() {
+        return this == DAILY ? "&interval=daily" : "";
+    }
+}
@@ -1,14 +1,78 @@
 package com.valenciaBank.valenciaBank.model;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import jakarta.persistence.*;
+import org.hibernate.annotations.BatchSize;
+
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.Set;
+
+/**
+ * Noticia obtenida por scraping. Se archiva en NEWS_ARTICLE una sola vez por URL (hash SHA-256)
+ * y sus términos van a NEWS_TERM, que hace de índice invertido para buscar por palabra o símbolo.
+ * Los símbolos de los activos que menciona (BTC, SPY) se guardan en NEWS_SYMBOL.
+ */
+@Entity
+@Table(name = "NEWS_ARTICLE",
+    uniqueConstraints = @UniqueConstraint(name = "uk_news_url_hash", columnNames = "url_hash"),
+    indexes = {
+        @Index(name = "idx_news_published", columnList = "published_ts,id"),
+        @Index(name = "idx_news_category_published", columnList = "category,published_ts,id")
+    }
+)
 public class NewsArticle {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(length = 500)
     private String title;
+
+    @Column(length = 1000)
     private String description;
+
+    @Column(length = 2048)
     private String url;
+
+    @Column(length = 2048)
     private String imageUrl;
+
+    @Column(length = 50)
     private String source;
+
+    @Column(length = 20)
     private String category; // "crypto" o "economy"
+
+    @Column(length = 64)
     private String publishedAt;
 
+    @JsonIgnore
+    @Column(name = "url_hash", length = 64)
+    private String urlHash; // SHA-256 de la URL normalizada
+
+    @JsonIgnore
+    @Column(name = "published_ts")
+    private Long publishedTs; // Epoch ms de publishedAt (o de la descarga si no trae fecha)
+
+    @JsonIgnore
+    @ElementCollection(fetch = FetchType.LAZY)
+    @CollectionTable(name = "NEWS_TERM",
+        joinColumns = @JoinColumn(name = "article_id"),
+        indexes = @Index(name = "idx_news_term", columnList = "term,article_id"))
+    @Column(name = "term", length = 40, nullable = false)
+    private Set<String> terms = new HashSet<>();
+
+    // Pocos por noticia y se devuelven siempre en la respuesta: carga inmediata, por lotes
+    @ElementCollection(fetch = FetchType.EAGER)
+    @BatchSize(size = 50)
+    @CollectionTable(name = "NEWS_SYMBOL",
+        joinColumns = @JoinColumn(name = "article_id"),
+        indexes = @Index(name = "idx_news_symbol", columnList = "symbol,article_id"))
+    @Column(name = "symbol", length = 20, nullable = false)
+    private Set<String> symbols = new LinkedHashSet<>();
+
     public NewsArticle() {}
 
     public NewsArticle(String title, String description, String url, String imageUrl, String source, String category, String publishedAt) {
@@ -21,6 +85,9 @@ public class NewsArticle {
         this.publishedAt = publishedAt;
     }
 
+    public Long getId() { return id; }
+    public void setId(Long id) { this.id = id; }
+
     public String getTitle() { return title; }
     public void setTitle(String title) { this.title = title; }
 
@@ -41,4 +108,16 @@ public class NewsArticle {
 
     public String getPublishedAt() { return publishedAt; }
     public void setPublishedAt(String publishedAt) { this.publishedAt = publishedAt; }
+
+    public String getUrlHash() { return urlHash; }
+    public void setUrlHash(String urlHash) { this.urlHash = urlHash; }
+
+    public Long getPublishedTs() { return publishedTs; }
+    public void setPublishedTs(Long publishedTs) { this.publishedTs = publishedTs; }
+
+    public Set<String> getTerms() { return terms; }
+    public void setTerms(Set<String> terms) { this.terms = terms; }
+
+    public Set<String> getSymbols() { return symbols; }
+    public void setSymbols(Set<String> symbols) { this.symbols = symbols; }
 }
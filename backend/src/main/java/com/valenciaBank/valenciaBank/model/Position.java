@@ -0,0 +1,112 @@
+package com.valenciaBank.valenciaBank.model;
+
+import jakarta.persistence.*;
+
+import java.time.LocalDateTime;
+
+/**
+ * Posición agregada de un usuario en un activo: suma de todas sus compras (lotes) de ese símbolo.
+ *
+ * Se mantiene al comprar y vender (PositionService) para que leer el portfolio sea una consulta
+ * por usuario en lugar de agregar todos los lotes en cada petición.
+ */
+@Entity
+@Table(name = "PORTFOLIO_POSITION",
+        uniqueConstraints = @UniqueConstraint(name = "uk_position_user_asset_symbol",
+                columnNames = {"user_id", "asset_type", "symbol"}))
+public class Position {
+
+    public enum AssetType {
+        CRYPTO, FUND
+    }
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "user_id", nullable = false)
+    private Long userId;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "asset_type", nullable = false, length = 10)
+    private AssetType assetType;
+
+    @Column(nullable = false)
+    private String symbol;
+
+    private String name; // Solo fondos: nombre descriptivo
+
+    private String type; // Solo fondos: "ETF" o "INDEX"
+
+    private String currency;
+
+    @Column(nullable = false)
+    private Double quantity; // Cantidad total de todos los lotes
+
+    @Column(nullable = false)
+    private Double costBasis; // Suma de cantidad x precio de compra de cada lote
+
+    @Column(nullable = false)
+    private LocalDateTime firstPurchaseDate;
+
+    private LocalDateTime updatedAt;
+
+    public Position() {}
+
+    public Position(Long userId, AssetType assetType, String symbol) {
+        this.userId = userId;
+        this.assetType = assetType;
+        this.symbol = symbol;
+    }
+
+    // Getters y Setters
+    public Long getId() { return id; }
+    public void setId(Long id) { this.id = id; }
+
+    public Long getUserId() { return userId; }
+    public void setUserId(Long userId) { this.userId = userId; }
+
+    public AssetType getAssetType() { return assetType; }
+    public void setAssetType(AssetType assetType) { this.assetType = assetType; }
+
+    public String getSymbol() { return symbol; }
+    public void setSymbol(String symbol) { this.symbol = symbol; }
+
+    public String getName() { return name; }
+    public void setName(String name) { this.name = name; }
+
+    public String getType() { return type; }
+    public void setType(String type) { this.type = type; }
+
+    public String getCurrency() { return currency; }
+    public void setCurrency(String currency) { this.currency = currency; }
+
+    public Double getQuantity() { return quantity; }
+    public void setQuantity(Double quantity) { this.quantity = quantity; }
+
+    public Double getCostBasis() { return costBasis; }
+    public void setCostBasis(Double costBasis) { this.costBasis = costBasis; }
+
+    public LocalDateTime getFirstPurchaseDate() { return firstPurchaseDate; }
+    public void setFirstPurchaseDate(LocalDateTime firstPurchaseDate) { this.firstPurchaseDate = firstPurchaseDate; }
+
+    public LocalDateTime getUpdatedAt() { return updatedAt; }
+    public void setUpdatedAt(LocalDateTime updatedAt) { this.updatedAt = updatedAt; }
+
+    // Precio medio de compra ponderado por cantidad
+    public Double getAveragePrice() {
+        return quantity != null && quantity > 0 ? costBasis / quantity : 0.0;
+    }
+
+    @Override
+    public String toString() {
+        return "Position{" +
+                "userId=" + userId +
+                ", assetType=" + assetType +
+                ", symbol='" + symbol + '\'' +
+                ", quantity=" + quantity +
+                ", costBasis=" + costBasis +
+                ", firstPurchaseDate=" + firstPurchaseDate +
+                '}';
+    }
+}
@@ -0,0 +1,60 @@
+package com.valenciaBank.valenciaBank.model;
+
+/**
+ * Cotización en memoria de una criptomoneda en una moneda concreta.
+ * Inmutable para poder compartirse entre hilos sin sincronización.
+ */
+public class PriceQuote {
+
+    private final String symbol;     // BTC, ETH, etc.
+    private final String currency;   // EUR, USD, etc.
+    private final double price;
+    private final Double change24h;  // Variación porcentual 24h (puede ser null)
+    private final long timestamp;    // Epoch ms en que se obtuvo el precio
+
+    public PriceQuote(String symbol, String currency, double price, Double change24h, long timestamp) {
+        this.symbol = symbol;
+        this.currency = currency;
+        this.price = price;
+        this.change24h = change24h;
+        this.timestamp = timestamp;
+    }
+
+    public String getSymbol() {
+        return symbol;
+    }
+
+    public String getCurrency() {
+        return currency;
+    }
+
+    public double getPrice() {
+        return price;
+    }
+
+    public Double getChange24h() {
+        return change24h;
+    }
+
+    public long getTimestamp() {
+        return timestamp;
+    }
+
+    /**
+     * Edad de la cotización en milisegundos respecto a ahora
+     */
+    public long ageMillis() {
+        return System.currentTimeMillis() - timestamp;
+    }
+
+    @Override
+    public String toString() {
+        return "PriceQuote{" +
+                "symbol='" + symbol + '\'' +
+                ", currency='" + currency + '\'' +
+                ", price=" + price +
+                ", change24h=" + change24h +
+                ", timestamp=" + timestamp +
+                '}';
+    }
+}
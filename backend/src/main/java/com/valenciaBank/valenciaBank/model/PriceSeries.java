@@ -0,0 +1,92 @@
+package com.valenciaBank.valenciaBank.model;
+
+import java.util.Arrays;
+
+/**
+ * Serie de precios en columnas primitivas (timestamps epoch ms + precios).
+ * Sustituye a List<List<Number>>: sin boxing ni una lista por punto.
+ * Los timestamps están ordenados de forma ascendente, como los devuelve CoinGecko.
+ */
+public class PriceSeries {
+
+    private static final PriceSeries EMPTY = new PriceSeries(new long[0], new double[0]);
+
+    private final long[] timestamps;
+    private final double[] prices;
+
+    public PriceSeries(long[] timestamps, double[] prices) {
+        if (timestamps.length != prices.length) {
+            throw new IllegalArgumentException("timestamps y prices deben tener la misma longitud");
+        }
+        this.timestamps = timestamps;
+        this.prices = prices;
+    }
+
+    public static PriceSeries empty() {
+        return EMPTY;
+    }
+
+    public int size() {
+        return timestamps.length;
+    }
+
+    public boolean isEmpty() {
+        return timestamps.length == 0;
+    }
+
+    public long timestampAt(int index) {
+        return timestamps[index];
+    }
+
+    public double priceAt(int index) {
+        return prices[index];
+    }
+
+    public long firstTimestamp() {
+        return timestamps[0];
+    }
+
+    public long lastTimestamp() {
+        return timestamps[timestamps.length - 1];
+    }
+
+    /**
+     * Índice del punto con timestamp más cercano al indicado (búsqueda binaria).
+     * En caso de empate se queda con el anterior.
+     */
+    public int indexOfClosest(long targetTimestamp) {
+        if (isEmpty()) {
+            return -1;
+        }
+        int pos = Arrays.binarySearch(timestamps, targetTimestamp);
+        if (pos >= 0) {
+            return pos;
+        }
+        int insertion = -pos - 1;
+        if (insertion == 0) {
+            return 0;
+        }
+        if (insertion == timestamps.length) {
+            return timestamps.length - 1;
+        }
+        long before = targetTimestamp - timestamps[insertion - 1];
+        long after = timestamps[insertion] - targetTimestamp;
+        return after < before ? insertion : insertion - 1;
+    }
+
+    /**
+     * Precio del punto más cercano al timestamp indicado (0.0 si la serie está vacía)
+     */
+    public double closestPrice(long targetTimestamp) {
+        int index = indexOfClosest(targetTimestamp);
+        return index < 0 ? 0.0 : prices[index];
+    }
+
+    @Override
+    public String toString() {
+        return "PriceSeries{" +
+                "size=" + size() +
+                (isEmpty() ? "" : ", from=" + firstTimestamp() + ", to=" + lastTimestamp()) +
+                '}';
+    }
+}
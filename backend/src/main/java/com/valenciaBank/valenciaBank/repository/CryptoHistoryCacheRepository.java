@@ -3,6 +3,7 @@ package com.valenciaBank.valenciaBank.repository;
 import com.valenciaBank.valenciaBank.model.CryptoHistoryCache;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.util.List;
 import java.util.Optional;
@@ -18,6 +19,8 @@ public interface CryptoHistoryCacheRepository extends JpaRepository<CryptoHistor
 
     /**
      * Eliminar caché por símbolo, días y moneda
+     * Transaccional propio para poder usarse también desde la revalidación en segundo plano
      */
+    @Transactional
     void deleteBySymbolAndDaysAndCurrency(String symbol, Integer days, String currency);
 }
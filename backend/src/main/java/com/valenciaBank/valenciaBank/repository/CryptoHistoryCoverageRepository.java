@@ -0,0 +1,27 @@
+package com.valenciaBank.valenciaBank.repository;
+
+import com.valenciaBank.valenciaBank.model.CryptoHistoryCoverage;
+import com.valenciaBank.valenciaBank.model.HistoryGranularity;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.Optional;
+
+@Repository
+public interface CryptoHistoryCoverageRepository extends JpaRepository<CryptoHistoryCoverage, Long> {
+
+    Optional<CryptoHistoryCoverage> findBySymbolAndCurrencyAndGranularity(String symbol, String currency,
+                                                                         HistoryGranularity granularity);
+
+    // Bloquea la cobertura mientras se fusiona la serie: un solo escritor por serie, también entre nodos
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT c FROM CryptoHistoryCoverage c "
+            + "WHERE c.symbol = :symbol AND c.currency = :currency AND c.granularity = :granularity")
+    Optional<CryptoHistoryCoverage> findForUpdate(@Param("symbol") String symbol,
+                                                  @Param("currency") String currency,
+                                                  @Param("granularity") HistoryGranularity granularity);
+}
@@ -0,0 +1,28 @@
+package com.valenciaBank.valenciaBank.repository;
+
+import com.valenciaBank.valenciaBank.model.CryptoId;
+import com.valenciaBank.valenciaBank.model.CryptoIndicator;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.List;
+
+@Repository
+public interface CryptoIndicatorRepository extends JpaRepository<CryptoIndicator, CryptoId> {
+
+    // Últimos N días con indicadores, del más reciente al más antiguo
+    @Query("SELECT i FROM CryptoIndicator i WHERE i.name = :name ORDER BY i.date DESC")
+    List<CryptoIndicator> findLatest(@Param("name") String name, Limit limit);
+
+    // Borrar la serie de indicadores para recalcularla desde cero. Vacía el contexto de persistencia:
+    // si no, las filas ya cargadas seguirían gestionadas y el INSERT de la serie nueva chocaría con ellas
+    @Transactional
+    @Modifying(clearAutomatically = true, flushAutomatically = true)
+    @Query("DELETE FROM CryptoIndicator i WHERE i.name = :name")
+    int deleteByName(@Param("name") String name);
+}
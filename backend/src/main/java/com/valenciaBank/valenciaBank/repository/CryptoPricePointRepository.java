@@ -0,0 +1,33 @@
+package com.valenciaBank.valenciaBank.repository;
+
+import com.valenciaBank.valenciaBank.model.CryptoPricePoint;
+import com.valenciaBank.valenciaBank.model.HistoryGranularity;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+@Repository
+public interface CryptoPricePointRepository extends JpaRepository<CryptoPricePoint, Long> {
+
+    // Ventana de la serie desde un timestamp (recorte por rango sobre el índice de la serie)
+    List<CryptoPricePoint> findBySymbolAndCurrencyAndGranularityAndTimestampGreaterThanEqualOrderByTimestampAsc(
+            String symbol, String currency, HistoryGranularity granularity, Long from);
+
+    // Borrar el tramo que se va a sustituir por una descarga nueva (merge-on-fetch)
+    @Modifying
+    @Query("DELETE FROM CryptoPricePoint p WHERE p.symbol = :symbol AND p.currency = :currency "
+            + "AND p.granularity = :granularity AND p.timestamp >= :from")
+    int deleteFrom(@Param("symbol") String symbol, @Param("currency") String currency,
+                   @Param("granularity") HistoryGranularity granularity, @Param("from") Long from);
+
+    // Borrar puntos fuera de la retención de la resolución
+    @Modifying
+    @Query("DELETE FROM CryptoPricePoint p WHERE p.symbol = :symbol AND p.currency = :currency "
+            + "AND p.granularity = :granularity AND p.timestamp < :before")
+    int deleteBefore(@Param("symbol") String symbol, @Param("currency") String currency,
+                     @Param("granularity") HistoryGranularity granularity, @Param("before") Long before);
+}
@@ -3,9 +3,12 @@ package com.valenciaBank.valenciaBank.repository;
 import com.valenciaBank.valenciaBank.model.CryptoPurchase;
 import com.valenciaBank.valenciaBank.model.User;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.util.List;
+import java.util.Optional;
 
 @Repository
 public interface CryptoPurchaseRepository extends JpaRepository<CryptoPurchase, Long> {
@@ -17,4 +20,27 @@ public interface CryptoPurchaseRepository extends JpaRepository<CryptoPurchase,
 
     // Obtener la cantidad total de una cripto que posee un usuario
     List<CryptoPurchase> findByUserIdAndSymbol(Long userId, String symbol);
+
+    // Símbolos distintos presentes en algún portfolio (para el refresco del libro de precios)
+    @Query("SELECT DISTINCT c.symbol FROM CryptoPurchase c")
+    List<String> findDistinctSymbols();
+
+    boolean existsByUserId(Long userId);
+
+    // Totales por símbolo para reconstruir las posiciones (Position) a partir de los lotes
+    @Query("SELECT c.user.id AS userId, c.symbol AS symbol, SUM(c.quantity) AS quantity, " +
+           "SUM(c.quantity * c.purchasePrice) AS costBasis, MIN(c.purchaseDate) AS firstPurchaseDate, " +
+           "MIN(c.currency) AS currency FROM CryptoPurchase c WHERE c.user.id = :userId GROUP BY c.user.id, c.symbol")
+    List<LotTotals> sumByUser(@Param("userId") Long userId);
+
+    @Query("SELECT c.user.id AS userId, c.symbol AS symbol, SUM(c.quantity) AS quantity, " +
+           "SUM(c.quantity * c.purchasePrice) AS costBasis, MIN(c.purchaseDate) AS firstPurchaseDate, " +
+           "MIN(c.currency) AS currency FROM CryptoPurchase c WHERE c.user.id = :userId AND c.symbol = :symbol " +
+           "GROUP BY c.user.id, c.symbol")
+    Optional<LotTotals> sumByUserAndSymbol(@Param("userId") Long userId, @Param("symbol") String symbol);
+
+    @Query("SELECT c.user.id AS userId, c.symbol AS symbol, SUM(c.quantity) AS quantity, " +
+           "SUM(c.quantity * c.purchasePrice) AS costBasis, MIN(c.purchaseDate) AS firstPurchaseDate, " +
+           "MIN(c.currency) AS currency FROM CryptoPurchase c GROUP BY c.user.id, c.symbol")
+    List<LotTotals> sumAll();
 }
@@ -1,14 +1,17 @@
 package com.valenciaBank.valenciaBank.repository;
 
 import com.valenciaBank.valenciaBank.model.Crypto;
+import com.valenciaBank.valenciaBank.model.CryptoId;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 
 import java.time.LocalDate;
+import java.util.Collection;
 import java.util.List;
 
-public interface CryptoRepository extends JpaRepository<Crypto, Long> {
+public interface CryptoRepository extends JpaRepository<Crypto, CryptoId> {
 
     @Query("SELECT MAX(c.date) FROM Crypto c WHERE c.name = :name")
     LocalDate findLatestDate(@Param("name") String name);
@@ -16,5 +19,29 @@ public interface CryptoRepository extends JpaRepository<Crypto, Long> {
     @Query("SELECT c FROM Crypto c WHERE c.name = :name")
     List<Crypto> findByCryptoName(@Param("name") String name);
 
+    // Velas de un rango de fechas (ambos extremos incluidos), de la más antigua a la más reciente
+    @Query("SELECT c FROM Crypto c WHERE c.name = :name AND c.date BETWEEN :start AND :end ORDER BY c.date ASC")
+    List<Crypto> findByNameAndDateRange(@Param("name") String name, @Param("start") LocalDate start,
+                                        @Param("end") LocalDate end);
 
+    // Últimas N velas (ORDER BY date DESC LIMIT N)
+    @Query("SELECT c FROM Crypto c WHERE c.name = :name ORDER BY c.date DESC")
+    List<Crypto> findLatest(@Param("name") String name, Limit limit);
+
+    // Últimas N velas hasta una fecha incluida (ORDER BY date DESC LIMIT N)
+    @Query("SELECT c FROM Crypto c WHERE c.name = :name AND c.date <= :date ORDER BY c.date DESC")
+    List<Crypto> findLatestUpTo(@Param("name") String name, @Param("date") LocalDate date, Limit limit);
+
+    // Velas posteriores a una fecha, en orden cronológico
+    @Query("SELECT c FROM Crypto c WHERE c.name = :name AND c.date > :after ORDER BY c.date ASC")
+    List<Crypto> findAfter(@Param("name") String name, @Param("after") LocalDate after);
+
+    // Serie completa en orden cronológico
+    @Query("SELECT c FROM Crypto c WHERE c.name = :name ORDER BY c.date ASC")
+    List<Crypto> findAllByNameAsc(@Param("name") String name);
+
+    // Vela más reciente de cada símbolo en una sola consulta
+    @Query("SELECT c FROM Crypto c WHERE c.name IN :names "
+            + "AND c.date = (SELECT MAX(c2.date) FROM Crypto c2 WHERE c2.name = c.name)")
+    List<Crypto> findLatestByNames(@Param("names") Collection<String> names);
 }
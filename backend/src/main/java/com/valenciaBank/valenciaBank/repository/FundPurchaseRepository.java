@@ -3,9 +3,12 @@ package com.valenciaBank.valenciaBank.repository;
 import com.valenciaBank.valenciaBank.model.FundPurchase;
 import com.valenciaBank.valenciaBank.model.User;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.util.List;
+import java.util.Optional;
 
 @Repository
 public interface FundPurchaseRepository extends JpaRepository<FundPurchase, Long> {
@@ -13,4 +16,30 @@ public interface FundPurchaseRepository extends JpaRepository<FundPurchase, Long
     List<FundPurchase> findByUserAndSymbol(User user, String symbol);
     List<FundPurchase> findByUserIdAndSymbol(Long userId, String symbol);
     List<FundPurchase> findByUserId(Long userId);
+
+    boolean existsByUserId(Long userId);
+
+    // Totales por símbolo para reconstruir las posiciones (Position) a partir de los lotes
+    interface FundLotTotals extends LotTotals {
+        String getName();
+        String getType();
+    }
+
+    @Query("SELECT f.user.id AS userId, f.symbol AS symbol, SUM(f.quantity) AS quantity, " +
+           "SUM(f.quantity * f.purchasePrice) AS costBasis, MIN(f.purchaseDate) AS firstPurchaseDate, " +
+           "MIN(f.currency) AS currency, MIN(f.name) AS name, MIN(f.type) AS type " +
+           "FROM FundPurchase f WHERE f.user.id = :userId GROUP BY f.user.id, f.symbol")
+    List<FundLotTotals> sumByUser(@Param("userId") Long userId);
+
+    @Query("SELECT f.user.id AS userId, f.symbol AS symbol, SUM(f.quantity) AS quantity, " +
+           "SUM(f.quantity * f.purchasePrice) AS costBasis, MIN(f.purchaseDate) AS firstPurchaseDate, " +
+           "MIN(f.currency) AS currency, MIN(f.name) AS name, MIN(f.type) AS type " +
+           "FROM FundPurchase f WHERE f.user.id = :userId AND f.symbol = :symbol GROUP BY f.user.id, f.symbol")
+    Optional<FundLotTotals> sumByUserAndSymbol(@Param("userId") Long userId, @Param("symbol") String symbol);
+
+    @Query("SELECT f.user.id AS userId, f.symbol AS symbol, SUM(f.quantity) AS quantity, " +
+           "SUM(f.quantity * f.purchasePrice) AS costBasis, MIN(f.purchaseDate) AS firstPurchaseDate, " +
+           "MIN(f.currency) AS currency, MIN(f.name) AS name, MIN(f.type) AS type " +
+           "FROM FundPurchase f GROUP BY f.user.id, f.symbol")
+    List<FundLotTotals> sumAll();
 }
@@ -0,0 +1,15 @@
+package com.valenciaBank.valenciaBank.repository;
+
+import java.time.LocalDateTime;
+
+/**
+ * Totales de los lotes (compras) de un usuario en un símbolo, para reconstruir su Position
+ */
+public interface LotTotals {
+    Long getUserId();
+    String getSymbol();
+    Double getQuantity();
+    Double getCostBasis();
+    LocalDateTime getFirstPurchaseDate();
+    String getCurrency();
+}
@@ -0,0 +1,37 @@
+package com.valenciaBank.valenciaBank.repository;
+
+import com.valenciaBank.valenciaBank.model.NewsArticle;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Set;
+
+@Repository
+public interface NewsArticleRepository extends JpaRepository<NewsArticle, Long> {
+
+    // Hashes de URL ya archivados de un lote (deduplicación antes de insertar)
+    @Query("SELECT a.urlHash FROM NewsArticle a WHERE a.urlHash IN :hashes")
+    Set<String> findExistingHashes(@Param("hashes") Collection<String> hashes);
+
+    // Página anterior al cursor (published_ts, id), de la más reciente a la más antigua; category null = todas
+    @Query("SELECT a FROM NewsArticle a WHERE (:category IS NULL OR a.category = :category) "
+            + "AND (a.publishedTs < :beforeTs OR (a.publishedTs = :beforeTs AND a.id < :beforeId)) "
+            + "ORDER BY a.publishedTs DESC, a.id DESC")
+    List<NewsArticle> findPage(@Param("category") String category, @Param("beforeTs") Long beforeTs,
+                               @Param("beforeId") Long beforeId, Limit limit);
+
+    // Igual que findPage pero solo noticias que contienen todos los términos (índice invertido NEWS_TERM)
+    @Query("SELECT a FROM NewsArticle a WHERE (:category IS NULL OR a.category = :category) "
+            + "AND (a.publishedTs < :beforeTs OR (a.publishedTs = :beforeTs AND a.id < :beforeId)) "
+            + "AND a.id IN (SELECT m.id FROM NewsArticle m JOIN m.terms t WHERE t IN :terms "
+            + "GROUP BY m.id HAVING COUNT(DISTINCT t) = :termCount) "
+            + "ORDER BY a.publishedTs DESC, a.id DESC")
+    List<NewsArticle> searchPage(@Param("category") String category, @Param("terms") Collection<String> terms,
+                                 @Param("termCount") long termCount, @Param("beforeTs") Long beforeTs,
+                                 @Param("beforeId") Long beforeId, Limit limit);
+}
@@ -0,0 +1,31 @@
+package com.valenciaBank.valenciaBank.repository;
+
+import com.valenciaBank.valenciaBank.model.Position;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+public interface PositionRepository extends JpaRepository<Position, Long> {
+
+    // Posiciones de un usuario en un tipo de activo (usa el índice único user_id, asset_type, symbol)
+    List<Position> findByUserIdAndAssetTypeOrderBySymbolAsc(Long userId, Position.AssetType assetType);
+
+    // Todas las posiciones de un usuario (cripto y fondos) en una sola consulta
+    List<Position> findByUserIdOrderByAssetTypeAscSymbolAsc(Long userId);
+
+    Optional<Position> findByUserIdAndAssetTypeAndSymbol(Long userId, Position.AssetType assetType, String symbol);
+
+    // Bloquea la fila mientras se aplica una compra/venta, para no perder actualizaciones concurrentes
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT p FROM Position p WHERE p.userId = :userId AND p.assetType = :assetType AND p.symbol = :symbol")
+    Optional<Position> findForUpdate(@Param("userId") Long userId,
+                                     @Param("assetType") Position.AssetType assetType,
+                                     @Param("symbol") String symbol);
+}
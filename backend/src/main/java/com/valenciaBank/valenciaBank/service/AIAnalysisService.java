@@ -2,6 +2,9 @@ package com.valenciaBank.valenciaBank.service;
 
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.valenciaBank.valenciaBank.utils.CircuitBreaker;
+import com.valenciaBank.valenciaBank.utils.PriceStats;
+import com.valenciaBank.valenciaBank.utils.RateLimiter;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.http.*;
@@ -28,10 +31,13 @@ public class AIAnalysisService {
     private static final String GROQ_API_URL = "https://api.groq.com/openai/v1/chat/completions";
     private static final String MODEL = "llama-3.3-70b-versatile";
 
+    private final ProviderRegistry providerRegistry;
+
     @Autowired
-    public AIAnalysisService(RestTemplate restTemplate, ObjectMapper objectMapper) {
+    public AIAnalysisService(RestTemplate restTemplate, ObjectMapper objectMapper, ProviderRegistry providerRegistry) {
         this.restTemplate = restTemplate;
         this.objectMapper = objectMapper;
+        this.providerRegistry = providerRegistry;
     }
 
     /**
@@ -67,8 +73,8 @@ public class AIAnalysisService {
             headers.setBearerAuth(groqApiKey);
 
             HttpEntity<Map<String, Object>> entity = new HttpEntity<>(requestBody, headers);
-            ResponseEntity<String> response = restTemplate.exchange(
-                GROQ_API_URL, HttpMethod.POST, entity, String.class);
+            ResponseEntity<String> response = providerRegistry.call(ExternalProvider.GROQ,
+                () -> restTemplate.exchange(GROQ_API_URL, HttpMethod.POST, entity, String.class));
 
             if (response.getStatusCode().is2xxSuccessful() && response.getBody() != null) {
                 return extractTextFromResponse(response.getBody());
@@ -76,6 +82,8 @@ public class AIAnalysisService {
                 return "❌ Error al obtener análisis. Código: " + response.getStatusCode();
             }
 
+        } catch (RateLimiter.RejectedException | CircuitBreaker.OpenException e) {
+            return "⏳ Límite de peticiones alcanzado. Espera unos segundos e inténtalo de nuevo.";
         } catch (Exception e) {
             String msg = e.getMessage();
             if (msg != null && msg.contains("429")) {
@@ -91,21 +99,22 @@ public class AIAnalysisService {
     private String buildPrompt(String symbol, String type, List<Double> prices, String language) {
         String assetType = "crypto".equals(type) ? "criptomoneda" : "fondo indexado/ETF";
 
-        double currentPrice = prices.isEmpty() ? 0 : prices.get(prices.size() - 1);
-        double minPrice = prices.stream().mapToDouble(Double::doubleValue).min().orElse(0);
-        double maxPrice = prices.stream().mapToDouble(Double::doubleValue).max().orElse(0);
-        double firstPrice = prices.isEmpty() ? 0 : prices.get(0);
-        double changePercent = firstPrice > 0 ? ((currentPrice - firstPrice) / firstPrice) * 100 : 0;
+        PriceStats stats = new PriceStats();
+        for (Double price : prices) {
+            stats.add(price);
+        }
 
         return String.format(
             "Analiza la tendencia del %s %s. " +
-            "Datos: precio actual %.4f, mínimo %.4f, máximo %.4f, variación %.2f%%. " +
+            "Datos: precio actual %.4f, mínimo %.4f, máximo %.4f, variación %.2f%%, " +
+            "volatilidad %.2f%% por periodo, caída máxima %.2f%%. " +
             "Incluye: " +
             "1. Tendencia (alcista/bajista/lateral) con emoji " +
             "2. Soporte y resistencia aproximados " +
             "3. Recomendación breve (2 líneas máximo) " +
             "Responde en %s. Máximo 150 palabras. Solo texto plano con emojis.",
-            assetType, symbol, currentPrice, minPrice, maxPrice, changePercent,
+            assetType, symbol, stats.getLast(), stats.getLow(), stats.getHigh(), stats.getChangePercent(),
+            stats.getLogReturnVolatilityPercent(), stats.getMaxDrawdownPercent(),
             "es".equals(language) ? "español" : "English"
         );
     }
@@ -1,10 +1,9 @@
 package com.valenciaBank.valenciaBank.service;
 
-import com.fasterxml.jackson.databind.JsonNode;
-import com.fasterxml.jackson.databind.ObjectMapper;
 import com.valenciaBank.valenciaBank.model.Account;
 import com.valenciaBank.valenciaBank.model.CryptoPurchase;
 import com.valenciaBank.valenciaBank.model.CryptoPrice;
+import com.valenciaBank.valenciaBank.model.PriceQuote;
 import com.valenciaBank.valenciaBank.model.User;
 import com.valenciaBank.valenciaBank.repository.AccountRepository;
 import com.valenciaBank.valenciaBank.repository.CryptoPriceRepository;
@@ -16,7 +15,6 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
-import java.util.Iterator;
 import java.util.Map;
 import java.util.Optional;
 
@@ -44,7 +42,10 @@ public class BuyCryptoService {
     private CryptoPriceRepository cryptoPriceRepository;
 
     @Autowired
-    private CoinGeckoService coinGeckoService;
+    private PriceBookService priceBookService;
+
+    @Autowired
+    private PositionService positionService;
 
     /**
      * Compra una criptomoneda si el usuario tiene saldo suficiente
@@ -119,65 +120,24 @@ public class BuyCryptoService {
 
     /**
      * Obtiene el precio actual de una criptomoneda
-     * Siempre intenta obtener el precio ACTUAL de CoinGecko
+     * Lee el libro de precios en memoria; solo si no tiene el par o está desactualizado
+     * fuerza un refresco puntual de ese símbolo
      * Si falla, usa el precio en caché de BD como fallback
      */
     private Double getCurrentPrice(String symbol, String market) {
         try {
-            // 1. PRIORIDAD: Obtener precio actual de CoinGecko
-            log.info("Obteniendo precio ACTUAL de CoinGecko para {} en {}...", symbol, market);
-            try {
-                String jsonResponse = coinGeckoService.getCryptoData(symbol, market);
-                log.debug("Respuesta de CoinGecko: {}", jsonResponse);
-                
-                // Parsear respuesta JSON de CoinGecko
-                ObjectMapper mapper = new ObjectMapper();
-                JsonNode root = mapper.readTree(jsonResponse);
-                
-                // Validar que no hay error
-                if (root.has("error")) {
-                    log.error("Error en respuesta de CoinGecko: {}", root.get("error").asText());
-                    throw new Exception("API error: " + root.get("error").asText());
+            // 1. PRIORIDAD: Libro de precios en memoria (refrescado en segundo plano)
+            Optional<PriceQuote> quote = priceBookService.getQuote(symbol, market);
+            if (quote.isEmpty() || !priceBookService.isFresh(quote.get())) {
+                log.info("Precio de {} en {} no disponible o desactualizado, refrescando...", symbol, market);
+                Optional<PriceQuote> refreshed = priceBookService.refreshNow(symbol, market);
+                if (refreshed.isPresent()) {
+                    quote = refreshed;
                 }
-                
-                // CoinGecko devuelve: { "bitcoin": { "eur": 60000 } }
-                // Buscar la clave correcta del símbolo
-                String coinGeckoId = coinGeckoService.convertSymbolToCoinGeckoId(symbol);
-                log.debug("Buscando ID de CoinGecko: {}", coinGeckoId);
-                
-                if (root.has(coinGeckoId)) {
-                    JsonNode cryptoData = root.get(coinGeckoId);
-                    String currencyKey = market.toLowerCase();
-                    
-                    if (cryptoData.has(currencyKey)) {
-                        Double price = cryptoData.get(currencyKey).asDouble();
-                        log.info("Precio actual obtenido de CoinGecko: {} = {} {}", symbol, price, market);
-                        
-                        // Guardar o actualizar en BD (usar findAndUpdate, no save directo)
-                        Optional<CryptoPrice> existingPrice = cryptoPriceRepository.findBySymbolAndMarket(symbol, market);
-                        if (existingPrice.isPresent()) {
-                            // Actualizar precio existente
-                            CryptoPrice existing = existingPrice.get();
-                            existing.setPrice(price);
-                            cryptoPriceRepository.save(existing);
-                            log.info("Precio actualizado en BD para {}", symbol);
-                        } else {
-                            // Crear nuevo registro
-                            CryptoPrice cryptoPrice = new CryptoPrice(symbol, market, price);
-                            cryptoPriceRepository.save(cryptoPrice);
-                            log.info("Nuevo precio guardado en BD para {}", symbol);
-                        }
-                        
-                        return price;
-                    } else {
-                        log.error("No encontrada moneda '{}' en respuesta. Keys disponibles: {}", currencyKey, cryptoData.fieldNames().next());
-                    }
-                } else {
-                    log.error("No encontrado símbolo '{}' en respuesta. Keys disponibles: {}", coinGeckoId, root.fieldNames().next());
-                }
-            } catch (Exception e) {
-                log.warn("No se pudo obtener precio de CoinGecko: {} - {}", e.getClass().getSimpleName(), e.getMessage(), e);
-                // Continuar con fallback a BD
+            }
+            if (quote.isPresent()) {
+                log.info("Precio actual de {}: {} {}", symbol, quote.get().getPrice(), market);
+                return quote.get().getPrice();
             }
 
             // 2. FALLBACK: Si CoinGecko falla, usar precio en caché de BD
@@ -244,7 +204,8 @@ public class BuyCryptoService {
             accountRepository.save(account);
 
             // Actualizar o eliminar la compra
-            if (quantityToSell.equals(p.getQuantity())) {
+            boolean closed = quantityToSell.equals(p.getQuantity());
+            if (closed) {
                 // Vender todo
                 cryptoPurchaseRepository.deleteById(purchaseId);
             } else {
@@ -252,6 +213,7 @@ public class BuyCryptoService {
                 p.setQuantity(p.getQuantity() - quantityToSell);
                 cryptoPurchaseRepository.save(p);
             }
+            positionService.recordLotChange(p, -quantityToSell, closed);
 
             // Calcular ganancia/pérdida
             Double originalCost = quantityToSell * p.getPurchasePrice();
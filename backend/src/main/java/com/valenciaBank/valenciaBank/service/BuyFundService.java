@@ -4,6 +4,7 @@ import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.valenciaBank.valenciaBank.model.Account;
 import com.valenciaBank.valenciaBank.model.FundPurchase;
+import com.valenciaBank.valenciaBank.model.Position;
 import com.valenciaBank.valenciaBank.model.User;
 import com.valenciaBank.valenciaBank.repository.AccountRepository;
 import com.valenciaBank.valenciaBank.repository.FundPurchaseRepository;
@@ -15,7 +16,6 @@ import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.util.*;
-import java.util.stream.Collectors;
 
 @Service
 public class BuyFundService {
@@ -34,6 +34,9 @@ public class BuyFundService {
     @Autowired
     private FundPurchaseRepository fundPurchaseRepository;
 
+    @Autowired
+    private PositionService positionService;
+
     /**
      * Compra un fondo/ETF si el usuario tiene saldo suficiente
      */
@@ -76,6 +79,7 @@ public class BuyFundService {
                 user.get(), symbol, name, type, quantity, currentPrice, currency
             );
             fundPurchaseRepository.save(purchase);
+            positionService.recordPurchase(purchase);
 
             // 7. Retornar información de la compra
             Map<String, Object> result = new java.util.HashMap<>();
@@ -139,12 +143,14 @@ public class BuyFundService {
             account.setBalance(newBalance);
             accountRepository.save(account);
 
-            if (quantityToSell.equals(p.getQuantity())) {
+            boolean closed = quantityToSell.equals(p.getQuantity());
+            if (closed) {
                 fundPurchaseRepository.deleteById(purchaseId);
             } else {
                 p.setQuantity(p.getQuantity() - quantityToSell);
                 fundPurchaseRepository.save(p);
             }
+            positionService.recordLotChange(p, -quantityToSell, closed);
 
             Double originalCost = quantityToSell * p.getPurchasePrice();
             Double profit = saleAmount - originalCost;
@@ -188,29 +194,18 @@ public class BuyFundService {
                 throw new RuntimeException("Usuario no encontrado");
             }
 
-            List<FundPurchase> funds = getUserFunds(userId);
-
-            // Agrupar por símbolo
-            Map<String, List<FundPurchase>> groupedBySymbol = funds.stream()
-                    .collect(Collectors.groupingBy(FundPurchase::getSymbol));
+            // Posiciones agregadas por símbolo: una consulta, sin recorrer los lotes
+            List<Position> holdings = positionService.getPositions(userId, Position.AssetType.FUND);
 
             List<Map<String, Object>> positions = new ArrayList<>();
             double totalInvested = 0.0;
             double totalCurrentValue = 0.0;
 
-            for (Map.Entry<String, List<FundPurchase>> entry : groupedBySymbol.entrySet()) {
-                String symbol = entry.getKey();
-                List<FundPurchase> holdings = entry.getValue();
-
-                double totalQuantity = holdings.stream()
-                        .mapToDouble(FundPurchase::getQuantity)
-                        .sum();
-
-                double totalCostBasis = holdings.stream()
-                        .mapToDouble(p -> p.getQuantity() * p.getPurchasePrice())
-                        .sum();
-
-                double averagePrice = totalCostBasis / totalQuantity;
+            for (Position held : holdings) {
+                String symbol = held.getSymbol();
+                double totalQuantity = held.getQuantity();
+                double totalCostBasis = held.getCostBasis();
+                double averagePrice = held.getAveragePrice();
 
                 // Obtener precio actual desde Finnhub
                 Double currentPrice = getCurrentFundPrice(symbol);
@@ -222,15 +217,10 @@ public class BuyFundService {
                 double gainLoss = currentValue - totalCostBasis;
                 double gainLossPercent = totalCostBasis > 0 ? (gainLoss / totalCostBasis) * 100 : 0.0;
 
-                // Datos del primer holding para nombre y tipo
-                String name = holdings.get(0).getName();
-                String type = holdings.get(0).getType();
-                String currency = holdings.get(0).getCurrency();
-
                 Map<String, Object> position = new LinkedHashMap<>();
                 position.put("symbol", symbol);
-                position.put("name", name);
-                position.put("type", type);
+                position.put("name", held.getName());
+                position.put("type", held.getType());
                 position.put("quantity", totalQuantity);
                 position.put("averagePrice", averagePrice);
                 position.put("currentPrice", currentPrice);
@@ -238,12 +228,8 @@ public class BuyFundService {
                 position.put("currentValue", currentValue);
                 position.put("gainLoss", gainLoss);
                 position.put("gainLossPercent", gainLossPercent);
-                position.put("currency", currency);
-                position.put("firstPurchaseDate", holdings.stream()
-                        .min(Comparator.comparing(FundPurchase::getPurchaseDate))
-                        .get()
-                        .getPurchaseDate()
-                        .toString());
+                position.put("currency", held.getCurrency());
+                position.put("firstPurchaseDate", held.getFirstPurchaseDate().toString());
 
                 positions.add(position);
                 totalInvested += totalCostBasis;
@@ -273,9 +259,9 @@ public class BuyFundService {
     }
 
     /**
-     * Obtener precio actual de un fondo/ETF desde Finnhub
+     * Obtener precio actual de un fondo/ETF desde Finnhub (null si no está disponible)
      */
-    private Double getCurrentFundPrice(String symbol) {
+    public Double getCurrentFundPrice(String symbol) {
         try {
             String jsonResponse = finnhubService.getEtfData(symbol);
             ObjectMapper mapper = new ObjectMapper();
@@ -0,0 +1,290 @@
+package com.valenciaBank.valenciaBank.service;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.valenciaBank.valenciaBank.model.PriceSeries;
+import com.valenciaBank.valenciaBank.utils.ColumnarSeries;
+import com.valenciaBank.valenciaBank.utils.Downsampler;
+import com.valenciaBank.valenciaBank.utils.MarketChartParser;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.time.Duration;
+
+/**
+ * Datos de gráficos reducidos a un máximo de puntos (parámetro maxPoints).
+ *
+ * - Históricos de CoinGecko (market_chart): LTTB sobre "prices"; market_caps y total_volumes
+ *   se quedan con los mismos timestamps
+ * - Velas de Yahoo Finance: agregación OHLC por buckets
+ *
+ * Ambos se pueden pedir también en formato columnar (ColumnarSeries). El resultado se cachea en
+ * memoria por (formato, símbolo, rango, maxPoints). Las respuestas de error se devuelven tal cual
+ * y no se cachean.
+ */
+@Service
+public class ChartService {
+
+    private static final Logger log = LoggerFactory.getLogger(ChartService.class);
+
+    private static final JsonFactory JSON_FACTORY = new JsonFactory();
+
+    private final CoinGeckoService coinGeckoService;
+    private final YahooFinanceService yahooFinanceService;
+    private final ObjectMapper objectMapper;
+    private final Cache<String, String> cache;
+
+    @Autowired
+    public ChartService(CoinGeckoService coinGeckoService,
+                        YahooFinanceService yahooFinanceService,
+                        ObjectMapper objectMapper,
+                        @Value("${charts.cache.ttl-seconds:300}") long ttlSeconds,
+                        @Value("${charts.cache.max-entries:2000}") long maxEntries) {
+        this.coinGeckoService = coinGeckoService;
+        this.yahooFinanceService = yahooFinanceService;
+        this.objectMapper = objectMapper;
+        this.cache = Caffeine.newBuilder()
+                .expireAfterWrite(Duration.ofSeconds(ttlSeconds))
+                .maximumSize(maxEntries)
+                .build();
+    }
+
+    /**
+     * Histórico de CoinGecko con como mucho maxPoints puntos por serie
+     */
+    public String getCryptoHistory(String symbol, int days, String currency, int maxPoints) {
+        return history(symbol, days, currency, maxPoints, false);
+    }
+
+    /**
+     * Histórico de CoinGecko en formato columnar (maxPoints <= 0: todos los puntos)
+     */
+    public String getCryptoHistoryColumnar(String symbol, int days, String currency, int maxPoints) {
+        return history(symbol, days, currency, maxPoints, true);
+    }
+
+    /**
+     * Velas de Yahoo Finance agregadas en como mucho maxPoints buckets
+     */
+    public String getCandles(String symbol, int days, int maxPoints) {
+        return candles(symbol, days, maxPoints, false);
+    }
+
+    /**
+     * Velas de Yahoo Finance en formato columnar (maxPoints <= 0: todas las velas)
+     */
+    public String getCandlesColumnar(String symbol, int days, int maxPoints) {
+        return candles(symbol, days, maxPoints, true);
+    }
+
+    private String history(String symbol, int days, String currency, int maxPoints, boolean columnar) {
+        String key = (columnar ? "history-columnar:" : "history:") + symbol.toUpperCase() + ":" + days + ":"
+                + currency.toUpperCase() + ":" + maxPoints;
+        String cached = cache.getIfPresent(key);
+        if (cached != null) {
+            return cached;
+        }
+
+        String raw = coinGeckoService.getCryptoHistory(symbol, days, currency);
+        try {
+            PriceSeries prices = MarketChartParser.parsePrices(raw);
+            if (prices == null || prices.isEmpty()) {
+                return raw; // Error de la API: sin reducir ni cachear
+            }
+            PriceSeries marketCaps = MarketChartParser.parseSeries(raw, "market_caps");
+            PriceSeries volumes = MarketChartParser.parseSeries(raw, "total_volumes");
+
+            int[] selected = selectLttb(prices, maxPoints > 0 ? maxPoints : prices.size());
+            String result = columnar
+                    ? writeColumnar(prices, marketCaps, volumes, selected)
+                    : writeMarketChart(prices, marketCaps, volumes, selected);
+            cache.put(key, result);
+            log.debug("Histórico {} ({} días) reducido de {} a {} puntos", symbol, days, prices.size(), selected.length);
+            return result;
+        } catch (IOException e) {
+            log.warn("No se pudo reducir el histórico de {}: {}", symbol, e.getMessage());
+            return raw;
+        }
+    }
+
+    private String candles(String symbol, int days, int maxPoints, boolean columnar) {
+        String key = (columnar ? "candles-columnar:" : "candles:") + symbol.toUpperCase() + ":" + days + ":" + maxPoints;
+        String cached = cache.getIfPresent(key);
+        if (cached != null) {
+            return cached;
+        }
+
+        String raw = yahooFinanceService.getCandles(symbol, days);
+        try {
+            JsonNode root = objectMapper.readTree(raw);
+            if (!"ok".equals(root.path("s").asText()) || !root.path("t").isArray()) {
+                return raw; // Error o símbolo no encontrado: sin reducir ni cachear
+            }
+            Downsampler.Candles candles = readCandles((ObjectNode) root);
+            Downsampler.Candles reduced = Downsampler.ohlc(candles, maxPoints > 0 ? maxPoints : candles.size());
+            String result;
+            if (columnar) {
+                result = writeColumnar(reduced);
+            } else if (reduced == candles) {
+                result = raw; // Ya caben en maxPoints
+            } else {
+                ObjectNode out = (ObjectNode) root;
+                out.set("t", toArray(reduced.getT()));
+                out.set("c", toArray(reduced.getC()));
+                out.set("o", toArray(reduced.getO()));
+                out.set("h", toArray(reduced.getH()));
+                out.set("l", toArray(reduced.getL()));
+                out.set("v", toArray(reduced.getV()));
+                result = objectMapper.writeValueAsString(out);
+            }
+            cache.put(key, result);
+            log.debug("Velas {} ({} días) reducidas de {} a {}", symbol, days, candles.size(), reduced.size());
+            return result;
+        } catch (IOException | RuntimeException e) {
+            log.warn("No se pudieron reducir las velas de {}: {}", symbol, e.getMessage());
+            return raw;
+        }
+    }
+
+    private static int[] selectLttb(PriceSeries prices, int maxPoints) {
+        long[] x = new long[prices.size()];
+        double[] y = new double[prices.size()];
+        for (int i = 0; i < x.length; i++) {
+            x[i] = prices.timestampAt(i);
+            y[i] = prices.priceAt(i);
+        }
+        return Downsampler.lttb(x, y, x.length, maxPoints);
+    }
+
+    private static String writeMarketChart(PriceSeries prices, PriceSeries marketCaps, PriceSeries volumes,
+                                           int[] selected) throws IOException {
+        StringWriter writer = new StringWriter(selected.length * 3 * 40);
+        try (JsonGenerator json = JSON_FACTORY.createGenerator(writer)) {
+            json.writeStartObject();
+            writeSeries(json, "prices", prices, prices, selected);
+            writeSeries(json, "market_caps", marketCaps, prices, selected);
+            writeSeries(json, "total_volumes", volumes, prices, selected);
+            json.writeEndObject();
+        }
+        return writer.toString();
+    }
+
+    /**
+     * Escribir los puntos de series en los timestamps elegidos de prices (se omiten los que no tenga)
+     */
+    private static void writeSeries(JsonGenerator json, String field, PriceSeries series, PriceSeries prices,
+                                    int[] selected) throws IOException {
+        json.writeArrayFieldStart(field);
+        for (int index : selected) {
+            long ts = prices.timestampAt(index);
+            double value = valueAt(series, ts, index);
+            if (Double.isNaN(value)) {
+                continue;
+            }
+            json.writeStartArray();
+            json.writeNumber(ts);
+            json.writeNumber(value);
+            json.writeEndArray();
+        }
+        json.writeEndArray();
+    }
+
+    private static String writeColumnar(PriceSeries prices, PriceSeries marketCaps, PriceSeries volumes,
+                                        int[] selected) throws IOException {
+        long[] timestamps = new long[selected.length];
+        double[] price = new double[selected.length];
+        double[] marketCap = new double[selected.length];
+        double[] totalVolume = new double[selected.length];
+        for (int i = 0; i < selected.length; i++) {
+            int index = selected[i];
+            timestamps[i] = prices.timestampAt(index);
+            price[i] = prices.priceAt(index);
+            marketCap[i] = valueAt(marketCaps, timestamps[i], index);
+            totalVolume[i] = valueAt(volumes, timestamps[i], index);
+        }
+        return write(new ColumnarSeries(timestamps, "ms")
+                .column("price", price)
+                .column("market_cap", marketCap)
+                .column("total_volume", totalVolume));
+    }
+
+    private static String writeColumnar(Downsampler.Candles candles) throws IOException {
+        double[] volume = new double[candles.size()];
+        for (int i = 0; i < volume.length; i++) {
+            volume[i] = candles.getV()[i];
+        }
+        return write(new ColumnarSeries(candles.getT(), "s")
+                .column("o", candles.getO())
+                .column("h", candles.getH())
+                .column("l", candles.getL())
+                .column("c", candles.getC())
+                .column("v", volume));
+    }
+
+    private static String write(ColumnarSeries series) throws IOException {
+        StringWriter writer = new StringWriter(series.size() * 16 + 128);
+        try (JsonGenerator json = JSON_FACTORY.createGenerator(writer)) {
+            series.write(json);
+        }
+        return writer.toString();
+    }
+
+    /**
+     * Valor de series en el timestamp ts de prices (NaN si no lo tiene).
+     * Normalmente comparten índice con prices; si no, se busca por timestamp
+     */
+    private static double valueAt(PriceSeries series, long ts, int index) {
+        if (series == null || series.isEmpty()) {
+            return Double.NaN;
+        }
+        int i = index < series.size() && series.timestampAt(index) == ts ? index : series.indexOfClosest(ts);
+        return series.timestampAt(i) == ts ? series.priceAt(i) : Double.NaN;
+    }
+
+    private static Downsampler.Candles readCandles(ObjectNode root) {
+        JsonNode t = root.path("t");
+        int size = t.size();
+        long[] ts = new long[size];
+        double[] o = new double[size];
+        double[] h = new double[size];
+        double[] l = new double[size];
+        double[] c = new double[size];
+        long[] v = new long[size];
+        for (int i = 0; i < size; i++) {
+            ts[i] = t.get(i).asLong();
+            o[i] = root.path("o").path(i).asDouble();
+            h[i] = root.path("h").path(i).asDouble();
+            l[i] = root.path("l").path(i).asDouble();
+            c[i] = root.path("c").path(i).asDouble();
+            v[i] = root.path("v").path(i).asLong();
+        }
+        return new Downsampler.Candles(ts, o, h, l, c, v);
+    }
+
+    private ArrayNode toArray(long[] values) {
+        ArrayNode array = objectMapper.createArrayNode();
+        for (long value : values) {
+            array.add(value);
+        }
+        return array;
+    }
+
+    private ArrayNode toArray(double[] values) {
+        ArrayNode array = objectMapper.createArrayNode();
+        for (double value : values) {
+            array.add(value);
+        }
+        return array;
+    }
+}
@@ -1,16 +1,30 @@
 package com.valenciaBank.valenciaBank.service;
 
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import com.valenciaBank.valenciaBank.model.CryptoHistoryCache;
+import com.valenciaBank.valenciaBank.model.CryptoHistoryCoverage;
+import com.valenciaBank.valenciaBank.model.HistoryGranularity;
+import com.valenciaBank.valenciaBank.model.PriceQuote;
 import com.valenciaBank.valenciaBank.repository.CryptoHistoryCacheRepository;
+import com.valenciaBank.valenciaBank.utils.CircuitBreaker;
+import com.valenciaBank.valenciaBank.utils.RateLimiter;
+import com.valenciaBank.valenciaBank.utils.SingleFlight;
+import com.valenciaBank.valenciaBank.utils.ValidatorStore;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 import org.springframework.web.client.HttpClientErrorException;
 import org.springframework.web.client.RestTemplate;
 
-import java.util.Optional;
+import java.util.*;
+import java.util.stream.Collectors;
 
 @Service
 public class CoinGeckoService {
@@ -19,35 +33,87 @@ public class CoinGeckoService {
 
     private final RestTemplate restTemplate;
     private final CryptoHistoryCacheRepository cacheRepository;
+    private final ObjectMapper objectMapper = new ObjectMapper();
     private static final String COINGECKO_API_URL = "https://api.coingecko.com/api/v3";
 
-    // Control de rate limit: tiempo mínimo entre llamadas a CoinGecko (ms)
-    private static final long MIN_REQUEST_INTERVAL_MS = 1500;
-    private static long lastRequestTime = 0;
-    private static boolean rateLimitHit = false;
+    // Longitud máxima de URL para /simple/price (los proxies suelen cortar a partir de ~2KB)
+    static final int MAX_URL_LENGTH = 2000;
+
+    // Símbolo -> id de CoinGecko (los símbolos que no aparecen usan su nombre en minúsculas)
+    static final Map<String, String> COINGECKO_IDS;
+    static {
+        Map<String, String> ids = new LinkedHashMap<>();
+        ids.put("BTC", "bitcoin");
+        ids.put("ETH", "ethereum");
+        ids.put("ADA", "cardano");
+        ids.put("SOL", "solana");
+        ids.put("XRP", "ripple");
+        ids.put("DOT", "polkadot");
+        ids.put("DOGE", "dogecoin");
+        ids.put("LINK", "chainlink");
+        ids.put("MATIC", "matic-network");
+        ids.put("UNI", "uniswap");
+        ids.put("AVAX", "avalanche-2");
+        ids.put("LTC", "litecoin");
+        ids.put("BCH", "bitcoin-cash");
+        ids.put("ETC", "ethereum-classic");
+        ids.put("XLM", "stellar");
+        ids.put("ATOM", "cosmos");
+        ids.put("NEAR", "near");
+        ids.put("FLOW", "flow");
+        ids.put("THETA", "theta-token");
+        ids.put("VET", "vechain");
+        ids.put("USDT", "tether");
+        ids.put("USDC", "usd-coin");
+        ids.put("BNB", "binancecoin");
+        ids.put("SHIB", "shiba-inu");
+        ids.put("PEPE", "pepe");
+        ids.put("FLOKI", "floki");
+        ids.put("XMR", "monero");
+        ids.put("ZEC", "zcash");
+        ids.put("DASH", "dash");
+        ids.put("ARB", "arbitrum");
+        ids.put("OP", "optimism");
+        ids.put("LINEA", "linea");
+        ids.put("AAVE", "aave");
+        ids.put("CRV", "curve-dao-token");
+        ids.put("SUSHI", "sushi");
+        ids.put("FIL", "filecoin");
+        ids.put("ICP", "internet-computer");
+        ids.put("RUNE", "thorchain");
+        ids.put("GRT", "the-graph");
+        ids.put("AXS", "axie-infinity");
+        ids.put("SAND", "the-sandbox");
+        ids.put("MANA", "decentraland");
+        ids.put("ALGO", "algorand");
+        COINGECKO_IDS = Collections.unmodifiableMap(ids);
+    }
+
+    // Rate limit y circuit breaker propios de CoinGecko (ver ProviderRegistry)
+    private final ProviderRegistry providerRegistry;
+
+    // Serie histórica canónica (CRYPTO_PRICE_POINT) y caché L1 en memoria delante de ella
+    private final PriceHistoryStore priceHistoryStore;
+    private final HistoryMemoryCache historyMemoryCache;
+
+    // Peticiones simultáneas iguales comparten una sola llamada: histórico por serie (símbolo, moneda
+    // y resolución: descarga + fusión en BD) y el resto de llamadas por URL
+    private final SingleFlight<String, SeriesFetch> historyFlight = new SingleFlight<>("coingecko-history");
+    private final SingleFlight<String, String> callFlight = new SingleFlight<>("coingecko");
+    // ETag / Last-Modified de la última respuesta por URL: un 304 no consume descarga ni parseo.
+    // Limitado por bytes: guarda el cuerpo entero y un market_chart puede ocupar varios MB
+    private final ValidatorStore<String> validators =
+            new ValidatorStore<>("coingecko", ValidatorStore.DEFAULT_MAX_BYTES, String::length);
 
     @Autowired
-    public CoinGeckoService(RestTemplate restTemplate, CryptoHistoryCacheRepository cacheRepository) {
+    public CoinGeckoService(RestTemplate restTemplate, CryptoHistoryCacheRepository cacheRepository,
+                            ProviderRegistry providerRegistry, PriceHistoryStore priceHistoryStore,
+                            HistoryMemoryCache historyMemoryCache) {
         this.restTemplate = restTemplate;
         this.cacheRepository = cacheRepository;
-    }
-
-    /**
-     * Esperar si es necesario para respetar el rate limit de CoinGecko
-     */
-    private synchronized void waitForRateLimit() {
-        long now = System.currentTimeMillis();
-        long elapsed = now - lastRequestTime;
-        if (elapsed < MIN_REQUEST_INTERVAL_MS) {
-            try {
-                long waitTime = MIN_REQUEST_INTERVAL_MS - elapsed;
-                log.debug("Esperando {}ms para respetar rate limit de CoinGecko...", waitTime);
-                Thread.sleep(waitTime);
-            } catch (InterruptedException e) {
-                Thread.currentThread().interrupt();
-            }
-        }
-        lastRequestTime = System.currentTimeMillis();
+        this.providerRegistry = providerRegistry;
+        this.priceHistoryStore = priceHistoryStore;
+        this.historyMemoryCache = historyMemoryCache;
     }
 
     /**
@@ -57,13 +123,7 @@ public class CoinGeckoService {
      * @return JSON con datos de la criptomoneda
      */
     public String getCryptoData(String symbol, String vsCurrency) {
-        // Si ya estamos en rate limit, no intentar
-        if (rateLimitHit) {
-            log.warn("Rate limit activo, saltando llamada a CoinGecko para {}", symbol);
-            return "{\"error\": \"Rate limit activo\"}";
-        }
         try {
-            waitForRateLimit();
             String cryptoId = convertSymbolToCoinGeckoId(symbol);
             String url = String.format(
                 "%s/simple/price?ids=%s&vs_currencies=%s&include_market_cap=true&include_24hr_vol=true&include_24hr_change=true",
@@ -72,29 +132,144 @@ public class CoinGeckoService {
                 vsCurrency.toLowerCase()
             );
 
-            String response = restTemplate.getForObject(url, String.class);
-            rateLimitHit = false; // Reset si la llamada fue exitosa
+            String response = callCoinGecko(url);
             log.info("CoinGecko response para {}: {}", symbol, (response != null ? response.substring(0, Math.min(100, response.length())) : "null"));
             return response;
+        } catch (CircuitBreaker.OpenException e) {
+            log.warn("{} - saltando llamada a CoinGecko para {}", e.getMessage(), symbol);
+            return "{\"error\": \"Rate limit activo\"}";
         } catch (HttpClientErrorException.TooManyRequests e) {
-            rateLimitHit = true;
             log.warn("429 Too Many Requests para {} - usando fallback", symbol);
             return "{\"error\": \"Rate limit exceeded\"}";
         } catch (Exception e) {
-            if (e.getMessage() != null && e.getMessage().contains("429")) {
-                rateLimitHit = true;
-                log.warn("429 Too Many Requests para {} - usando fallback", symbol);
-            } else {
-                log.error("Error al obtener datos de CoinGecko para {}: {}", symbol, e.getMessage());
+            log.error("Error al obtener datos de CoinGecko para {}: {}", symbol, e.getMessage());
+            return "{\"error\": \"Error al obtener datos de CoinGecko\"}";
+        }
+    }
+
+    /**
+     * Obtener precios de varias criptomonedas en varias monedas con el mínimo de llamadas.
+     * /simple/price acepta ids y monedas separados por comas, así que los símbolos se
+     * agrupan en bloques cuya URL no supere MAX_URL_LENGTH.
+     * @param symbols Símbolos de las criptos (BTC, ETH, etc)
+     * @param currencies Monedas de referencia (EUR, USD, etc)
+     * @return Mapa símbolo -> (moneda -> cotización), con claves en mayúsculas.
+     *         Los símbolos sin datos (error, rate limit, id desconocido) no aparecen.
+     */
+    public Map<String, Map<String, PriceQuote>> getCryptoPrices(Collection<String> symbols, Collection<String> currencies) {
+        Map<String, Map<String, PriceQuote>> result = new LinkedHashMap<>();
+        if (symbols == null || symbols.isEmpty() || currencies == null || currencies.isEmpty()) {
+            return result;
+        }
+
+        List<String> currencyList = currencies.stream()
+                .map(String::toUpperCase)
+                .distinct()
+                .collect(Collectors.toList());
+
+        // id de CoinGecko -> símbolos que lo usan
+        Map<String, List<String>> symbolsById = new LinkedHashMap<>();
+        for (String symbol : symbols) {
+            String symbolUpper = symbol.toUpperCase();
+            symbolsById.computeIfAbsent(convertSymbolToCoinGeckoId(symbolUpper), k -> new ArrayList<>()).add(symbolUpper);
+        }
+
+        for (List<String> chunk : chunkIdsByUrlLength(symbolsById.keySet(), currencyList)) {
+            String json = fetchSimplePrice(chunk, currencyList);
+            try {
+                JsonNode root = objectMapper.readTree(json);
+                if (root == null || root.has("error")) {
+                    continue;
+                }
+                long now = System.currentTimeMillis();
+                for (String id : chunk) {
+                    JsonNode coin = root.get(id);
+                    if (coin == null) {
+                        continue;
+                    }
+                    for (String currency : currencyList) {
+                        String currencyKey = currency.toLowerCase();
+                        JsonNode price = coin.get(currencyKey);
+                        if (price == null || !price.isNumber() || price.asDouble() <= 0) {
+                            continue;
+                        }
+                        JsonNode change = coin.get(currencyKey + "_24h_change");
+                        Double change24h = change != null && change.isNumber() ? change.asDouble() : null;
+                        for (String symbol : symbolsById.get(id)) {
+                            result.computeIfAbsent(symbol, k -> new LinkedHashMap<>())
+                                    .put(currency, new PriceQuote(symbol, currency, price.asDouble(), change24h, now));
+                        }
+                    }
+                }
+            } catch (Exception e) {
+                log.error("Error parseando respuesta batch de CoinGecko: {}", e.getMessage());
             }
+        }
+        return result;
+    }
+
+    /**
+     * Agrupar ids en bloques para que la URL de /simple/price no supere MAX_URL_LENGTH
+     */
+    List<List<String>> chunkIdsByUrlLength(Collection<String> ids, Collection<String> currencies) {
+        int baseLength = buildSimplePriceUrl("", currencies).length();
+        List<List<String>> chunks = new ArrayList<>();
+        List<String> current = new ArrayList<>();
+        int currentLength = baseLength;
+        for (String id : ids) {
+            int added = id.length() + (current.isEmpty() ? 0 : 1); // +1 por la coma
+            if (!current.isEmpty() && currentLength + added > MAX_URL_LENGTH) {
+                chunks.add(current);
+                current = new ArrayList<>();
+                currentLength = baseLength;
+                added = id.length();
+            }
+            current.add(id);
+            currentLength += added;
+        }
+        if (!current.isEmpty()) {
+            chunks.add(current);
+        }
+        return chunks;
+    }
+
+    /**
+     * Una llamada a /simple/price para un bloque de ids
+     */
+    private String fetchSimplePrice(List<String> ids, Collection<String> currencies) {
+        try {
+            String response = callCoinGecko(buildSimplePriceUrl(String.join(",", ids), currencies));
+            log.info("CoinGecko batch: {} ids x {} monedas", ids.size(), currencies.size());
+            return response;
+        } catch (CircuitBreaker.OpenException e) {
+            log.warn("{} - saltando llamada batch para {} ids", e.getMessage(), ids.size());
+            return "{\"error\": \"Rate limit activo\"}";
+        } catch (HttpClientErrorException.TooManyRequests e) {
+            log.warn("429 Too Many Requests en llamada batch - usando fallback");
+            return "{\"error\": \"Rate limit exceeded\"}";
+        } catch (Exception e) {
+            log.error("Error en llamada batch a CoinGecko: {}", e.getMessage());
             return "{\"error\": \"Error al obtener datos de CoinGecko\"}";
         }
     }
 
+    private String buildSimplePriceUrl(String ids, Collection<String> currencies) {
+        String vsCurrencies = currencies.stream()
+                .map(String::toLowerCase)
+                .distinct()
+                .collect(Collectors.joining(","));
+        return String.format(
+            "%s/simple/price?ids=%s&vs_currencies=%s&include_24hr_change=true",
+            COINGECKO_API_URL,
+            ids,
+            vsCurrencies
+        );
+    }
+
     /**
      * Obtener datos históricos de una criptomoneda
-     * Primero verifica el caché, si no existe o está expirado, llama a CoinGecko
-     * Estrategia inteligente: si no hay caché exacto, busca caché de otros rangos
+     * Primero verifica la caché (memoria y serie canónica en BD); si no cubre la ventana o
+     * está expirada, pide a CoinGecko solo lo que falta
      * @param symbol Símbolo de la cripto
      * @param days Número de días (1, 7, 30, 90, 365, etc)
      * @param vsCurrency Moneda de referencia
@@ -102,146 +277,252 @@ public class CoinGeckoService {
      */
     @Transactional
     public String getCryptoHistory(String symbol, int days, String vsCurrency) {
+        return fetchCryptoHistory(symbol, days, vsCurrency).data();
+    }
+
+    /**
+     * Igual que getCryptoHistory, indicando además si los datos salen de caché expirada
+     * (revalidación en segundo plano, circuito abierto, rate limit o error de la API)
+     */
+    @Transactional
+    public HistoryResult fetchCryptoHistory(String symbol, int days, String vsCurrency) {
         try {
             String symbolUpper = symbol.toUpperCase();
             String currencyUpper = vsCurrency.toUpperCase();
             
-            // 1️⃣ Intentar obtener caché exacto
-            Optional<CryptoHistoryCache> cachedData = cacheRepository.findFirstBySymbolAndDaysAndCurrency(
-                symbolUpper,
-                days,
-                currencyUpper
-            );
-
-            if (cachedData.isPresent()) {
-                CryptoHistoryCache cache = cachedData.get();
-                if (cache.isValid()) {
-                    log.info("Datos de {} obtenidos desde CACHÉ (exacto: {} días)", symbol, days);
-                    return cache.getHistoryData();
-                }
+            // 0️⃣ Caché en memoria caducada pero en ventana stale: servirla y revalidar en segundo plano
+            HistoryMemoryCache.Entry memoryEntry = historyMemoryCache.get(symbolUpper, days, currencyUpper);
+            if (memoryEntry != null && !memoryEntry.isFresh() && providerRegistry.isAvailable(ExternalProvider.COINGECKO)) {
+                historyMemoryCache.refreshAsync(symbolUpper, days, currencyUpper,
+                        () -> fetchHistoryOnce(symbolUpper, days, currencyUpper));
+                log.info("Sirviendo {} ({} días) desde memoria mientras se revalida", symbolUpper, days);
+                return HistoryResult.stale(memoryEntry.data());
             }
 
-            // 2️⃣ Si no hay caché exacto, buscar caché más grande (fallback inteligente)
-            log.debug("Caché no encontrado para {} días, buscando fallback...", days);
-            
-            Optional<CryptoHistoryCache> fallbackCache = Optional.empty();
-            int fallbackDays = 0;
-            
-            if (days == 1) {
-                fallbackCache = cacheRepository.findFirstBySymbolAndDaysAndCurrency(symbolUpper, 7, currencyUpper);
-                fallbackDays = 7;
-                if (!fallbackCache.isPresent()) {
-                    fallbackCache = cacheRepository.findFirstBySymbolAndDaysAndCurrency(symbolUpper, 30, currencyUpper);
-                    fallbackDays = 30;
-                }
-            } else if (days == 7) {
-                fallbackCache = cacheRepository.findFirstBySymbolAndDaysAndCurrency(symbolUpper, 30, currencyUpper);
-                fallbackDays = 30;
-            } else if (days > 30) {
-                fallbackCache = cacheRepository.findFirstBySymbolAndDaysAndCurrency(symbolUpper, 30, currencyUpper);
-                fallbackDays = 30;
+            // 1️⃣ y 2️⃣ Caché vigente (memoria o serie canónica recortada a la ventana)
+            String cached = getCachedHistory(symbolUpper, days, currencyUpper);
+            if (cached != null) {
+                return HistoryResult.fresh(cached);
             }
 
-            if (fallbackCache.isPresent()) {
-                CryptoHistoryCache cache = fallbackCache.get();
-                if (cache.isValid()) {
-                    log.info("Usando CACHÉ de fallback: {} días para cubrir {} días", fallbackDays, days);
-                    return cache.getHistoryData();
-                }
+            // 3️⃣ Circuito abierto: modo fallback, servir caché expirada sin intentar la API
+            if (!providerRegistry.isAvailable(ExternalProvider.COINGECKO)) {
+                return serveFallback(symbolUpper, days, currencyUpper, "circuito abierto");
             }
 
-            // 3️⃣ Si estamos en rate limit, usar caché expirada antes de intentar la API
-            if (rateLimitHit) {
-                String expiredData = getExpiredCacheData(symbolUpper, days, currencyUpper);
-                if (expiredData != null) {
-                    log.info("Rate limit activo - usando caché expirada para {}", symbol);
-                    return expiredData;
-                }
-            }
-
-            // 4️⃣ Llamar a CoinGecko API
-            waitForRateLimit();
-            log.info("Obteniendo datos históricos de CoinGecko para {}...", symbol);
-            String cryptoId = convertSymbolToCoinGeckoId(symbol);
-            String url = String.format(
-                "%s/coins/%s/market_chart?vs_currency=%s&days=%d",
-                COINGECKO_API_URL,
-                cryptoId,
-                vsCurrency.toLowerCase(),
-                days
-            );
-
-            String response = restTemplate.getForObject(url, String.class);
-            rateLimitHit = false;
-            log.info("Datos obtenidos de CoinGecko para {}", symbol);
-
-            // Eliminar caché antiguo y guardar nuevo
-            cacheRepository.deleteBySymbolAndDaysAndCurrency(symbolUpper, days, currencyUpper);
-            cacheRepository.flush(); // Forzar ejecución del DELETE antes del INSERT
-            
-            // Verificar si ya existe (por concurrencia) y actualizar en lugar de insertar
-            Optional<CryptoHistoryCache> existing = cacheRepository.findFirstBySymbolAndDaysAndCurrency(symbolUpper, days, currencyUpper);
-            if (existing.isPresent()) {
-                CryptoHistoryCache cache = existing.get();
-                cache.setHistoryData(response);
-                cache.refreshExpiration();
-                cacheRepository.save(cache);
-            } else {
-                CryptoHistoryCache cache = new CryptoHistoryCache(
-                    symbolUpper,
-                    days,
-                    currencyUpper,
-                    response
-                );
-                cacheRepository.save(cache);
-            }
-            log.info("Datos cacheados para {} (expira en 24 horas)", symbol);
-
-            return response;
+            // 4️⃣ Llamar a CoinGecko API (una sola vez aunque lleguen varias peticiones a la vez)
+            return HistoryResult.fresh(fetchHistoryOnce(symbolUpper, days, currencyUpper));
 
+        } catch (CircuitBreaker.OpenException | RateLimiter.RejectedException e) {
+            return serveFallback(symbol.toUpperCase(), days, vsCurrency.toUpperCase(), e.getMessage());
         } catch (HttpClientErrorException.TooManyRequests e) {
-            rateLimitHit = true;
             log.warn("429 Too Many Requests para historial de {} - buscando caché expirada...", symbol);
-            return handleRateLimitFallback(symbol, days, vsCurrency);
+            return serveFallback(symbol.toUpperCase(), days, vsCurrency.toUpperCase(), "429 Too Many Requests");
         } catch (Exception e) {
-            if (e.getMessage() != null && e.getMessage().contains("429")) {
-                rateLimitHit = true;
-                log.warn("429 Too Many Requests para historial de {} - buscando caché expirada...", symbol);
-                return handleRateLimitFallback(symbol, days, vsCurrency);
-            }
             log.error("Error al obtener historial de CoinGecko para {}: {}", symbol, e.getMessage());
             // Último intento: usar caché expirada
             String expired = getExpiredCacheData(symbol.toUpperCase(), days, vsCurrency.toUpperCase());
-            if (expired != null) return expired;
-            return "{\"error\": \"Error al obtener historial de CoinGecko\"}";
+            if (expired != null) return HistoryResult.stale(expired);
+            return HistoryResult.fresh("{\"error\": \"Error al obtener historial de CoinGecko\"}");
         }
     }
 
     /**
-     * Fallback cuando CoinGecko devuelve 429: buscar cualquier caché disponible (incluso expirada)
+     * Histórico desde caché vigente, sin llamar a la API
+     * Recorta la serie canónica de la resolución del rango a la ventana pedida
+     * @return JSON con datos históricos, o null si no hay serie al día que cubra la ventana
      */
-    private String handleRateLimitFallback(String symbol, int days, String vsCurrency) {
+    public String getCachedHistory(String symbol, int days, String vsCurrency) {
         String symbolUpper = symbol.toUpperCase();
         String currencyUpper = vsCurrency.toUpperCase();
 
+        // 0️⃣ Caché en memoria: evita las consultas a BD
+        HistoryMemoryCache.Entry memoryEntry = historyMemoryCache.get(symbolUpper, days, currencyUpper);
+        if (memoryEntry != null && memoryEntry.isFresh()) {
+            log.debug("Datos de {} obtenidos desde MEMORIA ({} días)", symbolUpper, days);
+            return memoryEntry.data();
+        }
+
+        // 1️⃣ Serie de la resolución que corresponde al rango
+        long windowStart = System.currentTimeMillis() - days * HistoryGranularity.DAY_MS;
+        HistoryGranularity granularity = HistoryGranularity.forDays(days);
+        String data = sliceIfFresh(symbolUpper, days, currencyUpper, granularity, windowStart);
+
+        // 2️⃣ 1 día sin serie de 5 minutos: recortar la serie horaria a las últimas 24 horas
+        if (data == null && granularity == HistoryGranularity.MINUTE_5) {
+            data = sliceIfFresh(symbolUpper, days, currencyUpper, HistoryGranularity.HOURLY, windowStart);
+        }
+        return data;
+    }
+
+    /**
+     * Recortar la serie si está al día y completa desde windowStart (y guardarla en memoria)
+     */
+    private String sliceIfFresh(String symbolUpper, int days, String currencyUpper,
+                                HistoryGranularity granularity, long windowStart) {
+        Optional<CryptoHistoryCoverage> coverage = priceHistoryStore.findCoverage(symbolUpper, currencyUpper, granularity);
+        if (coverage.isEmpty() || !coverage.get().isValid() || !coverage.get().covers(windowStart)) {
+            return null;
+        }
+        String data = priceHistoryStore.slice(symbolUpper, currencyUpper, granularity, windowStart);
+        if (data != null) {
+            log.info("Datos de {} obtenidos desde la serie {} ({} días)", symbolUpper, granularity, days);
+            historyMemoryCache.put(symbolUpper, days, currencyUpper, data, coverage.get().getExpiresAt());
+        }
+        return data;
+    }
+
+    /**
+     * Histórico desde cualquier caché aunque esté expirada, sin llamar a la API
+     * @return JSON con datos históricos, o null si no hay ninguna caché
+     */
+    public String getStaleHistory(String symbol, int days, String vsCurrency) {
+        return getExpiredCacheData(symbol.toUpperCase(), days, vsCurrency.toUpperCase());
+    }
+
+    /**
+     * Descargar y fusionar lo que falta de la serie y devolver la ventana pedida.
+     * Las peticiones simultáneas de la misma serie (7 y 30 días comparten la horaria) esperan a una
+     * sola descarga + fusión, porque la fusión reescribe la serie entera; cada una recorta después su
+     * ventana. Si se ha unido a la descarga de una ventana más corta, pide a continuación la suya.
+     * También se usa para revalidar en segundo plano (fuera de la transacción de la petición).
+     */
+    private String fetchHistoryOnce(String symbolUpper, int days, String currencyUpper) {
+        HistoryGranularity granularity = HistoryGranularity.forDays(days);
+        String seriesKey = symbolUpper + ":" + currencyUpper + ":" + granularity;
+        long windowStart = System.currentTimeMillis() - days * HistoryGranularity.DAY_MS;
+
+        SeriesFetch fetched = historyFlight.execute(seriesKey,
+                () -> fetchAndStoreSeries(symbolUpper, days, currencyUpper, granularity));
+        if (!fetched.coverage().covers(windowStart)) {
+            fetched = historyFlight.execute(seriesKey,
+                    () -> fetchAndStoreSeries(symbolUpper, days, currencyUpper, granularity));
+        }
+
+        String data = priceHistoryStore.slice(symbolUpper, currencyUpper, granularity, windowStart);
+        if (data == null) {
+            data = fetched.response();
+        }
+        historyMemoryCache.put(symbolUpper, days, currencyUpper, data, fetched.coverage().getExpiresAt());
+        return data;
+    }
+
+    /**
+     * Pedir a CoinGecko lo que falta de la serie para cubrir la ventana de days y fusionarlo en BD.
+     * Si la serie ya cubre el inicio de la ventana solo se pide la cola desde el último punto.
+     */
+    private SeriesFetch fetchAndStoreSeries(String symbolUpper, int days, String currencyUpper,
+                                            HistoryGranularity granularity) {
+        long now = System.currentTimeMillis();
+        long windowStart = now - days * HistoryGranularity.DAY_MS;
+
+        Optional<CryptoHistoryCoverage> coverage = priceHistoryStore.findCoverage(symbolUpper, currencyUpper, granularity);
+        int fetchDays;
+        if (coverage.isPresent() && coverage.get().covers(windowStart)) {
+            fetchDays = granularity.topUpDays(coverage.get().getLastPoint(), now);
+            log.info("Completando la cola de {} ({}) con {} días de CoinGecko", symbolUpper, granularity, fetchDays);
+        } else {
+            fetchDays = granularity.fetchDays(days);
+            log.info("Obteniendo datos históricos de CoinGecko para {} ({} días)...", symbolUpper, fetchDays);
+        }
+
+        String cryptoId = convertSymbolToCoinGeckoId(symbolUpper);
+        String url = String.format(
+            "%s/coins/%s/market_chart?vs_currency=%s&days=%d%s",
+            COINGECKO_API_URL,
+            cryptoId,
+            currencyUpper.toLowerCase(),
+            fetchDays,
+            granularity.queryParams()
+        );
+
+        String response = callCoinGecko(url);
+        CryptoHistoryCoverage updated = priceHistoryStore.merge(symbolUpper, currencyUpper, granularity, response,
+                now - fetchDays * HistoryGranularity.DAY_MS);
+        return new SeriesFetch(updated, response);
+    }
+
+    /**
+     * Modo fallback (429, circuito abierto o sin permiso de rate limit): servir cualquier
+     * caché disponible aunque esté expirada. Queda registrado en las métricas del circuito.
+     */
+    private HistoryResult serveFallback(String symbolUpper, int days, String currencyUpper, String reason) {
         String data = getExpiredCacheData(symbolUpper, days, currencyUpper);
-        if (data != null) return data;
+        if (data != null) {
+            providerRegistry.breaker(ExternalProvider.COINGECKO).recordFallback();
+            log.info("CoinGecko en modo fallback ({}) - sirviendo caché expirada de {}", reason, symbolUpper);
+            return HistoryResult.stale(data);
+        }
+
+        return HistoryResult.fresh("{\"error\": \"Rate limit y sin caché disponible\"}");
+    }
 
-        return "{\"error\": \"Rate limit y sin caché disponible\"}";
+    /**
+     * Llamada GET a CoinGecko a través del circuit breaker y el rate limiter del proveedor.
+     * Si ya hay validadores para la URL la petición es condicional y un 304 reutiliza el cuerpo anterior
+     */
+    private String callCoinGecko(String url) {
+        return callFlight.execute(url, () -> {
+            ResponseEntity<String> response = exchange(url, validators.conditionalHeaders(url));
+            if (response.getStatusCode().value() == 304) {
+                String unchanged = validators.notModified(url);
+                if (unchanged != null) {
+                    return unchanged;
+                }
+                // Validadores desalojados entre la petición y la respuesta: pedirla entera
+                response = exchange(url, Map.of());
+            }
+            validators.update(url, response.getHeaders().getETag(),
+                    response.getHeaders().getFirst(HttpHeaders.LAST_MODIFIED), response.getBody());
+            return response.getBody();
+        });
+    }
+
+    private ResponseEntity<String> exchange(String url, Map<String, String> conditionalHeaders) {
+        HttpHeaders headers = new HttpHeaders();
+        conditionalHeaders.forEach(headers::set);
+        HttpEntity<Void> entity = new HttpEntity<>(headers);
+        return providerRegistry.call(ExternalProvider.COINGECKO,
+                () -> restTemplate.exchange(url, HttpMethod.GET, entity, String.class));
     }
 
     /**
      * Buscar caché aunque esté expirada (para fallback en caso de 429)
-     * Busca: exacto → 30D → 7D → 1D → 365D
+     * Busca: memoria → serie de la resolución del rango → otras resoluciones → JSON antiguos por días
      */
     private String getExpiredCacheData(String symbolUpper, int days, String currencyUpper) {
-        // Buscar exacto (expirado)
+        HistoryMemoryCache.Entry memoryEntry = historyMemoryCache.get(symbolUpper, days, currencyUpper);
+        if (memoryEntry != null) {
+            log.info("Usando caché EXPIRADA en memoria de {} ({} días)", symbolUpper, days);
+            return memoryEntry.data();
+        }
+
+        long windowStart = System.currentTimeMillis() - days * HistoryGranularity.DAY_MS;
+        HistoryGranularity preferred = HistoryGranularity.forDays(days);
+        List<HistoryGranularity> order = new ArrayList<>(List.of(preferred));
+        for (HistoryGranularity granularity : List.of(HistoryGranularity.HOURLY, HistoryGranularity.DAILY,
+                HistoryGranularity.MINUTE_5)) {
+            if (granularity != preferred) {
+                order.add(granularity);
+            }
+        }
+        for (HistoryGranularity granularity : order) {
+            if (priceHistoryStore.findCoverage(symbolUpper, currencyUpper, granularity).isEmpty()) {
+                continue;
+            }
+            String data = priceHistoryStore.slice(symbolUpper, currencyUpper, granularity, windowStart);
+            if (data != null) {
+                log.info("Usando serie EXPIRADA de {} ({} para {} días)", symbolUpper, granularity, days);
+                return data;
+            }
+        }
+
+        // JSON completos por días guardados antes de la serie canónica
         Optional<CryptoHistoryCache> cache = cacheRepository.findFirstBySymbolAndDaysAndCurrency(symbolUpper, days, currencyUpper);
         if (cache.isPresent()) {
             log.info("Usando caché EXPIRADA de {} ({} días)", symbolUpper, days);
             return cache.get().getHistoryData();
         }
-        // Buscar otros rangos expirados
         int[] fallbackOrder = {30, 7, 1, 365};
         for (int fb : fallbackOrder) {
             if (fb == days) continue;
@@ -258,51 +539,26 @@ public class CoinGeckoService {
      * Convertir símbolo a ID de CoinGecko
      */
     public String convertSymbolToCoinGeckoId(String symbol) {
-        switch (symbol.toUpperCase()) {
-            case "BTC": return "bitcoin";
-            case "ETH": return "ethereum";
-            case "ADA": return "cardano";
-            case "SOL": return "solana";
-            case "XRP": return "ripple";
-            case "DOT": return "polkadot";
-            case "DOGE": return "dogecoin";
-            case "LINK": return "chainlink";
-            case "MATIC": return "matic-network";
-            case "UNI": return "uniswap";
-            case "AVAX": return "avalanche-2";
-            case "LTC": return "litecoin";
-            case "BCH": return "bitcoin-cash";
-            case "ETC": return "ethereum-classic";
-            case "XLM": return "stellar";
-            case "ATOM": return "cosmos";
-            case "NEAR": return "near";
-            case "FLOW": return "flow";
-            case "THETA": return "theta-token";
-            case "VET": return "vechain";
-            case "USDT": return "tether";
-            case "USDC": return "usd-coin";
-            case "BNB": return "binancecoin";
-            case "SHIB": return "shiba-inu";
-            case "PEPE": return "pepe";
-            case "FLOKI": return "floki";
-            case "XMR": return "monero";
-            case "ZEC": return "zcash";
-            case "DASH": return "dash";
-            case "ARB": return "arbitrum";
-            case "OP": return "optimism";
-            case "LINEA": return "linea";
-            case "AAVE": return "aave";
-            case "CRV": return "curve-dao-token";
-            case "SUSHI": return "sushi";
-            case "FIL": return "filecoin";
-            case "ICP": return "internet-computer";
-            case "RUNE": return "thorchain";
-            case "GRT": return "the-graph";
-            case "AXS": return "axie-infinity";
-            case "SAND": return "the-sandbox";
-            case "MANA": return "decentraland";
-            case "ALGO": return "algorand";
-            default: return symbol.toLowerCase();
+        return COINGECKO_IDS.getOrDefault(symbol.toUpperCase(), symbol.toLowerCase());
+    }
+
+    /**
+     * Resultado de una descarga + fusión de la serie: cobertura tras fusionar y respuesta de CoinGecko
+     */
+    private record SeriesFetch(CryptoHistoryCoverage coverage, String response) {
+    }
+
+    /**
+     * Histórico y si sale de caché expirada (stale) en lugar de una respuesta o caché vigente
+     */
+    public record HistoryResult(String data, boolean stale) {
+
+        static HistoryResult fresh(String data) {
+            return new HistoryResult(data, false);
+        }
+
+        static HistoryResult stale(String data) {
+            return new HistoryResult(data, true);
         }
     }
 }
@@ -2,203 +2,281 @@ package com.valenciaBank.valenciaBank.service;
 
 import com.valenciaBank.valenciaBank.model.Crypto;
 import com.valenciaBank.valenciaBank.repository.CryptoRepository;
+import com.valenciaBank.valenciaBank.utils.CircuitBreaker;
+import com.valenciaBank.valenciaBank.utils.PriceStats;
+import com.valenciaBank.valenciaBank.utils.SingleFlight;
 import org.json.JSONObject;
 import org.json.JSONArray;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Limit;
 import org.springframework.stereotype.Service;
 import org.springframework.web.reactive.function.client.WebClient;
+import org.springframework.web.reactive.function.client.WebClientRequestException;
+import org.springframework.web.reactive.function.client.WebClientResponseException;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+import reactor.util.retry.Retry;
+
+import java.time.Duration;
 import java.time.LocalDate;
 import java.time.format.DateTimeFormatter;
 import java.util.*;
-import java.util.stream.Collectors;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Supplier;
 
 @Service
 public class CryptoService {
 
     private static final Logger log = LoggerFactory.getLogger(CryptoService.class);
 
+    // Filas por saveAll en la ingesta (múltiplo de hibernate.jdbc.batch_size)
+    private static final int INGEST_CHUNK_SIZE = 500;
+
+    private static final String PREMIUM_ERROR =
+            "{\"error\":\"Debes pagar servicio premium si quieres acceder a esta información.\"}";
+
     @Value("${api.key}")
     private String apiKey;
 
+    // Reintentos ante errores transitorios (red, timeout, 5xx), con espera exponencial
+    @Value("${providers.http.max-retries:2}")
+    private int maxRetries;
+
+    @Value("${providers.http.retry-backoff-ms:500}")
+    private long retryBackoffMs;
+
     private final WebClient webClient;
-    private final Map<String, String> cachedData = new HashMap<>();
+    // Peticiones simultáneas iguales comparten un solo pipeline (y una sola llamada al proveedor)
+    private final SingleFlight<String, String> inFlight = new SingleFlight<>("crypto-service");
+    private final Map<String, String> cachedData = new ConcurrentHashMap<>();
     private final CryptoRepository cryptoRepository;
 
-    public CryptoService(CryptoRepository cryptoRepository) {
+    private final ProviderRegistry providerRegistry;
+    private final IndicatorService indicatorService;
+
+    public CryptoService(CryptoRepository cryptoRepository, ProviderRegistry providerRegistry,
+                         IndicatorService indicatorService, WebClient providerWebClient) {
         this.cryptoRepository = cryptoRepository;
-        this.webClient = WebClient.create();
+        this.providerRegistry = providerRegistry;
+        this.indicatorService = indicatorService;
+        this.webClient = providerWebClient;
     }
 
     // ✅ Llama a la API externa Alpha Vantage
     public String llamarAPIExterna(String crytpoName, String market) {
+        return llamarAPIExternaMono(crytpoName, market).block();
+    }
+
+    /**
+     * Serie diaria de Alpha Vantage sin bloquear: la respuesta válida se guarda en BD
+     * (en boundedElastic, JPA es bloqueante) y los errores se devuelven como JSON de error
+     */
+    public Mono<String> llamarAPIExternaMono(String crytpoName, String market) {
         String url = "https://www.alphavantage.co/query?function=DIGITAL_CURRENCY_DAILY&symbol="
                     + crytpoName + "&market=" + market + "&apikey=" + apiKey;
-        try {
-            String data = webClient.get()
-                    .uri(url)
-                    .retrieve()
-                    .bodyToMono(String.class)
-                    .block();
-
-            // Detectar si es error de rate limit
-            if (data.contains("rate limit") || data.contains("standard API rate limit")) {
-                log.warn("Rate limit alcanzado en Alpha Vantage API");
-                return "{\"error\":\"Debes pagar servicio premium si quieres acceder a esta información.\"}";
-            }
-
-            // Validar que la respuesta contenga datos válidos
-            JSONObject jsonResponse = new JSONObject(data);
-            if (!jsonResponse.has("Time Series (Digital Currency Daily)")) {
-                log.warn("API no retornó datos para {}. Respuesta: {}", crytpoName, data);
-                return "{\"error\":\"De momento no trabajamos con la criptomoneda " + crytpoName + ". Intenta con otra.\"}";
-            }
-
-            cachedData.put(crytpoName + "-" + market, data);
-            saveDataInOurBBDD(cachedData, crytpoName, market);
-            return data;
-        } catch (Exception e) {
-            log.error("Error llamando API externa para {}: {}", crytpoName, e.getMessage(), e);
-            return "{\"error\":\"De momento no trabajamos con la criptomoneda " + crytpoName + ". Intenta con otra.\"}";
-        }
+        String notSupported = "{\"error\":\"De momento no trabajamos con la criptomoneda " + crytpoName + ". Intenta con otra.\"}";
+        return coalesce("daily:" + crytpoName + ":" + market, () -> fetch(ExternalProvider.ALPHA_VANTAGE, url)
+                .publishOn(Schedulers.boundedElastic())
+                .map(data -> {
+                    // Detectar si es error de rate limit
+                    if (isRateLimited(data)) {
+                        return PREMIUM_ERROR;
+                    }
+
+                    // Validar que la respuesta contenga datos válidos
+                    JSONObject jsonResponse = new JSONObject(data);
+                    if (!jsonResponse.has("Time Series (Digital Currency Daily)")) {
+                        log.warn("API no retornó datos para {}. Respuesta: {}", crytpoName, data);
+                        return notSupported;
+                    }
+
+                    cachedData.put(crytpoName + "-" + market, data);
+                    saveDataInOurBBDD(cachedData, crytpoName, market);
+                    return data;
+                })
+                .onErrorResume(CircuitBreaker.OpenException.class, e -> {
+                    log.warn("{} - sirviendo sin Alpha Vantage", e.getMessage());
+                    return Mono.just(PREMIUM_ERROR);
+                })
+                .onErrorResume(e -> {
+                    log.error("Error llamando API externa para {}: {}", crytpoName, e.getMessage(), e);
+                    return Mono.just(notSupported);
+                }));
     }
 
     // ✅ Llama a la API local si es del mismo día, sino a la externa
     public String llamarAPI(String cryptoName, String market) {
-        LocalDate lastDate = cryptoRepository.findLatestDate(cryptoName);
-
-        if (lastDate != null && lastDate.equals(LocalDate.now())) {
-            log.info("Obtengo datos de DB: {}", cryptoName);
-            return getCryptoDataFromDB(cryptoName, market);
-        } else {
-            log.info("Obtengo datos de API EXTERNA: {}", cryptoName);
-            return llamarAPIExterna(cryptoName, market);
-        }
+        return llamarAPIMono(cryptoName, market).block();
+    }
+
+    public Mono<String> llamarAPIMono(String cryptoName, String market) {
+        return Mono.fromCallable(() -> LocalDate.now().equals(cryptoRepository.findLatestDate(cryptoName)))
+                .subscribeOn(Schedulers.boundedElastic())
+                .flatMap(fromDB -> {
+                    if (fromDB) {
+                        log.info("Obtengo datos de DB: {}", cryptoName);
+                        return Mono.fromCallable(() -> getCryptoDataFromDB(cryptoName, market));
+                    }
+                    log.info("Obtengo datos de API EXTERNA: {}", cryptoName);
+                    return llamarAPIExternaMono(cryptoName, market);
+                });
     }
 
     // ✅ Llama a la API para obtener datos de Acciones/ETFs/Índices (TIME_SERIES_DAILY)
     public String llamarEquityAPI(String symbol) {
+        return llamarEquityAPIMono(symbol).block();
+    }
+
+    public Mono<String> llamarEquityAPIMono(String symbol) {
         String url = "https://www.alphavantage.co/query?function=TIME_SERIES_DAILY&symbol="
                     + symbol + "&apikey=" + apiKey;
-        try {
-            String data = webClient.get()
-                    .uri(url)
-                    .retrieve()
-                    .bodyToMono(String.class)
-                    .block();
-
-            // Detectar si es error de rate limit
-            if (data.contains("rate limit") || data.contains("standard API rate limit")) {
-                log.warn("Rate limit alcanzado en Alpha Vantage API");
-                return "{\"error\":\"Debes pagar servicio premium si quieres acceder a esta información.\"}";
-            }
-
-            // Validar que la respuesta contenga datos válidos
-            JSONObject jsonResponse = new JSONObject(data);
-            if (!jsonResponse.has("Time Series (Daily)")) {
-                log.warn("API no retornó datos para {}. Respuesta: {}", symbol, data);
-                return "{\"error\":\"De momento no trabajamos con el símbolo " + symbol + ". Intenta con otro.\"}";
-            }
-
-            return data;
-        } catch (Exception e) {
-            log.error("Error llamando Equity API para {}: {}", symbol, e.getMessage(), e);
-            return "{\"error\":\"De momento no trabajamos con el símbolo " + symbol + ". Intenta con otro.\"}";
-        }
+        String notSupported = "{\"error\":\"De momento no trabajamos con el símbolo " + symbol + ". Intenta con otro.\"}";
+        return coalesce("equity:" + symbol, () -> fetch(ExternalProvider.ALPHA_VANTAGE, url)
+                .map(data -> {
+                    // Detectar si es error de rate limit
+                    if (isRateLimited(data)) {
+                        return PREMIUM_ERROR;
+                    }
+
+                    // Validar que la respuesta contenga datos válidos
+                    JSONObject jsonResponse = new JSONObject(data);
+                    if (!jsonResponse.has("Time Series (Daily)")) {
+                        log.warn("API no retornó datos para {}. Respuesta: {}", symbol, data);
+                        return notSupported;
+                    }
+                    return data;
+                })
+                .onErrorResume(CircuitBreaker.OpenException.class, e -> {
+                    log.warn("{} - sirviendo sin Alpha Vantage", e.getMessage());
+                    return Mono.just(PREMIUM_ERROR);
+                })
+                .onErrorResume(e -> {
+                    log.error("Error llamando Equity API para {}: {}", symbol, e.getMessage(), e);
+                    return Mono.just(notSupported);
+                }));
     }
 
     // ✅ NUEVO: Obtener Perfil de ETF con sus holdings
     public String getETFProfile(String symbol) {
-        try {
-            String url = "https://www.alphavantage.co/query?function=ETF_PROFILE&symbol="
-                    + symbol + "&apikey=" + apiKey;
-            
-            String data = webClient.get()
-                    .uri(url)
-                    .retrieve()
-                    .bodyToMono(String.class)
-                    .block();
-            
-            // Detectar si es error de rate limit
-            if (data.contains("rate limit") || data.contains("standard API rate limit")) {
-                log.warn("Rate limit alcanzado en Alpha Vantage API");
-                return "{\"error\":\"Debes pagar servicio premium si quieres acceder a esta información.\"}";
-            }
-            
-            JSONObject response = new JSONObject(data);
-            if (!response.has("symbol")) {
-                return "{\"error\":\"No se encontró información del ETF " + symbol + "\"}";
-            }
-            
-            return data;
-        } catch (Exception e) {
-            return "{\"error\":\"Error obteniendo perfil del ETF " + symbol + "\"}";
-        }
+        return getETFProfileMono(symbol).block();
+    }
+
+    public Mono<String> getETFProfileMono(String symbol) {
+        String url = "https://www.alphavantage.co/query?function=ETF_PROFILE&symbol="
+                + symbol + "&apikey=" + apiKey;
+        return coalesce("etf:" + symbol, () -> fetch(ExternalProvider.ALPHA_VANTAGE, url)
+                .map(data -> {
+                    // Detectar si es error de rate limit
+                    if (isRateLimited(data)) {
+                        return PREMIUM_ERROR;
+                    }
+
+                    JSONObject response = new JSONObject(data);
+                    if (!response.has("symbol")) {
+                        return "{\"error\":\"No se encontró información del ETF " + symbol + "\"}";
+                    }
+                    return data;
+                })
+                .onErrorResume(CircuitBreaker.OpenException.class, e -> {
+                    log.warn("{} - sirviendo sin Alpha Vantage", e.getMessage());
+                    return Mono.just(PREMIUM_ERROR);
+                })
+                .onErrorResume(e -> Mono.just("{\"error\":\"Error obteniendo perfil del ETF " + symbol + "\"}")));
     }
 
     // ✅ NUEVO: Precio actual usando CoinGecko (sin límite de rate)
     public String getCurrentPrice(String symbol) {
-        try {
-            String url = "https://api.coingecko.com/api/v3/simple/price?ids=" 
-                    + symbol.toLowerCase() 
-                    + "&vs_currencies=usd,eur&include_market_cap=true&include_24hr_change=true";
-            
-            String data = webClient.get()
-                    .uri(url)
-                    .retrieve()
-                    .bodyToMono(String.class)
-                    .block();
-            return data;
-        } catch (Exception e) {
-            return "{\"error\":\"Error obteniendo precio de " + symbol + "\"}";
-        }
+        return getCurrentPriceMono(symbol).block();
+    }
+
+    public Mono<String> getCurrentPriceMono(String symbol) {
+        String url = "https://api.coingecko.com/api/v3/simple/price?ids="
+                + symbol.toLowerCase()
+                + "&vs_currencies=usd,eur&include_market_cap=true&include_24hr_change=true";
+        return coalesce("price:" + symbol.toLowerCase(), () -> fetch(ExternalProvider.COINGECKO, url)
+                .onErrorResume(e -> Mono.just("{\"error\":\"Error obteniendo precio de " + symbol + "\"}")));
     }
 
     // ✅ NUEVO: Top 10 criptomonedas por market cap
     public String getTop10Cryptocurrencies() {
-        try {
-            String url = "https://api.coingecko.com/api/v3/coins/markets?"
-                    + "vs_currency=eur&order=market_cap_desc&per_page=10&page=1";
-            
-            String data = webClient.get()
-                    .uri(url)
-                    .retrieve()
-                    .bodyToMono(String.class)
-                    .block();
-            return data;
-        } catch (Exception e) {
-            return "{\"error\":\"Error obteniendo Top 10 criptos\"}";
+        return getTop10CryptocurrenciesMono().block();
+    }
+
+    public Mono<String> getTop10CryptocurrenciesMono() {
+        String url = "https://api.coingecko.com/api/v3/coins/markets?"
+                + "vs_currency=eur&order=market_cap_desc&per_page=10&page=1";
+        return coalesce("top10", () -> fetch(ExternalProvider.COINGECKO, url)
+                .onErrorResume(e -> Mono.just("{\"error\":\"Error obteniendo Top 10 criptos\"}")));
+    }
+
+    /**
+     * Ejecutar el pipeline una sola vez por clave en vuelo: las suscripciones que llegan mientras
+     * tanto reciben el mismo resultado. Cancelar una no cancela el pipeline compartido
+     */
+    private Mono<String> coalesce(String key, Supplier<Mono<String>> pipeline) {
+        return Mono.fromFuture(() -> inFlight.executeAsync(key, () -> pipeline.get().toFuture()));
+    }
+
+    /**
+     * GET al proveedor pasando por su rate limiter y circuit breaker, con reintentos
+     * (cada reintento vuelve a pedir permiso) solo para errores transitorios
+     */
+    private Mono<String> fetch(ExternalProvider provider, String url) {
+        return providerRegistry.callReactive(provider, () -> webClient.get()
+                        .uri(url)
+                        .retrieve()
+                        .bodyToMono(String.class)
+                        .defaultIfEmpty(""))
+                .retryWhen(Retry.backoff(maxRetries, Duration.ofMillis(retryBackoffMs))
+                        .filter(CryptoService::isTransient)
+                        .doBeforeRetry(signal -> log.warn("Reintento {} de {}: {}", signal.totalRetries() + 1,
+                                provider.getKey(), signal.failure().toString()))
+                        .onRetryExhaustedThrow((spec, signal) -> signal.failure()));
+    }
+
+    private static boolean isTransient(Throwable e) {
+        if (e instanceof WebClientResponseException responseError) {
+            return responseError.getStatusCode().is5xxServerError();
         }
+        return e instanceof WebClientRequestException || e instanceof TimeoutException;
+    }
+
+    // Alpha Vantage responde 200 con un aviso cuando se agota la cuota
+    private boolean isRateLimited(String data) {
+        if (data.contains("rate limit") || data.contains("standard API rate limit")) {
+            log.warn("Rate limit alcanzado en Alpha Vantage API");
+            providerRegistry.breaker(ExternalProvider.ALPHA_VANTAGE).onRateLimited(null);
+            return true;
+        }
+        return false;
     }
 
     // ✅ NUEVO: Análisis de una criptomoneda (promedio, cambio %, volatilidad)
     public String getAnalysis(String symbol, int days) {
         try {
-            List<Crypto> cryptoList = cryptoRepository.findByCryptoName(symbol);
-            
-            if (cryptoList.isEmpty()) {
+            // Últimas N velas (LIMIT en la BD), de la más reciente a la más antigua
+            List<Crypto> window = cryptoRepository.findLatest(symbol, Limit.of(days));
+
+            if (window.isEmpty()) {
                 return "{\"error\":\"No data found for " + symbol + "\"}";
             }
 
-            // Limitar por número de días
-            List<Crypto> limitedList = cryptoList.stream()
-                    .sorted(Comparator.comparing(Crypto::getDate).reversed())
-                    .limit(days)
-                    .collect(Collectors.toList());
-
-            double avgPrice = limitedList.stream()
-                    .mapToDouble(Crypto::getClose)
-                    .average()
-                    .orElse(0.0);
-
-            double firstClose = limitedList.get(limitedList.size() - 1).getClose();
-            double lastClose = limitedList.get(0).getClose();
-            double percentChange = ((lastClose - firstClose) / firstClose) * 100;
+            // Una sola pasada en orden cronológico
+            PriceStats stats = new PriceStats();
+            for (int i = window.size() - 1; i >= 0; i--) {
+                Crypto candle = window.get(i);
+                stats.add(candle.getClose(), candle.getHigh(), candle.getLow());
+            }
 
-            double volatility = calculateVolatility(limitedList);
-            double highPrice = limitedList.stream().mapToDouble(Crypto::getHigh).max().orElse(0.0);
-            double lowPrice = limitedList.stream().mapToDouble(Crypto::getLow).min().orElse(0.0);
+            double avgPrice = stats.getMean();
+            double lastClose = stats.getLast();
+            double percentChange = stats.getChangePercent();
+            double volatility = stats.getStdDev();
+            double highPrice = stats.getHigh();
+            double lowPrice = stats.getLow();
 
             JSONObject result = new JSONObject();
             result.put("symbol", symbol);
@@ -209,6 +287,8 @@ public class CryptoService {
             result.put("highest_price", highPrice);
             result.put("lowest_price", lowPrice);
             result.put("current_price", lastClose);
+            result.put("log_return_volatility", Math.round(stats.getLogReturnVolatilityPercent() * 100.0) / 100.0);
+            result.put("max_drawdown", Math.round(stats.getMaxDrawdownPercent() * 100.0) / 100.0);
 
             return result.toString();
         } catch (Exception e) {
@@ -223,11 +303,7 @@ public class CryptoService {
             LocalDate startDate = LocalDate.parse(startDateStr, formatter);
             LocalDate endDate = LocalDate.parse(endDateStr, formatter);
 
-            List<Crypto> cryptoList = cryptoRepository.findByCryptoName(symbol);
-            List<Crypto> filtered = cryptoList.stream()
-                    .filter(c -> !c.getDate().isBefore(startDate) && !c.getDate().isAfter(endDate))
-                    .sorted(Comparator.comparing(Crypto::getDate))
-                    .collect(Collectors.toList());
+            List<Crypto> filtered = cryptoRepository.findByNameAndDateRange(symbol, startDate, endDate);
 
             JSONObject result = new JSONObject();
             JSONObject timeSeries = new JSONObject();
@@ -255,19 +331,22 @@ public class CryptoService {
     // ✅ NUEVO: Comparar múltiples criptomonedas
     public String compareCryptos(String symbols) {
         try {
-            String[] cryptoArray = symbols.split(",");
+            Set<String> cryptoNames = new LinkedHashSet<>();
+            for (String crypto : symbols.split(",")) {
+                cryptoNames.add(crypto.trim());
+            }
             JSONObject result = new JSONObject();
             JSONArray comparisons = new JSONArray();
 
-            for (String crypto : cryptoArray) {
-                crypto = crypto.trim();
-                List<Crypto> cryptoList = cryptoRepository.findByCryptoName(crypto);
-                
-                if (!cryptoList.isEmpty()) {
-                    Crypto latest = cryptoList.stream()
-                            .max(Comparator.comparing(Crypto::getDate))
-                            .orElse(cryptoList.get(0));
+            // Última vela de cada símbolo en una sola consulta
+            Map<String, Crypto> latestByName = new HashMap<>();
+            for (Crypto latest : cryptoRepository.findLatestByNames(cryptoNames)) {
+                latestByName.put(latest.getName(), latest);
+            }
 
+            for (String crypto : cryptoNames) {
+                Crypto latest = latestByName.get(crypto);
+                if (latest != null) {
                     JSONObject obj = new JSONObject();
                     obj.put("symbol", crypto);
                     obj.put("latest_price", latest.getClose());
@@ -283,16 +362,13 @@ public class CryptoService {
         }
     }
 
-    // Método auxiliar: Calcula la volatilidad (desviación estándar)
-    private double calculateVolatility(List<Crypto> cryptoList) {
-        double[] prices = cryptoList.stream().mapToDouble(Crypto::getClose).toArray();
-        double mean = Arrays.stream(prices).average().orElse(0.0);
-        double variance = Arrays.stream(prices).map(p -> Math.pow(p - mean, 2)).average().orElse(0.0);
-        return Math.sqrt(variance);
-    }
-
-    // Guarda los datos en la base de datos
-    public void saveDataInOurBBDD(Map<String, String> data, String crytpoName, String market) {
+    /**
+     * Ingesta incremental de la serie diaria de Alpha Vantage: solo se insertan las fechas
+     * posteriores a la última guardada, en lotes (hibernate.jdbc.batch_size)
+     * @return filas insertadas
+     */
+    public int saveDataInOurBBDD(Map<String, String> data, String crytpoName, String market) {
+        long start = System.nanoTime();
         try {
             String cryptoEurJson = data.get(crytpoName + "-" + market);
             JSONObject dataJSON = new JSONObject(cryptoEurJson);
@@ -300,31 +376,57 @@ public class CryptoService {
             // Validar que existe la clave antes de intentar acceder
             if (!dataJSON.has("Time Series (Digital Currency Daily)")) {
                 log.warn("No hay 'Time Series' para {}", crytpoName);
-                return;
+                return 0;
             }
 
             JSONObject timeSeries = dataJSON.getJSONObject("Time Series (Digital Currency Daily)");
             DateTimeFormatter formatter = DateTimeFormatter.ofPattern("yyyy-MM-dd");
-
-            for (String date : timeSeries.keySet()) {
+            LocalDate latest = cryptoRepository.findLatestDate(crytpoName);
+
+            List<Crypto> newRows = new ArrayList<>();
+            // keys() y no keySet(): el android-json del classpath de tests no tiene keySet
+            Iterator<String> dates = timeSeries.keys();
+            while (dates.hasNext()) {
+                String date = dates.next();
+                LocalDate day = LocalDate.parse(date, formatter);
+                if (latest != null && !day.isAfter(latest)) {
+                    continue; // Ya está en BD
+                }
                 JSONObject values = timeSeries.getJSONObject(date);
 
                 Crypto crypto = new Crypto();
                 crypto.setName(crytpoName);
-                crypto.setDate(LocalDate.parse(date, formatter));
+                crypto.setDate(day);
                 crypto.setOpen(values.getDouble("1. open"));
                 crypto.setHigh(values.getDouble("2. high"));
                 crypto.setLow(values.getDouble("3. low"));
                 crypto.setClose(values.getDouble("4. close"));
                 crypto.setVolume(values.getDouble("5. volume"));
-                cryptoRepository.save(crypto);
+                newRows.add(crypto);
             }
+
+            // Cada bloque es una transacción: acota el contexto de persistencia en la primera carga
+            for (int from = 0; from < newRows.size(); from += INGEST_CHUNK_SIZE) {
+                cryptoRepository.saveAll(newRows.subList(from, Math.min(from + INGEST_CHUNK_SIZE, newRows.size())));
+            }
+
+            log.info("Ingesta {}: {} filas nuevas de {} (última fecha en BD {}) en {} ms", crytpoName,
+                    newRows.size(), timeSeries.length(), latest, (System.nanoTime() - start) / 1_000_000);
+
+            // Los indicadores continúan desde el último día calculado con las velas nuevas
+            if (!newRows.isEmpty()) {
+                try {
+                    indicatorService.updateIndicators(crytpoName);
+                } catch (Exception e) {
+                    log.warn("No se pudieron actualizar los indicadores de {}: {}", crytpoName, e.getMessage());
+                }
+            }
+            return newRows.size();
         } catch (Exception e) {
             log.error("Error guardando datos de {}: {}", crytpoName, e.getMessage(), e);
+            return 0;
         }
     }
-
-    // Recupera los datos de la base de datos
     private String getCryptoDataFromDB(String crytpoName, String market) {
         List<Crypto> cryptoList = cryptoRepository.findByCryptoName(crytpoName);
         if (cryptoList.isEmpty()) {
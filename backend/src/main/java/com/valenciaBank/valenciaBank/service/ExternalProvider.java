@@ -0,0 +1,55 @@
+package com.valenciaBank.valenciaBank.service;
+
+/**
+ * APIs externas a las que llama el backend, con su host y su presupuesto por defecto
+ * (plan gratuito de cada proveedor). Se puede sobrescribir con
+ * providers.<key>.permits-per-second / burst / max-queue.
+ */
+public enum ExternalProvider {
+
+    COINGECKO("coingecko", "api.coingecko.com", 0.5, 3),             // ~30 llamadas/min
+    FINNHUB("finnhub", "finnhub.io", 1.0, 5),                         // 60 llamadas/min
+    YAHOO("yahoo", "query1.finance.yahoo.com", 2.0, 5),               // API no oficial, sin límite publicado
+    ALPHA_VANTAGE("alphavantage", "www.alphavantage.co", 5.0 / 60, 5), // 5 llamadas/min
+    GROQ("groq", "api.groq.com", 0.5, 5);                             // 30 peticiones/min
+
+    private final String key;
+    private final String host;
+    private final double defaultPermitsPerSecond;
+    private final int defaultBurst;
+
+    ExternalProvider(String key, String host, double defaultPermitsPerSecond, int defaultBurst) {
+        this.key = key;
+        this.host = host;
+        this.defaultPermitsPerSecond = defaultPermitsPerSecond;
+        this.defaultBurst = defaultBurst;
+    }
+
+    /**
+     * Proveedor al que pertenece un host (null si no es de ningún proveedor conocido)
+     */
+    public static ExternalProvider fromHost(String host) {
+        for (ExternalProvider provider : values()) {
+            if (provider.host.equalsIgnoreCase(host)) {
+                return provider;
+            }
+        }
+        return null;
+    }
+
+    public String getKey() {
+        return key;
+    }
+
+    public String getHost() {
+        return host;
+    }
+
+    public double getDefaultPermitsPerSecond() {
+        return defaultPermitsPerSecond;
+    }
+
+    public int getDefaultBurst() {
+        return defaultBurst;
+    }
+}
@@ -1,13 +1,12 @@
 package com.valenciaBank.valenciaBank.service;
 
+import com.valenciaBank.valenciaBank.utils.SingleFlight;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 import org.springframework.web.client.RestTemplate;
-import java.util.Arrays;
-import java.util.HashSet;
 import java.util.Set;
 
 @Service
@@ -18,20 +17,26 @@ public class FinnhubService {
     private final RestTemplate restTemplate;
     private static final String FINNHUB_API_URL = "https://finnhub.io/api/v1";
     
-    // Símbolos que funcionan bien en Finnhub (plan free)
-    private static final Set<String> SUPPORTED_SYMBOLS = new HashSet<>(Arrays.asList(
+    // Símbolos que funcionan bien en Finnhub (plan free); solo lectura, también lo usa NewsSymbolTagger
+    static final Set<String> SUPPORTED_SYMBOLS = Set.of(
         "SPY", "VOO", "IVV", "VTI", "BND", "AGG", "QQQ", "IWM", "EEM", "VEA", "VWO",
         "XLK", "XLV", "XLF", "XLY", "XLP", "XLI", "XLE", "XLRE", "XLU",
         "AAPL", "MSFT", "GOOGL", "AMZN", "TSLA", "META", "NVDA", "JPM", "V", "WMT",
         "JNJ", "PG", "MA", "HD", "COST", "KO", "DIS", "PYPL", "NFLX", "ADBE"
-    ));
+    );
 
     @Value("${finnhub.api.key:}")
     private String finnhubApiKey;
 
+    private final ProviderRegistry providerRegistry;
+
+    // Peticiones simultáneas iguales (misma cotización, velas o búsqueda) comparten una llamada
+    private final SingleFlight<String, String> inFlight = new SingleFlight<>("finnhub");
+
     @Autowired
-    public FinnhubService(RestTemplate restTemplate) {
+    public FinnhubService(RestTemplate restTemplate, ProviderRegistry providerRegistry) {
         this.restTemplate = restTemplate;
+        this.providerRegistry = providerRegistry;
     }
 
     /**
@@ -53,7 +58,7 @@ public class FinnhubService {
                 finnhubApiKey
             );
 
-            String response = restTemplate.getForObject(url, String.class);
+            String response = callFinnhub("quote:" + symbol.toUpperCase(), url);
             log.info("Finnhub response para {}: OK", symbol);
             return response;
         } catch (Exception e) {
@@ -95,7 +100,8 @@ public class FinnhubService {
                 finnhubApiKey
             );
 
-            String response = restTemplate.getForObject(url, String.class);
+            // La clave no incluye from/to: cambian cada segundo
+            String response = callFinnhub("candles:" + upperSymbol + ":" + resolution + ":" + days, url);
             log.info("Finnhub candles obtenidos para {}", upperSymbol);
             return response;
         } catch (Exception e) {
@@ -122,7 +128,7 @@ public class FinnhubService {
                 finnhubApiKey
             );
 
-            String response = restTemplate.getForObject(url, String.class);
+            String response = callFinnhub("search:" + query, url);
             log.info("Finnhub search response para {}: OK", query);
             return response;
         } catch (Exception e) {
@@ -130,4 +136,12 @@ public class FinnhubService {
             return "{\"error\": \"Error al buscar ETF\"}";
         }
     }
+
+    /**
+     * GET a Finnhub a través de su circuit breaker y rate limiter, una sola vez por clave en vuelo
+     */
+    private String callFinnhub(String key, String url) {
+        return inFlight.execute(key,
+                () -> providerRegistry.call(ExternalProvider.FINNHUB, () -> restTemplate.getForObject(url, String.class)));
+    }
 }
@@ -0,0 +1,174 @@
+package com.valenciaBank.valenciaBank.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Caché L1 en memoria (Caffeine) delante de la serie histórica en BD (L2, CRYPTO_PRICE_POINT).
+ *
+ * - Clave (símbolo, días, moneda) de la petición, aunque el dato venga de un rango mayor
+ * - Límite por peso: bytes aproximados del JSON, no número de entradas
+ * - Cada entrada caduca con el expiresAt de la serie en BD; después se mantiene staleMs
+ *   más para servirla mientras se revalida en segundo plano (stale-while-revalidate)
+ */
+@Component
+public class HistoryMemoryCache {
+
+    private static final Logger log = LoggerFactory.getLogger(HistoryMemoryCache.class);
+
+    // Coste fijo aproximado de la entrada y la clave además del JSON
+    private static final int ENTRY_OVERHEAD_BYTES = 96;
+
+    private final Cache<Key, Entry> cache;
+    private final long staleMs;
+    private final Executor refreshExecutor;
+    private final Set<Key> refreshing = ConcurrentHashMap.newKeySet();
+
+    @Autowired
+    public HistoryMemoryCache(@Value("${history.l1.max-bytes:67108864}") long maxBytes,
+                              @Value("${history.l1.stale-ms:3600000}") long staleMs,
+                              @Qualifier("providerExecutor") Executor refreshExecutor) {
+        this(maxBytes, staleMs, refreshExecutor, null);
+    }
+
+    /**
+     * @param maintenanceExecutor executor de mantenimiento de Caffeine (null = el de por defecto)
+     */
+    HistoryMemoryCache(long maxBytes, long staleMs, Executor refreshExecutor, Executor maintenanceExecutor) {
+        this.staleMs = staleMs;
+        this.refreshExecutor = refreshExecutor;
+        Caffeine<Key, Entry> builder = Caffeine.newBuilder()
+                .maximumWeight(maxBytes)
+                .weigher((Key key, Entry entry) -> weigh(entry))
+                .expireAfter(new Expiry<Key, Entry>() {
+                    @Override
+                    public long expireAfterCreate(Key key, Entry entry, long currentTime) {
+                        return retentionNanos(entry);
+                    }
+
+                    @Override
+                    public long expireAfterUpdate(Key key, Entry entry, long currentTime, long currentDuration) {
+                        return retentionNanos(entry);
+                    }
+
+                    @Override
+                    public long expireAfterRead(Key key, Entry entry, long currentTime, long currentDuration) {
+                        return currentDuration;
+                    }
+                })
+                .recordStats();
+        if (maintenanceExecutor != null) {
+            builder.executor(maintenanceExecutor);
+        }
+        this.cache = builder.build();
+    }
+
+    /**
+     * Entrada en memoria, vigente o en ventana stale (null si no hay)
+     */
+    public Entry get(String symbol, int days, String currency) {
+        return cache.getIfPresent(new Key(symbol, days, currency));
+    }
+
+    /**
+     * Guardar un histórico con la caducidad de su serie en BD
+     */
+    public void put(String symbol, int days, String currency, String data, LocalDateTime expiresAt) {
+        if (data == null || expiresAt == null) {
+            return;
+        }
+        long expiresAtMillis = expiresAt.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+        cache.put(new Key(symbol, days, currency), new Entry(data, expiresAtMillis));
+    }
+
+    public void invalidate(String symbol, int days, String currency) {
+        cache.invalidate(new Key(symbol, days, currency));
+    }
+
+    /**
+     * Lanzar una revalidación en segundo plano, como mucho una a la vez por clave
+     * @return true si se ha lanzado, false si ya había una en curso o el pool está lleno
+     */
+    public boolean refreshAsync(String symbol, int days, String currency, Runnable refresh) {
+        Key key = new Key(symbol, days, currency);
+        if (!refreshing.add(key)) {
+            return false;
+        }
+        try {
+            refreshExecutor.execute(() -> {
+                try {
+                    refresh.run();
+                } catch (Exception e) {
+                    log.warn("Error revalidando histórico de {} ({} días): {}", symbol, days, e.getMessage());
+                } finally {
+                    refreshing.remove(key);
+                }
+            });
+            return true;
+        } catch (RejectedExecutionException e) {
+            refreshing.remove(key);
+            return false;
+        }
+    }
+
+    /**
+     * Métricas de la caché L1
+     */
+    public Map<String, Object> getMetrics() {
+        CacheStats stats = cache.stats();
+        Map<String, Object> metrics = new LinkedHashMap<>();
+        metrics.put("entries", cache.estimatedSize());
+        metrics.put("weightBytes", cache.policy().eviction()
+                .map(eviction -> eviction.weightedSize().orElse(0L))
+                .orElse(0L));
+        metrics.put("hits", stats.hitCount());
+        metrics.put("misses", stats.missCount());
+        metrics.put("evictions", stats.evictionCount());
+        metrics.put("refreshing", refreshing.size());
+        return metrics;
+    }
+
+    void cleanUp() {
+        cache.cleanUp();
+    }
+
+    private long retentionNanos(Entry entry) {
+        long retainUntil = entry.expiresAtMillis() + staleMs;
+        return TimeUnit.MILLISECONDS.toNanos(Math.max(0, retainUntil - System.currentTimeMillis()));
+    }
+
+    private static int weigh(Entry entry) {
+        // Los JSON de CoinGecko son ASCII: Java los guarda con 1 byte por carácter
+        return (int) Math.min(Integer.MAX_VALUE, (long) entry.data().length() + ENTRY_OVERHEAD_BYTES);
+    }
+
+    private record Key(String symbol, int days, String currency) {
+    }
+
+    /**
+     * Histórico en memoria y momento (epoch ms) en que deja de estar vigente
+     */
+    public record Entry(String data, long expiresAtMillis) {
+        public boolean isFresh() {
+            return System.currentTimeMillis() < expiresAtMillis;
+        }
+    }
+}
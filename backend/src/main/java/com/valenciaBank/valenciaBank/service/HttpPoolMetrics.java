@@ -0,0 +1,74 @@
+package com.valenciaBank.valenciaBank.service;
+
+import org.springframework.stereotype.Component;
+import reactor.netty.resources.ConnectionPoolMetrics;
+import reactor.netty.resources.ConnectionProvider;
+
+import java.net.InetSocketAddress;
+import java.net.SocketAddress;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Métricas del pool de conexiones HTTP a los proveedores (ver RestTemplateConfig).
+ *
+ * Reactor Netty registra aquí cada pool que crea (uno por host remoto) y las métricas se leen
+ * en el momento de consultarlas, sin Micrometer.
+ */
+@Component
+public class HttpPoolMetrics implements ConnectionProvider.MeterRegistrar {
+
+    private final Map<String, Registered> pools = new ConcurrentHashMap<>();
+
+    @Override
+    public void registerMetrics(String poolName, String id, SocketAddress remoteAddress, ConnectionPoolMetrics metrics) {
+        pools.put(poolName + ":" + id, new Registered(hostOf(remoteAddress), metrics));
+    }
+
+    @Override
+    public void deRegisterMetrics(String poolName, String id, SocketAddress remoteAddress) {
+        pools.remove(poolName + ":" + id);
+    }
+
+    /**
+     * Conexiones por host remoto: en uso, abiertas, libres y peticiones esperando conexión
+     */
+    public Map<String, Object> getMetrics() {
+        Map<String, int[]> byHost = new TreeMap<>();
+        for (Registered pool : pools.values()) {
+            int[] totals = byHost.computeIfAbsent(pool.host, h -> new int[6]);
+            totals[0] += pool.metrics.acquiredSize();
+            totals[1] += pool.metrics.allocatedSize();
+            totals[2] += pool.metrics.idleSize();
+            totals[3] += pool.metrics.pendingAcquireSize();
+            totals[4] += pool.metrics.maxAllocatedSize();
+            totals[5] += pool.metrics.maxPendingAcquireSize();
+        }
+
+        Map<String, Object> result = new TreeMap<>();
+        for (Map.Entry<String, int[]> entry : byHost.entrySet()) {
+            int[] totals = entry.getValue();
+            Map<String, Object> host = new LinkedHashMap<>();
+            host.put("acquired", totals[0]);
+            host.put("allocated", totals[1]);
+            host.put("idle", totals[2]);
+            host.put("pendingAcquire", totals[3]);
+            host.put("maxConnections", totals[4]);
+            host.put("maxPendingAcquire", totals[5]);
+            result.put(entry.getKey(), host);
+        }
+        return result;
+    }
+
+    private static String hostOf(SocketAddress address) {
+        if (address instanceof InetSocketAddress inet) {
+            return inet.getHostString() + ":" + inet.getPort();
+        }
+        return String.valueOf(address);
+    }
+
+    private record Registered(String host, ConnectionPoolMetrics metrics) {
+    }
+}
@@ -0,0 +1,165 @@
+package com.valenciaBank.valenciaBank.service;
+
+import com.valenciaBank.valenciaBank.model.Crypto;
+import com.valenciaBank.valenciaBank.model.CryptoIndicator;
+import com.valenciaBank.valenciaBank.repository.CryptoIndicatorRepository;
+import com.valenciaBank.valenciaBank.repository.CryptoRepository;
+import com.valenciaBank.valenciaBank.utils.IndicatorEngine;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Limit;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDate;
+import java.util.*;
+
+/**
+ * Indicadores técnicos (SMA, EMA, MACD, RSI, Bollinger) precalculados sobre las velas diarias de CRYPTO.
+ *
+ * - Se actualizan al ingerir velas nuevas: el cálculo continúa desde el estado del último día
+ *   guardado (O(1) por vela e indicador), solo se recalcula todo si no hay estado o no cuadra
+ * - Se guardan en CRYPTO_INDICATOR y se sirven desde ahí en /api/indicators/{symbol}
+ */
+@Service
+public class IndicatorService {
+
+    private static final Logger log = LoggerFactory.getLogger(IndicatorService.class);
+
+    public static final int MAX_DAYS = 3650;
+
+    private final CryptoRepository cryptoRepository;
+    private final CryptoIndicatorRepository indicatorRepository;
+
+    @Autowired
+    public IndicatorService(CryptoRepository cryptoRepository, CryptoIndicatorRepository indicatorRepository) {
+        this.cryptoRepository = cryptoRepository;
+        this.indicatorRepository = indicatorRepository;
+    }
+
+    /**
+     * Calcular los indicadores de las velas posteriores al último día calculado
+     * @return días nuevos con indicadores
+     */
+    @Transactional
+    public int updateIndicators(String name) {
+        long start = System.nanoTime();
+        CryptoIndicator last = indicatorRepository.findLatest(name, Limit.of(1)).stream().findFirst().orElse(null);
+        IndicatorEngine engine = last != null ? resume(name, last) : null;
+        boolean incremental = engine != null;
+
+        List<Crypto> pending;
+        if (incremental) {
+            pending = cryptoRepository.findAfter(name, last.getDate());
+        } else {
+            if (last != null) {
+                log.warn("Estado de indicadores de {} incoherente, se recalcula la serie", name);
+            }
+            indicatorRepository.deleteByName(name);
+            engine = new IndicatorEngine();
+            pending = cryptoRepository.findAllByNameAsc(name);
+        }
+
+        List<CryptoIndicator> rows = new ArrayList<>(pending.size());
+        for (Crypto candle : pending) {
+            engine.add(candle.getClose());
+            rows.add(toIndicator(name, candle, engine));
+        }
+        if (!rows.isEmpty()) {
+            indicatorRepository.saveAll(rows);
+            log.info("Indicadores {}: {} días nuevos ({}) en {} ms", name, rows.size(),
+                    incremental ? "incremental" : "completo",
+                    (System.nanoTime() - start) / 1_000_000);
+        }
+        return rows.size();
+    }
+
+    /**
+     * Indicadores de los últimos días de un símbolo, en orden cronológico.
+     * Si hay velas sin indicadores (p. ej. ingeridas antes de existir el motor) se calculan antes,
+     * en la misma transacción: un recálculo completo no deja ver la serie vacía a otras lecturas.
+     */
+    @Transactional
+    public Map<String, Object> getIndicators(String symbol, int days) {
+        int limit = Math.max(1, Math.min(days, MAX_DAYS));
+        LocalDate latestCandle = cryptoRepository.findLatestDate(symbol);
+        if (latestCandle == null) {
+            return Map.of("error", "No hay datos de " + symbol);
+        }
+
+        List<CryptoIndicator> latest = indicatorRepository.findLatest(symbol, Limit.of(limit));
+        if (latest.isEmpty() || latest.get(0).getDate().isBefore(latestCandle)) {
+            updateIndicators(symbol);
+            latest = indicatorRepository.findLatest(symbol, Limit.of(limit));
+        }
+
+        List<Map<String, Object>> points = new ArrayList<>(latest.size());
+        for (int i = latest.size() - 1; i >= 0; i--) {
+            points.add(toPoint(latest.get(i)));
+        }
+
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("symbol", symbol);
+        result.put("days", points.size());
+        result.put("indicators", points);
+        return result;
+    }
+
+    /**
+     * Motor con el estado del último día calculado y sus cierres previos (null si no cuadran con CRYPTO)
+     */
+    private IndicatorEngine resume(String name, CryptoIndicator last) {
+        long count = last.getSequence();
+        List<Crypto> recent = cryptoRepository.findLatestUpTo(name, last.getDate(),
+                Limit.of(IndicatorEngine.CAPACITY));
+        if (recent.size() != Math.min(count, IndicatorEngine.CAPACITY)
+                || !recent.get(0).getDate().equals(last.getDate())) {
+            return null;
+        }
+        double[] closes = new double[recent.size()];
+        for (int i = 0; i < closes.length; i++) {
+            closes[i] = recent.get(closes.length - 1 - i).getClose();
+        }
+        return IndicatorEngine.resume(closes, count, last.getEmaFastState(), last.getEmaSlowState(),
+                last.getSignalState(), last.getAvgGainState(), last.getAvgLossState());
+    }
+
+    private static CryptoIndicator toIndicator(String name, Crypto candle, IndicatorEngine engine) {
+        CryptoIndicator indicator = new CryptoIndicator(name, candle.getDate(), candle.getClose());
+        indicator.setSma20(engine.getSma20());
+        indicator.setSma50(engine.getSma50());
+        indicator.setEma12(engine.getEma12());
+        indicator.setEma26(engine.getEma26());
+        indicator.setMacd(engine.getMacd());
+        indicator.setMacdSignal(engine.getMacdSignal());
+        indicator.setMacdHistogram(engine.getMacdHistogram());
+        indicator.setRsi14(engine.getRsi14());
+        indicator.setBollingerUpper(engine.getBollingerUpper());
+        indicator.setBollingerLower(engine.getBollingerLower());
+        indicator.setSequence(engine.getCount());
+        indicator.setEmaFastState(engine.getEmaFastState());
+        indicator.setEmaSlowState(engine.getEmaSlowState());
+        indicator.setSignalState(engine.getSignalState());
+        indicator.setAvgGainState(engine.getAvgGainState());
+        indicator.setAvgLossState(engine.getAvgLossState());
+        return indicator;
+    }
+
+    private static Map<String, Object> toPoint(CryptoIndicator indicator) {
+        Map<String, Object> point = new LinkedHashMap<>();
+        point.put("date", indicator.getDate().toString());
+        point.put("close", indicator.getClose());
+        point.put("sma20", indicator.getSma20());
+        point.put("sma50", indicator.getSma50());
+        point.put("ema12", indicator.getEma12());
+        point.put("ema26", indicator.getEma26());
+        point.put("macd", indicator.getMacd());
+        point.put("macdSignal", indicator.getMacdSignal());
+        point.put("macdHistogram", indicator.getMacdHistogram());
+        point.put("rsi14", indicator.getRsi14());
+        point.put("bollingerUpper", indicator.getBollingerUpper());
+        point.put("bollingerLower", indicator.getBollingerLower());
+        return point;
+    }
+}
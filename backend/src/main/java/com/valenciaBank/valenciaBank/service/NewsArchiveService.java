@@ -0,0 +1,263 @@
+package com.valenciaBank.valenciaBank.service;
+
+import com.valenciaBank.valenciaBank.model.NewsArticle;
+import com.valenciaBank.valenciaBank.repository.NewsArticleRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.DataAccessException;
+import org.springframework.data.domain.Limit;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.text.Normalizer;
+import java.time.OffsetDateTime;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Archivo persistente de noticias (NEWS_ARTICLE + NEWS_TERM), compartido por todos los nodos.
+ *
+ * - Cada refresco archiva las noticias nuevas; la URL normalizada (SHA-256) evita duplicados.
+ *   Cada noticia se guarda por separado: una fila que falle no impide archivar las demás
+ * - Título y descripción se trocean en términos (minúsculas, sin tildes) que forman el índice invertido
+ * - Las consultas se paginan por cursor (published_ts, id): cada página sigue donde acabó la anterior
+ *   sin OFFSET, aunque entren noticias nuevas entre una petición y otra
+ */
+@Service
+public class NewsArchiveService {
+
+    private static final Logger log = LoggerFactory.getLogger(NewsArchiveService.class);
+
+    static final int DEFAULT_PAGE_SIZE = 20;
+    static final int MAX_PAGE_SIZE = 100;
+    static final int MAX_QUERY_TERMS = 8;
+    static final int MAX_TERM_LENGTH = 40;
+    static final int MAX_URL_LENGTH = 2048; // Longitud de las columnas url e image_url
+
+    // Palabras demasiado frecuentes para buscar por ellas (es/en)
+    private static final Set<String> STOPWORDS = Set.of(
+            "de", "la", "el", "en", "los", "las", "del", "un", "una", "por", "con", "para", "que", "se", "al",
+            "su", "es", "lo", "como", "mas", "sus", "y", "o", "a",
+            "the", "of", "to", "and", "in", "on", "for", "is", "at", "by", "as", "an", "its", "it", "with", "from");
+
+    private final NewsArticleRepository newsArticleRepository;
+
+    @Autowired
+    public NewsArchiveService(NewsArticleRepository newsArticleRepository) {
+        this.newsArticleRepository = newsArticleRepository;
+    }
+
+    /**
+     * Archivar las noticias que aún no estén guardadas (por hash de URL).
+     * Sin transacción común: cada INSERT va en la suya, así una noticia rechazada por la base de
+     * datos (o insertada a la vez por otro nodo) no deshace el resto del refresco.
+     * @return noticias nuevas insertadas
+     */
+    public int archive(List<NewsArticle> articles) {
+        long fetchedAt = System.currentTimeMillis();
+        // Una entrada por URL: la misma noticia puede venir de dos fuentes en el mismo refresco
+        Map<String, NewsArticle> byHash = new LinkedHashMap<>();
+        for (NewsArticle article : articles) {
+            if (article.getUrl() == null || article.getUrl().isBlank()) {
+                continue;
+            }
+            // Una URL recortada ya no sería el enlace de la noticia: no se archiva
+            if (article.getUrl().length() > MAX_URL_LENGTH) {
+                log.debug("Noticia sin archivar, URL de {} caracteres: {}", article.getUrl().length(), article.getTitle());
+                continue;
+            }
+            byHash.putIfAbsent(urlHash(article.getUrl()), article);
+        }
+        if (byHash.isEmpty()) {
+            return 0;
+        }
+
+        Set<String> existing = newsArticleRepository.findExistingHashes(byHash.keySet());
+        int inserted = 0;
+        int failed = 0;
+        for (Map.Entry<String, NewsArticle> entry : byHash.entrySet()) {
+            if (existing.contains(entry.getKey())) {
+                continue;
+            }
+            try {
+                newsArticleRepository.save(toArchived(entry.getValue(), entry.getKey(), fetchedAt));
+                inserted++;
+            } catch (DataAccessException e) {
+                failed++;
+                log.warn("No se pudo archivar la noticia {}: {}", entry.getValue().getUrl(), e.getMessage());
+            }
+        }
+        if (inserted > 0 || failed > 0) {
+            log.info("Noticias archivadas: {} nuevas de {} ({} con error)", inserted, byHash.size(), failed);
+        }
+        return inserted;
+    }
+
+    /**
+     * Página de noticias archivadas, de la más reciente a la más antigua
+     * @param category crypto, economy o null para todas
+     * @param query palabras o símbolos a buscar (todas deben aparecer); null o vacío para no filtrar.
+     *              Si solo trae palabras que no se indexan (stopwords, una letra) no hay resultados
+     * @param before cursor devuelto por la página anterior; null para la primera
+     * @param limit tamaño de página (se acota a MAX_PAGE_SIZE)
+     * @throws IllegalArgumentException si el cursor no es válido
+     */
+    @Transactional(readOnly = true)
+    public NewsPage search(String category, String query, String before, Integer limit) {
+        int size = limit == null || limit <= 0 ? DEFAULT_PAGE_SIZE : Math.min(limit, MAX_PAGE_SIZE);
+        long[] cursor = before == null || before.isBlank() ? new long[]{Long.MAX_VALUE, Long.MAX_VALUE} : parseCursor(before);
+        String normalizedCategory = category == null || category.isBlank() ? null : category.trim().toLowerCase(Locale.ROOT);
+
+        List<String> terms = new ArrayList<>(tokenize(query));
+        if (terms.isEmpty() && query != null && !query.isBlank()) {
+            // Ninguna palabra buscable: no se puede devolver el listado sin filtrar como si coincidiera
+            return new NewsPage(List.of(), null);
+        }
+        if (terms.size() > MAX_QUERY_TERMS) {
+            terms = terms.subList(0, MAX_QUERY_TERMS);
+        }
+
+        // Un elemento de más para saber si hay página siguiente sin contar el total
+        Limit window = Limit.of(size + 1);
+        List<NewsArticle> rows = terms.isEmpty()
+                ? newsArticleRepository.findPage(normalizedCategory, cursor[0], cursor[1], window)
+                : newsArticleRepository.searchPage(normalizedCategory, terms, terms.size(), cursor[0], cursor[1], window);
+
+        if (rows.size() <= size) {
+            return new NewsPage(rows, null);
+        }
+        List<NewsArticle> page = rows.subList(0, size);
+        NewsArticle last = page.get(size - 1);
+        return new NewsPage(List.copyOf(page), last.getPublishedTs() + "_" + last.getId());
+    }
+
+    /**
+     * Últimas noticias archivadas de una categoría (arranque en caliente del scraper)
+     */
+    @Transactional(readOnly = true)
+    public List<NewsArticle> latest(String category, int limit) {
+        return newsArticleRepository.findPage(category, Long.MAX_VALUE, Long.MAX_VALUE, Limit.of(limit));
+    }
+
+    private static NewsArticle toArchived(NewsArticle article, String hash, long fetchedAt) {
+        // Copia: la instancia original pertenece a la instantánea en memoria y no debe cambiar
+        // Recortado a las columnas de NEWS_ARTICLE; una imagen con URL demasiado larga se descarta
+        String imageUrl = article.getImageUrl() != null && article.getImageUrl().length() > MAX_URL_LENGTH
+                ? null : article.getImageUrl();
+        NewsArticle archived = new NewsArticle(truncate(article.getTitle(), 500), truncate(article.getDescription(), 1000),
+                article.getUrl(), imageUrl, truncate(article.getSource(), 50), truncate(article.getCategory(), 20),
+                truncate(article.getPublishedAt(), 64));
+        archived.setUrlHash(hash);
+        archived.setPublishedTs(article.getPublishedTs() != null
+                ? article.getPublishedTs() : parsePublished(article.getPublishedAt(), fetchedAt));
+        archived.setSymbols(new LinkedHashSet<>(article.getSymbols()));
+        Set<String> terms = tokenize(article.getTitle());
+        terms.addAll(tokenize(article.getDescription()));
+        // Los símbolos etiquetados también son términos: "btc" encuentra las noticias que solo dicen "Bitcoin"
+        for (String symbol : article.getSymbols()) {
+            terms.addAll(tokenize(symbol));
+        }
+        archived.setTerms(terms);
+        return archived;
+    }
+
+    /**
+     * Términos del índice: minúsculas, sin tildes, alfanuméricos de 2 a MAX_TERM_LENGTH caracteres, sin stopwords
+     */
+    static Set<String> tokenize(String text) {
+        Set<String> terms = new LinkedHashSet<>();
+        if (text == null || text.isBlank()) {
+            return terms;
+        }
+        String normalized = Normalizer.normalize(text, Normalizer.Form.NFD)
+                .replaceAll("\\p{M}", "")
+                .toLowerCase(Locale.ROOT);
+        for (String token : normalized.split("[^a-z0-9]+")) {
+            if (token.length() >= 2 && token.length() <= MAX_TERM_LENGTH && !STOPWORDS.contains(token)) {
+                terms.add(token);
+            }
+        }
+        return terms;
+    }
+
+    /**
+     * SHA-256 de la URL sin fragmento, con esquema y host en minúsculas y sin barra final
+     */
+    static String urlHash(String url) {
+        String normalized = url.trim();
+        try {
+            URI uri = URI.create(normalized);
+            if (uri.getScheme() != null && uri.getHost() != null) {
+                String path = uri.getRawPath() == null || uri.getRawPath().equals("/") ? "" : uri.getRawPath();
+                if (path.endsWith("/")) {
+                    path = path.substring(0, path.length() - 1);
+                }
+                normalized = uri.getScheme().toLowerCase(Locale.ROOT) + "://" + uri.getHost().toLowerCase(Locale.ROOT)
+                        + (uri.getPort() >= 0 ? ":" + uri.getPort() : "") + path
+                        + (uri.getRawQuery() != null ? "?" + uri.getRawQuery() : "");
+            }
+        } catch (IllegalArgumentException e) {
+            // URL no estándar: se usa tal cual
+        }
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of().formatHex(digest.digest(normalized.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 no disponible", e);
+        }
+    }
+
+    /**
+     * Fecha de publicación de RSS (RFC 1123) o ISO-8601; si no trae o no se entiende, la de descarga
+     */
+    static long parsePublished(String publishedAt, long fallback) {
+        if (publishedAt == null || publishedAt.isBlank()) {
+            return fallback;
+        }
+        try {
+            return ZonedDateTime.parse(publishedAt.trim(), DateTimeFormatter.RFC_1123_DATE_TIME).toInstant().toEpochMilli();
+        } catch (DateTimeParseException e) {
+            try {
+                return OffsetDateTime.parse(publishedAt.trim()).toInstant().toEpochMilli();
+            } catch (DateTimeParseException ignored) {
+                return fallback;
+            }
+        }
+    }
+
+    private static long[] parseCursor(String before) {
+        String[] parts = before.trim().split("_");
+        if (parts.length != 2) {
+            throw new IllegalArgumentException("Cursor inválido: " + before);
+        }
+        try {
+            return new long[]{Long.parseLong(parts[0]), Long.parseLong(parts[1])};
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Cursor inválido: " + before);
+        }
+    }
+
+    private static String truncate(String value, int max) {
+        return value != null && value.length() > max ? value.substring(0, max) : value;
+    }
+
+    /**
+     * Página de noticias y cursor de la siguiente (null si es la última)
+     */
+    public record NewsPage(List<NewsArticle> articles, String nextCursor) {
+    }
+}
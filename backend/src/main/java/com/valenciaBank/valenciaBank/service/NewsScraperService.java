@@ -1,203 +1,400 @@
 package com.valenciaBank.valenciaBank.service;
 
 import com.valenciaBank.valenciaBank.model.NewsArticle;
+import com.valenciaBank.valenciaBank.utils.SingleFlight;
+import com.valenciaBank.valenciaBank.utils.ValidatorStore;
+import org.jsoup.Connection;
 import org.jsoup.Jsoup;
 import org.jsoup.nodes.Document;
 import org.jsoup.nodes.Element;
 import org.jsoup.select.Elements;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 
+import java.io.IOException;
+import java.time.Instant;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
-import java.util.concurrent.ConcurrentHashMap;
-
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Noticias de cripto y economía obtenidas por scraping (Jsoup).
+ *
+ * Un refresco programado descarga y parsea todas las fuentes a la vez (providerExecutor) y
+ * publica el resultado como una instantánea inmutable. Las peticiones solo leen la instantánea:
+ * nunca esperan a la red ni disparan scraping.
+ *
+ * Cada fuente se pide de forma condicional (ETag / Last-Modified): si no ha cambiado desde el
+ * refresco anterior responde 304 y se reutilizan sus artículos ya parseados, sin pasar por Jsoup.
+ *
+ * Las noticias de cada refresco se archivan en base de datos (NewsArchiveService); al arrancar,
+ * la instantánea se rellena desde el archivo para no servir listas vacías hasta el primer refresco.
+ *
+ * Al ingerir cada noticia se etiqueta con los símbolos que menciona (NewsSymbolTagger) y la
+ * instantánea incluye un índice símbolo -> noticias ya calculado, para que las páginas de cartera
+ * pidan solo los titulares de los activos del usuario.
+ */
 @Service
 public class NewsScraperService {
 
     private static final Logger log = LoggerFactory.getLogger(NewsScraperService.class);
 
-    // Cache simple: clave -> lista de noticias + timestamp
-    private final ConcurrentHashMap<String, CachedNews> cache = new ConcurrentHashMap<>();
-    private static final long CACHE_DURATION_MS = 15 * 60 * 1000; // 15 minutos
+    static final int MAX_ARTICLES = 8;
+    static final String CRYPTO = "crypto";
+    static final String ECONOMY = "economy";
+    // Titulares guardados por símbolo en el índice y noticias archivadas con las que se rellena al arrancar
+    static final int MAX_ARTICLES_PER_SYMBOL = 10;
+    static final int SYMBOL_INDEX_WARM_ARTICLES = 500;
+
+    private static final Comparator<NewsArticle> NEWEST_FIRST = Comparator.comparingLong(
+            (NewsArticle article) -> article.getPublishedTs() != null ? article.getPublishedTs() : 0L).reversed();
+
+    private static final String BROWSER_USER_AGENT = "Mozilla/5.0 (Windows NT 10.0; Win64; x64) AppleWebKit/537.36 "
+            + "(KHTML, like Gecko) Chrome/120.0.0.0 Safari/537.36";
+
+    // Fuentes de cada categoría en orden de preferencia: se usa la primera que devuelva artículos
+    static final List<Feed> FEEDS = List.of(
+            new Feed("CoinTelegraph", CRYPTO, "https://cointelegraph.com/tags/bitcoin", BROWSER_USER_AGENT, false),
+            new Feed("CoinDesk", CRYPTO, "https://www.coindesk.com/arc/outboundfeeds/rss/", "Mozilla/5.0", true),
+            new Feed("Investing.com", ECONOMY, "https://es.investing.com/rss/news.rss", BROWSER_USER_AGENT, true),
+            new Feed("CNBC", ECONOMY, "https://search.cnbc.com/rs/search/combinedcms/view.xml?partnerId=wrss01&id=10001147",
+                    "Mozilla/5.0", true));
+
+    private final Executor newsExecutor;
+    private final NewsArchiveService newsArchiveService;
+    private final NewsSymbolTagger newsSymbolTagger;
+    private final AtomicReference<NewsSnapshot> snapshot = new AtomicReference<>(NewsSnapshot.EMPTY);
+    // Un refresco a la vez: si se pide otro mientras hay uno en curso, espera a ese
+    private final SingleFlight<String, Instant> refreshFlight = new SingleFlight<>("news");
+    // Validadores HTTP y artículos parseados de la última respuesta completa de cada fuente
+    private final ValidatorStore<List<NewsArticle>> validators = new ValidatorStore<>("news", FEEDS.size());
+
+    @Value("${news.fetch-timeout-ms:10000}")
+    private int fetchTimeoutMs = 10000;
+
+    @Autowired
+    public NewsScraperService(@Qualifier("providerExecutor") Executor newsExecutor,
+                              NewsArchiveService newsArchiveService, NewsSymbolTagger newsSymbolTagger) {
+        this.newsExecutor = newsExecutor;
+        this.newsArchiveService = newsArchiveService;
+        this.newsSymbolTagger = newsSymbolTagger;
+    }
 
     /**
-     * Obtener noticias crypto desde CoinDesk
+     * Obtener noticias crypto (CoinTelegraph o, si falla, CoinDesk)
      */
     public List<NewsArticle> getCryptoNews() {
-        String cacheKey = "crypto";
-        CachedNews cached = cache.get(cacheKey);
-        if (cached != null && !cached.isExpired()) {
-            return cached.articles;
+        return snapshot.get().articles(CRYPTO);
+    }
+
+    /**
+     * Obtener noticias de economía (Investing.com o, si falla, CNBC)
+     */
+    public List<NewsArticle> getEconomyNews() {
+        return snapshot.get().articles(ECONOMY);
+    }
+
+    /**
+     * Obtener todas las noticias (crypto + economía)
+     */
+    public List<NewsArticle> getAllNews() {
+        return snapshot.get().all();
+    }
+
+    /**
+     * Titulares que mencionan alguno de los símbolos, del más reciente al más antiguo y sin repetir
+     * (una noticia sobre BTC y ETH aparece una vez)
+     */
+    public List<NewsArticle> getNewsForSymbols(Collection<String> symbols, int limit) {
+        Map<String, List<NewsArticle>> bySymbol = snapshot.get().bySymbol();
+        Map<String, NewsArticle> byUrl = new LinkedHashMap<>();
+        for (String symbol : symbols) {
+            for (NewsArticle article : bySymbol.getOrDefault(symbol.toUpperCase(Locale.ROOT), List.of())) {
+                byUrl.putIfAbsent(article.getUrl(), article);
+            }
         }
+        return byUrl.values().stream()
+                .sorted(NEWEST_FIRST)
+                .limit(Math.max(limit, 0))
+                .toList();
+    }
 
-        List<NewsArticle> articles = new ArrayList<>();
+    /**
+     * Momento del último refresco publicado (null si aún no ha terminado ninguno)
+     */
+    public Instant getRefreshedAt() {
+        return snapshot.get().refreshedAt();
+    }
+
+    /**
+     * Refresco programado: todas las fuentes en paralelo y cambio atómico de instantánea.
+     * Si una categoría se queda sin artículos se mantienen los del refresco anterior
+     */
+    @Scheduled(fixedDelayString = "${news.refresh-interval-ms:900000}",
+               initialDelayString = "${news.initial-delay-ms:0}")
+    public void refresh() {
+        refreshFlight.execute("refresh", this::refreshAll);
+    }
+
+    /**
+     * Arranque en caliente: publicar las últimas noticias archivadas (por cualquier nodo) si el
+     * primer refresco aún no ha terminado
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void warmFromArchive() {
         try {
-            // Scraping de CoinTelegraph (noticias crypto)
-            Document doc = Jsoup.connect("https://cointelegraph.com/tags/bitcoin")
-                    .userAgent("Mozilla/5.0 (Windows NT 10.0; Win64; x64) AppleWebKit/537.36 (KHTML, like Gecko) Chrome/120.0.0.0 Safari/537.36")
-                    .timeout(10000)
-                    .get();
-
-            Elements articleElements = doc.select("article, .post-card, .post-card-inline");
-            for (Element el : articleElements) {
-                if (articles.size() >= 8) break;
-                try {
-                    Element linkEl = el.selectFirst("a[href]");
-                    Element titleEl = el.selectFirst("a.post-card-inline__title-link, h2, .post-card__title a, a.post-card__title-link");
-                    Element imgEl = el.selectFirst("img[src], img[data-src]");
-                    Element descEl = el.selectFirst("p, .post-card__text, .post-card-inline__text");
-
-                    String title = titleEl != null ? titleEl.text().trim() : (linkEl != null ? linkEl.text().trim() : "");
-                    String url = linkEl != null ? linkEl.absUrl("href") : "";
-                    String img = imgEl != null ? (imgEl.hasAttr("data-src") ? imgEl.attr("data-src") : imgEl.absUrl("src")) : "";
-                    String desc = descEl != null ? descEl.text().trim() : "";
-
-                    if (!title.isEmpty() && title.length() > 10) {
-                        if (desc.length() > 200) desc = desc.substring(0, 200) + "...";
-                        articles.add(new NewsArticle(title, desc, url, img, "CoinTelegraph", "crypto", ""));
-                    }
-                } catch (Exception ignored) {}
+            Map<String, List<NewsArticle>> byCategory = new LinkedHashMap<>();
+            for (String category : List.of(CRYPTO, ECONOMY)) {
+                byCategory.put(category, List.copyOf(newsArchiveService.latest(category, MAX_ARTICLES)));
+            }
+            if (byCategory.values().stream().allMatch(List::isEmpty)) {
+                return;
+            }
+            Map<String, List<NewsArticle>> bySymbol =
+                    indexBySymbol(newsArchiveService.latest(null, SYMBOL_INDEX_WARM_ARTICLES));
+            if (snapshot.compareAndSet(NewsSnapshot.EMPTY, new NewsSnapshot(byCategory, bySymbol, null))) {
+                log.info("Noticias cargadas del archivo: {} crypto, {} economía, {} símbolos",
+                        byCategory.get(CRYPTO).size(), byCategory.get(ECONOMY).size(), bySymbol.size());
             }
         } catch (Exception e) {
-            log.error("Error scraping CoinTelegraph: {}", e.getMessage());
+            log.warn("No se pudo cargar el archivo de noticias: {}", e.getMessage());
         }
+    }
 
-        // Fallback: CoinDesk RSS si CoinTelegraph falla
-        if (articles.isEmpty()) {
-            try {
-                Document doc = Jsoup.connect("https://www.coindesk.com/arc/outboundfeeds/rss/")
-                        .userAgent("Mozilla/5.0")
-                        .timeout(10000)
-                        .get();
-
-                Elements items = doc.select("item");
-                for (Element item : items) {
-                    if (articles.size() >= 8) break;
-                    String title = item.selectFirst("title") != null ? item.selectFirst("title").text() : "";
-                    String desc = item.selectFirst("description") != null ? item.selectFirst("description").text() : "";
-                    String link = item.selectFirst("link") != null ? item.selectFirst("link").text() : "";
-                    String pubDate = item.selectFirst("pubDate") != null ? item.selectFirst("pubDate").text() : "";
-
-                    // Limpiar HTML de la descripción
-                    desc = Jsoup.parse(desc).text();
-                    if (desc.length() > 200) desc = desc.substring(0, 200) + "...";
-
-                    Element mediaEl = item.selectFirst("media|content, media|thumbnail, enclosure");
-                    String img = mediaEl != null ? mediaEl.attr("url") : "";
+    private Instant refreshAll() {
+        long start = System.nanoTime();
+        Map<Feed, CompletableFuture<List<NewsArticle>>> fetches = new LinkedHashMap<>();
+        for (Feed feed : FEEDS) {
+            fetches.put(feed, CompletableFuture.supplyAsync(() -> scrape(feed), newsExecutor));
+        }
 
-                    if (!title.isEmpty()) {
-                        articles.add(new NewsArticle(title, desc, link, img, "CoinDesk", "crypto", pubDate));
-                    }
-                }
-            } catch (Exception e) {
-                log.error("Error scraping CoinDesk RSS: {}", e.getMessage());
+        NewsSnapshot previous = snapshot.get();
+        Map<String, List<NewsArticle>> byCategory = new LinkedHashMap<>();
+        List<NewsArticle> scraped = new ArrayList<>();
+        for (Map.Entry<Feed, CompletableFuture<List<NewsArticle>>> entry : fetches.entrySet()) {
+            // scrape() no lanza y Jsoup acota cada descarga con su timeout
+            List<NewsArticle> articles = entry.getValue().join();
+            scraped.addAll(articles);
+            String category = entry.getKey().category();
+            if (!articles.isEmpty() && !byCategory.containsKey(category)) {
+                byCategory.put(category, articles);
+            }
+        }
+        for (String category : List.of(CRYPTO, ECONOMY)) {
+            if (!byCategory.containsKey(category)) {
+                log.warn("Sin noticias de {} en este refresco; se mantienen las anteriores", category);
+                byCategory.put(category, previous.articles(category));
             }
         }
 
-        cache.put(cacheKey, new CachedNews(articles));
-        return articles;
+        // El índice por símbolo parte del anterior: un activo con pocas noticias conserva sus titulares
+        List<NewsArticle> indexed = new ArrayList<>(scraped);
+        previous.bySymbol().values().forEach(indexed::addAll);
+        NewsSnapshot refreshed = new NewsSnapshot(byCategory, indexBySymbol(indexed), Instant.now());
+        snapshot.set(refreshed);
+        archive(scraped);
+        log.info("Noticias refrescadas: {} crypto, {} economía en {} ms", byCategory.get(CRYPTO).size(),
+                byCategory.get(ECONOMY).size(), (System.nanoTime() - start) / 1_000_000);
+        return refreshed.refreshedAt();
     }
 
     /**
-     * Obtener noticias de economía desde Reuters o ElEconomista
+     * Guardar en el archivo todo lo descargado (también las fuentes alternativas); un fallo de
+     * base de datos no afecta a la instantánea ya publicada
      */
-    public List<NewsArticle> getEconomyNews() {
-        String cacheKey = "economy";
-        CachedNews cached = cache.get(cacheKey);
-        if (cached != null && !cached.isExpired()) {
-            return cached.articles;
+    private void archive(List<NewsArticle> scraped) {
+        if (scraped.isEmpty()) {
+            return;
         }
+        try {
+            newsArchiveService.archive(scraped);
+        } catch (Exception e) {
+            // Otro nodo puede haber insertado la misma URL a la vez (uk_news_url_hash): se reintenta en el siguiente refresco
+            log.warn("No se pudieron archivar las noticias: {}", e.getMessage());
+        }
+    }
 
-        List<NewsArticle> articles = new ArrayList<>();
-
-        // Scraping de Investing.com RSS (noticias de economía en español)
+    /**
+     * Descargar y parsear una fuente; ante cualquier error, lista vacía.
+     * Si la fuente responde 304 se devuelven los artículos de la respuesta anterior
+     */
+    List<NewsArticle> scrape(Feed feed) {
         try {
-            Document doc = Jsoup.connect("https://es.investing.com/rss/news.rss")
-                    .userAgent("Mozilla/5.0 (Windows NT 10.0; Win64; x64) AppleWebKit/537.36 (KHTML, like Gecko) Chrome/120.0.0.0 Safari/537.36")
-                    .timeout(10000)
-                    .get();
-
-            Elements items = doc.select("item");
-            for (Element item : items) {
-                if (articles.size() >= 8) break;
-                String title = item.selectFirst("title") != null ? item.selectFirst("title").text() : "";
-                String desc = item.selectFirst("description") != null ? item.selectFirst("description").text() : "";
-                String link = item.selectFirst("link") != null ? item.selectFirst("link").text() : "";
-                String pubDate = item.selectFirst("pubDate") != null ? item.selectFirst("pubDate").text() : "";
-
-                desc = Jsoup.parse(desc).text();
-                if (desc.length() > 200) desc = desc.substring(0, 200) + "...";
-
-                Element mediaEl = item.selectFirst("media|content, media|thumbnail, enclosure");
-                String img = mediaEl != null ? mediaEl.attr("url") : "";
-
-                if (!title.isEmpty()) {
-                    articles.add(new NewsArticle(title, desc, link, img, "Investing.com", "economy", pubDate));
+            FetchResult result = fetch(feed, validators.conditionalHeaders(feed.url()));
+            if (result.notModified()) {
+                List<NewsArticle> unchanged = validators.notModified(feed.url());
+                if (unchanged != null) {
+                    log.debug("{} sin cambios (304): se reutilizan {} artículos", feed.source(), unchanged.size());
+                    return unchanged;
                 }
+                // Los validadores se desalojaron entre la petición y la respuesta: pedirla entera
+                result = fetch(feed, Map.of());
             }
+            List<NewsArticle> articles = feed.rss() ? parseRss(result.doc(), feed) : parseCoinTelegraph(result.doc(), feed);
+            ingest(articles);
+            // Una página sin artículos (bloqueo, cambio de maquetación) no se reutiliza en el siguiente 304
+            validators.update(feed.url(), result.etag(), result.lastModified(), articles.isEmpty() ? null : articles);
+            return articles;
         } catch (Exception e) {
-            log.error("Error scraping Investing.com RSS: {}", e.getMessage());
+            log.error("Error scraping {}: {}", feed.source(), e.getMessage());
+            return List.of();
+        }
+    }
+
+    /**
+     * Ingesta de lo recién parseado: fecha de publicación en epoch ms y símbolos mencionados
+     */
+    private void ingest(List<NewsArticle> articles) {
+        long now = System.currentTimeMillis();
+        for (NewsArticle article : articles) {
+            article.setPublishedTs(NewsArchiveService.parsePublished(article.getPublishedAt(), now));
+            newsSymbolTagger.tag(article);
+        }
+    }
+
+    /**
+     * Índice símbolo -> noticias (como mucho MAX_ARTICLES_PER_SYMBOL, las más recientes, sin URLs repetidas)
+     */
+    static Map<String, List<NewsArticle>> indexBySymbol(Collection<NewsArticle> articles) {
+        Map<String, NewsArticle> byUrl = new LinkedHashMap<>();
+        for (NewsArticle article : articles) {
+            if (article.getUrl() != null && !article.getSymbols().isEmpty()) {
+                byUrl.putIfAbsent(article.getUrl(), article);
+            }
         }
+        Map<String, List<NewsArticle>> bySymbol = new HashMap<>();
+        byUrl.values().stream().sorted(NEWEST_FIRST).forEach(article -> {
+            for (String symbol : article.getSymbols()) {
+                List<NewsArticle> list = bySymbol.computeIfAbsent(symbol, k -> new ArrayList<>());
+                if (list.size() < MAX_ARTICLES_PER_SYMBOL) {
+                    list.add(article);
+                }
+            }
+        });
+        bySymbol.replaceAll((symbol, list) -> List.copyOf(list));
+        return Map.copyOf(bySymbol);
+    }
+
+    FetchResult fetch(Feed feed, Map<String, String> headers) throws IOException {
+        Connection.Response response = Jsoup.connect(feed.url())
+                .userAgent(feed.userAgent())
+                .timeout(fetchTimeoutMs)
+                .headers(headers)
+                .execute();
+        if (response.statusCode() == FetchResult.NOT_MODIFIED) {
+            return FetchResult.notModifiedResult();
+        }
+        return new FetchResult(response.statusCode(), response.parse(),
+                response.header("ETag"), response.header("Last-Modified"));
+    }
 
-        // Fallback: CNBC RSS
-        if (articles.isEmpty()) {
+    private static List<NewsArticle> parseCoinTelegraph(Document doc, Feed feed) {
+        List<NewsArticle> articles = new ArrayList<>();
+        Elements articleElements = doc.select("article, .post-card, .post-card-inline");
+        for (Element el : articleElements) {
+            if (articles.size() >= MAX_ARTICLES) break;
             try {
-                Document doc = Jsoup.connect("https://search.cnbc.com/rs/search/combinedcms/view.xml?partnerId=wrss01&id=10001147")
-                        .userAgent("Mozilla/5.0")
-                        .timeout(10000)
-                        .get();
-
-                Elements items = doc.select("item");
-                for (Element item : items) {
-                    if (articles.size() >= 8) break;
-                    String title = item.selectFirst("title") != null ? item.selectFirst("title").text() : "";
-                    String desc = item.selectFirst("description") != null ? item.selectFirst("description").text() : "";
-                    String link = item.selectFirst("link") != null ? item.selectFirst("link").text() : "";
-                    String pubDate = item.selectFirst("pubDate") != null ? item.selectFirst("pubDate").text() : "";
-
-                    desc = Jsoup.parse(desc).text();
-                    if (desc.length() > 200) desc = desc.substring(0, 200) + "...";
+                Element linkEl = el.selectFirst("a[href]");
+                Element titleEl = el.selectFirst("a.post-card-inline__title-link, h2, .post-card__title a, a.post-card__title-link");
+                Element imgEl = el.selectFirst("img[src], img[data-src]");
+                Element descEl = el.selectFirst("p, .post-card__text, .post-card-inline__text");
 
-                    Element mediaEl = item.selectFirst("media|content, media|thumbnail, enclosure");
-                    String img = mediaEl != null ? mediaEl.attr("url") : "";
+                String title = titleEl != null ? titleEl.text().trim() : (linkEl != null ? linkEl.text().trim() : "");
+                String url = linkEl != null ? linkEl.absUrl("href") : "";
+                String img = imgEl != null ? (imgEl.hasAttr("data-src") ? imgEl.attr("data-src") : imgEl.absUrl("src")) : "";
+                String desc = descEl != null ? descEl.text().trim() : "";
 
-                    if (!title.isEmpty()) {
-                        articles.add(new NewsArticle(title, desc, link, img, "CNBC", "economy", pubDate));
-                    }
+                if (!title.isEmpty() && title.length() > 10) {
+                    if (desc.length() > 200) desc = desc.substring(0, 200) + "...";
+                    articles.add(new NewsArticle(title, desc, url, img, feed.source(), feed.category(), ""));
                 }
-            } catch (Exception e) {
-                log.error("Error scraping CNBC RSS: {}", e.getMessage());
+            } catch (Exception ignored) {}
+        }
+        return List.copyOf(articles);
+    }
+
+    private static List<NewsArticle> parseRss(Document doc, Feed feed) {
+        List<NewsArticle> articles = new ArrayList<>();
+        Elements items = doc.select("item");
+        for (Element item : items) {
+            if (articles.size() >= MAX_ARTICLES) break;
+            String title = item.selectFirst("title") != null ? item.selectFirst("title").text() : "";
+            String desc = item.selectFirst("description") != null ? item.selectFirst("description").text() : "";
+            String link = item.selectFirst("link") != null ? item.selectFirst("link").text() : "";
+            String pubDate = item.selectFirst("pubDate") != null ? item.selectFirst("pubDate").text() : "";
+
+            // Limpiar HTML de la descripción
+            desc = Jsoup.parse(desc).text();
+            if (desc.length() > 200) desc = desc.substring(0, 200) + "...";
+
+            Element mediaEl = item.selectFirst("media|content, media|thumbnail, enclosure");
+            String img = mediaEl != null ? mediaEl.attr("url") : "";
+
+            if (!title.isEmpty()) {
+                articles.add(new NewsArticle(title, desc, link, img, feed.source(), feed.category(), pubDate));
             }
         }
+        return List.copyOf(articles);
+    }
 
-        cache.put(cacheKey, new CachedNews(articles));
-        return articles;
+    /**
+     * Fuente de noticias: página HTML (CoinTelegraph) o feed RSS
+     */
+    record Feed(String source, String category, String url, String userAgent, boolean rss) {
     }
 
     /**
-     * Obtener todas las noticias (crypto + economía)
+     * Respuesta de una fuente: documento parseado y validadores, o 304 sin documento
      */
-    public List<NewsArticle> getAllNews() {
-        List<NewsArticle> all = new ArrayList<>();
-        all.addAll(getCryptoNews());
-        all.addAll(getEconomyNews());
-        return all;
+    record FetchResult(int status, Document doc, String etag, String lastModified) {
+
+        static final int NOT_MODIFIED = 304;
+
+        static FetchResult notModifiedResult() {
+            return new FetchResult(NOT_MODIFIED, null, null, null);
+        }
+
+        boolean notModified() {
+            return status == NOT_MODIFIED;
+        }
     }
 
-    // Clase interna para cache
-    private static class CachedNews {
-        List<NewsArticle> articles;
-        long timestamp;
+    /**
+     * Instantánea inmutable de las noticias; se sustituye entera en cada refresco
+     */
+    private record NewsSnapshot(Map<String, List<NewsArticle>> byCategory, List<NewsArticle> all,
+                                Map<String, List<NewsArticle>> bySymbol, Instant refreshedAt) {
+
+        static final NewsSnapshot EMPTY = new NewsSnapshot(Map.of(), List.of(), Map.of(), null);
+
+        NewsSnapshot(Map<String, List<NewsArticle>> byCategory, Map<String, List<NewsArticle>> bySymbol,
+                     Instant refreshedAt) {
+            this(Map.copyOf(byCategory), concat(byCategory), bySymbol, refreshedAt);
+        }
 
-        CachedNews(List<NewsArticle> articles) {
-            this.articles = articles;
-            this.timestamp = System.currentTimeMillis();
+        List<NewsArticle> articles(String category) {
+            return byCategory.getOrDefault(category, List.of());
         }
 
-        boolean isExpired() {
-            return System.currentTimeMillis() - timestamp > CACHE_DURATION_MS;
+        private static List<NewsArticle> concat(Map<String, List<NewsArticle>> byCategory) {
+            List<NewsArticle> all = new ArrayList<>(byCategory.getOrDefault(CRYPTO, List.of()));
+            all.addAll(byCategory.getOrDefault(ECONOMY, List.of()));
+            return List.copyOf(all);
         }
     }
 }
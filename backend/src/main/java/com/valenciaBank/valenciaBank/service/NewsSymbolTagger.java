@@ -0,0 +1,134 @@
+package com.valenciaBank.valenciaBank.service;
+
+import com.valenciaBank.valenciaBank.model.NewsArticle;
+import com.valenciaBank.valenciaBank.utils.AhoCorasick;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Etiqueta noticias con los símbolos de los activos que mencionan.
+ *
+ * Los patrones salen de las tablas de los proveedores: tickers de CoinGecko, Yahoo Finance y
+ * Finnhub (BTC, SPY, AAPL) y nombres de las criptos según su id de CoinGecko (bitcoin, solana).
+ * Todos se buscan a la vez con un autómata de Aho–Corasick, una sola pasada por texto.
+ *
+ * - Los tickers solo cuentan en mayúsculas ("SOL", no "sol"), los nombres en cualquier forma
+ * - La coincidencia tiene que ser una palabra completa ("ETH" no etiqueta "ETHER")
+ * - Si una coincidencia queda dentro de otra más larga solo cuenta la larga
+ */
+@Component
+public class NewsSymbolTagger {
+
+    private static final Logger log = LoggerFactory.getLogger(NewsSymbolTagger.class);
+
+    // Un ticker de una letra (V de Visa) coincidiría con demasiadas palabras
+    static final int MIN_TICKER_LENGTH = 2;
+
+    // Nombres de cripto que también son palabras corrientes: solo se etiquetan por su ticker
+    private static final Set<String> AMBIGUOUS_NAMES = Set.of(
+            "near", "flow", "dash", "optimism", "stellar", "cosmos", "sushi", "ripple", "avalanche",
+            "the graph", "the sandbox");
+
+    private final AhoCorasick<List<Pattern>> automaton;
+
+    public NewsSymbolTagger() {
+        Map<String, List<Pattern>> patterns = new HashMap<>();
+        for (Map.Entry<String, String> coin : CoinGeckoService.COINGECKO_IDS.entrySet()) {
+            addTicker(patterns, coin.getKey());
+            String name = coin.getValue().replace('-', ' ').replaceAll(" \\d+$", "");
+            if (!AMBIGUOUS_NAMES.contains(name) && !name.equalsIgnoreCase(coin.getKey())) {
+                add(patterns, name, new Pattern(coin.getKey(), name, false));
+            }
+        }
+        YahooFinanceService.SYMBOL_MAP.keySet().forEach(symbol -> addTicker(patterns, symbol));
+        FinnhubService.SUPPORTED_SYMBOLS.forEach(symbol -> addTicker(patterns, symbol));
+
+        this.automaton = new AhoCorasick<>(patterns);
+        log.info("Etiquetador de noticias: {} patrones, {} nodos", patterns.size(), automaton.size());
+    }
+
+    /**
+     * Símbolos mencionados en el título o la descripción, en orden de aparición
+     */
+    public Set<String> tag(String title, String description) {
+        Set<String> symbols = new LinkedHashSet<>();
+        collect(title, symbols);
+        collect(description, symbols);
+        return symbols;
+    }
+
+    /**
+     * Asignar a la noticia los símbolos que menciona
+     */
+    public NewsArticle tag(NewsArticle article) {
+        article.setSymbols(tag(article.getTitle(), article.getDescription()));
+        return article;
+    }
+
+    private void collect(String text, Set<String> symbols) {
+        if (text == null || text.isEmpty()) {
+            return;
+        }
+        List<AhoCorasick.Match<List<Pattern>>> matches = new ArrayList<>();
+        for (AhoCorasick.Match<List<Pattern>> match : automaton.findAll(text)) {
+            if (isWord(text, match.start(), match.end())) {
+                matches.add(match);
+            }
+        }
+        // Se queda la coincidencia más larga: "Ethereum Classic" es ETC, no también ETH
+        matches.sort(Comparator.comparingInt((AhoCorasick.Match<List<Pattern>> match) -> match.start())
+                .thenComparing(match -> match.start() - match.end()));
+        int coveredUntil = -1;
+        for (AhoCorasick.Match<List<Pattern>> match : matches) {
+            if (match.end() <= coveredUntil) {
+                continue;
+            }
+            boolean tagged = false;
+            for (Pattern pattern : match.value()) {
+                if (!pattern.caseSensitive() || text.regionMatches(match.start(), pattern.text(), 0, pattern.text().length())) {
+                    symbols.add(pattern.symbol());
+                    tagged = true;
+                }
+            }
+            if (tagged) {
+                coveredUntil = match.end();
+            }
+        }
+    }
+
+    private static boolean isWord(String text, int start, int end) {
+        return (start == 0 || !Character.isLetterOrDigit(text.charAt(start - 1)))
+                && (end == text.length() || !Character.isLetterOrDigit(text.charAt(end)));
+    }
+
+    private static void addTicker(Map<String, List<Pattern>> patterns, String symbol) {
+        // Los índices de Yahoo llevan ^ (^IBEX); en los titulares aparecen sin él
+        String ticker = symbol.startsWith("^") ? symbol.substring(1) : symbol;
+        if (ticker.length() >= MIN_TICKER_LENGTH) {
+            add(patterns, ticker, new Pattern(symbol, ticker, true));
+        }
+    }
+
+    private static void add(Map<String, List<Pattern>> patterns, String text, Pattern pattern) {
+        List<Pattern> sameText = patterns.computeIfAbsent(text.toLowerCase(Locale.ROOT), k -> new ArrayList<>());
+        if (!sameText.contains(pattern)) {
+            sameText.add(pattern);
+        }
+    }
+
+    /**
+     * Patrón del autómata: símbolo que etiqueta, texto buscado y si exige mayúsculas exactas
+     */
+    private record Pattern(String symbol, String text, boolean caseSensitive) {
+    }
+}
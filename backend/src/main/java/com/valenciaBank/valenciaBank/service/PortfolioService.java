@@ -2,17 +2,28 @@ package com.valenciaBank.valenciaBank.service;
 
 import com.valenciaBank.valenciaBank.model.CryptoPurchase;
 import com.valenciaBank.valenciaBank.model.CryptoPrice;
+import com.valenciaBank.valenciaBank.model.Position;
+import com.valenciaBank.valenciaBank.model.PriceQuote;
+import com.valenciaBank.valenciaBank.model.PriceSeries;
 import com.valenciaBank.valenciaBank.model.User;
 import com.valenciaBank.valenciaBank.repository.CryptoPriceRepository;
 import com.valenciaBank.valenciaBank.repository.CryptoPurchaseRepository;
 import com.valenciaBank.valenciaBank.repository.UserRepository;
+import com.valenciaBank.valenciaBank.utils.ColumnarSeries;
+import com.valenciaBank.valenciaBank.utils.MarketChartParser;
+import com.valenciaBank.valenciaBank.utils.PortfolioHistoryCalculator;
+import com.valenciaBank.valenciaBank.utils.PriceStats;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.time.*;
 import java.util.*;
+import java.util.concurrent.*;
 import java.util.stream.Collectors;
 
 @Service
@@ -32,15 +43,32 @@ public class PortfolioService {
     @Autowired
     private CryptoPriceRepository cryptoPriceRepository;
 
-    // Agregar una compra de cripto al portfolio
+    @Autowired
+    private PriceBookService priceBookService;
+
+    @Autowired
+    private PositionService positionService;
+
+    @Autowired
+    @Qualifier("providerExecutor")
+    private Executor providerExecutor;
+
+    // Tiempo máximo de espera por los históricos de CoinGecko antes de responder con datos parciales
+    @Value("${portfolio.history.deadline-ms:8000}")
+    private long historyDeadlineMs = 8000;
+
+    // Agregar una compra de cripto al portfolio (lote y posición agregada en la misma transacción)
+    @Transactional
     public CryptoPurchase addCryptoPurchase(Long userId, String symbol, Double quantity, Double purchasePrice, String currency) {
         Optional<User> user = userRepository.findById(userId);
         if (user.isEmpty()) {
             throw new RuntimeException("Usuario no encontrado");
         }
 
-        CryptoPurchase purchase = new CryptoPurchase(user.get(), symbol, quantity, purchasePrice, currency);
-        return cryptoPurchaseRepository.save(purchase);
+        CryptoPurchase purchase = cryptoPurchaseRepository.save(
+                new CryptoPurchase(user.get(), symbol, quantity, purchasePrice, currency));
+        positionService.recordPurchase(purchase);
+        return purchase;
     }
 
     // Obtener todo el portfolio de un usuario
@@ -57,39 +85,33 @@ public class PortfolioService {
         return cryptoPurchaseRepository.findByUserIdAndSymbol(userId, symbol);
     }
 
-    // Calcular la cantidad total de una cripto que posee el usuario
+    // Calcular la cantidad total de una cripto que posee el usuario (posición agregada)
     public Double getTotalQuantity(Long userId, String symbol) {
-        List<CryptoPurchase> purchases = getCryptoHoldings(userId, symbol);
-        return purchases.stream()
-                .mapToDouble(CryptoPurchase::getQuantity)
-                .sum();
+        return positionService.getPosition(userId, Position.AssetType.CRYPTO, symbol)
+                .map(Position::getQuantity)
+                .orElse(0.0);
     }
 
-    // Calcular el costo promedio de una cripto
+    // Calcular el costo promedio de una cripto (posición agregada)
     public Double getAverageCost(Long userId, String symbol) {
-        List<CryptoPurchase> purchases = getCryptoHoldings(userId, symbol);
-        if (purchases.isEmpty()) {
-            return 0.0;
-        }
-
-        Double totalCost = purchases.stream()
-                .mapToDouble(p -> p.getQuantity() * p.getPurchasePrice())
-                .sum();
-        Double totalQuantity = getTotalQuantity(userId, symbol);
-
-        return totalCost / totalQuantity;
+        return positionService.getPosition(userId, Position.AssetType.CRYPTO, symbol)
+                .map(Position::getAveragePrice)
+                .orElse(0.0);
     }
 
     // Eliminar una compra (venta de cripto)
+    @Transactional
     public void removeCryptoPurchase(Long purchaseId) {
-        if (cryptoPurchaseRepository.existsById(purchaseId)) {
-            cryptoPurchaseRepository.deleteById(purchaseId);
-        } else {
+        Optional<CryptoPurchase> purchase = cryptoPurchaseRepository.findById(purchaseId);
+        if (purchase.isEmpty()) {
             throw new RuntimeException("Compra no encontrada");
         }
+        cryptoPurchaseRepository.deleteById(purchaseId);
+        positionService.recordLotChange(purchase.get(), -purchase.get().getQuantity(), true);
     }
 
     // Actualizar cantidad de una compra (parcialmente vendida)
+    @Transactional
     public CryptoPurchase updateQuantity(Long purchaseId, Double newQuantity) {
         Optional<CryptoPurchase> purchase = cryptoPurchaseRepository.findById(purchaseId);
         if (purchase.isEmpty()) {
@@ -97,13 +119,17 @@ public class PortfolioService {
         }
 
         CryptoPurchase p = purchase.get();
+        double previousQuantity = p.getQuantity();
         if (newQuantity <= 0) {
             cryptoPurchaseRepository.deleteById(purchaseId);
+            positionService.recordLotChange(p, -previousQuantity, true);
             return null;
         }
 
         p.setQuantity(newQuantity);
-        return cryptoPurchaseRepository.save(p);
+        CryptoPurchase saved = cryptoPurchaseRepository.save(p);
+        positionService.recordLotChange(p, newQuantity - previousQuantity, false);
+        return saved;
     }
 
     /**
@@ -117,34 +143,29 @@ public class PortfolioService {
                 throw new RuntimeException("Usuario no encontrado");
             }
 
-            List<CryptoPurchase> portfolio = getPortfolio(userId);
-            
-            // Agrupar por símbolo
-            Map<String, List<CryptoPurchase>> groupedBySymbol = portfolio.stream()
-                    .collect(Collectors.groupingBy(CryptoPurchase::getSymbol));
+            // Posiciones agregadas por símbolo: una consulta, sin recorrer los lotes
+            List<Position> holdings = positionService.getPositions(userId, Position.AssetType.CRYPTO);
+            Set<String> symbols = holdings.stream()
+                    .map(Position::getSymbol)
+                    .collect(Collectors.toCollection(LinkedHashSet::new));
+
+            // Precios actuales de todos los símbolos: los que falten en el libro se piden en un solo batch
+            Map<String, PriceQuote> quotesBySymbol = priceBookService.ensureQuotes(symbols, "EUR");
 
             // Construir lista de posiciones
             List<Map<String, Object>> positions = new ArrayList<>();
             Double totalInvested = 0.0;
             Double totalCurrentValue = 0.0;
 
-            for (Map.Entry<String, List<CryptoPurchase>> entry : groupedBySymbol.entrySet()) {
-                String symbol = entry.getKey();
-                List<CryptoPurchase> holdings = entry.getValue();
-
-                // Calcular totales
-                Double totalQuantity = holdings.stream()
-                        .mapToDouble(CryptoPurchase::getQuantity)
-                        .sum();
-                
-                Double totalCostBasis = holdings.stream()
-                        .mapToDouble(p -> p.getQuantity() * p.getPurchasePrice())
-                        .sum();
-                
-                Double averagePrice = totalCostBasis / totalQuantity;
+            for (Position held : holdings) {
+                String symbol = held.getSymbol();
+                Double totalQuantity = held.getQuantity();
+                Double totalCostBasis = held.getCostBasis();
+                Double averagePrice = held.getAveragePrice();
 
                 // Obtener precio actual
-                Double currentPrice = getCurrentPriceForSymbol(symbol, "EUR");
+                PriceQuote quote = quotesBySymbol.get(symbol.toUpperCase());
+                Double currentPrice = quote != null ? quote.getPrice() : getCurrentPriceForSymbol(symbol, "EUR");
                 Double currentValue = totalQuantity * currentPrice;
                 Double gainLoss = currentValue - totalCostBasis;
                 Double gainLossPercent = (gainLoss / totalCostBasis) * 100;
@@ -159,11 +180,7 @@ public class PortfolioService {
                 position.put("currentValue", currentValue);
                 position.put("gainLoss", gainLoss);
                 position.put("gainLossPercent", gainLossPercent);
-                position.put("firstPurchaseDate", holdings.stream()
-                        .min(Comparator.comparing(CryptoPurchase::getPurchaseDate))
-                        .get()
-                        .getPurchaseDate()
-                        .toString()); // Convertir a String para serialización JSON
+                position.put("firstPurchaseDate", held.getFirstPurchaseDate().toString()); // String para serialización JSON
 
                 positions.add(position);
                 totalInvested += totalCostBasis;
@@ -194,53 +211,15 @@ public class PortfolioService {
 
     /**
      * Obtener precio actual de un símbolo (helper privado)
-     * Primero intenta CoinGecko, si falla busca en BD
-     * Siempre guarda el precio más reciente en BD para mantener el fallback actualizado
+     * Lee el libro de precios en memoria (sin I/O de red); si aún no lo tiene, busca en BD
      */
     private Double getCurrentPriceForSymbol(String symbol, String market) {
-        try {
-            // Intenta obtener de CoinGecko
-            String jsonResponse = coinGeckoService.getCryptoData(symbol, market);
-            String coinGeckoId = coinGeckoService.convertSymbolToCoinGeckoId(symbol);
-            
-            // Parsear JSON manualmente
-            if (jsonResponse.contains(coinGeckoId) && jsonResponse.contains(market.toLowerCase())) {
-                // Búsqueda simple: "bitcoin":{"eur":60000}
-                int idIndex = jsonResponse.indexOf("\"" + coinGeckoId + "\"");
-                int currencyIndex = jsonResponse.indexOf("\"" + market.toLowerCase() + "\"", idIndex);
-                int colonIndex = jsonResponse.indexOf(":", currencyIndex);
-                int commaIndex = jsonResponse.indexOf(",", colonIndex);
-                int braceIndex = jsonResponse.indexOf("}", colonIndex);
-                
-                int endIndex = commaIndex > 0 && commaIndex < braceIndex ? commaIndex : braceIndex;
-                String priceStr = jsonResponse.substring(colonIndex + 1, endIndex).trim();
-                
-                Double price = Double.parseDouble(priceStr);
-                if (price > 0) {
-                    // Guardar/actualizar precio en BD para mantener fallback siempre fresco
-                    try {
-                        Optional<CryptoPrice> existing = cryptoPriceRepository.findBySymbolAndMarket(symbol.toUpperCase(), market.toUpperCase());
-                        if (existing.isPresent()) {
-                            CryptoPrice cp = existing.get();
-                            cp.setPrice(price);
-                            cp.setLastUpdated(java.time.LocalDateTime.now());
-                            cryptoPriceRepository.save(cp);
-                        } else {
-                            CryptoPrice cp = new CryptoPrice(symbol.toUpperCase(), market.toUpperCase(), price);
-                            cryptoPriceRepository.save(cp);
-                        }
-                        log.info("Precio actualizado en BD para {}: {} {}", symbol, price, market);
-                    } catch (Exception dbErr) {
-                        log.warn("No se pudo guardar precio en BD: {}", dbErr.getMessage());
-                    }
-                    return price;
-                }
-            }
-        } catch (Exception e) {
-            log.error("Error obteniendo precio de CoinGecko para {}: {}", symbol, e.getMessage());
+        Optional<PriceQuote> quote = priceBookService.getQuote(symbol, market);
+        if (quote.isPresent()) {
+            return quote.get().getPrice();
         }
-        
-        // Fallback: buscar en base de datos
+
+        // Fallback: buscar en base de datos (el refresco del libro la mantiene actualizada)
         try {
             Optional<CryptoPrice> dbPrice = cryptoPriceRepository.findBySymbolAndMarket(symbol.toUpperCase(), market.toUpperCase());
             if (dbPrice.isPresent()) {
@@ -260,6 +239,18 @@ public class PortfolioService {
      * Calcula el valor total del portfolio en cada punto temporal usando precios históricos
      */
     public Map<String, Object> getPortfolioHistory(Long userId, int days) {
+        return buildPortfolioHistory(userId, days, false);
+    }
+
+    /**
+     * Historial del portfolio en formato columnar: timestamps en delta y columnas values/invested
+     * como arrays primitivos, sin convertir cada timestamp a String ni encajar cada valor
+     */
+    public Map<String, Object> getPortfolioHistoryColumnar(Long userId, int days) {
+        return buildPortfolioHistory(userId, days, true);
+    }
+
+    private Map<String, Object> buildPortfolioHistory(Long userId, int days, boolean columnar) {
         try {
             Optional<User> user = userRepository.findById(userId);
             if (user.isEmpty()) {
@@ -268,6 +259,15 @@ public class PortfolioService {
 
             List<CryptoPurchase> portfolio = getPortfolio(userId);
             if (portfolio.isEmpty()) {
+                if (columnar) {
+                    Map<String, Object> result = new LinkedHashMap<>();
+                    result.put("success", true);
+                    result.putAll(new ColumnarSeries(new long[0], "ms")
+                            .column("values", new double[0])
+                            .column("invested", new double[0])
+                            .toMap());
+                    return result;
+                }
                 return Map.of(
                     "success", true,
                     "dates", List.of(),
@@ -280,72 +280,55 @@ public class PortfolioService {
             Map<String, List<CryptoPurchase>> groupedBySymbol = portfolio.stream()
                     .collect(Collectors.groupingBy(CryptoPurchase::getSymbol));
 
-            // Obtener precios históricos de cada símbolo
-            Map<String, List<List<Number>>> historicalPrices = new LinkedHashMap<>();
-            for (String symbol : groupedBySymbol.keySet()) {
-                try {
-                    String historyJson = coinGeckoService.getCryptoHistory(symbol, days, "EUR");
-                    List<List<Number>> prices = parsePricesFromJson(historyJson);
-                    if (prices != null && !prices.isEmpty()) {
-                        historicalPrices.put(symbol, prices);
-                    }
-                } catch (Exception e) {
-                    log.error("Error obteniendo historial para {}: {}", symbol, e.getMessage());
-                }
-            }
+            // Obtener precios históricos de cada símbolo (caché al momento, fallos de caché en paralelo)
+            Map<String, PriceSeries> historicalPrices = new LinkedHashMap<>();
+            List<String> stale = new ArrayList<>();
+            List<String> missing = new ArrayList<>();
+            fetchHistories(new ArrayList<>(groupedBySymbol.keySet()), days, historicalPrices, stale, missing);
 
             if (historicalPrices.isEmpty()) {
-                return Map.of("success", false, "error", "No se pudieron obtener precios históricos");
+                return Map.of("success", false, "error", "No se pudieron obtener precios históricos",
+                        "missing", missing);
             }
 
             // Encontrar timestamps comunes (usar los del primer símbolo como referencia)
-            List<List<Number>> referencePrices = historicalPrices.values().iterator().next();
-            
-            List<String> dates = new ArrayList<>();
-            List<Double> portfolioValues = new ArrayList<>();
-            List<Double> investedValues = new ArrayList<>();
-
-            for (List<Number> dataPoint : referencePrices) {
-                long timestamp = dataPoint.get(0).longValue();
-                LocalDateTime pointDate = LocalDateTime.ofInstant(
-                    Instant.ofEpochMilli(timestamp), ZoneId.systemDefault()
-                );
+            PriceSeries referencePrices = historicalPrices.values().iterator().next();
 
-                double totalValue = 0.0;
-                double totalInvested = 0.0;
-
-                for (Map.Entry<String, List<CryptoPurchase>> entry : groupedBySymbol.entrySet()) {
-                    String symbol = entry.getKey();
-                    List<CryptoPurchase> purchases = entry.getValue();
-
-                    // Calcular cantidad y coste acumulado hasta este punto temporal
-                    double quantityAtTime = 0.0;
-                    double investedAtTime = 0.0;
-                    for (CryptoPurchase purchase : purchases) {
-                        if (!purchase.getPurchaseDate().isAfter(pointDate)) {
-                            quantityAtTime += purchase.getQuantity();
-                            investedAtTime += purchase.getQuantity() * purchase.getPurchasePrice();
-                        }
-                    }
-
-                    if (quantityAtTime > 0) {
-                        // Buscar el precio más cercano para este símbolo en este timestamp
-                        double priceAtTime = findClosestPrice(historicalPrices.get(symbol), timestamp);
-                        totalValue += quantityAtTime * priceAtTime;
-                        totalInvested += investedAtTime;
-                    }
-                }
-
-                dates.add(String.valueOf(timestamp));
-                portfolioValues.add(Math.round(totalValue * 100.0) / 100.0);
-                investedValues.add(Math.round(totalInvested * 100.0) / 100.0);
-            }
+            // Alinear precios y compras acumuladas en una sola pasada por símbolo
+            PortfolioHistoryCalculator.Result history = PortfolioHistoryCalculator.compute(
+                    referencePrices, historicalPrices, groupedBySymbol, ZoneId.systemDefault());
 
             Map<String, Object> result = new LinkedHashMap<>();
             result.put("success", true);
-            result.put("dates", dates);
-            result.put("values", portfolioValues);
-            result.put("invested", investedValues);
+            if (columnar) {
+                result.putAll(new ColumnarSeries(history.getTimestamps(), "ms")
+                        .column("values", roundCents(history.getValues()))
+                        .column("invested", roundCents(history.getInvested()))
+                        .toMap());
+            } else {
+                List<String> dates = new ArrayList<>(referencePrices.size());
+                List<Double> portfolioValues = new ArrayList<>(referencePrices.size());
+                List<Double> investedValues = new ArrayList<>(referencePrices.size());
+                for (int i = 0; i < history.getTimestamps().length; i++) {
+                    dates.add(String.valueOf(history.getTimestamps()[i]));
+                    portfolioValues.add(Math.round(history.getValues()[i] * 100.0) / 100.0);
+                    investedValues.add(Math.round(history.getInvested()[i] * 100.0) / 100.0);
+                }
+                result.put("dates", dates);
+                result.put("values", portfolioValues);
+                result.put("invested", investedValues);
+            }
+            // Resumen de la evolución del valor en una sola pasada
+            PriceStats valueStats = PriceStats.of(history.getValues());
+            result.put("summary", Map.of(
+                    "high", Math.round(valueStats.getHigh() * 100.0) / 100.0,
+                    "low", Math.round(valueStats.getLow() * 100.0) / 100.0,
+                    "volatility", Math.round(valueStats.getLogReturnVolatilityPercent() * 100.0) / 100.0,
+                    "maxDrawdown", Math.round(valueStats.getMaxDrawdownPercent() * 100.0) / 100.0
+            ));
+            // Datos parciales: símbolos servidos desde caché expirada o sin precios a tiempo
+            result.put("stale", stale);
+            result.put("missing", missing);
             return result;
 
         } catch (Exception e) {
@@ -354,70 +337,94 @@ public class PortfolioService {
         }
     }
 
+    private static double[] roundCents(double[] values) {
+        double[] rounded = new double[values.length];
+        for (int i = 0; i < values.length; i++) {
+            rounded[i] = Math.round(values[i] * 100.0) / 100.0;
+        }
+        return rounded;
+    }
+
     /**
-     * Parsear precios desde JSON de CoinGecko
-     * Formato: {"prices":[[timestamp,price],[timestamp,price],...]}
+     * Fan-out de históricos: los símbolos con caché vigente se sirven al momento y el resto
+     * se piden a CoinGecko en paralelo (el rate limiter del proveedor marca el ritmo).
+     * Lo que no llega antes del deadline se sirve desde caché expirada (stale) o queda
+     * como missing; esas peticiones siguen en curso y dejan la caché lista para la próxima vez.
+     * Si CoinGecko responde con su propia caché expirada (circuito abierto, rate limit) el
+     * símbolo también se marca como stale.
      */
-    @SuppressWarnings("unchecked")
-    private List<List<Number>> parsePricesFromJson(String json) {
-        try {
-            if (json == null || json.contains("\"error\"")) return null;
-            
-            // Buscar el array "prices"
-            int pricesIndex = json.indexOf("\"prices\"");
-            if (pricesIndex < 0) return null;
-            
-            int arrayStart = json.indexOf("[[", pricesIndex);
-            int arrayEnd = json.indexOf("]]", arrayStart) + 2;
-            if (arrayStart < 0 || arrayEnd < 2) return null;
-            
-            String pricesStr = json.substring(arrayStart, arrayEnd);
-            
-            // Parsear manualmente los pares [timestamp, price]
-            List<List<Number>> result = new ArrayList<>();
-            int i = 0;
-            while (i < pricesStr.length()) {
-                int pairStart = pricesStr.indexOf("[", i + 1);
-                if (pairStart < 0) break;
-                int pairEnd = pricesStr.indexOf("]", pairStart);
-                if (pairEnd < 0) break;
-                
-                String pair = pricesStr.substring(pairStart + 1, pairEnd);
-                String[] parts = pair.split(",");
-                if (parts.length == 2) {
-                    try {
-                        long ts = Long.parseLong(parts[0].trim());
-                        double price = Double.parseDouble(parts[1].trim());
-                        result.add(List.of(ts, price));
-                    } catch (NumberFormatException ignored) {}
+    private void fetchHistories(List<String> symbols, int days, Map<String, PriceSeries> historicalPrices,
+                                List<String> stale, List<String> missing) {
+        Map<String, PriceSeries> fetched = new ConcurrentHashMap<>();
+        Set<String> fetchedStale = ConcurrentHashMap.newKeySet();
+        Map<String, CompletableFuture<Void>> pending = new LinkedHashMap<>();
+        for (String symbol : symbols) {
+            PriceSeries cached = parsePricesFromJson(coinGeckoService.getCachedHistory(symbol, days, "EUR"));
+            if (cached != null && !cached.isEmpty()) {
+                fetched.put(symbol, cached);
+                continue;
+            }
+            try {
+                pending.put(symbol, CompletableFuture
+                        .supplyAsync(() -> coinGeckoService.fetchCryptoHistory(symbol, days, "EUR"), providerExecutor)
+                        .thenAccept(history -> {
+                            PriceSeries prices = parsePricesFromJson(history.data());
+                            if (prices != null && !prices.isEmpty()) {
+                                if (history.stale()) {
+                                    fetchedStale.add(symbol);
+                                }
+                                fetched.put(symbol, prices);
+                            }
+                        }));
+            } catch (RejectedExecutionException e) {
+                log.warn("Pool de proveedores saturado, {} queda pendiente", symbol);
+            }
+        }
+
+        if (!pending.isEmpty()) {
+            try {
+                CompletableFuture.allOf(pending.values().toArray(CompletableFuture<?>[]::new))
+                        .get(historyDeadlineMs, TimeUnit.MILLISECONDS);
+            } catch (TimeoutException e) {
+                log.warn("Deadline de {} ms agotado en historial: {} símbolos sin respuesta",
+                        historyDeadlineMs, pending.values().stream().filter(f -> !f.isDone()).count());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } catch (ExecutionException e) {
+                log.error("Error obteniendo historial: {}", e.getMessage());
+            }
+        }
+
+        // Mantener el orden de los símbolos: el primero marca los timestamps de referencia
+        for (String symbol : symbols) {
+            PriceSeries prices = fetched.get(symbol);
+            if (prices != null) {
+                historicalPrices.put(symbol, prices);
+                if (fetchedStale.contains(symbol)) {
+                    stale.add(symbol);
                 }
-                i = pairEnd + 1;
+                continue;
+            }
+            PriceSeries expired = parsePricesFromJson(coinGeckoService.getStaleHistory(symbol, days, "EUR"));
+            if (expired != null && !expired.isEmpty()) {
+                historicalPrices.put(symbol, expired);
+                stale.add(symbol);
+            } else {
+                missing.add(symbol);
             }
-            
-            return result;
-        } catch (Exception e) {
-            log.error("Error parseando precios: {}", e.getMessage());
-            return null;
         }
     }
 
     /**
-     * Encontrar el precio más cercano a un timestamp dado
+     * Parsear precios desde JSON de CoinGecko (streaming, columnas primitivas)
+     * Formato: {"prices":[[timestamp,price],[timestamp,price],...]}
      */
-    private double findClosestPrice(List<List<Number>> prices, long targetTimestamp) {
-        if (prices == null || prices.isEmpty()) return 0.0;
-        
-        double closestPrice = prices.get(0).get(1).doubleValue();
-        long minDiff = Long.MAX_VALUE;
-        
-        for (List<Number> dataPoint : prices) {
-            long diff = Math.abs(dataPoint.get(0).longValue() - targetTimestamp);
-            if (diff < minDiff) {
-                minDiff = diff;
-                closestPrice = dataPoint.get(1).doubleValue();
-            }
+    private PriceSeries parsePricesFromJson(String json) {
+        try {
+            return MarketChartParser.parsePrices(json);
+        } catch (Exception e) {
+            log.error("Error parseando precios: {}", e.getMessage());
+            return null;
         }
-        
-        return closestPrice;
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,220 @@
+package com.valenciaBank.valenciaBank.service;
+
+import com.valenciaBank.valenciaBank.model.CryptoPurchase;
+import com.valenciaBank.valenciaBank.model.FundPurchase;
+import com.valenciaBank.valenciaBank.model.Position;
+import com.valenciaBank.valenciaBank.model.Position.AssetType;
+import com.valenciaBank.valenciaBank.repository.CryptoPurchaseRepository;
+import com.valenciaBank.valenciaBank.repository.FundPurchaseRepository;
+import com.valenciaBank.valenciaBank.repository.LotTotals;
+import com.valenciaBank.valenciaBank.repository.PositionRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Posiciones agregadas por (usuario, tipo de activo, símbolo) en PORTFOLIO_POSITION.
+ *
+ * - Cada compra/venta aplica su diferencia de cantidad y coste a la posición, en la misma
+ *   transacción que modifica el lote (la fila se bloquea mientras tanto)
+ * - Si falta la posición, o se cierra el lote más antiguo, se recalcula desde los lotes de ese símbolo
+ * - Los usuarios con compras anteriores a esta tabla se rellenan al arrancar y, si aun así
+ *   faltan, la primera vez que se lee su portfolio
+ */
+@Service
+public class PositionService {
+
+    private static final Logger log = LoggerFactory.getLogger(PositionService.class);
+
+    // Por debajo de esta cantidad la posición se considera cerrada (restos de coma flotante)
+    static final double EPSILON = 1e-9;
+
+    private final PositionRepository positionRepository;
+    private final CryptoPurchaseRepository cryptoPurchaseRepository;
+    private final FundPurchaseRepository fundPurchaseRepository;
+
+    @Autowired
+    public PositionService(PositionRepository positionRepository,
+                           CryptoPurchaseRepository cryptoPurchaseRepository,
+                           FundPurchaseRepository fundPurchaseRepository) {
+        this.positionRepository = positionRepository;
+        this.cryptoPurchaseRepository = cryptoPurchaseRepository;
+        this.fundPurchaseRepository = fundPurchaseRepository;
+    }
+
+    /**
+     * Posiciones de un usuario en un tipo de activo (ordenadas por símbolo)
+     */
+    @Transactional
+    public List<Position> getPositions(Long userId, AssetType assetType) {
+        List<Position> positions = positionRepository.findByUserIdAndAssetTypeOrderBySymbolAsc(userId, assetType);
+        if (positions.isEmpty() && hasLots(userId, assetType)) {
+            // Compras anteriores a la tabla de posiciones: se agregan una sola vez
+            rebuildUser(userId, assetType);
+            positions = positionRepository.findByUserIdAndAssetTypeOrderBySymbolAsc(userId, assetType);
+        }
+        return positions;
+    }
+
+    /**
+     * Todas las posiciones de un usuario (primero cripto, luego fondos) en una sola consulta
+     */
+    @Transactional
+    public List<Position> getAllPositions(Long userId) {
+        List<Position> positions = positionRepository.findByUserIdOrderByAssetTypeAscSymbolAsc(userId);
+        boolean rebuilt = false;
+        for (AssetType assetType : AssetType.values()) {
+            boolean present = positions.stream().anyMatch(p -> p.getAssetType() == assetType);
+            if (!present && hasLots(userId, assetType)) {
+                rebuildUser(userId, assetType);
+                rebuilt = true;
+            }
+        }
+        return rebuilt ? positionRepository.findByUserIdOrderByAssetTypeAscSymbolAsc(userId) : positions;
+    }
+
+    /**
+     * Posición de un usuario en un símbolo
+     */
+    @Transactional
+    public Optional<Position> getPosition(Long userId, AssetType assetType, String symbol) {
+        Optional<Position> position = positionRepository.findByUserIdAndAssetTypeAndSymbol(userId, assetType, symbol);
+        return position.isPresent() ? position : rebuildSymbol(userId, assetType, symbol);
+    }
+
+    @Transactional
+    public void recordPurchase(CryptoPurchase lot) {
+        recordLotChange(lot, lot.getQuantity(), false);
+    }
+
+    @Transactional
+    public void recordPurchase(FundPurchase lot) {
+        recordLotChange(lot, lot.getQuantity(), false);
+    }
+
+    /**
+     * Aplicar el cambio de cantidad de un lote ya guardado (positivo al comprar, negativo al vender)
+     * @param closed el lote se ha eliminado
+     */
+    @Transactional
+    public void recordLotChange(CryptoPurchase lot, double quantityDelta, boolean closed) {
+        apply(lot.getUser().getId(), AssetType.CRYPTO, lot.getSymbol(), lot.getPurchasePrice(),
+                lot.getPurchaseDate(), quantityDelta, closed);
+    }
+
+    @Transactional
+    public void recordLotChange(FundPurchase lot, double quantityDelta, boolean closed) {
+        apply(lot.getUser().getId(), AssetType.FUND, lot.getSymbol(), lot.getPurchasePrice(),
+                lot.getPurchaseDate(), quantityDelta, closed);
+    }
+
+    /**
+     * Rellenar PORTFOLIO_POSITION a partir de los lotes si aún está vacía
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    @Transactional
+    public void backfill() {
+        if (positionRepository.count() > 0) {
+            return;
+        }
+        long start = System.nanoTime();
+        int created = 0;
+        for (LotTotals totals : cryptoPurchaseRepository.sumAll()) {
+            positionRepository.save(fromTotals(new Position(totals.getUserId(), AssetType.CRYPTO, totals.getSymbol()), totals));
+            created++;
+        }
+        for (FundPurchaseRepository.FundLotTotals totals : fundPurchaseRepository.sumAll()) {
+            positionRepository.save(fromTotals(new Position(totals.getUserId(), AssetType.FUND, totals.getSymbol()), totals));
+            created++;
+        }
+        if (created > 0) {
+            log.info("Posiciones creadas a partir de las compras existentes: {} en {} ms", created,
+                    (System.nanoTime() - start) / 1_000_000);
+        }
+    }
+
+    /**
+     * Aplicar la diferencia de un lote sobre la posición
+     */
+    private void apply(Long userId, AssetType assetType, String symbol, double purchasePrice,
+                       LocalDateTime purchaseDate, double quantityDelta, boolean closed) {
+        Optional<Position> existing = positionRepository.findForUpdate(userId, assetType, symbol);
+        if (existing.isEmpty()) {
+            // Los lotes ya incluyen el cambio: la posición sale completa de ellos
+            rebuildSymbol(userId, assetType, symbol);
+            return;
+        }
+
+        Position position = existing.get();
+        double quantity = position.getQuantity() + quantityDelta;
+        if (quantity <= EPSILON) {
+            positionRepository.delete(position);
+            return;
+        }
+        if (closed && !purchaseDate.isAfter(position.getFirstPurchaseDate())) {
+            // Se cierra el lote más antiguo: la nueva primera fecha solo está en los lotes
+            rebuildSymbol(userId, assetType, symbol);
+            return;
+        }
+
+        position.setQuantity(quantity);
+        position.setCostBasis(Math.max(0.0, position.getCostBasis() + quantityDelta * purchasePrice));
+        if (purchaseDate.isBefore(position.getFirstPurchaseDate())) {
+            position.setFirstPurchaseDate(purchaseDate);
+        }
+        position.setUpdatedAt(LocalDateTime.now());
+        positionRepository.save(position);
+    }
+
+    private Optional<Position> rebuildSymbol(Long userId, AssetType assetType, String symbol) {
+        Optional<? extends LotTotals> totals = assetType == AssetType.CRYPTO
+                ? cryptoPurchaseRepository.sumByUserAndSymbol(userId, symbol)
+                : fundPurchaseRepository.sumByUserAndSymbol(userId, symbol);
+        Position position = positionRepository.findByUserIdAndAssetTypeAndSymbol(userId, assetType, symbol)
+                .orElseGet(() -> new Position(userId, assetType, symbol));
+        if (totals.isEmpty() || totals.get().getQuantity() <= EPSILON) {
+            if (position.getId() != null) {
+                positionRepository.delete(position);
+            }
+            return Optional.empty();
+        }
+        return Optional.of(positionRepository.save(fromTotals(position, totals.get())));
+    }
+
+    private void rebuildUser(Long userId, AssetType assetType) {
+        List<? extends LotTotals> totals = assetType == AssetType.CRYPTO
+                ? cryptoPurchaseRepository.sumByUser(userId)
+                : fundPurchaseRepository.sumByUser(userId);
+        for (LotTotals symbolTotals : totals) {
+            positionRepository.save(fromTotals(new Position(userId, assetType, symbolTotals.getSymbol()), symbolTotals));
+        }
+        log.info("Posiciones {} del usuario {} reconstruidas desde {} símbolos", assetType, userId, totals.size());
+    }
+
+    private boolean hasLots(Long userId, AssetType assetType) {
+        return assetType == AssetType.CRYPTO
+                ? cryptoPurchaseRepository.existsByUserId(userId)
+                : fundPurchaseRepository.existsByUserId(userId);
+    }
+
+    private static Position fromTotals(Position position, LotTotals totals) {
+        position.setQuantity(totals.getQuantity());
+        position.setCostBasis(totals.getCostBasis());
+        position.setFirstPurchaseDate(totals.getFirstPurchaseDate());
+        position.setCurrency(totals.getCurrency());
+        if (totals instanceof FundPurchaseRepository.FundLotTotals fund) {
+            position.setName(fund.getName());
+            position.setType(fund.getType());
+        }
+        position.setUpdatedAt(LocalDateTime.now());
+        return position;
+    }
+}
@@ -0,0 +1,244 @@
+package com.valenciaBank.valenciaBank.service;
+
+import com.valenciaBank.valenciaBank.model.CryptoPrice;
+import com.valenciaBank.valenciaBank.model.PriceQuote;
+import com.valenciaBank.valenciaBank.repository.CryptoPriceRepository;
+import com.valenciaBank.valenciaBank.repository.CryptoPurchaseRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Libro de precios en memoria compartido por toda la aplicación.
+ * Un refresco programado obtiene todos los símbolos seguidos con llamadas batch a
+ * CoinGecko (CoinGeckoService.getCryptoPrices), de modo que las peticiones de usuario leen precios en O(1)
+ * sin hacer I/O de red.
+ */
+@Service
+public class PriceBookService {
+
+    private static final Logger log = LoggerFactory.getLogger(PriceBookService.class);
+
+    private static final String DEFAULT_CURRENCY = "EUR";
+
+    // Monedas que el refresco programado puede seguir; el resto solo se consulta bajo demanda
+    static final Set<String> TRACKABLE_CURRENCIES = Set.of("EUR", "USD", "GBP", "CHF", "JPY");
+
+    private final CoinGeckoService coinGeckoService;
+    private final CryptoPriceRepository cryptoPriceRepository;
+    private final CryptoPurchaseRepository cryptoPurchaseRepository;
+
+    // Clave "SYMBOL:CURRENCY" -> última cotización conocida
+    private final ConcurrentHashMap<String, PriceQuote> quotes = new ConcurrentHashMap<>();
+
+    // Símbolos y monedas que el refresco programado mantiene actualizados
+    private final Set<String> trackedSymbols = ConcurrentHashMap.newKeySet();
+    private final Set<String> trackedCurrencies = ConcurrentHashMap.newKeySet();
+    private volatile boolean seeded = false;
+
+    @Value("${pricebook.max-age-ms:180000}")
+    private long maxAgeMs = 180000;
+
+    @Autowired
+    public PriceBookService(CoinGeckoService coinGeckoService,
+                            CryptoPriceRepository cryptoPriceRepository,
+                            CryptoPurchaseRepository cryptoPurchaseRepository) {
+        this.coinGeckoService = coinGeckoService;
+        this.cryptoPriceRepository = cryptoPriceRepository;
+        this.cryptoPurchaseRepository = cryptoPurchaseRepository;
+        this.trackedCurrencies.add(DEFAULT_CURRENCY);
+    }
+
+    /**
+     * Leer la cotización en memoria de un símbolo (sin I/O de red).
+     * Si el par no estaba seguido y es seguible, se registra para el siguiente refresco.
+     */
+    public Optional<PriceQuote> getQuote(String symbol, String currency) {
+        PriceQuote quote = quotes.get(key(symbol, currency));
+        if (quote == null) {
+            track(symbol, currency);
+        }
+        return Optional.ofNullable(quote);
+    }
+
+    /**
+     * Indica si la cotización es lo bastante reciente para operar (compra/venta)
+     */
+    public boolean isFresh(PriceQuote quote) {
+        return quote != null && quote.ageMillis() <= maxAgeMs;
+    }
+
+    /**
+     * Registrar un par símbolo/moneda para que el refresco programado lo mantenga.
+     * Solo se siguen símbolos con id de CoinGecko conocido y monedas de TRACKABLE_CURRENCIES: los valores
+     * llegan de la ruta de /api/crypto-prices y, sin ese filtro, cualquier fallo de lectura ampliaría
+     * para siempre la llamada batch. Los demás pares siguen disponibles con refreshNow/ensureQuotes.
+     * @return true si el par queda seguido
+     */
+    public boolean track(String symbol, String currency) {
+        String symbolUpper = symbol.toUpperCase();
+        String currencyUpper = currency.toUpperCase();
+        if (!CoinGeckoService.COINGECKO_IDS.containsKey(symbolUpper) || !TRACKABLE_CURRENCIES.contains(currencyUpper)) {
+            log.debug("Par {}/{} no seguible, no se añade al refresco", symbolUpper, currencyUpper);
+            return false;
+        }
+        trackedSymbols.add(symbolUpper);
+        trackedCurrencies.add(currencyUpper);
+        return true;
+    }
+
+    /**
+     * Refresco programado: una sola llamada batch para todos los pares seguidos
+     */
+    @Scheduled(fixedDelayString = "${pricebook.refresh-interval-ms:60000}",
+               initialDelayString = "${pricebook.initial-delay-ms:5000}")
+    public void refresh() {
+        try {
+            seedTrackedSymbols();
+            if (trackedSymbols.isEmpty()) {
+                return;
+            }
+            int updated = fetchAndStore(new ArrayList<>(trackedSymbols), new ArrayList<>(trackedCurrencies));
+            log.info("Libro de precios refrescado: {} cotizaciones ({} símbolos x {} monedas)",
+                    updated, trackedSymbols.size(), trackedCurrencies.size());
+        } catch (Exception e) {
+            log.error("Error refrescando el libro de precios: {}", e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Refresco inmediato de un único par. Solo para operaciones que necesitan un precio
+     * reciente (compra/venta) cuando el libro no lo tiene todavía o está desactualizado.
+     */
+    public Optional<PriceQuote> refreshNow(String symbol, String currency) {
+        track(symbol, currency);
+        try {
+            fetchAndStore(List.of(symbol.toUpperCase()), List.of(currency.toUpperCase()));
+        } catch (Exception e) {
+            log.warn("No se pudo refrescar {} en {}: {}", symbol, currency, e.getMessage());
+        }
+        return Optional.ofNullable(quotes.get(key(symbol, currency)));
+    }
+
+    /**
+     * Garantizar que el libro tiene cotización para todos los símbolos indicados.
+     * Los que faltan se piden juntos en una única llamada batch en vez de uno a uno.
+     * @return cotizaciones disponibles por símbolo (en mayúsculas)
+     */
+    public Map<String, PriceQuote> ensureQuotes(Collection<String> symbols, String currency) {
+        Map<String, PriceQuote> result = new HashMap<>();
+        List<String> missing = new ArrayList<>();
+        for (String symbol : symbols) {
+            String symbolUpper = symbol.toUpperCase();
+            PriceQuote quote = quotes.get(key(symbolUpper, currency));
+            if (quote != null) {
+                result.put(symbolUpper, quote);
+            } else if (!missing.contains(symbolUpper)) {
+                track(symbolUpper, currency);
+                missing.add(symbolUpper);
+            }
+        }
+
+        if (!missing.isEmpty()) {
+            try {
+                fetchAndStore(missing, List.of(currency.toUpperCase()));
+            } catch (Exception e) {
+                log.warn("No se pudieron obtener {} cotizaciones en {}: {}", missing.size(), currency, e.getMessage());
+            }
+            for (String symbol : missing) {
+                PriceQuote quote = quotes.get(key(symbol, currency));
+                if (quote != null) {
+                    result.put(symbol, quote);
+                }
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Número de cotizaciones en memoria
+     */
+    public int size() {
+        return quotes.size();
+    }
+
+    /**
+     * Llamar a CoinGecko, actualizar el libro y persistir los precios como fallback en BD
+     * @return número de cotizaciones actualizadas
+     */
+    private int fetchAndStore(Collection<String> symbols, Collection<String> currencies) {
+        Map<String, Map<String, PriceQuote>> prices = coinGeckoService.getCryptoPrices(symbols, currencies);
+        if (prices.isEmpty()) {
+            log.warn("Refresco del libro de precios sin datos para {} símbolos", symbols.size());
+            return 0;
+        }
+
+        List<PriceQuote> fresh = new ArrayList<>();
+        for (Map<String, PriceQuote> byCurrency : prices.values()) {
+            for (PriceQuote quote : byCurrency.values()) {
+                quotes.put(key(quote.getSymbol(), quote.getCurrency()), quote);
+                fresh.add(quote);
+            }
+        }
+
+        persistFallbackPrices(fresh);
+        return fresh.size();
+    }
+
+    /**
+     * Guardar los precios en CRYPTO_PRICE para que la BD siga sirviendo de fallback
+     */
+    private void persistFallbackPrices(List<PriceQuote> fresh) {
+        if (fresh.isEmpty()) {
+            return;
+        }
+        try {
+            Map<String, CryptoPrice> existing = new HashMap<>();
+            for (CryptoPrice cp : cryptoPriceRepository.findAll()) {
+                existing.put(key(cp.getSymbol(), cp.getMarket()), cp);
+            }
+
+            List<CryptoPrice> toSave = new ArrayList<>();
+            for (PriceQuote quote : fresh) {
+                CryptoPrice cp = existing.get(key(quote.getSymbol(), quote.getCurrency()));
+                if (cp == null) {
+                    cp = new CryptoPrice(quote.getSymbol(), quote.getCurrency(), quote.getPrice());
+                } else {
+                    cp.setPrice(quote.getPrice());
+                    cp.setLastUpdated(LocalDateTime.now());
+                }
+                toSave.add(cp);
+            }
+            cryptoPriceRepository.saveAll(toSave);
+        } catch (Exception e) {
+            log.warn("No se pudieron guardar precios en BD: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Primera carga de símbolos a seguir: precios en BD + símbolos con compras
+     */
+    private void seedTrackedSymbols() {
+        if (seeded) {
+            return;
+        }
+        for (CryptoPrice cp : cryptoPriceRepository.findAll()) {
+            track(cp.getSymbol(), cp.getMarket());
+        }
+        for (String symbol : cryptoPurchaseRepository.findDistinctSymbols()) {
+            track(symbol, DEFAULT_CURRENCY);
+        }
+        seeded = true;
+    }
+
+    private static String key(String symbol, String currency) {
+        return symbol.toUpperCase() + ":" + currency.toUpperCase();
+    }
+}
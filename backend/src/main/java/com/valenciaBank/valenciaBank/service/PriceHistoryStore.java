@@ -0,0 +1,204 @@
+package com.valenciaBank.valenciaBank.service;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.valenciaBank.valenciaBank.model.CryptoHistoryCoverage;
+import com.valenciaBank.valenciaBank.model.CryptoPricePoint;
+import com.valenciaBank.valenciaBank.model.HistoryGranularity;
+import com.valenciaBank.valenciaBank.model.PriceSeries;
+import com.valenciaBank.valenciaBank.repository.CryptoHistoryCoverageRepository;
+import com.valenciaBank.valenciaBank.repository.CryptoPricePointRepository;
+import com.valenciaBank.valenciaBank.utils.MarketChartParser;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.function.Function;
+
+/**
+ * Serie histórica canónica por símbolo, moneda y resolución (CRYPTO_PRICE_POINT).
+ *
+ * - Cada descarga de CoinGecko se fusiona sustituyendo el tramo que cubre (merge-on-fetch)
+ * - Cualquier ventana de días se sirve recortando la serie por timestamp
+ * - CRYPTO_HISTORY_COVERAGE indica desde dónde está completa y cuándo hay que pedir la cola;
+ *   su fila se bloquea durante la fusión, así que solo un escritor (de cualquier nodo) reescribe la serie
+ */
+@Service
+public class PriceHistoryStore {
+
+    private static final Logger log = LoggerFactory.getLogger(PriceHistoryStore.class);
+
+    private static final JsonFactory JSON_FACTORY = new JsonFactory();
+
+    private final CryptoPricePointRepository pointRepository;
+    private final CryptoHistoryCoverageRepository coverageRepository;
+    // Transacción aparte para crear la cobertura de una serie nueva antes de bloquearla
+    private final TransactionTemplate newTransaction;
+
+    @Autowired
+    public PriceHistoryStore(CryptoPricePointRepository pointRepository,
+                             CryptoHistoryCoverageRepository coverageRepository,
+                             PlatformTransactionManager transactionManager) {
+        this.pointRepository = pointRepository;
+        this.coverageRepository = coverageRepository;
+        this.newTransaction = new TransactionTemplate(transactionManager);
+        this.newTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+    }
+
+    public Optional<CryptoHistoryCoverage> findCoverage(String symbol, String currency, HistoryGranularity granularity) {
+        return coverageRepository.findBySymbolAndCurrencyAndGranularity(symbol, currency, granularity);
+    }
+
+    /**
+     * Ventana de la serie desde from (epoch ms) en formato market_chart
+     * @return JSON {"prices":[...],"market_caps":[...],"total_volumes":[...]}, o null si no hay puntos
+     */
+    public String slice(String symbol, String currency, HistoryGranularity granularity, long from) {
+        List<CryptoPricePoint> points = pointRepository
+                .findBySymbolAndCurrencyAndGranularityAndTimestampGreaterThanEqualOrderByTimestampAsc(
+                        symbol, currency, granularity, from);
+        return points.isEmpty() ? null : toMarketChartJson(points);
+    }
+
+    /**
+     * Fusionar una respuesta market_chart en la serie: se sustituyen los puntos desde el primer
+     * timestamp recibido, se aplica la retención de la resolución y se actualiza la cobertura.
+     * La cobertura se bloquea antes de tocar los puntos: otra fusión de la misma serie espera a esta.
+     * @param requestedFrom inicio (epoch ms) del rango pedido a CoinGecko
+     * @return cobertura actualizada
+     * @throws IllegalStateException si la respuesta no trae precios (error de la API)
+     */
+    @Transactional
+    public CryptoHistoryCoverage merge(String symbol, String currency, HistoryGranularity granularity,
+                                       String marketChartJson, long requestedFrom) {
+        PriceSeries prices;
+        PriceSeries marketCaps;
+        PriceSeries volumes;
+        try {
+            prices = MarketChartParser.parsePrices(marketChartJson);
+            marketCaps = MarketChartParser.parseSeries(marketChartJson, "market_caps");
+            volumes = MarketChartParser.parseSeries(marketChartJson, "total_volumes");
+        } catch (IOException e) {
+            throw new UncheckedIOException("Respuesta market_chart inválida para " + symbol, e);
+        }
+        if (prices == null || prices.isEmpty()) {
+            throw new IllegalStateException("Respuesta de CoinGecko sin precios para " + symbol);
+        }
+
+        CryptoHistoryCoverage coverage = lockCoverage(symbol, currency, granularity);
+
+        long first = prices.firstTimestamp();
+        int deleted = pointRepository.deleteFrom(symbol, currency, granularity, first);
+
+        List<CryptoPricePoint> points = new ArrayList<>(prices.size());
+        long previous = Long.MIN_VALUE;
+        for (int i = 0; i < prices.size(); i++) {
+            long ts = prices.timestampAt(i);
+            if (ts <= previous) {
+                continue; // Timestamps repetidos o desordenados
+            }
+            previous = ts;
+            points.add(new CryptoPricePoint(symbol, currency, granularity, ts, prices.priceAt(i),
+                    valueAt(marketCaps, i, ts), valueAt(volumes, i, ts)));
+        }
+        pointRepository.saveAll(points);
+
+        // El tramo anterior sigue siendo válido si enlaza con lo descargado (la cobertura vacía no enlaza)
+        boolean contiguous = coverage.getLastPoint() != null && coverage.getLastPoint() >= first;
+        long coveredFrom = contiguous ? Math.min(coverage.getCoveredFrom(), requestedFrom) : requestedFrom;
+
+        if (granularity.getRetentionDays() > 0) {
+            long cutoff = System.currentTimeMillis() - granularity.getRetentionDays() * HistoryGranularity.DAY_MS
+                    - granularity.getIntervalMs();
+            pointRepository.deleteBefore(symbol, currency, granularity, cutoff);
+            coveredFrom = Math.max(coveredFrom, cutoff);
+        }
+
+        coverage.setCoveredFrom(coveredFrom);
+        coverage.setLastPoint(prices.lastTimestamp());
+        coverage.markFetched();
+        coverageRepository.save(coverage);
+
+        log.info("Serie {} {} ({}) fusionada: {} puntos nuevos, {} sustituidos", symbol, currency, granularity,
+                points.size(), deleted);
+        return coverage;
+    }
+
+    /**
+     * Cobertura de la serie bloqueada (PESSIMISTIC_WRITE) hasta el final de la transacción.
+     * Si la serie es nueva se inserta antes una cobertura vacía en su propia transacción; si otro nodo
+     * la inserta a la vez, la restricción única rechaza esta y se bloquea la suya. La comprobación
+     * previa es una lectura normal: un SELECT ... FOR UPDATE sobre una fila inexistente dejaría un
+     * bloqueo de hueco que impediría el propio INSERT.
+     */
+    private CryptoHistoryCoverage lockCoverage(String symbol, String currency, HistoryGranularity granularity) {
+        if (findCoverage(symbol, currency, granularity).isEmpty()) {
+            try {
+                newTransaction.executeWithoutResult(status ->
+                        coverageRepository.saveAndFlush(CryptoHistoryCoverage.empty(symbol, currency, granularity)));
+            } catch (DataIntegrityViolationException e) {
+                log.debug("Cobertura de {} {} ({}) creada a la vez por otro escritor", symbol, currency, granularity);
+            }
+        }
+        return coverageRepository.findForUpdate(symbol, currency, granularity)
+                .orElseThrow(() -> new IllegalStateException(
+                        "Cobertura de " + symbol + " " + currency + " (" + granularity + ") no encontrada"));
+    }
+
+    /**
+     * Valor de una serie secundaria (market_caps, total_volumes) para el punto i:
+     * normalmente comparten índice con prices; si no, se busca por timestamp
+     */
+    private static Double valueAt(PriceSeries series, int index, long ts) {
+        if (series == null || series.isEmpty()) {
+            return null;
+        }
+        if (index < series.size() && series.timestampAt(index) == ts) {
+            return series.priceAt(index);
+        }
+        int closest = series.indexOfClosest(ts);
+        return series.timestampAt(closest) == ts ? series.priceAt(closest) : null;
+    }
+
+    static String toMarketChartJson(List<CryptoPricePoint> points) {
+        StringWriter writer = new StringWriter(points.size() * 80);
+        try (JsonGenerator json = JSON_FACTORY.createGenerator(writer)) {
+            json.writeStartObject();
+            writeSeries(json, "prices", points, CryptoPricePoint::getPrice);
+            writeSeries(json, "market_caps", points, CryptoPricePoint::getMarketCap);
+            writeSeries(json, "total_volumes", points, CryptoPricePoint::getTotalVolume);
+            json.writeEndObject();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return writer.toString();
+    }
+
+    private static void writeSeries(JsonGenerator json, String field, List<CryptoPricePoint> points,
+                                    Function<CryptoPricePoint, Double> value) throws IOException {
+        json.writeArrayFieldStart(field);
+        for (CryptoPricePoint point : points) {
+            Double v = value.apply(point);
+            if (v == null) {
+                continue;
+            }
+            json.writeStartArray();
+            json.writeNumber(point.getTimestamp());
+            json.writeNumber(v);
+            json.writeEndArray();
+        }
+        json.writeEndArray();
+    }
+}
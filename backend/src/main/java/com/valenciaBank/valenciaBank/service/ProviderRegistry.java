@@ -0,0 +1,263 @@
+package com.valenciaBank.valenciaBank.service;
+
+import com.valenciaBank.valenciaBank.utils.CircuitBreaker;
+import com.valenciaBank.valenciaBank.utils.RateLimiter;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.env.Environment;
+import org.springframework.http.HttpHeaders;
+import org.springframework.stereotype.Service;
+import org.springframework.web.client.HttpClientErrorException;
+import org.springframework.web.reactive.function.client.WebClientResponseException;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Supplier;
+
+/**
+ * Un rate limiter, un circuit breaker y un límite de llamadas en vuelo por proveedor externo. Sustituye al antiguo
+ * control global (synchronized + Thread.sleep + flag estático de 429) para que cada
+ * API tenga su propio presupuesto y estado, y las llamadas a un proveedor no esperen
+ * detrás de las de otro.
+ */
+@Service
+public class ProviderRegistry {
+
+    private static final Logger log = LoggerFactory.getLogger(ProviderRegistry.class);
+
+    private static final int DEFAULT_MAX_QUEUE = 50;
+    private static final int DEFAULT_MAX_CONCURRENT = 8;
+
+    private final Map<ExternalProvider, RateLimiter> limiters = new EnumMap<>(ExternalProvider.class);
+    private final Map<ExternalProvider, CircuitBreaker> breakers = new EnumMap<>(ExternalProvider.class);
+    // Llamadas simultáneas por proveedor: con hilos virtuales no hay pool que las limite
+    private final Map<ExternalProvider, Semaphore> concurrency = new EnumMap<>(ExternalProvider.class);
+    private final Map<ExternalProvider, Integer> maxConcurrent = new EnumMap<>(ExternalProvider.class);
+
+    // Tiempo máximo que una llamada síncrona espera su permiso antes de rendirse
+    @Value("${providers.acquire-timeout-ms:10000}")
+    private long acquireTimeoutMs = 10000;
+
+    @Autowired
+    public ProviderRegistry(Environment environment) {
+        for (ExternalProvider provider : ExternalProvider.values()) {
+            String prefix = "providers." + provider.getKey() + ".";
+            double permitsPerSecond = environment.getProperty(prefix + "permits-per-second", Double.class,
+                    provider.getDefaultPermitsPerSecond());
+            int burst = environment.getProperty(prefix + "burst", Integer.class, provider.getDefaultBurst());
+            int maxQueue = environment.getProperty(prefix + "max-queue", Integer.class, DEFAULT_MAX_QUEUE);
+
+            int failureThreshold = environment.getProperty(prefix + "failure-threshold", Integer.class, 3);
+            long cooldownMs = environment.getProperty(prefix + "open-cooldown-ms", Long.class, 60000L);
+            long maxCooldownMs = environment.getProperty(prefix + "max-cooldown-ms", Long.class, 600000L);
+            int halfOpenProbes = environment.getProperty(prefix + "half-open-probes", Integer.class, 1);
+            int concurrent = environment.getProperty(prefix + "max-concurrent", Integer.class, DEFAULT_MAX_CONCURRENT);
+
+            limiters.put(provider, new RateLimiter(provider.getKey(), permitsPerSecond, burst, maxQueue));
+            breakers.put(provider, new CircuitBreaker(provider.getKey(), failureThreshold, cooldownMs, maxCooldownMs, halfOpenProbes));
+            concurrency.put(provider, new Semaphore(concurrent, true));
+            maxConcurrent.put(provider, concurrent);
+            log.info("Proveedor {}: {} permisos/s, ráfaga {}, cola {}, {} en vuelo, circuito abre tras {} fallos ({} ms)",
+                    provider.getKey(), permitsPerSecond, burst, maxQueue, concurrent, failureThreshold, cooldownMs);
+        }
+    }
+
+    /**
+     * Limiter de un proveedor (para código asíncrono: limiter(p).acquire() devuelve un future)
+     */
+    public RateLimiter limiter(ExternalProvider provider) {
+        return limiters.get(provider);
+    }
+
+    /**
+     * Esperar permiso para una llamada síncrona al proveedor
+     * @throws RateLimiter.RejectedException si la cola está llena o se agota la espera
+     */
+    public void acquire(ExternalProvider provider) {
+        limiters.get(provider).acquire(Duration.ofMillis(acquireTimeoutMs));
+    }
+
+    public CircuitBreaker breaker(ExternalProvider provider) {
+        return breakers.get(provider);
+    }
+
+    /**
+     * Indica si el proveedor acepta llamadas ahora mismo (circuito cerrado o en prueba)
+     */
+    public boolean isAvailable(ExternalProvider provider) {
+        return breakers.get(provider).getState() != CircuitBreaker.State.OPEN;
+    }
+
+    /**
+     * Ejecutar una llamada síncrona al proveedor pasando por su circuit breaker y su rate limiter.
+     * Un 429 abre el circuito respetando Retry-After; los errores de red/5xx cuentan como fallo;
+     * el resto de 4xx significan que el proveedor responde y no penalizan.
+     * @throws CircuitBreaker.OpenException si el circuito está abierto
+     * @throws RateLimiter.RejectedException si no hay hueco o permiso de rate limit a tiempo
+     */
+    public <T> T call(ExternalProvider provider, Supplier<T> request) {
+        CircuitBreaker breaker = breakers.get(provider);
+        if (!breaker.tryAcquirePermission()) {
+            throw new CircuitBreaker.OpenException("Circuito abierto para " + provider.getKey()
+                    + " (" + breaker.getRemainingOpenMillis() + " ms restantes)");
+        }
+        Semaphore slots = concurrency.get(provider);
+        try {
+            acquireSlot(provider, slots);
+        } catch (RuntimeException e) {
+            breaker.releasePermission();
+            throw e;
+        }
+        try {
+            acquire(provider);
+        } catch (RuntimeException e) {
+            slots.release();
+            breaker.releasePermission();
+            throw e;
+        }
+
+        try {
+            T result = request.get();
+            breaker.onSuccess();
+            return result;
+        } catch (RuntimeException e) {
+            recordFailure(provider, breaker, e);
+            throw e;
+        } finally {
+            slots.release();
+        }
+    }
+
+    /**
+     * Variante reactiva de call() para WebClient: no ocupa ningún hilo mientras espera.
+     * La petición no se lanza hasta suscribirse (un retry vuelve a pasar por limiter y circuito).
+     * Sin hueco libre se rechaza al momento en lugar de esperar como la versión síncrona.
+     * @return Mono que falla con CircuitBreaker.OpenException o RateLimiter.RejectedException
+     *         si el proveedor no acepta la llamada
+     */
+    public <T> Mono<T> callReactive(ExternalProvider provider, Supplier<Mono<T>> request) {
+        return Mono.defer(() -> {
+            CircuitBreaker breaker = breakers.get(provider);
+            if (!breaker.tryAcquirePermission()) {
+                return Mono.error(new CircuitBreaker.OpenException("Circuito abierto para " + provider.getKey()
+                        + " (" + breaker.getRemainingOpenMillis() + " ms restantes)"));
+            }
+            Semaphore slots = concurrency.get(provider);
+            if (!slots.tryAcquire()) {
+                breaker.releasePermission();
+                return Mono.error(new RateLimiter.RejectedException("Demasiadas llamadas en vuelo a " + provider.getKey()));
+            }
+
+            AtomicBoolean finished = new AtomicBoolean();
+            Mono<Void> permit = Mono.fromFuture(limiters.get(provider)::acquire)
+                    .timeout(Duration.ofMillis(acquireTimeoutMs), Mono.error(() -> new RateLimiter.RejectedException(
+                            "Tiempo de espera agotado para " + provider.getKey() + " (" + acquireTimeoutMs + " ms)")))
+                    .doOnError(e -> {
+                        finished.set(true);
+                        breaker.releasePermission();
+                    });
+            Mono<T> call = Mono.defer(request)
+                    .doOnSuccess(result -> {
+                        finished.set(true);
+                        breaker.onSuccess();
+                    })
+                    .doOnError(e -> {
+                        finished.set(true);
+                        recordFailure(provider, breaker, e);
+                    });
+            return permit.then(call)
+                    .doOnCancel(() -> {
+                        // Cancelada sin resultado (cliente desconectado, timeout externo): no cuenta como fallo
+                        if (finished.compareAndSet(false, true)) {
+                            breaker.releasePermission();
+                        }
+                    })
+                    .doFinally(signal -> slots.release());
+        });
+    }
+
+    /**
+     * Un 429 abre el circuito respetando Retry-After; otro 4xx significa que el proveedor responde;
+     * el resto (red, timeouts, 5xx) cuenta como fallo
+     */
+    private void recordFailure(ExternalProvider provider, CircuitBreaker breaker, Throwable e) {
+        if (e instanceof HttpClientErrorException clientError) {
+            if (clientError.getStatusCode().value() == 429) {
+                breaker.onRateLimited(retryAfter(clientError.getResponseHeaders()));
+                log.warn("429 de {} - circuito abierto ({} ms)", provider.getKey(), breaker.getRemainingOpenMillis());
+            } else {
+                breaker.onSuccess();
+            }
+        } else if (e instanceof WebClientResponseException responseError) {
+            if (responseError.getStatusCode().value() == 429) {
+                breaker.onRateLimited(retryAfter(responseError.getHeaders()));
+                log.warn("429 de {} - circuito abierto ({} ms)", provider.getKey(), breaker.getRemainingOpenMillis());
+            } else if (responseError.getStatusCode().is4xxClientError()) {
+                breaker.onSuccess();
+            } else {
+                breaker.onFailure(responseError.getMessage());
+            }
+        } else {
+            breaker.onFailure(e.getMessage());
+        }
+    }
+
+    private void acquireSlot(ExternalProvider provider, Semaphore slots) {
+        try {
+            if (!slots.tryAcquire(acquireTimeoutMs, TimeUnit.MILLISECONDS)) {
+                throw new RateLimiter.RejectedException("Demasiadas llamadas en vuelo a " + provider.getKey());
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RateLimiter.RejectedException("Interrumpido esperando hueco para " + provider.getKey());
+        }
+    }
+
+    /**
+     * Estado de salud agregado: UP si todos los circuitos están cerrados, DEGRADED si alguno
+     * está abierto o en prueba (esos proveedores se sirven desde su fallback)
+     */
+    public Map<String, Object> getHealth() {
+        Map<String, Object> providers = new LinkedHashMap<>();
+        boolean degraded = false;
+        for (Map.Entry<ExternalProvider, CircuitBreaker> entry : breakers.entrySet()) {
+            CircuitBreaker.State state = entry.getValue().getState();
+            providers.put(entry.getKey().getKey(), state.name());
+            degraded |= state != CircuitBreaker.State.CLOSED;
+        }
+        Map<String, Object> health = new LinkedHashMap<>();
+        health.put("status", degraded ? "DEGRADED" : "UP");
+        health.put("providers", providers);
+        return health;
+    }
+
+    /**
+     * Métricas de todos los proveedores: rate limit (esperas y rechazos) y circuit breaker
+     */
+    public Map<String, Object> getStatus() {
+        Map<String, Object> status = new LinkedHashMap<>();
+        for (ExternalProvider provider : ExternalProvider.values()) {
+            Map<String, Object> providerStatus = new LinkedHashMap<>();
+            providerStatus.put("rateLimiter", limiters.get(provider).getMetrics());
+            providerStatus.put("circuitBreaker", breakers.get(provider).getMetrics());
+            Map<String, Object> concurrencyStatus = new LinkedHashMap<>();
+            concurrencyStatus.put("maxConcurrent", maxConcurrent.get(provider));
+            concurrencyStatus.put("inFlight", maxConcurrent.get(provider) - concurrency.get(provider).availablePermits());
+            providerStatus.put("concurrency", concurrencyStatus);
+            status.put(provider.getKey(), providerStatus);
+        }
+        return status;
+    }
+
+    private static Duration retryAfter(HttpHeaders headers) {
+        return headers != null ? CircuitBreaker.parseRetryAfter(headers.getFirst(HttpHeaders.RETRY_AFTER)) : null;
+    }
+}
@@ -0,0 +1,209 @@
+package com.valenciaBank.valenciaBank.service;
+
+import com.valenciaBank.valenciaBank.model.CryptoPrice;
+import com.valenciaBank.valenciaBank.model.Position;
+import com.valenciaBank.valenciaBank.model.Position.AssetType;
+import com.valenciaBank.valenciaBank.model.PriceQuote;
+import com.valenciaBank.valenciaBank.repository.CryptoPriceRepository;
+import com.valenciaBank.valenciaBank.repository.UserRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Valoración conjunta del portfolio (criptos y fondos) en una sola petición.
+ *
+ * - Las posiciones de ambos tipos salen de una consulta a PORTFOLIO_POSITION
+ * - Los precios se piden a la vez en hilos virtuales: un batch a CoinGecko para todas las criptos y
+ *   una llamada a Finnhub por fondo. ProviderRegistry limita las llamadas en vuelo a cada proveedor
+ * - Lo que no llegue antes del plazo (portfolio.valuation.deadline-ms) se valora con el último precio
+ *   en BD o, si no hay, al precio medio de compra, y se indica en "unpriced"
+ */
+@Service
+public class ValuationService {
+
+    private static final Logger log = LoggerFactory.getLogger(ValuationService.class);
+
+    private final PositionService positionService;
+    private final UserRepository userRepository;
+    private final PriceBookService priceBookService;
+    private final CryptoPriceRepository cryptoPriceRepository;
+    private final BuyFundService buyFundService;
+    private final Executor pricingExecutor;
+    private final long deadlineMs;
+
+    @Autowired
+    public ValuationService(PositionService positionService,
+                            UserRepository userRepository,
+                            PriceBookService priceBookService,
+                            CryptoPriceRepository cryptoPriceRepository,
+                            BuyFundService buyFundService,
+                            @Qualifier("pricingExecutor") Executor pricingExecutor,
+                            @Value("${portfolio.valuation.deadline-ms:5000}") long deadlineMs) {
+        this.positionService = positionService;
+        this.userRepository = userRepository;
+        this.priceBookService = priceBookService;
+        this.cryptoPriceRepository = cryptoPriceRepository;
+        this.buyFundService = buyFundService;
+        this.pricingExecutor = pricingExecutor;
+        this.deadlineMs = deadlineMs;
+    }
+
+    /**
+     * Posiciones valoradas y resumen total, de criptos y de fondos.
+     * Los fondos se valoran en la divisa en que cotizan (sin conversión)
+     */
+    public Map<String, Object> getValuation(Long userId) {
+        if (userRepository.findById(userId).isEmpty()) {
+            throw new RuntimeException("Usuario no encontrado");
+        }
+        long start = System.nanoTime();
+        List<Position> holdings = positionService.getAllPositions(userId);
+
+        Set<String> cryptoSymbols = new LinkedHashSet<>();
+        Set<String> fundSymbols = new LinkedHashSet<>();
+        for (Position held : holdings) {
+            (held.getAssetType() == AssetType.CRYPTO ? cryptoSymbols : fundSymbols).add(held.getSymbol().toUpperCase());
+        }
+
+        // Lanzar todas las consultas de precio antes de esperar ninguna
+        CompletableFuture<Map<String, PriceQuote>> cryptoQuotes = cryptoSymbols.isEmpty()
+                ? CompletableFuture.completedFuture(Collections.emptyMap())
+                : CompletableFuture.supplyAsync(() -> priceBookService.ensureQuotes(cryptoSymbols, "EUR"), pricingExecutor);
+        Map<String, CompletableFuture<Double>> fundPrices = new LinkedHashMap<>();
+        for (String symbol : fundSymbols) {
+            fundPrices.put(symbol, CompletableFuture.supplyAsync(() -> buyFundService.getCurrentFundPrice(symbol), pricingExecutor));
+        }
+
+        // Plazo común para todas: cada espera usa lo que quede
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(deadlineMs);
+        Map<String, PriceQuote> quotes = await(cryptoQuotes, deadline, "criptos");
+        Map<String, Double> fundQuotes = new LinkedHashMap<>();
+        for (Map.Entry<String, CompletableFuture<Double>> entry : fundPrices.entrySet()) {
+            Double price = await(entry.getValue(), deadline, entry.getKey());
+            if (price != null && price > 0) {
+                fundQuotes.put(entry.getKey(), price);
+            }
+        }
+
+        List<Map<String, Object>> positions = new ArrayList<>();
+        List<String> unpriced = new ArrayList<>();
+        Totals crypto = new Totals();
+        Totals funds = new Totals();
+        for (Position held : holdings) {
+            String symbol = held.getSymbol().toUpperCase();
+            Double currentPrice;
+            if (held.getAssetType() == AssetType.CRYPTO) {
+                PriceQuote quote = quotes != null ? quotes.get(symbol) : null;
+                currentPrice = quote != null ? Double.valueOf(quote.getPrice()) : storedCryptoPrice(symbol);
+            } else {
+                currentPrice = fundQuotes.get(symbol);
+            }
+            if (currentPrice == null) {
+                unpriced.add(symbol);
+                currentPrice = held.getAveragePrice();
+            }
+
+            Map<String, Object> position = toPosition(held, currentPrice);
+            positions.add(position);
+            (held.getAssetType() == AssetType.CRYPTO ? crypto : funds)
+                    .add(held.getCostBasis(), (Double) position.get("currentValue"));
+        }
+
+        Totals total = new Totals();
+        total.add(crypto.invested + funds.invested, crypto.currentValue + funds.currentValue);
+        Map<String, Object> summary = total.toMap();
+        summary.put("crypto", crypto.toMap());
+        summary.put("funds", funds.toMap());
+
+        Map<String, Object> response = new LinkedHashMap<>();
+        response.put("success", true);
+        response.put("userId", userId);
+        response.put("positions", positions);
+        response.put("summary", summary);
+        response.put("unpriced", unpriced);
+        log.info("Valoración del usuario {}: {} posiciones ({} sin precio) en {} ms", userId, positions.size(),
+                unpriced.size(), (System.nanoTime() - start) / 1_000_000);
+        return response;
+    }
+
+    private Map<String, Object> toPosition(Position held, Double currentPrice) {
+        Double quantity = held.getQuantity();
+        Double investmentValue = held.getCostBasis();
+        Double currentValue = quantity * currentPrice;
+        Double gainLoss = currentValue - investmentValue;
+
+        Map<String, Object> position = new LinkedHashMap<>();
+        position.put("assetType", held.getAssetType().name());
+        position.put("symbol", held.getSymbol());
+        position.put("name", held.getName());
+        position.put("type", held.getType());
+        position.put("quantity", quantity);
+        position.put("averagePrice", held.getAveragePrice());
+        position.put("currentPrice", currentPrice);
+        position.put("investmentValue", investmentValue);
+        position.put("currentValue", currentValue);
+        position.put("gainLoss", gainLoss);
+        position.put("gainLossPercent", investmentValue > 0 ? (gainLoss / investmentValue) * 100 : 0.0);
+        position.put("currency", held.getAssetType() == AssetType.CRYPTO ? "EUR" : held.getCurrency());
+        position.put("firstPurchaseDate", held.getFirstPurchaseDate().toString()); // String para serialización JSON
+        return position;
+    }
+
+    /**
+     * Resultado de la consulta si termina antes del plazo; si no, null (la consulta sigue en segundo plano)
+     */
+    private static <T> T await(CompletableFuture<T> future, long deadline, String what) {
+        try {
+            long remaining = Math.max(0, deadline - System.nanoTime());
+            return future.get(remaining, TimeUnit.NANOSECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return null;
+        } catch (Exception e) {
+            log.warn("Sin precio a tiempo para {}: {}", what, e.toString());
+            return null;
+        }
+    }
+
+    // Último precio guardado en BD por el refresco del libro de precios
+    private Double storedCryptoPrice(String symbol) {
+        Optional<CryptoPrice> stored = cryptoPriceRepository.findBySymbolAndMarket(symbol, "EUR");
+        return stored.map(CryptoPrice::getPrice).orElse(null);
+    }
+
+    private static final class Totals {
+        private double invested;
+        private double currentValue;
+
+        void add(double invested, double currentValue) {
+            this.invested += invested;
+            this.currentValue += currentValue;
+        }
+
+        Map<String, Object> toMap() {
+            double gainLoss = currentValue - invested;
+            Map<String, Object> map = new LinkedHashMap<>();
+            map.put("totalInvested", invested);
+            map.put("totalCurrentValue", currentValue);
+            map.put("totalGainLoss", gainLoss);
+            map.put("totalGainLossPercent", invested > 0 ? (gainLoss / invested) * 100 : 0.0);
+            return map;
+        }
+    }
+}
@@ -2,6 +2,8 @@ package com.valenciaBank.valenciaBank.service;
 
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.valenciaBank.valenciaBank.utils.SingleFlight;
+import com.valenciaBank.valenciaBank.utils.ValidatorStore;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -26,54 +28,66 @@ public class YahooFinanceService {
     // Yahoo Finance API base URL (pública, sin API key)
     private static final String YAHOO_CHART_URL = "https://query1.finance.yahoo.com/v8/finance/chart/";
 
-    // Mapeo de símbolos amigables a símbolos de Yahoo Finance
-    private static final Map<String, String> SYMBOL_MAP = new LinkedHashMap<>();
+    // Mapeo de símbolos amigables a símbolos de Yahoo Finance (solo lectura: también lo usa NewsSymbolTagger)
+    static final Map<String, String> SYMBOL_MAP;
     static {
+        Map<String, String> symbols = new LinkedHashMap<>();
         // ETFs Globales
-        SYMBOL_MAP.put("VWRL", "VWRL.L");      // London Stock Exchange
-        SYMBOL_MAP.put("EUNL", "EUNL.DE");     // Deutsche Börse
-        SYMBOL_MAP.put("SWRD", "SWRD.L");      // London Stock Exchange
+        symbols.put("VWRL", "VWRL.L");      // London Stock Exchange
+        symbols.put("EUNL", "EUNL.DE");     // Deutsche Börse
+        symbols.put("SWRD", "SWRD.L");      // London Stock Exchange
 
         // USA Índices ETFs
-        SYMBOL_MAP.put("SPY", "SPY");
-        SYMBOL_MAP.put("VOO", "VOO");
-        SYMBOL_MAP.put("IVV", "IVV");
-        SYMBOL_MAP.put("QQQ", "QQQ");
-        SYMBOL_MAP.put("VTI", "VTI");
-        SYMBOL_MAP.put("IWM", "IWM");
+        symbols.put("SPY", "SPY");
+        symbols.put("VOO", "VOO");
+        symbols.put("IVV", "IVV");
+        symbols.put("QQQ", "QQQ");
+        symbols.put("VTI", "VTI");
+        symbols.put("IWM", "IWM");
 
         // Europa
-        SYMBOL_MAP.put("VEUR", "VEUR.L");
+        symbols.put("VEUR", "VEUR.L");
 
         // Índices
-        SYMBOL_MAP.put("^IBEX", "^IBEX");       // IBEX 35
-        SYMBOL_MAP.put("^GSPC", "^GSPC");       // S&P 500
-        SYMBOL_MAP.put("^IXIC", "^IXIC");       // NASDAQ
-        SYMBOL_MAP.put("^DJI", "^DJI");         // Dow Jones
+        symbols.put("^IBEX", "^IBEX");       // IBEX 35
+        symbols.put("^GSPC", "^GSPC");       // S&P 500
+        symbols.put("^IXIC", "^IXIC");       // NASDAQ
+        symbols.put("^DJI", "^DJI");         // Dow Jones
 
         // Sectores
-        SYMBOL_MAP.put("XLK", "XLK");
-        SYMBOL_MAP.put("XLF", "XLF");
-        SYMBOL_MAP.put("XLV", "XLV");
-        SYMBOL_MAP.put("XLE", "XLE");
+        symbols.put("XLK", "XLK");
+        symbols.put("XLF", "XLF");
+        symbols.put("XLV", "XLV");
+        symbols.put("XLE", "XLE");
 
         // Dividendos
-        SYMBOL_MAP.put("IUSA", "IUSA.L");
+        symbols.put("IUSA", "IUSA.L");
 
         // Acciones populares (de la lista original de Finnhub)
-        SYMBOL_MAP.put("AAPL", "AAPL");
-        SYMBOL_MAP.put("MSFT", "MSFT");
-        SYMBOL_MAP.put("GOOGL", "GOOGL");
-        SYMBOL_MAP.put("AMZN", "AMZN");
-        SYMBOL_MAP.put("TSLA", "TSLA");
-        SYMBOL_MAP.put("META", "META");
-        SYMBOL_MAP.put("NVDA", "NVDA");
+        symbols.put("AAPL", "AAPL");
+        symbols.put("MSFT", "MSFT");
+        symbols.put("GOOGL", "GOOGL");
+        symbols.put("AMZN", "AMZN");
+        symbols.put("TSLA", "TSLA");
+        symbols.put("META", "META");
+        symbols.put("NVDA", "NVDA");
+        SYMBOL_MAP = Collections.unmodifiableMap(symbols);
     }
 
+    private final ProviderRegistry providerRegistry;
+
+    // Peticiones simultáneas a la misma URL (cotización, gráfico, búsqueda) comparten una llamada
+    private final SingleFlight<String, String> inFlight = new SingleFlight<>("yahoo");
+    // ETag / Last-Modified de la última respuesta por URL, cuando Yahoo los envía.
+    // Limitado por bytes: los gráficos se guardan como JSON crudo
+    private final ValidatorStore<String> validators =
+            new ValidatorStore<>("yahoo", ValidatorStore.DEFAULT_MAX_BYTES, String::length);
+
     @Autowired
-    public YahooFinanceService(RestTemplate restTemplate, ObjectMapper objectMapper) {
+    public YahooFinanceService(RestTemplate restTemplate, ObjectMapper objectMapper, ProviderRegistry providerRegistry) {
         this.restTemplate = restTemplate;
         this.objectMapper = objectMapper;
+        this.providerRegistry = providerRegistry;
     }
 
     /**
@@ -283,17 +297,37 @@ public class YahooFinanceService {
     }
 
     /**
-     * Llamar a Yahoo Finance con User-Agent adecuado
+     * Llamar a Yahoo Finance con User-Agent adecuado (una sola vez por URL en vuelo)
      */
     private String callYahoo(String url) {
+        return inFlight.execute(url, () -> fetchYahoo(url));
+    }
+
+    private String fetchYahoo(String url) {
+        ResponseEntity<String> response = exchange(url, validators.conditionalHeaders(url));
+        if (response.getStatusCode().value() == 304) {
+            String unchanged = validators.notModified(url);
+            if (unchanged != null) {
+                return unchanged;
+            }
+            // Validadores desalojados entre la petición y la respuesta: pedirla entera
+            response = exchange(url, Map.of());
+        }
+
+        validators.update(url, response.getHeaders().getETag(),
+                response.getHeaders().getFirst(HttpHeaders.LAST_MODIFIED), response.getBody());
+        return response.getBody();
+    }
+
+    private ResponseEntity<String> exchange(String url, Map<String, String> conditionalHeaders) {
         HttpHeaders headers = new HttpHeaders();
         headers.set("User-Agent", "Mozilla/5.0 (Windows NT 10.0; Win64; x64) AppleWebKit/537.36");
         headers.set("Accept", "application/json");
+        conditionalHeaders.forEach(headers::set);
 
         HttpEntity<String> entity = new HttpEntity<>(headers);
-        ResponseEntity<String> response = restTemplate.exchange(url, HttpMethod.GET, entity, String.class);
-
-        return response.getBody();
+        return providerRegistry.call(ExternalProvider.YAHOO,
+                () -> restTemplate.exchange(url, HttpMethod.GET, entity, String.class));
     }
 
     /**
@@ -0,0 +1,141 @@
+package com.valenciaBank.valenciaBank.utils;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Búsqueda simultánea de muchos patrones en un texto (autómata de Aho–Corasick).
+ *
+ * - Los patrones se cargan en un trie; los enlaces de fallo indican a qué nodo saltar cuando el
+ *   siguiente carácter no continúa el patrón actual, así que el texto se recorre una sola vez
+ * - Los enlaces de salida encadenan los patrones que terminan en el mismo punto (sufijos)
+ * - La comparación no distingue mayúsculas; las posiciones de cada coincidencia son las del
+ *   texto original, para que quien llama compruebe mayúsculas o límites de palabra
+ *
+ * Coste O(n + coincidencias) por texto, independiente del número de patrones. Inmutable tras
+ * construirse: se puede compartir entre hilos.
+ */
+public final class AhoCorasick<T> {
+
+    private static final int ROOT = 0;
+
+    private final List<Map<Character, Integer>> transitions;
+    private final int[] fail;
+    private final int[] outputLink; // Nodo más cercano por enlaces de fallo que cierra un patrón (-1 si no hay)
+    private final int[] depth;
+    private final List<T> values;   // Valor del patrón que termina en cada nodo (null si ninguno)
+
+    /**
+     * @param patterns patrón -> valor asociado; los patrones vacíos se ignoran y, si dos solo
+     *                 difieren en mayúsculas, se queda el último
+     */
+    public AhoCorasick(Map<String, T> patterns) {
+        List<Map<Character, Integer>> trie = new ArrayList<>();
+        List<Integer> depths = new ArrayList<>();
+        List<T> nodeValues = new ArrayList<>();
+        trie.add(new HashMap<>());
+        depths.add(0);
+        nodeValues.add(null);
+
+        for (Map.Entry<String, T> pattern : patterns.entrySet()) {
+            String key = pattern.getKey();
+            if (key == null || key.isEmpty()) {
+                continue;
+            }
+            int node = ROOT;
+            for (int i = 0; i < key.length(); i++) {
+                char c = Character.toLowerCase(key.charAt(i));
+                Integer next = trie.get(node).get(c);
+                if (next == null) {
+                    next = trie.size();
+                    trie.add(new HashMap<>());
+                    depths.add(depths.get(node) + 1);
+                    nodeValues.add(null);
+                    trie.get(node).put(c, next);
+                }
+                node = next;
+            }
+            nodeValues.set(node, pattern.getValue());
+        }
+
+        this.transitions = trie;
+        this.values = nodeValues;
+        this.depth = depths.stream().mapToInt(Integer::intValue).toArray();
+        this.fail = new int[trie.size()];
+        this.outputLink = new int[trie.size()];
+        Arrays.fill(outputLink, -1);
+        buildLinks();
+    }
+
+    /**
+     * Todas las coincidencias del texto, incluidas las solapadas, en orden de posición final
+     */
+    public List<Match<T>> findAll(CharSequence text) {
+        List<Match<T>> matches = new ArrayList<>();
+        if (text == null) {
+            return matches;
+        }
+        int node = ROOT;
+        for (int i = 0; i < text.length(); i++) {
+            node = step(node, Character.toLowerCase(text.charAt(i)));
+            int out = values.get(node) != null ? node : outputLink[node];
+            while (out > ROOT) {
+                matches.add(new Match<>(i + 1 - depth[out], i + 1, values.get(out)));
+                out = outputLink[out];
+            }
+        }
+        return matches;
+    }
+
+    /**
+     * Nodos del autómata (tamaño del trie)
+     */
+    public int size() {
+        return transitions.size();
+    }
+
+    private int step(int node, char c) {
+        while (true) {
+            Integer next = transitions.get(node).get(c);
+            if (next != null) {
+                return next;
+            }
+            if (node == ROOT) {
+                return ROOT;
+            }
+            node = fail[node];
+        }
+    }
+
+    /**
+     * Enlaces de fallo y de salida por anchura: los de cada nodo dependen de nodos menos profundos
+     */
+    private void buildLinks() {
+        Deque<Integer> queue = new ArrayDeque<>();
+        for (int child : transitions.get(ROOT).values()) {
+            fail[child] = ROOT;
+            queue.add(child);
+        }
+        while (!queue.isEmpty()) {
+            int node = queue.poll();
+            for (Map.Entry<Character, Integer> edge : transitions.get(node).entrySet()) {
+                int child = edge.getValue();
+                fail[child] = step(fail[node], edge.getKey());
+                int suffix = fail[child];
+                outputLink[child] = values.get(suffix) != null ? suffix : outputLink[suffix];
+                queue.add(child);
+            }
+        }
+    }
+
+    /**
+     * Coincidencia en [start, end) del texto original
+     */
+    public record Match<T>(int start, int end, T value) {
+    }
+}
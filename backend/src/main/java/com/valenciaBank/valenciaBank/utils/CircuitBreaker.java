@@ -0,0 +1,239 @@
+package com.valenciaBank.valenciaBank.utils;
+
+import java.time.Duration;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.LongSupplier;
+
+/**
+ * Circuit breaker por proveedor externo.
+ * - CLOSED: las llamadas pasan; N fallos seguidos (o un 429) abren el circuito
+ * - OPEN: no se llama al proveedor hasta que pasa el cooldown (Retry-After si lo envió)
+ * - HALF_OPEN: se dejan pasar unas pocas llamadas de prueba; si van bien se cierra,
+ *   si fallan se vuelve a abrir
+ *
+ * Mientras el circuito no está cerrado los servicios sirven su fallback (caché
+ * expirada, BD...) de forma explícita, y queda reflejado en las métricas.
+ */
+public class CircuitBreaker {
+
+    public enum State { CLOSED, OPEN, HALF_OPEN }
+
+    private final String name;
+    private final int failureThreshold;
+    private final long defaultCooldownMs;
+    private final long maxCooldownMs;
+    private final int halfOpenProbes;
+    private final LongSupplier clock;
+
+    // Estado protegido por lock (no synchronized: un hilo virtual esperando un monitor bloquea su carrier)
+    private final ReentrantLock lock = new ReentrantLock();
+    private State state = State.CLOSED;
+    private int consecutiveFailures = 0;
+    private long openUntil = 0;
+    private int probesInFlight = 0;
+    private String lastOpenReason;
+
+    // Métricas
+    private long openedCount = 0;
+    private long notPermittedCount = 0;
+    private long fallbackServedCount = 0;
+
+    public CircuitBreaker(String name, int failureThreshold, long defaultCooldownMs, long maxCooldownMs, int halfOpenProbes) {
+        this(name, failureThreshold, defaultCooldownMs, maxCooldownMs, halfOpenProbes, System::currentTimeMillis);
+    }
+
+    CircuitBreaker(String name, int failureThreshold, long defaultCooldownMs, long maxCooldownMs, int halfOpenProbes,
+                   LongSupplier clock) {
+        if (failureThreshold < 1 || defaultCooldownMs < 0 || halfOpenProbes < 1) {
+            throw new IllegalArgumentException("Configuración de circuit breaker inválida para " + name);
+        }
+        this.name = name;
+        this.failureThreshold = failureThreshold;
+        this.defaultCooldownMs = defaultCooldownMs;
+        this.maxCooldownMs = Math.max(defaultCooldownMs, maxCooldownMs);
+        this.halfOpenProbes = halfOpenProbes;
+        this.clock = clock;
+    }
+
+    /**
+     * Pedir permiso para llamar al proveedor. Cada permiso concedido debe cerrarse con
+     * onSuccess, onFailure, onRateLimited o releasePermission.
+     */
+    public boolean tryAcquirePermission() {
+        lock.lock();
+        try {
+            if (state == State.OPEN) {
+                if (clock.getAsLong() < openUntil) {
+                    notPermittedCount++;
+                    return false;
+                }
+                state = State.HALF_OPEN;
+                probesInFlight = 0;
+            }
+            if (state == State.HALF_OPEN) {
+                if (probesInFlight >= halfOpenProbes) {
+                    notPermittedCount++;
+                    return false;
+                }
+                probesInFlight++;
+            }
+            return true;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Devolver un permiso sin resultado (p.ej. la llamada no llegó a hacerse)
+     */
+    public void releasePermission() {
+        lock.lock();
+        try {
+            if (state == State.HALF_OPEN && probesInFlight > 0) {
+                probesInFlight--;
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public void onSuccess() {
+        lock.lock();
+        try {
+            consecutiveFailures = 0;
+            if (state != State.CLOSED) {
+                state = State.CLOSED;
+                probesInFlight = 0;
+                openUntil = 0;
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public void onFailure(String reason) {
+        lock.lock();
+        try {
+            consecutiveFailures++;
+            if (state == State.HALF_OPEN || consecutiveFailures >= failureThreshold) {
+                open(defaultCooldownMs, reason);
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * 429 del proveedor: abrir ya, respetando Retry-After si viene
+     * @param retryAfter espera indicada por el proveedor (null si no la envió)
+     */
+    public void onRateLimited(Duration retryAfter) {
+        lock.lock();
+        try {
+            long cooldown = retryAfter != null ? Math.min(retryAfter.toMillis(), maxCooldownMs) : defaultCooldownMs;
+            open(cooldown, "429 Too Many Requests");
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Registrar que se ha servido un fallback porque el circuito no estaba cerrado
+     */
+    public void recordFallback() {
+        lock.lock();
+        try {
+            fallbackServedCount++;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public State getState() {
+        lock.lock();
+        try {
+            // Un OPEN con el cooldown cumplido se considera ya HALF_OPEN
+            if (state == State.OPEN && clock.getAsLong() >= openUntil) {
+                return State.HALF_OPEN;
+            }
+            return state;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public long getRemainingOpenMillis() {
+        lock.lock();
+        try {
+            return state == State.OPEN ? Math.max(0, openUntil - clock.getAsLong()) : 0;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * Métricas del circuito para el endpoint de estado de proveedores
+     */
+    public Map<String, Object> getMetrics() {
+        lock.lock();
+        try {
+            Map<String, Object> metrics = new LinkedHashMap<>();
+            metrics.put("state", getState().name());
+            metrics.put("remainingOpenMs", getRemainingOpenMillis());
+            metrics.put("consecutiveFailures", consecutiveFailures);
+            metrics.put("lastOpenReason", lastOpenReason);
+            metrics.put("openedCount", openedCount);
+            metrics.put("notPermittedCount", notPermittedCount);
+            metrics.put("fallbackServedCount", fallbackServedCount);
+            return metrics;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void open(long cooldownMs, String reason) {
+        state = State.OPEN;
+        openUntil = clock.getAsLong() + cooldownMs;
+        probesInFlight = 0;
+        lastOpenReason = reason;
+        openedCount++;
+    }
+
+    /**
+     * Interpretar la cabecera Retry-After (segundos o fecha HTTP)
+     * @return duración, o null si no viene o no se puede interpretar
+     */
+    public static Duration parseRetryAfter(String value) {
+        if (value == null || value.isBlank()) {
+            return null;
+        }
+        try {
+            return Duration.ofSeconds(Math.max(0, Long.parseLong(value.trim())));
+        } catch (NumberFormatException e) {
+            try {
+                ZonedDateTime date = ZonedDateTime.parse(value.trim(), DateTimeFormatter.RFC_1123_DATE_TIME);
+                Duration wait = Duration.between(ZonedDateTime.now(date.getZone()), date);
+                return wait.isNegative() ? Duration.ZERO : wait;
+            } catch (Exception ignored) {
+                return null;
+            }
+        }
+    }
+
+    /**
+     * Llamada no realizada porque el circuito del proveedor está abierto
+     */
+    public static class OpenException extends RuntimeException {
+        public OpenException(String message) {
+            super(message);
+        }
+    }
+}
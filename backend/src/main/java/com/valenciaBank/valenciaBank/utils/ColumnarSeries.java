@@ -0,0 +1,128 @@
+package com.valenciaBank.valenciaBank.utils;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+
+import java.io.IOException;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Formato columnar compacto para series temporales (Accept: application/vnd.valenciabank.columnar+json).
+ *
+ * <pre>
+ * {"format":"columnar-v1","unit":"ms","size":3,"t0":1700000000000,"dt":[3600000,3600000],
+ *  "columns":{"price":[1.0,2.0,3.0]}}
+ * </pre>
+ *
+ * - Timestamps en delta: t0 es el primero y dt las diferencias con el anterior (size - 1 valores),
+ *   que en series regulares se repiten y comprimen muy bien con gzip
+ * - Una columna de doubles por serie en lugar de un array [timestamp, valor] por punto
+ * - Los huecos de una columna (sin dato en ese timestamp) se escriben como null
+ */
+public final class ColumnarSeries {
+
+    public static final String MEDIA_TYPE = "application/vnd.valenciabank.columnar+json";
+    public static final String FORMAT = "columnar-v1";
+
+    private final long[] timestamps;
+    private final String unit;
+    private final Map<String, double[]> columns = new LinkedHashMap<>();
+
+    /**
+     * @param timestamps timestamps en orden ascendente
+     * @param unit unidad de los timestamps ("ms" o "s")
+     */
+    public ColumnarSeries(long[] timestamps, String unit) {
+        this.timestamps = timestamps;
+        this.unit = unit;
+    }
+
+    /**
+     * Añadir una columna (mismo número de valores que timestamps; NaN = sin dato)
+     */
+    public ColumnarSeries column(String name, double[] values) {
+        if (values.length != timestamps.length) {
+            throw new IllegalArgumentException("La columna " + name + " tiene " + values.length
+                    + " valores y hay " + timestamps.length + " timestamps");
+        }
+        columns.put(name, values);
+        return this;
+    }
+
+    public int size() {
+        return timestamps.length;
+    }
+
+    /**
+     * Diferencias de cada timestamp con el anterior (size - 1 valores)
+     */
+    public static long[] deltas(long[] timestamps) {
+        if (timestamps.length < 2) {
+            return new long[0];
+        }
+        long[] dt = new long[timestamps.length - 1];
+        for (int i = 1; i < timestamps.length; i++) {
+            dt[i - 1] = timestamps[i] - timestamps[i - 1];
+        }
+        return dt;
+    }
+
+    /**
+     * Reconstruir los timestamps a partir de t0 y las diferencias
+     */
+    public static long[] undelta(long t0, long[] dt) {
+        long[] timestamps = new long[dt.length + 1];
+        timestamps[0] = t0;
+        for (int i = 0; i < dt.length; i++) {
+            timestamps[i + 1] = timestamps[i] + dt[i];
+        }
+        return timestamps;
+    }
+
+    /**
+     * Campos del formato como mapa (arrays primitivos: Jackson los serializa sin boxing)
+     */
+    public Map<String, Object> toMap() {
+        Map<String, Object> map = new LinkedHashMap<>();
+        map.put("format", FORMAT);
+        map.put("unit", unit);
+        map.put("size", timestamps.length);
+        map.put("t0", timestamps.length > 0 ? timestamps[0] : null);
+        map.put("dt", deltas(timestamps));
+        map.put("columns", columns);
+        return map;
+    }
+
+    /**
+     * Escribir el objeto completo en streaming
+     */
+    public void write(JsonGenerator json) throws IOException {
+        json.writeStartObject();
+        json.writeStringField("format", FORMAT);
+        json.writeStringField("unit", unit);
+        json.writeNumberField("size", timestamps.length);
+        if (timestamps.length > 0) {
+            json.writeNumberField("t0", timestamps[0]);
+        } else {
+            json.writeNullField("t0");
+        }
+        long[] dt = deltas(timestamps);
+        json.writeFieldName("dt");
+        json.writeArray(dt, 0, dt.length);
+
+        json.writeObjectFieldStart("columns");
+        for (Map.Entry<String, double[]> column : columns.entrySet()) {
+            json.writeArrayFieldStart(column.getKey());
+            for (double value : column.getValue()) {
+                if (Double.isNaN(value)) {
+                    json.writeNull();
+                } else {
+                    json.writeNumber(value);
+                }
+            }
+            json.writeEndArray();
+        }
+        json.writeEndObject();
+        json.writeEndObject();
+    }
+}
@@ -0,0 +1,173 @@
+package com.valenciaBank.valenciaBank.utils;
+
+/**
+ * Reducción de puntos para gráficos en el servidor.
+ *
+ * - Líneas: Largest-Triangle-Three-Buckets (LTTB). Conserva el primer y el último punto y, en cada
+ *   bucket, el que forma el triángulo de mayor área con el punto anterior elegido y la media del
+ *   siguiente bucket, así que se mantienen picos y valles
+ * - Velas: agregación OHLC por buckets consecutivos (open del primero, high máximo, low mínimo,
+ *   close del último, volumen sumado)
+ *
+ * Coste O(n) en ambos casos.
+ */
+public final class Downsampler {
+
+    // LTTB necesita al menos el primer punto, uno intermedio y el último
+    public static final int MIN_POINTS = 3;
+
+    private Downsampler() {
+    }
+
+    /**
+     * Índices de los puntos que conserva LTTB, en orden ascendente
+     * @param x coordenada x (timestamps, orden ascendente)
+     * @param y valores
+     * @param size puntos válidos en x/y
+     * @param maxPoints puntos máximos del resultado (mínimo MIN_POINTS)
+     */
+    public static int[] lttb(long[] x, double[] y, int size, int maxPoints) {
+        int threshold = Math.max(maxPoints, MIN_POINTS);
+        if (size <= threshold) {
+            int[] all = new int[size];
+            for (int i = 0; i < size; i++) {
+                all[i] = i;
+            }
+            return all;
+        }
+
+        int[] sampled = new int[threshold];
+        int sampledCount = 0;
+        // x relativa al primer punto para no perder precisión con timestamps en ms
+        long origin = x[0];
+        double every = (double) (size - 2) / (threshold - 2);
+
+        int a = 0;
+        sampled[sampledCount++] = a;
+        for (int i = 0; i < threshold - 2; i++) {
+            // Media del bucket siguiente
+            int avgStart = (int) Math.floor((i + 1) * every) + 1;
+            int avgEnd = Math.min((int) Math.floor((i + 2) * every) + 1, size);
+            double avgX = 0;
+            double avgY = 0;
+            for (int j = avgStart; j < avgEnd; j++) {
+                avgX += x[j] - origin;
+                avgY += y[j];
+            }
+            int avgLength = avgEnd - avgStart;
+            avgX /= avgLength;
+            avgY /= avgLength;
+
+            // Punto del bucket actual con el triángulo de mayor área
+            int rangeStart = (int) Math.floor(i * every) + 1;
+            int rangeEnd = (int) Math.floor((i + 1) * every) + 1;
+            double ax = x[a] - origin;
+            double ay = y[a];
+            double maxArea = -1;
+            int next = rangeStart;
+            for (int j = rangeStart; j < rangeEnd; j++) {
+                double area = Math.abs((ax - avgX) * (y[j] - ay) - (ax - (x[j] - origin)) * (avgY - ay));
+                if (area > maxArea) {
+                    maxArea = area;
+                    next = j;
+                }
+            }
+            sampled[sampledCount++] = next;
+            a = next;
+        }
+        sampled[sampledCount] = size - 1;
+        return sampled;
+    }
+
+    /**
+     * Agregar velas en como mucho maxPoints buckets consecutivos
+     */
+    public static Candles ohlc(Candles candles, int maxPoints) {
+        int size = candles.size();
+        int buckets = Math.max(maxPoints, 1);
+        if (size <= buckets) {
+            return candles;
+        }
+        int perBucket = (size + buckets - 1) / buckets;
+        int outSize = (size + perBucket - 1) / perBucket;
+
+        long[] t = new long[outSize];
+        double[] o = new double[outSize];
+        double[] h = new double[outSize];
+        double[] l = new double[outSize];
+        double[] c = new double[outSize];
+        long[] v = new long[outSize];
+        for (int b = 0; b < outSize; b++) {
+            int from = b * perBucket;
+            int to = Math.min(from + perBucket, size);
+            t[b] = candles.t[from];
+            o[b] = candles.o[from];
+            c[b] = candles.c[to - 1];
+            double high = candles.h[from];
+            double low = candles.l[from];
+            long volume = 0;
+            for (int i = from; i < to; i++) {
+                high = Math.max(high, candles.h[i]);
+                low = Math.min(low, candles.l[i]);
+                volume += candles.v[i];
+            }
+            h[b] = high;
+            l[b] = low;
+            v[b] = volume;
+        }
+        return new Candles(t, o, h, l, c, v);
+    }
+
+    /**
+     * Velas en columnas (mismo formato t/o/h/l/c/v que devuelve /api/finnhub/candles)
+     */
+    public static final class Candles {
+        private final long[] t;
+        private final double[] o;
+        private final double[] h;
+        private final double[] l;
+        private final double[] c;
+        private final long[] v;
+
+        public Candles(long[] t, double[] o, double[] h, double[] l, double[] c, long[] v) {
+            if (o.length != t.length || h.length != t.length || l.length != t.length
+                    || c.length != t.length || v.length != t.length) {
+                throw new IllegalArgumentException("Las columnas de las velas deben tener la misma longitud");
+            }
+            this.t = t;
+            this.o = o;
+            this.h = h;
+            this.l = l;
+            this.c = c;
+            this.v = v;
+        }
+
+        public int size() {
+            return t.length;
+        }
+
+        public long[] getT() {
+            return t;
+        }
+
+        public double[] getO() {
+            return o;
+        }
+
+        public double[] getH() {
+            return h;
+        }
+
+        public double[] getL() {
+            return l;
+        }
+
+        public double[] getC() {
+            return c;
+        }
+
+        public long[] getV() {
+            return v;
+        }
+    }
+}
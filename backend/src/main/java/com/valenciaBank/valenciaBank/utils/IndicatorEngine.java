@@ -0,0 +1,193 @@
+package com.valenciaBank.valenciaBank.utils;
+
+/**
+ * Indicadores técnicos incrementales sobre cierres diarios, O(1) por vela nueva.
+ *
+ * - SMA 20 / SMA 50: sumas móviles sobre un buffer circular de los últimos 50 cierres
+ * - Bollinger (20, 2σ poblacional) sobre la misma ventana de 20
+ * - EMA 12 / EMA 26, MACD (12-26) y señal (EMA 9 del MACD)
+ * - RSI 14 con el suavizado de Wilder
+ *
+ * Las medias exponenciales se inicializan con la media simple de sus N primeros valores
+ * (durante el arranque el estado es la media acumulada), como las librerías habituales de análisis técnico.
+ * El estado (getCount y los get*State) se puede guardar y retomar con resume sin recalcular la serie.
+ */
+public final class IndicatorEngine {
+
+    public static final int SMA_SHORT = 20;
+    public static final int SMA_LONG = 50;
+    public static final int EMA_FAST = 12;
+    public static final int EMA_SLOW = 26;
+    public static final int SIGNAL = 9;
+    public static final int RSI = 14;
+    public static final double BOLLINGER_K = 2.0;
+
+    // Cierres que hacen falta para retomar el cálculo
+    public static final int CAPACITY = SMA_LONG;
+
+    private final double[] ring = new double[CAPACITY];
+    private long count;
+    private double sumShort;
+    private double sumLong;
+
+    private double emaFast;
+    private double emaSlow;
+    private double signal;
+    private double avgGain;
+    private double avgLoss;
+
+    /**
+     * Retomar el cálculo a partir del estado guardado
+     * @param recentCloses últimos min(count, CAPACITY) cierres en orden cronológico
+     * @param count cierres procesados hasta el último de recentCloses
+     */
+    public static IndicatorEngine resume(double[] recentCloses, long count, double emaFastState, double emaSlowState,
+                                         double signalState, double avgGainState, double avgLossState) {
+        if (recentCloses.length != Math.min(count, CAPACITY)) {
+            throw new IllegalArgumentException("Se esperaban " + Math.min(count, CAPACITY)
+                    + " cierres y hay " + recentCloses.length);
+        }
+        IndicatorEngine engine = new IndicatorEngine();
+        long first = count - recentCloses.length;
+        for (int i = 0; i < recentCloses.length; i++) {
+            double close = recentCloses[i];
+            engine.ring[(int) ((first + i) % CAPACITY)] = close;
+            engine.sumLong += close;
+            if (i >= recentCloses.length - SMA_SHORT) {
+                engine.sumShort += close;
+            }
+        }
+        engine.count = count;
+        engine.emaFast = emaFastState;
+        engine.emaSlow = emaSlowState;
+        engine.signal = signalState;
+        engine.avgGain = avgGainState;
+        engine.avgLoss = avgLossState;
+        return engine;
+    }
+
+    public void add(double close) {
+        double previous = count > 0 ? closeAgo(0) : Double.NaN;
+        if (count >= SMA_SHORT) {
+            sumShort -= closeAgo(SMA_SHORT - 1);
+        }
+        if (count >= SMA_LONG) {
+            sumLong -= closeAgo(SMA_LONG - 1); // Es el hueco que se sobrescribe
+        }
+        ring[(int) (count % CAPACITY)] = close;
+        sumShort += close;
+        sumLong += close;
+        count++;
+
+        emaFast = seeded(emaFast, close, count, EMA_FAST, 2.0 / (EMA_FAST + 1));
+        emaSlow = seeded(emaSlow, close, count, EMA_SLOW, 2.0 / (EMA_SLOW + 1));
+        if (count >= EMA_SLOW) {
+            signal = seeded(signal, emaFast - emaSlow, count - EMA_SLOW + 1, SIGNAL, 2.0 / (SIGNAL + 1));
+        }
+        if (count >= 2) {
+            double change = close - previous;
+            avgGain = seeded(avgGain, Math.max(change, 0), count - 1, RSI, 1.0 / RSI);
+            avgLoss = seeded(avgLoss, Math.max(-change, 0), count - 1, RSI, 1.0 / RSI);
+        }
+    }
+
+    /**
+     * Media acumulada durante los n primeros valores (su media simple) y exponencial después
+     */
+    private static double seeded(double state, double value, long k, int n, double alpha) {
+        return k <= n ? state + (value - state) / k : state + alpha * (value - state);
+    }
+
+    /**
+     * Cierre de hace ago velas (0 = el último añadido)
+     */
+    private double closeAgo(int ago) {
+        return ring[(int) ((count - 1 - ago) % CAPACITY)];
+    }
+
+    public long getCount() {
+        return count;
+    }
+
+    public Double getSma20() {
+        return count >= SMA_SHORT ? sumShort / SMA_SHORT : null;
+    }
+
+    public Double getSma50() {
+        return count >= SMA_LONG ? sumLong / SMA_LONG : null;
+    }
+
+    public Double getEma12() {
+        return count >= EMA_FAST ? emaFast : null;
+    }
+
+    public Double getEma26() {
+        return count >= EMA_SLOW ? emaSlow : null;
+    }
+
+    public Double getMacd() {
+        return count >= EMA_SLOW ? emaFast - emaSlow : null;
+    }
+
+    public Double getMacdSignal() {
+        return count >= EMA_SLOW + SIGNAL - 1 ? signal : null;
+    }
+
+    public Double getMacdHistogram() {
+        return count >= EMA_SLOW + SIGNAL - 1 ? (emaFast - emaSlow) - signal : null;
+    }
+
+    public Double getRsi14() {
+        if (count < RSI + 1) {
+            return null;
+        }
+        if (avgLoss == 0) {
+            return avgGain == 0 ? 50.0 : 100.0;
+        }
+        return 100 - 100 / (1 + avgGain / avgLoss);
+    }
+
+    public Double getBollingerUpper() {
+        Double deviation = bollingerDeviation();
+        return deviation != null ? getSma20() + BOLLINGER_K * deviation : null;
+    }
+
+    public Double getBollingerLower() {
+        Double deviation = bollingerDeviation();
+        return deviation != null ? getSma20() - BOLLINGER_K * deviation : null;
+    }
+
+    private Double bollingerDeviation() {
+        if (count < SMA_SHORT) {
+            return null;
+        }
+        // Dos pasadas sobre 20 cierres: coste constante y sin el error de suma de cuadrados
+        double mean = sumShort / SMA_SHORT;
+        double squares = 0;
+        for (int i = 0; i < SMA_SHORT; i++) {
+            double d = closeAgo(i) - mean;
+            squares += d * d;
+        }
+        return Math.sqrt(squares / SMA_SHORT);
+    }
+
+    public double getEmaFastState() {
+        return emaFast;
+    }
+
+    public double getEmaSlowState() {
+        return emaSlow;
+    }
+
+    public double getSignalState() {
+        return signal;
+    }
+
+    public double getAvgGainState() {
+        return avgGain;
+    }
+
+    public double getAvgLossState() {
+        return avgLoss;
+    }
+}
@@ -0,0 +1,104 @@
+package com.valenciaBank.valenciaBank.utils;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.valenciaBank.valenciaBank.model.PriceSeries;
+
+import java.io.IOException;
+import java.util.Arrays;
+
+/**
+ * Decodificador en streaming de respuestas market_chart de CoinGecko:
+ * {"prices":[[ts,price],...],"market_caps":[...],"total_volumes":[...]}
+ *
+ * Lee los pares directamente a columnas long[]/double[] con JsonParser, sin construir
+ * un árbol JSON ni objetos por punto. Los campos que no se piden se saltan enteros.
+ */
+public final class MarketChartParser {
+
+    private static final JsonFactory JSON_FACTORY = new JsonFactory();
+    private static final int INITIAL_CAPACITY = 512;
+
+    private MarketChartParser() {
+    }
+
+    /**
+     * Parsear la serie "prices"
+     * @return serie de precios, o null si el JSON es nulo, es un error o no contiene "prices"
+     */
+    public static PriceSeries parsePrices(String json) throws IOException {
+        return parseSeries(json, "prices");
+    }
+
+    /**
+     * Parsear una de las series del market_chart ("prices", "market_caps", "total_volumes")
+     * @return serie, o null si el JSON es nulo, contiene "error" o no tiene el campo
+     */
+    public static PriceSeries parseSeries(String json, String field) throws IOException {
+        if (json == null || json.isEmpty()) {
+            return null;
+        }
+        try (JsonParser parser = JSON_FACTORY.createParser(json)) {
+            if (parser.nextToken() != JsonToken.START_OBJECT) {
+                return null;
+            }
+            PriceSeries series = null;
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String name = parser.currentName();
+                JsonToken value = parser.nextToken();
+                if ("error".equals(name)) {
+                    return null;
+                }
+                if (field.equals(name) && value == JsonToken.START_ARRAY) {
+                    series = readPairs(parser);
+                } else {
+                    parser.skipChildren();
+                }
+            }
+            return series;
+        }
+    }
+
+    /**
+     * Leer [[ts,price],...] con el parser posicionado en el START_ARRAY exterior.
+     * Los pares incompletos o con valores no numéricos (null) se descartan.
+     */
+    private static PriceSeries readPairs(JsonParser parser) throws IOException {
+        long[] timestamps = new long[INITIAL_CAPACITY];
+        double[] prices = new double[INITIAL_CAPACITY];
+        int size = 0;
+
+        while (parser.nextToken() == JsonToken.START_ARRAY) {
+            JsonToken token = parser.nextToken();
+            if (token == JsonToken.END_ARRAY) {
+                continue; // Par vacío
+            }
+            boolean valid = token.isNumeric();
+            long ts = valid ? parser.getValueAsLong() : 0;
+
+            token = parser.nextToken();
+            if (token == JsonToken.END_ARRAY) {
+                continue; // Par sin precio
+            }
+            valid &= token.isNumeric();
+            double price = valid ? parser.getDoubleValue() : 0;
+
+            // Saltar elementos extra del par, si los hubiera
+            while (parser.nextToken() != JsonToken.END_ARRAY) {
+                parser.skipChildren();
+            }
+
+            if (valid) {
+                if (size == timestamps.length) {
+                    timestamps = Arrays.copyOf(timestamps, size * 2);
+                    prices = Arrays.copyOf(prices, size * 2);
+                }
+                timestamps[size] = ts;
+                prices[size] = price;
+                size++;
+            }
+        }
+        return new PriceSeries(Arrays.copyOf(timestamps, size), Arrays.copyOf(prices, size));
+    }
+}
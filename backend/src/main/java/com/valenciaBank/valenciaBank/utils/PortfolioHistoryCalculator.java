@@ -0,0 +1,168 @@
+package com.valenciaBank.valenciaBank.utils;
+
+import com.valenciaBank.valenciaBank.model.CryptoPurchase;
+import com.valenciaBank.valenciaBank.model.PriceSeries;
+
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Motor de series ordenadas para el historial del portfolio.
+ *
+ * Para cada símbolo:
+ * - las compras se ordenan por fecha y se acumulan en sumas prefijas (cantidad e invertido)
+ * - los precios se alinean con los timestamps de referencia con un merge de dos punteros
+ *
+ * Como los timestamps de referencia van en orden ascendente, ambos punteros solo avanzan:
+ * coste O(puntos + precios + compras·log compras) por símbolo, en lugar de recorrer la serie
+ * completa y todas las compras en cada punto.
+ */
+public final class PortfolioHistoryCalculator {
+
+    private PortfolioHistoryCalculator() {
+    }
+
+    /**
+     * Valor e invertido del portfolio en cada timestamp de referencia
+     */
+    public static class Result {
+        private final long[] timestamps;
+        private final double[] values;
+        private final double[] invested;
+
+        Result(long[] timestamps, double[] values, double[] invested) {
+            this.timestamps = timestamps;
+            this.values = values;
+            this.invested = invested;
+        }
+
+        public long[] getTimestamps() {
+            return timestamps;
+        }
+
+        public double[] getValues() {
+            return values;
+        }
+
+        public double[] getInvested() {
+            return invested;
+        }
+    }
+
+    /**
+     * @param reference serie cuyos timestamps marcan los puntos del historial (orden ascendente)
+     * @param prices serie de precios por símbolo (puede faltar alguno: se valora a 0)
+     * @param purchasesBySymbol compras agrupadas por símbolo
+     * @param zone zona horaria en la que están expresadas las fechas de compra
+     */
+    public static Result compute(PriceSeries reference,
+                                 Map<String, PriceSeries> prices,
+                                 Map<String, List<CryptoPurchase>> purchasesBySymbol,
+                                 ZoneId zone) {
+        int points = reference.size();
+        long[] timestamps = new long[points];
+        double[] values = new double[points];
+        double[] invested = new double[points];
+        for (int i = 0; i < points; i++) {
+            timestamps[i] = reference.timestampAt(i);
+        }
+
+        for (Map.Entry<String, List<CryptoPurchase>> entry : purchasesBySymbol.entrySet()) {
+            Lots lots = Lots.of(entry.getValue(), zone);
+            PriceSeries series = prices.get(entry.getKey());
+
+            int lot = -1;    // Última compra incluida (fecha <= punto)
+            int price = 0;   // Último precio con timestamp <= punto (o 0 si aún no hay)
+            for (int i = 0; i < points; i++) {
+                long ts = timestamps[i];
+                while (lot + 1 < lots.size && lots.dates[lot + 1] <= ts) {
+                    lot++;
+                }
+                if (lot < 0 || lots.cumulativeQuantity[lot] <= 0) {
+                    continue;
+                }
+
+                double priceAtTime = 0.0;
+                if (series != null && !series.isEmpty()) {
+                    price = advance(series, price, ts);
+                    priceAtTime = series.priceAt(closest(series, price, ts));
+                }
+                values[i] += lots.cumulativeQuantity[lot] * priceAtTime;
+                invested[i] += lots.cumulativeInvested[lot];
+            }
+        }
+        return new Result(timestamps, values, invested);
+    }
+
+    /**
+     * Avanzar el puntero hasta el último punto con timestamp <= ts
+     */
+    private static int advance(PriceSeries series, int from, long ts) {
+        int index = from;
+        while (index + 1 < series.size() && series.timestampAt(index + 1) <= ts) {
+            index++;
+        }
+        return index;
+    }
+
+    /**
+     * Elegir entre el punto actual y el siguiente el más cercano a ts (empate: el anterior),
+     * igual que PriceSeries.closestPrice
+     */
+    private static int closest(PriceSeries series, int index, long ts) {
+        if (index + 1 < series.size()) {
+            long current = Math.abs(ts - series.timestampAt(index));
+            long next = Math.abs(series.timestampAt(index + 1) - ts);
+            if (next < current) {
+                return index + 1;
+            }
+        }
+        return index;
+    }
+
+    /**
+     * Compras de un símbolo ordenadas por fecha con cantidad e invertido acumulados
+     */
+    private static final class Lots {
+        final int size;
+        final long[] dates;
+        final double[] cumulativeQuantity;
+        final double[] cumulativeInvested;
+
+        private Lots(int size) {
+            this.size = size;
+            this.dates = new long[size];
+            this.cumulativeQuantity = new double[size];
+            this.cumulativeInvested = new double[size];
+        }
+
+        static Lots of(List<CryptoPurchase> purchases, ZoneId zone) {
+            List<CryptoPurchase> sorted = purchases.stream()
+                    .sorted(Comparator.comparing(CryptoPurchase::getPurchaseDate))
+                    .toList();
+            Lots lots = new Lots(sorted.size());
+            double quantity = 0.0;
+            double investedTotal = 0.0;
+            for (int i = 0; i < sorted.size(); i++) {
+                CryptoPurchase purchase = sorted.get(i);
+                quantity += purchase.getQuantity();
+                investedTotal += purchase.getQuantity() * purchase.getPurchasePrice();
+                lots.dates[i] = toEpochMillisCeil(purchase.getPurchaseDate(), zone);
+                lots.cumulativeQuantity[i] = quantity;
+                lots.cumulativeInvested[i] = investedTotal;
+            }
+            return lots;
+        }
+
+        /**
+         * Epoch ms redondeado hacia arriba: una compra a las 12:00:00.0005 no cuenta en el punto 12:00:00.000
+         */
+        private static long toEpochMillisCeil(LocalDateTime date, ZoneId zone) {
+            var instant = date.atZone(zone).toInstant();
+            return instant.toEpochMilli() + (instant.getNano() % 1_000_000 > 0 ? 1 : 0);
+        }
+    }
+}
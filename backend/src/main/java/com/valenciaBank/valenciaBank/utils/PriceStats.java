@@ -0,0 +1,147 @@
+package com.valenciaBank.valenciaBank.utils;
+
+/**
+ * Estadísticas de una serie de precios en una sola pasada y sin reservar memoria.
+ *
+ * Los precios se añaden en orden cronológico:
+ * - media y varianza poblacional con el algoritmo de Welford (estable numéricamente)
+ * - máximo, mínimo, primer y último precio
+ * - volatilidad de los retornos logarítmicos ln(p[i] / p[i-1]) (desviación típica muestral, sin anualizar)
+ * - drawdown máximo: mayor caída desde un máximo previo, en %
+ *
+ * No es thread-safe: un acumulador por cálculo.
+ */
+public final class PriceStats {
+
+    private long count;
+    private double mean;
+    private double m2;
+    private double high = Double.NaN;
+    private double low = Double.NaN;
+    private double first = Double.NaN;
+    private double last = Double.NaN;
+
+    private long returnCount;
+    private double returnMean;
+    private double returnM2;
+
+    private double peak;
+    private double maxDrawdown;
+
+    /**
+     * Estadísticas de prices[from, to)
+     */
+    public static PriceStats of(double[] prices, int from, int to) {
+        PriceStats stats = new PriceStats();
+        for (int i = from; i < to; i++) {
+            stats.add(prices[i]);
+        }
+        return stats;
+    }
+
+    public static PriceStats of(double[] prices) {
+        return of(prices, 0, prices.length);
+    }
+
+    /**
+     * Añadir un precio que hace a la vez de cierre, máximo y mínimo
+     */
+    public PriceStats add(double price) {
+        return add(price, price, price);
+    }
+
+    /**
+     * Añadir una vela: la media, la volatilidad y el drawdown usan el cierre; máximo y mínimo, high y low
+     */
+    public PriceStats add(double close, double high, double low) {
+        count++;
+        double delta = close - mean;
+        mean += delta / count;
+        m2 += delta * (close - mean);
+
+        if (count == 1) {
+            this.high = high;
+            this.low = low;
+            first = close;
+        } else {
+            if (high > this.high) this.high = high;
+            if (low < this.low) this.low = low;
+            // Retornos logarítmicos solo entre precios positivos
+            if (last > 0 && close > 0) {
+                double r = Math.log(close / last);
+                returnCount++;
+                double rDelta = r - returnMean;
+                returnMean += rDelta / returnCount;
+                returnM2 += rDelta * (r - returnMean);
+            }
+        }
+        last = close;
+
+        if (close > peak) {
+            peak = close;
+        } else if (peak > 0) {
+            double drawdown = (peak - close) / peak;
+            if (drawdown > maxDrawdown) maxDrawdown = drawdown;
+        }
+        return this;
+    }
+
+    public long getCount() {
+        return count;
+    }
+
+    public double getMean() {
+        return count > 0 ? mean : 0.0;
+    }
+
+    /**
+     * Varianza poblacional de los cierres
+     */
+    public double getVariance() {
+        return count > 0 ? m2 / count : 0.0;
+    }
+
+    /**
+     * Desviación típica poblacional de los cierres
+     */
+    public double getStdDev() {
+        return Math.sqrt(getVariance());
+    }
+
+    public double getHigh() {
+        return count > 0 ? high : 0.0;
+    }
+
+    public double getLow() {
+        return count > 0 ? low : 0.0;
+    }
+
+    public double getFirst() {
+        return count > 0 ? first : 0.0;
+    }
+
+    public double getLast() {
+        return count > 0 ? last : 0.0;
+    }
+
+    /**
+     * Variación % entre el primer y el último cierre (0 si el primero no es positivo)
+     */
+    public double getChangePercent() {
+        return count > 0 && first > 0 ? ((last - first) / first) * 100 : 0.0;
+    }
+
+    /**
+     * Volatilidad de los retornos logarítmicos por periodo, en %
+     */
+    public double getLogReturnVolatilityPercent() {
+        return returnCount > 1 ? Math.sqrt(returnM2 / (returnCount - 1)) * 100 : 0.0;
+    }
+
+    /**
+     * Mayor caída desde un máximo previo, en % (0 si la serie nunca baja)
+     */
+    public double getMaxDrawdownPercent() {
+        return maxDrawdown * 100;
+    }
+}
@@ -0,0 +1,281 @@
+package com.valenciaBank.valenciaBank.utils;
+
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Rate limiter de tipo token bucket, no bloqueante.
+ * - permitsPerSecond: ritmo al que se reponen los permisos
+ * - burst: permisos que se pueden acumular (ráfaga máxima)
+ * - maxQueue: peticiones que pueden esperar turno; a partir de ahí se rechazan
+ *
+ * acquire() devuelve un CompletableFuture que se completa cuando hay permiso, sin
+ * ocupar ningún hilo mientras espera. Los waiters se despiertan en orden FIFO desde
+ * un único hilo planificador compartido por todos los limiters.
+ */
+public class RateLimiter {
+
+    private static final ScheduledExecutorService SCHEDULER = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread t = new Thread(r, "rate-limiter");
+        t.setDaemon(true);
+        return t;
+    });
+
+    private final String name;
+    private final double permitsPerSecond;
+    private final int burst;
+    private final int maxQueue;
+
+    // Estado del bucket protegido por lock (secciones cortas, nunca I/O dentro)
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Deque<Waiter> waiters = new ArrayDeque<>();
+    private double tokens;
+    private long lastRefillNanos;
+    private boolean drainScheduled = false;
+
+    // Métricas
+    private final LongAdder acquired = new LongAdder();
+    private final LongAdder queued = new LongAdder();
+    private final LongAdder rejected = new LongAdder();
+    private final LongAdder totalWaitNanos = new LongAdder();
+    private final AtomicLong maxWaitNanos = new AtomicLong();
+
+    public RateLimiter(String name, double permitsPerSecond, int burst, int maxQueue) {
+        if (permitsPerSecond <= 0 || burst < 1 || maxQueue < 0) {
+            throw new IllegalArgumentException("Configuración de rate limit inválida para " + name);
+        }
+        this.name = name;
+        this.permitsPerSecond = permitsPerSecond;
+        this.burst = burst;
+        this.maxQueue = maxQueue;
+        this.tokens = burst;
+        this.lastRefillNanos = System.nanoTime();
+    }
+
+    /**
+     * Pedir un permiso sin bloquear.
+     * @return future completado cuando hay permiso, o fallido con RejectedException si la cola está llena
+     */
+    public CompletableFuture<Void> acquire() {
+        lock.lock();
+        try {
+            refill();
+            if (waiters.isEmpty() && tokens >= 1) {
+                tokens -= 1;
+                acquired.increment();
+                return CompletableFuture.completedFuture(null);
+            }
+            if (waiters.size() >= maxQueue) {
+                rejected.increment();
+                return CompletableFuture.failedFuture(
+                        new RejectedException("Cola de " + name + " llena (" + maxQueue + " en espera)"));
+            }
+            Waiter waiter = new Waiter(new CompletableFuture<>(), System.nanoTime());
+            waiters.addLast(waiter);
+            queued.increment();
+            scheduleDrain();
+            return waiter.future;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Pedir un permiso solo si está disponible ahora mismo
+     */
+    public boolean tryAcquire() {
+        lock.lock();
+        try {
+            refill();
+            if (waiters.isEmpty() && tokens >= 1) {
+                tokens -= 1;
+                acquired.increment();
+                return true;
+            }
+            return false;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Variante para código síncrono (RestTemplate): espera el permiso como máximo timeout.
+     * El hilo solo espera al future; no se mantiene ningún monitor mientras tanto.
+     * @throws RejectedException si la cola está llena o se agota el tiempo
+     */
+    public void acquire(Duration timeout) {
+        CompletableFuture<Void> permit = acquire();
+        try {
+            permit.get(timeout.toMillis(), TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            if (permit.cancel(false)) {
+                rejected.increment();
+                removeWaiter(permit);
+            }
+            throw new RejectedException("Tiempo de espera agotado para " + name + " (" + timeout.toMillis() + " ms)");
+        } catch (InterruptedException e) {
+            if (permit.cancel(false)) {
+                removeWaiter(permit);
+            }
+            Thread.currentThread().interrupt();
+            throw new RejectedException("Espera interrumpida para " + name);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RejectedException rejectedException) {
+                throw rejectedException;
+            }
+            throw new RejectedException("Error esperando permiso de " + name + ": " + e.getMessage());
+        }
+    }
+
+    /**
+     * Métricas del limiter para el endpoint de estado de proveedores
+     */
+    public Map<String, Object> getMetrics() {
+        double available;
+        int waiting;
+        lock.lock();
+        try {
+            refill();
+            available = tokens;
+            waiting = waiters.size();
+        } finally {
+            lock.unlock();
+        }
+        long acquiredCount = acquired.sum();
+        long queuedCount = queued.sum();
+
+        Map<String, Object> metrics = new LinkedHashMap<>();
+        metrics.put("permitsPerSecond", permitsPerSecond);
+        metrics.put("burst", burst);
+        metrics.put("maxQueue", maxQueue);
+        metrics.put("availablePermits", Math.floor(available * 100) / 100);
+        metrics.put("waiting", waiting);
+        metrics.put("acquired", acquiredCount);
+        metrics.put("queued", queuedCount);
+        metrics.put("rejected", rejected.sum());
+        metrics.put("avgWaitMs", queuedCount > 0 ? totalWaitNanos.sum() / queuedCount / 1_000_000.0 : 0.0);
+        metrics.put("maxWaitMs", maxWaitNanos.get() / 1_000_000.0);
+        return metrics;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public double getPermitsPerSecond() {
+        return permitsPerSecond;
+    }
+
+    public int getBurst() {
+        return burst;
+    }
+
+    public int getMaxQueue() {
+        return maxQueue;
+    }
+
+    public long getRejectedCount() {
+        return rejected.sum();
+    }
+
+    private void removeWaiter(CompletableFuture<Void> permit) {
+        lock.lock();
+        try {
+            waiters.removeIf(waiter -> waiter.future == permit);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Reponer permisos según el tiempo transcurrido (llamar con el lock tomado)
+     */
+    private void refill() {
+        long now = System.nanoTime();
+        double elapsedSeconds = (now - lastRefillNanos) / 1_000_000_000.0;
+        tokens = Math.min(burst, tokens + elapsedSeconds * permitsPerSecond);
+        lastRefillNanos = now;
+    }
+
+    /**
+     * Programar el despertar de la cola para cuando haya un permiso (llamar con el lock tomado)
+     */
+    private void scheduleDrain() {
+        if (drainScheduled) {
+            return;
+        }
+        long delayNanos = (long) Math.max(0, (1 - tokens) / permitsPerSecond * 1_000_000_000L);
+        SCHEDULER.schedule(this::drain, delayNanos, TimeUnit.NANOSECONDS);
+        drainScheduled = true;
+    }
+
+    /**
+     * Entregar permisos a los waiters en orden FIFO. Los futures se completan fuera
+     * del lock porque sus continuaciones pueden ejecutarse en este mismo hilo.
+     */
+    private void drain() {
+        List<Waiter> ready = new ArrayList<>();
+        lock.lock();
+        try {
+            drainScheduled = false;
+            refill();
+            while (!waiters.isEmpty()) {
+                Waiter next = waiters.peekFirst();
+                if (next.future.isDone()) {
+                    waiters.pollFirst(); // Cancelado por timeout
+                    continue;
+                }
+                if (tokens < 1) {
+                    break;
+                }
+                waiters.pollFirst();
+                tokens -= 1;
+                ready.add(next);
+            }
+            if (!waiters.isEmpty()) {
+                scheduleDrain();
+            }
+        } finally {
+            lock.unlock();
+        }
+
+        long now = System.nanoTime();
+        int unused = 0;
+        for (Waiter waiter : ready) {
+            // Métricas antes de completar: el waiter puede consultarlas en cuanto despierta
+            long waited = now - waiter.enqueuedNanos;
+            acquired.increment();
+            totalWaitNanos.add(waited);
+            maxWaitNanos.accumulateAndGet(waited, Math::max);
+            if (!waiter.future.complete(null)) {
+                acquired.decrement(); // Se canceló entre el reparto y la entrega
+                totalWaitNanos.add(-waited);
+                unused++;
+            }
+        }
+        if (unused > 0) {
+            lock.lock();
+            try {
+                tokens = Math.min(burst, tokens + unused);
+            } finally {
+                lock.unlock();
+            }
+        }
+    }
+
+    private record Waiter(CompletableFuture<Void> future, long enqueuedNanos) {
+    }
+
+    /**
+     * Petición rechazada por el rate limiter (cola llena o espera agotada)
+     */
+    public static class RejectedException extends RuntimeException {
+        public RejectedException(String message) {
+            super(message);
+        }
+    }
+}
@@ -0,0 +1,133 @@
+package com.valenciaBank.valenciaBank.utils;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * Agrupa las peticiones simultáneas a una misma clave en una sola llamada (single-flight).
+ *
+ * La primera petición de una clave ejecuta la carga; las que llegan mientras está en curso
+ * esperan su CompletableFuture y reciben el mismo resultado o la misma excepción. Cuando la carga
+ * termina la clave se libera: no es una caché, la siguiente petición vuelve a cargar.
+ *
+ * Evita que al caducar una entrada popular cada petición haga su propia llamada al proveedor
+ * y agote su rate limit.
+ */
+public class SingleFlight<K, V> {
+
+    private final String name;
+    private final ConcurrentHashMap<K, CompletableFuture<V>> inFlight = new ConcurrentHashMap<>();
+
+    // Métricas
+    private final LongAdder loads = new LongAdder();
+    private final LongAdder joined = new LongAdder();
+
+    public SingleFlight(String name) {
+        this.name = name;
+    }
+
+    /**
+     * Ejecutar la carga en el hilo actual, o esperar a la que ya está en curso para la clave.
+     * Las excepciones de la carga se relanzan tal cual en todos los que esperan.
+     */
+    public V execute(K key, Supplier<V> loader) {
+        CompletableFuture<V> mine = new CompletableFuture<>();
+        CompletableFuture<V> running = inFlight.putIfAbsent(key, mine);
+        if (running != null) {
+            joined.increment();
+            return await(running);
+        }
+
+        loads.increment();
+        try {
+            V value = loader.get();
+            mine.complete(value);
+            return value;
+        } catch (RuntimeException | Error e) {
+            mine.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlight.remove(key, mine);
+        }
+    }
+
+    /**
+     * Variante asíncrona: la carga devuelve un future y nadie bloquea un hilo esperando.
+     * Cada llamante recibe su propia copia: cancelarla no cancela la carga compartida.
+     */
+    public CompletableFuture<V> executeAsync(K key, Supplier<CompletableFuture<V>> loader) {
+        CompletableFuture<V> mine = new CompletableFuture<>();
+        CompletableFuture<V> running = inFlight.putIfAbsent(key, mine);
+        if (running != null) {
+            joined.increment();
+            return running.copy();
+        }
+
+        loads.increment();
+        try {
+            loader.get().whenComplete((value, error) -> {
+                if (error != null) {
+                    mine.completeExceptionally(unwrap(error));
+                } else {
+                    mine.complete(value);
+                }
+                inFlight.remove(key, mine);
+            });
+        } catch (RuntimeException | Error e) {
+            mine.completeExceptionally(e);
+            inFlight.remove(key, mine);
+        }
+        return mine.copy();
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * Claves con una carga en curso ahora mismo
+     */
+    public int getInFlightCount() {
+        return inFlight.size();
+    }
+
+    /**
+     * Cargas ejecutadas (una por grupo de peticiones simultáneas)
+     */
+    public long getLoadCount() {
+        return loads.sum();
+    }
+
+    /**
+     * Peticiones que se ahorraron la llamada esperando a otra en curso
+     */
+    public long getJoinedCount() {
+        return joined.sum();
+    }
+
+    private V await(CompletableFuture<V> running) {
+        try {
+            return running.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Espera interrumpida en " + name, e);
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            if (cause instanceof Error error) {
+                throw error;
+            }
+            throw new IllegalStateException("Error en la carga de " + name, cause);
+        }
+    }
+
+    private static Throwable unwrap(Throwable error) {
+        return error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
+    }
+}
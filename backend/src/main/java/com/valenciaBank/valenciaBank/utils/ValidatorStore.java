@@ -0,0 +1,138 @@
+package com.valenciaBank.valenciaBank.utils;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.ToIntFunction;
+
+/**
+ * Validadores HTTP (ETag / Last-Modified) de las últimas respuestas, con el valor ya procesado.
+ *
+ * Antes de cada petición se piden las cabeceras condicionales de la clave (If-None-Match /
+ * If-Modified-Since). Si el servidor responde 304 se reutiliza el valor guardado sin descargar
+ * ni parsear nada; si responde 200 se guardan los validadores nuevos junto al valor.
+ * Las respuestas sin ETag ni Last-Modified no se guardan.
+ *
+ * El valor es lo que le interese al cliente: la lista de noticias ya parseada o el JSON crudo.
+ * Con valores de tamaño muy variable (JSON crudos) el almacén se limita por bytes en vez de por entradas.
+ */
+public class ValidatorStore<T> {
+
+    public static final String IF_NONE_MATCH = "If-None-Match";
+    public static final String IF_MODIFIED_SINCE = "If-Modified-Since";
+
+    // Límite por defecto de los almacenes de JSON crudo
+    public static final long DEFAULT_MAX_BYTES = 8L * 1024 * 1024;
+
+    // Bytes aproximados de una entrada además del valor (clave, validadores y nodo de Caffeine)
+    private static final int ENTRY_OVERHEAD_BYTES = 96;
+
+    private final String name;
+    private final Cache<String, Entry<T>> entries;
+
+    // Métricas
+    private final LongAdder notModified = new LongAdder();
+    private final LongAdder modified = new LongAdder();
+
+    public ValidatorStore(String name, long maxEntries) {
+        this.name = name;
+        this.entries = Caffeine.newBuilder()
+                .maximumSize(maxEntries)
+                .executor(Runnable::run) // Desalojo en el propio hilo: la caché es pequeña
+                .build();
+    }
+
+    /**
+     * Almacén limitado por el tamaño de lo guardado. Un valor mayor que maxBytes no se conserva y su
+     * URL se pide siempre entera
+     * @param valueWeigher bytes aproximados de un valor
+     */
+    public ValidatorStore(String name, long maxBytes, ToIntFunction<T> valueWeigher) {
+        this.name = name;
+        this.entries = Caffeine.newBuilder()
+                .maximumWeight(maxBytes)
+                .weigher((String key, Entry<T> entry) -> weigh(key, entry, valueWeigher))
+                .executor(Runnable::run)
+                .build();
+    }
+
+    /**
+     * Cabeceras condicionales para la clave (vacío si no hay validadores guardados)
+     */
+    public Map<String, String> conditionalHeaders(String key) {
+        Entry<T> entry = entries.getIfPresent(key);
+        Map<String, String> headers = new LinkedHashMap<>();
+        if (entry != null) {
+            if (entry.etag() != null) {
+                headers.put(IF_NONE_MATCH, entry.etag());
+            }
+            if (entry.lastModified() != null) {
+                headers.put(IF_MODIFIED_SINCE, entry.lastModified());
+            }
+        }
+        return headers;
+    }
+
+    /**
+     * Valor guardado para una respuesta 304 (null si se desalojó entre la petición y la respuesta)
+     */
+    public T notModified(String key) {
+        Entry<T> entry = entries.getIfPresent(key);
+        if (entry == null) {
+            return null;
+        }
+        notModified.increment();
+        return entry.value();
+    }
+
+    /**
+     * Guardar los validadores y el valor de una respuesta 200
+     */
+    public void update(String key, String etag, String lastModified, T value) {
+        modified.increment();
+        if (value == null || (isBlank(etag) && isBlank(lastModified))) {
+            entries.invalidate(key);
+            return;
+        }
+        entries.put(key, new Entry<>(isBlank(etag) ? null : etag, isBlank(lastModified) ? null : lastModified, value));
+    }
+
+    /**
+     * Métricas: respuestas 304 reutilizadas, respuestas completas y claves con validadores
+     */
+    public Map<String, Object> getMetrics() {
+        Map<String, Object> metrics = new LinkedHashMap<>();
+        metrics.put("notModified", notModified.sum());
+        metrics.put("modified", modified.sum());
+        metrics.put("entries", entries.estimatedSize());
+        entries.policy().eviction()
+                .filter(eviction -> eviction.isWeighted())
+                .ifPresent(eviction -> metrics.put("weightBytes", eviction.weightedSize().orElse(0L)));
+        return metrics;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public long getNotModifiedCount() {
+        return notModified.sum();
+    }
+
+    private static <T> int weigh(String key, Entry<T> entry, ToIntFunction<T> valueWeigher) {
+        long bytes = (long) valueWeigher.applyAsInt(entry.value()) + key.length() + ENTRY_OVERHEAD_BYTES
+                + (entry.etag() == null ? 0 : entry.etag().length())
+                + (entry.lastModified() == null ? 0 : entry.lastModified().length());
+        return (int) Math.min(Integer.MAX_VALUE, bytes);
+    }
+
+    private static boolean isBlank(String value) {
+        return value == null || value.isBlank();
+    }
+
+    private record Entry<T>(String etag, String lastModified, T value) {
+    }
+}
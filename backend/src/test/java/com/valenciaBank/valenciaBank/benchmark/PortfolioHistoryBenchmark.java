@@ -0,0 +1,148 @@
+package com.valenciaBank.valenciaBank.benchmark;
+
+import com.valenciaBank.valenciaBank.model.CryptoPurchase;
+import com.valenciaBank.valenciaBank.model.PriceSeries;
+import com.valenciaBank.valenciaBank.utils.PortfolioHistoryCalculator;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.time.*;
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Historial del portfolio: algoritmo anterior (búsqueda lineal del precio más cercano y
+ * recorrido de todas las compras en cada punto) frente a PortfolioHistoryCalculator.
+ *
+ * Ejecutar con: mvn test-compile exec:java -Dexec.classpathScope=test
+ *   -Dexec.mainClass=com.valenciaBank.valenciaBank.benchmark.PortfolioHistoryBenchmark
+ * (o desde el IDE lanzando main)
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PortfolioHistoryBenchmark {
+
+    // 30 días = puntos horarios (~720), 365 días = puntos diarios (~366), como CoinGecko
+    @Param({"30", "365"})
+    public int days;
+
+    @Param({"20"})
+    public int coins;
+
+    @Param({"10"})
+    public int purchasesPerCoin;
+
+    private Map<String, PriceSeries> series;
+    private Map<String, List<List<Number>>> legacySeries;
+    private Map<String, List<CryptoPurchase>> purchases;
+    private PriceSeries reference;
+
+    @Setup
+    public void setUp() {
+        Random random = new Random(42);
+        long step = days <= 90 ? 3_600_000L : 86_400_000L;
+        int points = (int) (days * 86_400_000L / step);
+        long start = System.currentTimeMillis() - days * 86_400_000L;
+
+        series = new LinkedHashMap<>();
+        legacySeries = new LinkedHashMap<>();
+        purchases = new LinkedHashMap<>();
+        for (int c = 0; c < coins; c++) {
+            String symbol = "COIN" + c;
+            long[] ts = new long[points];
+            double[] prices = new double[points];
+            List<List<Number>> legacy = new ArrayList<>(points);
+            double price = 100 + random.nextDouble() * 1000;
+            for (int i = 0; i < points; i++) {
+                // Pequeño desfase por moneda: los timestamps de CoinGecko no coinciden entre monedas
+                ts[i] = start + i * step + c * 1000L;
+                price *= 1 + (random.nextGaussian() * 0.01);
+                prices[i] = price;
+                legacy.add(List.of(ts[i], price));
+            }
+            series.put(symbol, new PriceSeries(ts, prices));
+            legacySeries.put(symbol, legacy);
+
+            List<CryptoPurchase> lots = new ArrayList<>();
+            for (int p = 0; p < purchasesPerCoin; p++) {
+                CryptoPurchase purchase = new CryptoPurchase(null, symbol, 0.1 + random.nextDouble(), prices[0], "EUR");
+                long when = start + (long) (random.nextDouble() * days * 86_400_000L);
+                purchase.setPurchaseDate(LocalDateTime.ofInstant(Instant.ofEpochMilli(when), ZoneId.systemDefault()));
+                lots.add(purchase);
+            }
+            purchases.put(symbol, lots);
+        }
+        reference = series.values().iterator().next();
+    }
+
+    @Benchmark
+    public PortfolioHistoryCalculator.Result sortedSeries() {
+        return PortfolioHistoryCalculator.compute(reference, series, purchases, ZoneId.systemDefault());
+    }
+
+    @Benchmark
+    public double[] legacy() {
+        return legacyHistory(legacySeries, purchases);
+    }
+
+    /**
+     * Copia del algoritmo anterior de PortfolioService.getPortfolioHistory (solo cálculo)
+     */
+    public static double[] legacyHistory(Map<String, List<List<Number>>> historicalPrices,
+                                  Map<String, List<CryptoPurchase>> groupedBySymbol) {
+        List<List<Number>> referencePrices = historicalPrices.values().iterator().next();
+        double[] values = new double[referencePrices.size() * 2];
+        int index = 0;
+        for (List<Number> dataPoint : referencePrices) {
+            long timestamp = dataPoint.get(0).longValue();
+            LocalDateTime pointDate = LocalDateTime.ofInstant(Instant.ofEpochMilli(timestamp), ZoneId.systemDefault());
+            double totalValue = 0.0;
+            double totalInvested = 0.0;
+            for (Map.Entry<String, List<CryptoPurchase>> entry : groupedBySymbol.entrySet()) {
+                double quantityAtTime = 0.0;
+                double investedAtTime = 0.0;
+                for (CryptoPurchase purchase : entry.getValue()) {
+                    if (!purchase.getPurchaseDate().isAfter(pointDate)) {
+                        quantityAtTime += purchase.getQuantity();
+                        investedAtTime += purchase.getQuantity() * purchase.getPurchasePrice();
+                    }
+                }
+                if (quantityAtTime > 0) {
+                    totalValue += quantityAtTime * legacyClosestPrice(historicalPrices.get(entry.getKey()), timestamp);
+                    totalInvested += investedAtTime;
+                }
+            }
+            values[index++] = totalValue;
+            values[index++] = totalInvested;
+        }
+        return values;
+    }
+
+    private static double legacyClosestPrice(List<List<Number>> prices, long targetTimestamp) {
+        if (prices == null || prices.isEmpty()) return 0.0;
+        double closestPrice = prices.get(0).get(1).doubleValue();
+        long minDiff = Long.MAX_VALUE;
+        for (List<Number> dataPoint : prices) {
+            long diff = Math.abs(dataPoint.get(0).longValue() - targetTimestamp);
+            if (diff < minDiff) {
+                minDiff = diff;
+                closestPrice = dataPoint.get(1).doubleValue();
+            }
+        }
+        return closestPrice;
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        Options options = new OptionsBuilder()
+                .include(PortfolioHistoryBenchmark.class.getSimpleName())
+                .build();
+        new Runner(options).run();
+    }
+}
@@ -0,0 +1,119 @@
+package com.valenciaBank.valenciaBank.benchmark;
+
+import com.valenciaBank.valenciaBank.model.Crypto;
+import com.valenciaBank.valenciaBank.utils.PriceStats;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.time.LocalDate;
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * Análisis de una ventana de velas: cálculo anterior de CryptoService.getAnalysis (ordenar,
+ * limitar y recorrer la lista una vez por métrica) frente a una sola pasada de PriceStats.
+ *
+ * Ejecutar con: mvn test-compile exec:java -Dexec.classpathScope=test
+ *   -Dexec.mainClass=com.valenciaBank.valenciaBank.benchmark.PriceStatsBenchmark
+ * (o desde el IDE lanzando main)
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PriceStatsBenchmark {
+
+    @Param({"30", "365", "2000"})
+    public int days;
+
+    private List<Crypto> candles;
+    private List<Crypto> window;
+    private double[] closes;
+
+    @Setup
+    public void setUp() {
+        Random random = new Random(42);
+        LocalDate start = LocalDate.of(2020, 1, 1);
+        candles = new ArrayList<>(days);
+        closes = new double[days];
+        double price = 30000;
+        for (int i = 0; i < days; i++) {
+            price *= 1 + (random.nextGaussian() * 0.02);
+            candles.add(new Crypto("BTC", start.plusDays(i), price, price * 1.01, price * 0.99, price, 1000.0));
+            closes[i] = price;
+        }
+        // Como llega de findLatest: de la más reciente a la más antigua
+        window = new ArrayList<>(candles);
+        Collections.reverse(window);
+        // Como llegaba de findByCryptoName: sin orden garantizado
+        Collections.shuffle(candles, random);
+    }
+
+    @Benchmark
+    public void legacy(Blackhole blackhole) {
+        legacyAnalysis(candles, days, blackhole);
+    }
+
+    @Benchmark
+    public PriceStats singlePassCandles() {
+        // Misma ventana ya ordenada por la BD (ORDER BY date DESC LIMIT N), recorrida en orden cronológico
+        PriceStats stats = new PriceStats();
+        for (int i = window.size() - 1; i >= 0; i--) {
+            Crypto candle = window.get(i);
+            stats.add(candle.getClose(), candle.getHigh(), candle.getLow());
+        }
+        return stats;
+    }
+
+    @Benchmark
+    public PriceStats singlePassPrimitive() {
+        return PriceStats.of(closes);
+    }
+
+    /**
+     * Copia del cálculo anterior de CryptoService.getAnalysis y calculateVolatility
+     */
+    public static void legacyAnalysis(List<Crypto> cryptoList, int days, Blackhole blackhole) {
+        List<Crypto> limitedList = cryptoList.stream()
+                .sorted(Comparator.comparing(Crypto::getDate).reversed())
+                .limit(days)
+                .collect(Collectors.toList());
+
+        double avgPrice = limitedList.stream()
+                .mapToDouble(Crypto::getClose)
+                .average()
+                .orElse(0.0);
+
+        double firstClose = limitedList.get(limitedList.size() - 1).getClose();
+        double lastClose = limitedList.get(0).getClose();
+        double percentChange = ((lastClose - firstClose) / firstClose) * 100;
+
+        double[] prices = limitedList.stream().mapToDouble(Crypto::getClose).toArray();
+        double mean = Arrays.stream(prices).average().orElse(0.0);
+        double variance = Arrays.stream(prices).map(p -> Math.pow(p - mean, 2)).average().orElse(0.0);
+        double volatility = Math.sqrt(variance);
+
+        double highPrice = limitedList.stream().mapToDouble(Crypto::getHigh).max().orElse(0.0);
+        double lowPrice = limitedList.stream().mapToDouble(Crypto::getLow).min().orElse(0.0);
+
+        blackhole.consume(avgPrice);
+        blackhole.consume(percentChange);
+        blackhole.consume(volatility);
+        blackhole.consume(highPrice);
+        blackhole.consume(lowPrice);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        Options options = new OptionsBuilder()
+                .include(PriceStatsBenchmark.class.getSimpleName())
+                .build();
+        new Runner(options).run();
+    }
+}
@@ -10,7 +10,9 @@ import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.http.MediaType;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
 import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import reactor.core.publisher.Mono;
 
 import static org.mockito.ArgumentMatchers.anyString;
 import static org.mockito.Mockito.*;
@@ -38,11 +40,15 @@ class API_InversionesCryptoControllerTest {
     @DisplayName("GET /digitalCurrencyDaily retorna datos diarios de crypto")
     void getDigitalCurrencyDaily() throws Exception {
         String mockResponse = "{\"Meta Data\":{\"1. Information\":\"Daily Digital Currency\"}}";
-        when(cryptoService.llamarAPI("BTC", "USD")).thenReturn(mockResponse);
+        when(cryptoService.llamarAPIMono("BTC", "USD")).thenReturn(Mono.just(mockResponse));
 
-        mockMvc.perform(get("/digitalCurrencyDaily")
+        MvcResult result = mockMvc.perform(get("/digitalCurrencyDaily")
                         .param("symbol", "BTC")
                         .param("market", "USD"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        mockMvc.perform(asyncDispatch(result))
                 .andExpect(status().isOk())
                 .andExpect(content().string(mockResponse));
     }
@@ -51,9 +57,13 @@ class API_InversionesCryptoControllerTest {
     @DisplayName("GET /equityDaily retorna datos diarios de equity")
     void getEquityDaily() throws Exception {
         String mockResponse = "{\"Time Series (Daily)\":{}}";
-        when(cryptoService.llamarEquityAPI("AAPL")).thenReturn(mockResponse);
+        when(cryptoService.llamarEquityAPIMono("AAPL")).thenReturn(Mono.just(mockResponse));
+
+        MvcResult result = mockMvc.perform(get("/equityDaily").param("symbol", "AAPL"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
 
-        mockMvc.perform(get("/equityDaily").param("symbol", "AAPL"))
+        mockMvc.perform(asyncDispatch(result))
                 .andExpect(status().isOk())
                 .andExpect(content().string(mockResponse));
     }
@@ -62,9 +72,13 @@ class API_InversionesCryptoControllerTest {
     @DisplayName("GET /etfProfile retorna perfil de ETF")
     void getETFProfile() throws Exception {
         String mockResponse = "{\"symbol\":\"SPY\",\"name\":\"SPDR S&P 500\"}";
-        when(cryptoService.getETFProfile("SPY")).thenReturn(mockResponse);
+        when(cryptoService.getETFProfileMono("SPY")).thenReturn(Mono.just(mockResponse));
+
+        MvcResult result = mockMvc.perform(get("/etfProfile").param("symbol", "SPY"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
 
-        mockMvc.perform(get("/etfProfile").param("symbol", "SPY"))
+        mockMvc.perform(asyncDispatch(result))
                 .andExpect(status().isOk())
                 .andExpect(content().string(mockResponse));
     }
@@ -1,6 +1,8 @@
 package com.valenciaBank.valenciaBank.controller;
 
+import com.valenciaBank.valenciaBank.service.ChartService;
 import com.valenciaBank.valenciaBank.service.CoinGeckoService;
+import com.valenciaBank.valenciaBank.utils.ColumnarSeries;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.DisplayName;
@@ -12,6 +14,7 @@ import org.springframework.test.web.servlet.MockMvc;
 import org.springframework.test.web.servlet.setup.MockMvcBuilders;
 
 import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.verifyNoInteractions;
 import static org.mockito.Mockito.when;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
@@ -25,6 +28,9 @@ class CoinGeckoControllerTest {
     @Mock
     private CoinGeckoService coinGeckoService;
 
+    @Mock
+    private ChartService chartService;
+
     @InjectMocks
     private CoinGeckoController coinGeckoController;
 
@@ -74,4 +80,30 @@ class CoinGeckoControllerTest {
         mockMvc.perform(get("/api/coingecko/history/FAIL/30/USD"))
                 .andExpect(status().isBadRequest());
     }
+
+    @Test
+    @DisplayName("GET /api/coingecko/history con maxPoints retorna la serie reducida")
+    void getCryptoHistoryReducido() throws Exception {
+        String mockResponse = "{\"prices\":[[1625097600000,34000.0],[1625184000000,35000.0]]}";
+        when(chartService.getCryptoHistory("BTC", 365, "EUR", 200)).thenReturn(mockResponse);
+
+        mockMvc.perform(get("/api/coingecko/history/BTC/365/EUR").param("maxPoints", "200"))
+                .andExpect(status().isOk())
+                .andExpect(content().json(mockResponse));
+        verifyNoInteractions(coinGeckoService);
+    }
+
+    @Test
+    @DisplayName("GET /api/coingecko/history con Accept columnar retorna el formato columnar")
+    void getCryptoHistoryColumnar() throws Exception {
+        String mockResponse = "{\"format\":\"columnar-v1\",\"unit\":\"ms\",\"size\":1,\"t0\":1625097600000,"
+                + "\"dt\":[],\"columns\":{\"price\":[34000.0]}}";
+        when(chartService.getCryptoHistoryColumnar("BTC", 7, "USD", 0)).thenReturn(mockResponse);
+
+        mockMvc.perform(get("/api/coingecko/history/BTC/7/USD").accept(ColumnarSeries.MEDIA_TYPE))
+                .andExpect(status().isOk())
+                .andExpect(content().contentTypeCompatibleWith(ColumnarSeries.MEDIA_TYPE))
+                .andExpect(content().json(mockResponse));
+        verifyNoInteractions(coinGeckoService);
+    }
 }
@@ -2,7 +2,9 @@ package com.valenciaBank.valenciaBank.controller;
 
 import com.valenciaBank.valenciaBank.model.CryptoPrice;
 import com.valenciaBank.valenciaBank.repository.CryptoPriceRepository;
+import com.valenciaBank.valenciaBank.model.PriceQuote;
 import com.valenciaBank.valenciaBank.service.CryptoService;
+import com.valenciaBank.valenciaBank.service.PriceBookService;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -37,6 +39,9 @@ class CryptoPriceControllerTest {
     @Mock
     private CryptoService cryptoService;
 
+    @Mock
+    private PriceBookService priceBookService;
+
     @InjectMocks
     private CryptoPriceController cryptoPriceController;
 
@@ -70,6 +75,20 @@ class CryptoPriceControllerTest {
                 .andExpect(jsonPath("$.price").value(50000.0));
     }
 
+    @Test
+    @DisplayName("GET /api/crypto-prices/{symbol}/{market} usa el libro de precios en memoria")
+    void getPriceDesdeLibroDePrecios() throws Exception {
+        PriceQuote quote = new PriceQuote("BTC", "EUR", 61000.0, 2.5, System.currentTimeMillis());
+        when(priceBookService.getQuote("BTC", "EUR")).thenReturn(Optional.of(quote));
+
+        mockMvc.perform(get("/api/crypto-prices/BTC/EUR"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.price").value(61000.0))
+                .andExpect(jsonPath("$.change24h").value(2.5));
+
+        verify(cryptoPriceRepository, never()).findBySymbolAndMarket(anyString(), anyString());
+    }
+
     @Test
     @DisplayName("GET /api/crypto-prices/{symbol}/{market} no encontrado retorna 404")
     void getPriceNoEncontrado() throws Exception {
@@ -1,6 +1,8 @@
 package com.valenciaBank.valenciaBank.controller;
 
+import com.valenciaBank.valenciaBank.service.ChartService;
 import com.valenciaBank.valenciaBank.service.YahooFinanceService;
+import com.valenciaBank.valenciaBank.utils.ColumnarSeries;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.DisplayName;
@@ -12,6 +14,7 @@ import org.springframework.test.web.servlet.MockMvc;
 import org.springframework.test.web.servlet.setup.MockMvcBuilders;
 
 import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.verifyNoInteractions;
 import static org.mockito.Mockito.when;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
@@ -25,6 +28,9 @@ class FinnhubControllerTest {
     @Mock
     private YahooFinanceService yahooFinanceService;
 
+    @Mock
+    private ChartService chartService;
+
     @InjectMocks
     private FinnhubController finnhubController;
 
@@ -85,4 +91,31 @@ class FinnhubControllerTest {
                 .andExpect(status().isOk())
                 .andExpect(content().json(mockResponse));
     }
+
+    @Test
+    @DisplayName("GET /api/finnhub/candles con maxPoints retorna velas agregadas")
+    void getEtfCandlesReducidas() throws Exception {
+        String mockResponse = "{\"s\":\"ok\",\"t\":[1700000000],\"c\":[10.0]}";
+        when(chartService.getCandles("SPY", 1, 50)).thenReturn(mockResponse);
+
+        mockMvc.perform(get("/api/finnhub/candles/SPY/D/1").param("maxPoints", "50"))
+                .andExpect(status().isOk())
+                .andExpect(content().json(mockResponse));
+        verifyNoInteractions(yahooFinanceService);
+    }
+
+    @Test
+    @DisplayName("GET /api/finnhub/candles con Accept columnar retorna el formato columnar")
+    void getEtfCandlesColumnar() throws Exception {
+        String mockResponse = "{\"format\":\"columnar-v1\",\"unit\":\"s\",\"size\":1,\"t0\":1700000000,"
+                + "\"dt\":[],\"columns\":{\"c\":[10.0]}}";
+        when(chartService.getCandlesColumnar("SPY", 30, 100)).thenReturn(mockResponse);
+
+        mockMvc.perform(get("/api/finnhub/candles/SPY/D/30").param("maxPoints", "100")
+                        .accept(ColumnarSeries.MEDIA_TYPE))
+                .andExpect(status().isOk())
+                .andExpect(content().contentTypeCompatibleWith(ColumnarSeries.MEDIA_TYPE))
+                .andExpect(content().json(mockResponse));
+        verifyNoInteractions(yahooFinanceService);
+    }
 }
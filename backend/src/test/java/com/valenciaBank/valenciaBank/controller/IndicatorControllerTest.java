@@ -0,0 +1,62 @@
+package com.valenciaBank.valenciaBank.controller;
+
+import com.valenciaBank.valenciaBank.service.IndicatorService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+@ExtendWith(MockitoExtension.class)
+@DisplayName("IndicatorController - Tests unitarios")
+class IndicatorControllerTest {
+
+    private MockMvc mockMvc;
+
+    @Mock
+    private IndicatorService indicatorService;
+
+    @InjectMocks
+    private IndicatorController indicatorController;
+
+    @BeforeEach
+    void setUp() {
+        mockMvc = MockMvcBuilders.standaloneSetup(indicatorController).build();
+    }
+
+    @Test
+    @DisplayName("GET /api/indicators/{symbol} retorna los indicadores del símbolo")
+    void getIndicators() throws Exception {
+        when(indicatorService.getIndicators("BTC", 30)).thenReturn(Map.of(
+                "symbol", "BTC",
+                "days", 1,
+                "indicators", List.of(Map.of("date", "2026-01-03", "sma20", 95000.0, "rsi14", 61.5))));
+
+        mockMvc.perform(get("/api/indicators/btc").param("days", "30"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.symbol").value("BTC"))
+                .andExpect(jsonPath("$.indicators[0].sma20").value(95000.0))
+                .andExpect(jsonPath("$.indicators[0].rsi14").value(61.5));
+    }
+
+    @Test
+    @DisplayName("GET /api/indicators/{symbol} retorna 404 sin datos")
+    void getIndicatorsSinDatos() throws Exception {
+        when(indicatorService.getIndicators("XXX", 90)).thenReturn(Map.of("error", "No hay datos de XXX"));
+
+        mockMvc.perform(get("/api/indicators/XXX"))
+                .andExpect(status().isNotFound())
+                .andExpect(jsonPath("$.error").value("No hay datos de XXX"));
+    }
+}
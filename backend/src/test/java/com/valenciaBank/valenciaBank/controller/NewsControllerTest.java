@@ -1,7 +1,10 @@
 package com.valenciaBank.valenciaBank.controller;
 
 import com.valenciaBank.valenciaBank.model.NewsArticle;
+import com.valenciaBank.valenciaBank.model.Position;
+import com.valenciaBank.valenciaBank.service.NewsArchiveService;
 import com.valenciaBank.valenciaBank.service.NewsScraperService;
+import com.valenciaBank.valenciaBank.service.PositionService;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.DisplayName;
@@ -27,6 +30,12 @@ class NewsControllerTest {
     @Mock
     private NewsScraperService newsScraperService;
 
+    @Mock
+    private NewsArchiveService newsArchiveService;
+
+    @Mock
+    private PositionService positionService;
+
     @InjectMocks
     private NewsController newsController;
 
@@ -96,4 +105,49 @@ class NewsControllerTest {
                 .andExpect(status().isOk())
                 .andExpect(jsonPath("$.length()").value(0));
     }
+
+    @Test
+    @DisplayName("GET /api/news busca en el archivo y devuelve el cursor de la siguiente página")
+    void searchNews() throws Exception {
+        when(newsArchiveService.search("crypto", "BTC", null, 1)).thenReturn(new NewsArchiveService.NewsPage(
+                List.of(crearArticulo("Bitcoin sube", "https://example.com/1")), "1792231200000_42"));
+
+        mockMvc.perform(get("/api/news").param("category", "crypto").param("q", "BTC").param("limit", "1"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.count").value(1))
+                .andExpect(jsonPath("$.articles[0].title").value("Bitcoin sube"))
+                .andExpect(jsonPath("$.articles[0].urlHash").doesNotExist())
+                .andExpect(jsonPath("$.nextCursor").value("1792231200000_42"));
+    }
+
+    @Test
+    @DisplayName("GET /api/news con cursor inválido retorna 400")
+    void searchNewsCursorInvalido() throws Exception {
+        when(newsArchiveService.search(null, null, "abc", null))
+                .thenThrow(new IllegalArgumentException("Cursor inválido: abc"));
+
+        mockMvc.perform(get("/api/news").param("before", "abc"))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.error").value("Cursor inválido: abc"));
+    }
+
+    @Test
+    @DisplayName("GET /api/news/for-user/{userId} devuelve titulares de los símbolos con cantidad")
+    void getNewsForUser() throws Exception {
+        Position btc = new Position(1L, Position.AssetType.CRYPTO, "BTC");
+        btc.setQuantity(0.5);
+        Position vendida = new Position(1L, Position.AssetType.CRYPTO, "ETH");
+        vendida.setQuantity(0.0);
+        Position spy = new Position(1L, Position.AssetType.FUND, "SPY");
+        spy.setQuantity(3.0);
+        when(positionService.getAllPositions(1L)).thenReturn(List.of(btc, vendida, spy));
+        when(newsScraperService.getNewsForSymbols(List.of("BTC", "SPY"), 20))
+                .thenReturn(List.of(crearArticulo("Bitcoin sube", "https://example.com/1")));
+
+        mockMvc.perform(get("/api/news/for-user/1"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.symbols.length()").value(2))
+                .andExpect(jsonPath("$.count").value(1))
+                .andExpect(jsonPath("$.articles[0].title").value("Bitcoin sube"));
+    }
 }
@@ -3,6 +3,8 @@ package com.valenciaBank.valenciaBank.controller;
 import com.valenciaBank.valenciaBank.model.CryptoPurchase;
 import com.valenciaBank.valenciaBank.model.User;
 import com.valenciaBank.valenciaBank.service.PortfolioService;
+import com.valenciaBank.valenciaBank.service.ValuationService;
+import com.valenciaBank.valenciaBank.utils.ColumnarSeries;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -33,6 +35,9 @@ class PortfolioControllerTest {
     @Mock
     private PortfolioService portfolioService;
 
+    @Mock
+    private ValuationService valuationService;
+
     @InjectMocks
     private PortfolioController portfolioController;
 
@@ -177,4 +182,43 @@ class PortfolioControllerTest {
                 .andExpect(status().isBadRequest())
                 .andExpect(jsonPath("$.success").value(false));
     }
+
+    @Test
+    @DisplayName("GET /portfolio/valuation/{userId} retorna la valoración conjunta")
+    void getValuation() throws Exception {
+        Map<String, Object> valuation = Map.of(
+                "success", true, "positions", List.of(), "summary", Map.of("totalCurrentValue", 0.0), "unpriced", List.of()
+        );
+        when(valuationService.getValuation(1L)).thenReturn(valuation);
+
+        mockMvc.perform(get("/portfolio/valuation/1"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.success").value(true))
+                .andExpect(jsonPath("$.summary.totalCurrentValue").value(0.0));
+    }
+
+    @Test
+    @DisplayName("GET /portfolio/valuation/{userId} usuario no encontrado retorna 400")
+    void getValuationError() throws Exception {
+        when(valuationService.getValuation(999L)).thenThrow(new RuntimeException("Usuario no encontrado"));
+
+        mockMvc.perform(get("/portfolio/valuation/999"))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.success").value(false))
+                .andExpect(jsonPath("$.error").value("Error al obtener valoración: Usuario no encontrado"));
+    }
+
+    @Test
+    @DisplayName("GET /portfolio/history/{userId} con Accept columnar usa el formato columnar")
+    void getPortfolioHistoryColumnar() throws Exception {
+        Map<String, Object> history = Map.of("success", true, "format", "columnar-v1", "t0", 1000L);
+        when(portfolioService.getPortfolioHistoryColumnar(1L, 30)).thenReturn(history);
+
+        mockMvc.perform(get("/portfolio/history/1").param("days", "30")
+                        .accept(ColumnarSeries.MEDIA_TYPE))
+                .andExpect(status().isOk())
+                .andExpect(content().contentTypeCompatibleWith(ColumnarSeries.MEDIA_TYPE))
+                .andExpect(jsonPath("$.format").value("columnar-v1"));
+        verify(portfolioService, never()).getPortfolioHistory(anyLong(), anyInt());
+    }
 }
@@ -0,0 +1,95 @@
+package com.valenciaBank.valenciaBank.controller;
+
+import com.valenciaBank.valenciaBank.service.HistoryMemoryCache;
+import com.valenciaBank.valenciaBank.service.HttpPoolMetrics;
+import com.valenciaBank.valenciaBank.service.ProviderRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+
+import java.util.Map;
+
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+@ExtendWith(MockitoExtension.class)
+@DisplayName("ProviderStatusController - Tests unitarios")
+class ProviderStatusControllerTest {
+
+    private MockMvc mockMvc;
+
+    @Mock
+    private ProviderRegistry providerRegistry;
+
+    @Mock
+    private HistoryMemoryCache historyMemoryCache;
+
+    @Mock
+    private HttpPoolMetrics httpPoolMetrics;
+
+    @InjectMocks
+    private ProviderStatusController providerStatusController;
+
+    @BeforeEach
+    void setUp() {
+        mockMvc = MockMvcBuilders.standaloneSetup(providerStatusController).build();
+    }
+
+    @Test
+    @DisplayName("GET /api/providers/status retorna métricas por proveedor")
+    void getStatus() throws Exception {
+        when(providerRegistry.getStatus()).thenReturn(Map.of(
+                "coingecko", Map.of(
+                        "rateLimiter", Map.of("acquired", 10, "rejected", 2),
+                        "circuitBreaker", Map.of("state", "CLOSED"))));
+
+        mockMvc.perform(get("/api/providers/status"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.coingecko.rateLimiter.acquired").value(10))
+                .andExpect(jsonPath("$.coingecko.rateLimiter.rejected").value(2))
+                .andExpect(jsonPath("$.coingecko.circuitBreaker.state").value("CLOSED"));
+    }
+
+    @Test
+    @DisplayName("GET /api/providers/health retorna DEGRADED con un circuito abierto")
+    void getHealthDegradado() throws Exception {
+        when(providerRegistry.getHealth()).thenReturn(Map.of(
+                "status", "DEGRADED",
+                "providers", Map.of("coingecko", "OPEN", "finnhub", "CLOSED")));
+
+        mockMvc.perform(get("/api/providers/health"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.status").value("DEGRADED"))
+                .andExpect(jsonPath("$.providers.coingecko").value("OPEN"));
+    }
+
+    @Test
+    @DisplayName("GET /api/providers/cache retorna métricas de la caché en memoria")
+    void getCacheMetrics() throws Exception {
+        when(historyMemoryCache.getMetrics()).thenReturn(Map.of("entries", 3, "weightBytes", 1024));
+
+        mockMvc.perform(get("/api/providers/cache"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.entries").value(3))
+                .andExpect(jsonPath("$.weightBytes").value(1024));
+    }
+
+    @Test
+    @DisplayName("GET /api/providers/connections retorna el pool de conexiones por host")
+    void getConnectionMetrics() throws Exception {
+        when(httpPoolMetrics.getMetrics()).thenReturn(Map.of(
+                "api.coingecko.com:443", Map.of("acquired", 2, "idle", 1, "pendingAcquire", 0)));
+
+        mockMvc.perform(get("/api/providers/connections"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$['api.coingecko.com:443'].acquired").value(2))
+                .andExpect(jsonPath("$['api.coingecko.com:443'].idle").value(1));
+    }
+}
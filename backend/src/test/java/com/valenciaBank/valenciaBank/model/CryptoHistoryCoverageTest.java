@@ -0,0 +1,46 @@
+package com.valenciaBank.valenciaBank.model;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.DisplayName;
+
+import java.time.LocalDateTime;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DisplayName("CryptoHistoryCoverage - Tests unitarios del modelo")
+class CryptoHistoryCoverageTest {
+
+    @Test
+    @DisplayName("markFetched deja la serie al día durante un intervalo de su resolución")
+    void markFetched() {
+        CryptoHistoryCoverage coverage = new CryptoHistoryCoverage("BTC", "EUR", HistoryGranularity.HOURLY);
+        assertFalse(coverage.isValid());
+
+        coverage.markFetched();
+
+        assertTrue(coverage.isValid());
+        assertTrue(coverage.getExpiresAt().isBefore(LocalDateTime.now().plusHours(1).plusSeconds(1)));
+        assertTrue(coverage.getExpiresAt().isAfter(LocalDateTime.now().plusMinutes(59)));
+    }
+
+    @Test
+    @DisplayName("isValid retorna false cuando ha expirado")
+    void isValidExpirado() {
+        CryptoHistoryCoverage coverage = new CryptoHistoryCoverage("BTC", "EUR", HistoryGranularity.DAILY);
+        coverage.markFetched();
+        coverage.setExpiresAt(LocalDateTime.now().minusMinutes(1));
+        assertFalse(coverage.isValid());
+    }
+
+    @Test
+    @DisplayName("covers compara el inicio de la ventana con el inicio cubierto")
+    void covers() {
+        CryptoHistoryCoverage coverage = new CryptoHistoryCoverage("BTC", "EUR", HistoryGranularity.DAILY);
+        assertFalse(coverage.covers(0L));
+
+        coverage.setCoveredFrom(1000L);
+        assertTrue(coverage.covers(1000L));
+        assertTrue(coverage.covers(5000L));
+        assertFalse(coverage.covers(999L));
+    }
+}
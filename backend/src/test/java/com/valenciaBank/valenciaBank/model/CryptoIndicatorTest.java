@@ -0,0 +1,34 @@
+package com.valenciaBank.valenciaBank.model;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.DisplayName;
+
+import java.time.LocalDate;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DisplayName("CryptoIndicator - Tests unitarios del modelo")
+class CryptoIndicatorTest {
+
+    @Test
+    @DisplayName("Constructor asigna clave y cierre; indicadores a null hasta calcularse")
+    void constructor() {
+        LocalDate date = LocalDate.of(2026, 1, 15);
+        CryptoIndicator indicator = new CryptoIndicator("BTC", date, 95000.0);
+
+        assertEquals(new CryptoId("BTC", date), indicator.getId());
+        assertEquals(95000.0, indicator.getClose());
+        assertNull(indicator.getSma20());
+        assertNull(indicator.getRsi14());
+    }
+
+    @Test
+    @DisplayName("Es nueva hasta persistirse o cargarse")
+    void persistable() {
+        CryptoIndicator indicator = new CryptoIndicator("BTC", LocalDate.now(), 1.0);
+        assertTrue(indicator.isNew());
+
+        indicator.markNotNew();
+        assertFalse(indicator.isNew());
+    }
+}
@@ -0,0 +1,38 @@
+package com.valenciaBank.valenciaBank.model;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.DisplayName;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DisplayName("CryptoPricePoint - Tests unitarios del modelo")
+class CryptoPricePointTest {
+
+    @Test
+    @DisplayName("Constructor con parámetros asigna todos los campos")
+    void constructorConParametros() {
+        CryptoPricePoint point = new CryptoPricePoint("BTC", "EUR", HistoryGranularity.HOURLY,
+                1700000000000L, 35000.0, 6.8E11, 1.2E10);
+
+        assertEquals("BTC", point.getSymbol());
+        assertEquals("EUR", point.getCurrency());
+        assertEquals(HistoryGranularity.HOURLY, point.getGranularity());
+        assertEquals(1700000000000L, point.getTimestamp());
+        assertEquals(35000.0, point.getPrice());
+        assertEquals(6.8E11, point.getMarketCap());
+        assertEquals(1.2E10, point.getTotalVolume());
+    }
+
+    @Test
+    @DisplayName("Market cap y volumen son opcionales")
+    void camposOpcionales() {
+        CryptoPricePoint point = new CryptoPricePoint();
+        point.setId(1L);
+        point.setPrice(10.0);
+
+        assertEquals(1L, point.getId());
+        assertEquals(10.0, point.getPrice());
+        assertNull(point.getMarketCap());
+        assertNull(point.getTotalVolume());
+    }
+}
@@ -49,4 +49,17 @@ class CryptoTest {
         assertTrue(str.contains("95000.0"));
         assertTrue(str.contains("Crypto{"));
     }
+
+    @Test
+    @DisplayName("Es nueva hasta persistirse o cargarse y expone la clave compuesta")
+    void persistable() {
+        LocalDate date = LocalDate.of(2026, 1, 15);
+        Crypto crypto = new Crypto("BTC", date, 95000.0, 96000.0, 94000.0, 94500.0, 1500000.0);
+
+        assertTrue(crypto.isNew());
+        assertEquals(new CryptoId("BTC", date), crypto.getId());
+
+        crypto.markNotNew();
+        assertFalse(crypto.isNew());
+    }
 }
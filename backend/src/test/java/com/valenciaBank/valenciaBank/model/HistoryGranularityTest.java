@@ -0,0 +1,47 @@
+package com.valenciaBank.valenciaBank.model;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.DisplayName;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DisplayName("HistoryGranularity - Tests unitarios del modelo")
+class HistoryGranularityTest {
+
+    private static final long DAY = HistoryGranularity.DAY_MS;
+
+    @Test
+    @DisplayName("forDays sigue la granularidad automática de CoinGecko")
+    void forDays() {
+        assertEquals(HistoryGranularity.MINUTE_5, HistoryGranularity.forDays(1));
+        assertEquals(HistoryGranularity.HOURLY, HistoryGranularity.forDays(7));
+        assertEquals(HistoryGranularity.HOURLY, HistoryGranularity.forDays(90));
+        assertEquals(HistoryGranularity.DAILY, HistoryGranularity.forDays(365));
+    }
+
+    @Test
+    @DisplayName("fetchDays respeta los límites de cada resolución")
+    void fetchDays() {
+        assertEquals(1, HistoryGranularity.MINUTE_5.fetchDays(1));
+        assertEquals(2, HistoryGranularity.HOURLY.fetchDays(1));
+        assertEquals(30, HistoryGranularity.HOURLY.fetchDays(30));
+        assertEquals(365, HistoryGranularity.DAILY.fetchDays(365));
+    }
+
+    @Test
+    @DisplayName("topUpDays pide solo los días desde el último punto")
+    void topUpDays() {
+        long now = 100 * DAY;
+        assertEquals(2, HistoryGranularity.HOURLY.topUpDays(now - 3_600_000L, now));
+        assertEquals(5, HistoryGranularity.HOURLY.topUpDays(now - 4 * DAY - 1, now));
+        assertEquals(1, HistoryGranularity.DAILY.topUpDays(now - 3_600_000L, now));
+        assertEquals(1, HistoryGranularity.MINUTE_5.topUpDays(now - 10 * DAY, now));
+    }
+
+    @Test
+    @DisplayName("Solo la serie diaria pide interval=daily")
+    void queryParams() {
+        assertEquals("&interval=daily", HistoryGranularity.DAILY.queryParams());
+        assertEquals("", HistoryGranularity.HOURLY.queryParams());
+    }
+}
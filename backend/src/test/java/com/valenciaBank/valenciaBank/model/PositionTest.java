@@ -0,0 +1,61 @@
+package com.valenciaBank.valenciaBank.model;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.DisplayName;
+
+import java.time.LocalDateTime;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DisplayName("Position - Tests unitarios del modelo")
+class PositionTest {
+
+    @Test
+    @DisplayName("Constructor asigna usuario, tipo de activo y símbolo")
+    void constructorConParametros() {
+        Position position = new Position(1L, Position.AssetType.FUND, "SPY");
+
+        assertEquals(1L, position.getUserId());
+        assertEquals(Position.AssetType.FUND, position.getAssetType());
+        assertEquals("SPY", position.getSymbol());
+        assertNull(position.getId());
+    }
+
+    @Test
+    @DisplayName("getAveragePrice divide el coste entre la cantidad")
+    void getAveragePrice() {
+        Position position = new Position(1L, Position.AssetType.CRYPTO, "BTC");
+        position.setQuantity(0.5);
+        position.setCostBasis(46000.0);
+
+        assertEquals(92000.0, position.getAveragePrice(), 0.01);
+    }
+
+    @Test
+    @DisplayName("getAveragePrice retorna 0 sin cantidad")
+    void getAveragePriceSinCantidad() {
+        Position position = new Position(1L, Position.AssetType.CRYPTO, "BTC");
+
+        assertEquals(0.0, position.getAveragePrice());
+    }
+
+    @Test
+    @DisplayName("Setters y getters funcionan correctamente")
+    void settersYGetters() {
+        LocalDateTime date = LocalDateTime.of(2026, 2, 10, 14, 0);
+        Position position = new Position();
+        position.setId(3L);
+        position.setName("SPDR S&P 500");
+        position.setType("ETF");
+        position.setCurrency("USD");
+        position.setFirstPurchaseDate(date);
+        position.setUpdatedAt(date);
+
+        assertEquals(3L, position.getId());
+        assertEquals("SPDR S&P 500", position.getName());
+        assertEquals("ETF", position.getType());
+        assertEquals("USD", position.getCurrency());
+        assertEquals(date, position.getFirstPurchaseDate());
+        assertEquals(date, position.getUpdatedAt());
+    }
+}
@@ -0,0 +1,31 @@
+package com.valenciaBank.valenciaBank.model;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.DisplayName;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DisplayName("PriceQuote - Tests unitarios del modelo")
+class PriceQuoteTest {
+
+    @Test
+    @DisplayName("Constructor asigna todos los valores")
+    void constructorAsignaValores() {
+        PriceQuote quote = new PriceQuote("BTC", "EUR", 95000.0, -1.25, 1700000000000L);
+
+        assertEquals("BTC", quote.getSymbol());
+        assertEquals("EUR", quote.getCurrency());
+        assertEquals(95000.0, quote.getPrice());
+        assertEquals(-1.25, quote.getChange24h());
+        assertEquals(1700000000000L, quote.getTimestamp());
+    }
+
+    @Test
+    @DisplayName("ageMillis calcula la antigüedad de la cotización")
+    void ageMillis() {
+        PriceQuote quote = new PriceQuote("ETH", "USD", 3500.0, null, System.currentTimeMillis() - 5000);
+
+        assertTrue(quote.ageMillis() >= 5000);
+        assertNull(quote.getChange24h());
+    }
+}
@@ -0,0 +1,49 @@
+package com.valenciaBank.valenciaBank.model;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.DisplayName;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DisplayName("PriceSeries - Tests unitarios del modelo")
+class PriceSeriesTest {
+
+    private final PriceSeries series = new PriceSeries(
+            new long[]{1000L, 2000L, 3000L, 4000L},
+            new double[]{10.0, 20.0, 30.0, 40.0});
+
+    @Test
+    @DisplayName("Accesores por índice y extremos")
+    void accesores() {
+        assertEquals(4, series.size());
+        assertFalse(series.isEmpty());
+        assertEquals(1000L, series.firstTimestamp());
+        assertEquals(4000L, series.lastTimestamp());
+        assertEquals(30.0, series.priceAt(2));
+    }
+
+    @Test
+    @DisplayName("closestPrice busca el punto más cercano")
+    void closestPrice() {
+        assertEquals(20.0, series.closestPrice(2000L));   // exacto
+        assertEquals(20.0, series.closestPrice(2400L));   // más cerca del anterior
+        assertEquals(30.0, series.closestPrice(2600L));   // más cerca del siguiente
+        assertEquals(20.0, series.closestPrice(2500L));   // empate: el anterior
+        assertEquals(10.0, series.closestPrice(0L));      // antes del inicio
+        assertEquals(40.0, series.closestPrice(9999L));   // después del final
+    }
+
+    @Test
+    @DisplayName("Serie vacía devuelve 0 y -1")
+    void serieVacia() {
+        assertTrue(PriceSeries.empty().isEmpty());
+        assertEquals(-1, PriceSeries.empty().indexOfClosest(1000L));
+        assertEquals(0.0, PriceSeries.empty().closestPrice(1000L));
+    }
+
+    @Test
+    @DisplayName("Constructor rechaza columnas de distinta longitud")
+    void columnasDistintas() {
+        assertThrows(IllegalArgumentException.class, () -> new PriceSeries(new long[2], new double[3]));
+    }
+}
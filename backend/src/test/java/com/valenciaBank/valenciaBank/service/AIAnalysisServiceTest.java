@@ -25,6 +25,9 @@ class AIAnalysisServiceTest {
     @Mock
     private RestTemplate restTemplate;
 
+    @Mock
+    private ProviderRegistry providerRegistry;
+
     @InjectMocks
     private AIAnalysisService aiAnalysisService;
 
@@ -0,0 +1,140 @@
+package com.valenciaBank.valenciaBank.service;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+@DisplayName("ChartService - Tests unitarios")
+class ChartServiceTest {
+
+    @Mock
+    private CoinGeckoService coinGeckoService;
+
+    @Mock
+    private YahooFinanceService yahooFinanceService;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    private ChartService chartService;
+
+    @BeforeEach
+    void setUp() {
+        chartService = new ChartService(coinGeckoService, yahooFinanceService, objectMapper, 300, 100);
+    }
+
+    private static String marketChart(int points) {
+        StringBuilder prices = new StringBuilder();
+        StringBuilder caps = new StringBuilder();
+        for (int i = 0; i < points; i++) {
+            long ts = 1_700_000_000_000L + i * 3_600_000L;
+            if (i > 0) {
+                prices.append(',');
+                caps.append(',');
+            }
+            prices.append('[').append(ts).append(',').append(100 + i % 7).append(']');
+            caps.append('[').append(ts).append(',').append(1_000_000 + i).append(']');
+        }
+        return "{\"prices\":[" + prices + "],\"market_caps\":[" + caps + "],\"total_volumes\":[" + caps + "]}";
+    }
+
+    @Test
+    @DisplayName("Reduce el histórico a maxPoints en todas las series")
+    void historicoReducido() throws Exception {
+        when(coinGeckoService.getCryptoHistory("BTC", 365, "EUR")).thenReturn(marketChart(1000));
+
+        JsonNode result = objectMapper.readTree(chartService.getCryptoHistory("BTC", 365, "EUR", 50));
+
+        assertEquals(50, result.get("prices").size());
+        assertEquals(50, result.get("market_caps").size());
+        assertEquals(50, result.get("total_volumes").size());
+        assertEquals(result.get("prices").get(10).get(0).asLong(), result.get("market_caps").get(10).get(0).asLong());
+    }
+
+    @Test
+    @DisplayName("La segunda petición igual se sirve desde la caché")
+    void historicoCacheado() {
+        when(coinGeckoService.getCryptoHistory("BTC", 365, "EUR")).thenReturn(marketChart(200));
+
+        String first = chartService.getCryptoHistory("BTC", 365, "EUR", 50);
+        String second = chartService.getCryptoHistory("btc", 365, "eur", 50);
+
+        assertSame(first, second);
+        verify(coinGeckoService, times(1)).getCryptoHistory("BTC", 365, "EUR");
+    }
+
+    @Test
+    @DisplayName("Las respuestas de error se devuelven tal cual y no se cachean")
+    void errorSinCache() {
+        String error = "{\"error\":\"Rate limit\"}";
+        when(coinGeckoService.getCryptoHistory("BTC", 30, "EUR")).thenReturn(error);
+
+        assertEquals(error, chartService.getCryptoHistory("BTC", 30, "EUR", 50));
+        assertEquals(error, chartService.getCryptoHistory("BTC", 30, "EUR", 50));
+        verify(coinGeckoService, times(2)).getCryptoHistory("BTC", 30, "EUR");
+    }
+
+    @Test
+    @DisplayName("Agrega las velas en buckets OHLC")
+    void velasAgregadas() throws Exception {
+        String raw = "{\"s\":\"ok\",\"t\":[1,2,3,4],\"o\":[10,11,12,13],\"h\":[15,18,14,20],"
+                + "\"l\":[9,8,11,12],\"c\":[11,12,13,14],\"v\":[100,200,300,400]}";
+        when(yahooFinanceService.getCandles("SPY", 30)).thenReturn(raw);
+
+        JsonNode result = objectMapper.readTree(chartService.getCandles("SPY", 30, 2));
+
+        assertEquals("ok", result.get("s").asText());
+        assertEquals(2, result.get("t").size());
+        assertEquals(18.0, result.get("h").get(0).asDouble());
+        assertEquals(8.0, result.get("l").get(0).asDouble());
+        assertEquals(700, result.get("v").get(1).asLong());
+    }
+
+    @Test
+    @DisplayName("Las velas que ya caben se devuelven sin tocar")
+    void velasSinReduccion() {
+        String raw = "{\"s\":\"ok\",\"t\":[1],\"o\":[10],\"h\":[11],\"l\":[9],\"c\":[10],\"v\":[5]}";
+        when(yahooFinanceService.getCandles("SPY", 1)).thenReturn(raw);
+
+        assertEquals(raw, chartService.getCandles("SPY", 1, 50));
+    }
+
+    @Test
+    @DisplayName("El histórico columnar conserva todos los puntos sin maxPoints")
+    void historicoColumnar() throws Exception {
+        when(coinGeckoService.getCryptoHistory("BTC", 30, "EUR")).thenReturn(marketChart(3));
+
+        JsonNode result = objectMapper.readTree(chartService.getCryptoHistoryColumnar("BTC", 30, "EUR", 0));
+
+        assertEquals("columnar-v1", result.get("format").asText());
+        assertEquals(3, result.get("size").asInt());
+        assertEquals(1_700_000_000_000L, result.get("t0").asLong());
+        assertEquals(2, result.get("dt").size());
+        assertEquals(3_600_000L, result.get("dt").get(0).asLong());
+        assertEquals(101.0, result.get("columns").get("price").get(1).asDouble());
+        assertEquals(1_000_002.0, result.get("columns").get("market_cap").get(2).asDouble());
+    }
+
+    @Test
+    @DisplayName("Las velas columnares incluyen las columnas o/h/l/c/v")
+    void velasColumnares() throws Exception {
+        String raw = "{\"s\":\"ok\",\"t\":[10,20],\"o\":[1,2],\"h\":[3,4],\"l\":[0,1],\"c\":[2,3],\"v\":[5,6]}";
+        when(yahooFinanceService.getCandles("SPY", 5)).thenReturn(raw);
+
+        JsonNode result = objectMapper.readTree(chartService.getCandlesColumnar("SPY", 5, 0));
+
+        assertEquals("s", result.get("unit").asText());
+        assertEquals(10, result.get("t0").asLong());
+        assertEquals(10, result.get("dt").get(0).asLong());
+        assertEquals(4.0, result.get("columns").get("h").get(1).asDouble());
+        assertEquals(6.0, result.get("columns").get("v").get(1).asDouble());
+    }
+}
@@ -1,15 +1,41 @@
 package com.valenciaBank.valenciaBank.service;
 
+import com.valenciaBank.valenciaBank.model.CryptoHistoryCoverage;
+import com.valenciaBank.valenciaBank.model.HistoryGranularity;
+import com.valenciaBank.valenciaBank.model.PriceQuote;
 import com.valenciaBank.valenciaBank.repository.CryptoHistoryCacheRepository;
+import com.valenciaBank.valenciaBank.utils.CircuitBreaker;
+import com.valenciaBank.valenciaBank.utils.SingleFlight;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.test.util.ReflectionTestUtils;
 import org.springframework.web.client.RestTemplate;
 
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
 import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
 
 @ExtendWith(MockitoExtension.class)
 @DisplayName("CoinGeckoService - Tests unitarios")
@@ -21,6 +47,15 @@ class CoinGeckoServiceTest {
     @Mock
     private CryptoHistoryCacheRepository cacheRepository;
 
+    @Mock
+    private ProviderRegistry providerRegistry;
+
+    @Mock
+    private PriceHistoryStore priceHistoryStore;
+
+    @Mock
+    private HistoryMemoryCache historyMemoryCache;
+
     @InjectMocks
     private CoinGeckoService coinGeckoService;
 
@@ -87,4 +122,283 @@ class CoinGeckoServiceTest {
         assertEquals("aave", coinGeckoService.convertSymbolToCoinGeckoId("AAVE"));
         assertEquals("chainlink", coinGeckoService.convertSymbolToCoinGeckoId("LINK"));
     }
+
+    @Test
+    @DisplayName("getCryptoPrices devuelve cotizaciones tipadas por símbolo y moneda")
+    void getCryptoPricesTipado() {
+        when(providerRegistry.call(eq(ExternalProvider.COINGECKO), any()))
+                .thenAnswer(invocation -> ((Supplier<?>) invocation.getArgument(1)).get());
+        when(restTemplate.exchange(contains("ids=bitcoin,ethereum&vs_currencies=eur,usd"), eq(HttpMethod.GET), any(HttpEntity.class), eq(String.class)))
+                .thenReturn(ResponseEntity.ok("{\"bitcoin\":{\"eur\":61000.5,\"eur_24h_change\":1.5,\"usd\":66000.0},"
+                        + "\"ethereum\":{\"eur\":3100.0}}"));
+
+        Map<String, Map<String, PriceQuote>> prices =
+                coinGeckoService.getCryptoPrices(List.of("btc", "ETH"), List.of("EUR", "usd"));
+
+        assertEquals(61000.5, prices.get("BTC").get("EUR").getPrice());
+        assertEquals(1.5, prices.get("BTC").get("EUR").getChange24h());
+        assertEquals(66000.0, prices.get("BTC").get("USD").getPrice());
+        assertEquals(3100.0, prices.get("ETH").get("EUR").getPrice());
+        assertFalse(prices.get("ETH").containsKey("USD"));
+        verify(restTemplate, times(1)).exchange(anyString(), eq(HttpMethod.GET), any(HttpEntity.class), eq(String.class));
+    }
+
+    @Test
+    @DisplayName("getCryptoPrices repite la petición con If-None-Match y reutiliza el cuerpo si CoinGecko responde 304")
+    void getCryptoPricesNoModificado() {
+        when(providerRegistry.call(eq(ExternalProvider.COINGECKO), any()))
+                .thenAnswer(invocation -> ((Supplier<?>) invocation.getArgument(1)).get());
+        when(restTemplate.exchange(contains("ids=bitcoin&vs_currencies=eur"), eq(HttpMethod.GET), any(HttpEntity.class), eq(String.class)))
+                .thenReturn(ResponseEntity.ok().eTag("\"v1\"").body("{\"bitcoin\":{\"eur\":61000.5}}"))
+                .thenReturn(ResponseEntity.status(HttpStatus.NOT_MODIFIED).<String>build());
+
+        coinGeckoService.getCryptoPrices(List.of("BTC"), List.of("EUR"));
+        Map<String, Map<String, PriceQuote>> prices = coinGeckoService.getCryptoPrices(List.of("BTC"), List.of("EUR"));
+
+        assertEquals(61000.5, prices.get("BTC").get("EUR").getPrice());
+        ArgumentCaptor<HttpEntity> requests = ArgumentCaptor.forClass(HttpEntity.class);
+        verify(restTemplate, times(2)).exchange(anyString(), eq(HttpMethod.GET), requests.capture(), eq(String.class));
+        assertNull(requests.getAllValues().get(0).getHeaders().getFirst(HttpHeaders.IF_NONE_MATCH));
+        assertEquals("\"v1\"", requests.getAllValues().get(1).getHeaders().getFirst(HttpHeaders.IF_NONE_MATCH));
+    }
+
+    @Test
+    @DisplayName("getCryptoPrices no llama a la API sin símbolos")
+    void getCryptoPricesVacio() {
+        assertTrue(coinGeckoService.getCryptoPrices(List.of(), List.of("EUR")).isEmpty());
+        verifyNoInteractions(restTemplate);
+    }
+
+    @Test
+    @DisplayName("chunkIdsByUrlLength parte la lista y ninguna URL enviada supera el límite")
+    void chunkPorLongitudDeUrl() {
+        List<String> symbols = new ArrayList<>();
+        for (int i = 0; i < 300; i++) {
+            symbols.add("token-" + i);
+        }
+        when(providerRegistry.call(eq(ExternalProvider.COINGECKO), any()))
+                .thenAnswer(invocation -> ((Supplier<?>) invocation.getArgument(1)).get());
+        when(restTemplate.exchange(anyString(), eq(HttpMethod.GET), any(HttpEntity.class), eq(String.class)))
+                .thenReturn(ResponseEntity.ok("{}"));
+
+        coinGeckoService.getCryptoPrices(symbols, List.of("EUR", "USD"));
+
+        // URL completa (base, ids y monedas) tal como llega al cliente HTTP
+        ArgumentCaptor<String> urls = ArgumentCaptor.forClass(String.class);
+        verify(restTemplate, atLeast(2)).exchange(urls.capture(), eq(HttpMethod.GET), any(HttpEntity.class), eq(String.class));
+        List<String> sentIds = new ArrayList<>();
+        for (String url : urls.getAllValues()) {
+            assertTrue(url.length() <= CoinGeckoService.MAX_URL_LENGTH, "URL de " + url.length() + " caracteres");
+            assertTrue(url.contains("&vs_currencies=eur,usd"));
+            sentIds.addAll(List.of(url.substring(url.indexOf("ids=") + 4, url.indexOf("&vs_currencies")).split(",")));
+        }
+        assertEquals(symbols, sentIds);
+    }
+
+    @Test
+    @DisplayName("chunkIdsByUrlLength mantiene un único bloque para pocas criptos")
+    void chunkUnicoBloque() {
+        assertEquals(1, coinGeckoService.chunkIdsByUrlLength(List.of("bitcoin", "ethereum"), List.of("EUR")).size());
+    }
+
+    private CryptoHistoryCoverage crearCobertura(HistoryGranularity granularity, long coveredFrom, long lastPoint) {
+        CryptoHistoryCoverage coverage = new CryptoHistoryCoverage("BTC", "EUR", granularity);
+        coverage.setCoveredFrom(coveredFrom);
+        coverage.setLastPoint(lastPoint);
+        coverage.markFetched();
+        return coverage;
+    }
+
+    @Test
+    @DisplayName("getCachedHistory recorta la serie vigente sin llamar a la API")
+    void getCachedHistoryVigente() {
+        CryptoHistoryCoverage coverage = crearCobertura(HistoryGranularity.HOURLY, 0L, System.currentTimeMillis());
+        when(priceHistoryStore.findCoverage("BTC", "EUR", HistoryGranularity.HOURLY)).thenReturn(Optional.of(coverage));
+        when(priceHistoryStore.slice(eq("BTC"), eq("EUR"), eq(HistoryGranularity.HOURLY), anyLong()))
+                .thenReturn("{\"prices\":[]}");
+
+        assertEquals("{\"prices\":[]}", coinGeckoService.getCachedHistory("btc", 30, "eur"));
+        verify(historyMemoryCache).put("BTC", 30, "EUR", "{\"prices\":[]}", coverage.getExpiresAt());
+        verifyNoInteractions(restTemplate, providerRegistry);
+    }
+
+    @Test
+    @DisplayName("getCachedHistory sirve desde memoria sin consultar la BD")
+    void getCachedHistoryDesdeMemoria() {
+        long expiresAt = System.currentTimeMillis() + 60_000;
+        when(historyMemoryCache.get("BTC", 30, "EUR")).thenReturn(new HistoryMemoryCache.Entry("{\"prices\":[]}", expiresAt));
+
+        assertEquals("{\"prices\":[]}", coinGeckoService.getCachedHistory("BTC", 30, "EUR"));
+        verifyNoInteractions(priceHistoryStore, cacheRepository, restTemplate);
+    }
+
+    @Test
+    @DisplayName("getCryptoHistory sirve la entrada caducada en memoria y revalida en segundo plano")
+    void getCryptoHistoryStaleWhileRevalidate() {
+        long expiredAt = System.currentTimeMillis() - 1_000;
+        when(historyMemoryCache.get("BTC", 30, "EUR")).thenReturn(new HistoryMemoryCache.Entry("{\"prices\":[[1,2.0]]}", expiredAt));
+        when(providerRegistry.isAvailable(ExternalProvider.COINGECKO)).thenReturn(true);
+
+        CoinGeckoService.HistoryResult result = coinGeckoService.fetchCryptoHistory("BTC", 30, "EUR");
+        assertEquals("{\"prices\":[[1,2.0]]}", result.data());
+        assertTrue(result.stale());
+        verify(historyMemoryCache).refreshAsync(eq("BTC"), eq(30), eq("EUR"), any(Runnable.class));
+        verifyNoInteractions(priceHistoryStore, cacheRepository, restTemplate);
+    }
+
+    @Test
+    @DisplayName("fetchCryptoHistory marca como stale la caché expirada servida con el circuito abierto")
+    void fetchCryptoHistoryFallbackStale() {
+        long expiredAt = System.currentTimeMillis() - 1_000;
+        when(historyMemoryCache.get("BTC", 30, "EUR")).thenReturn(new HistoryMemoryCache.Entry("{\"prices\":[[1,2.0]]}", expiredAt));
+        when(providerRegistry.isAvailable(ExternalProvider.COINGECKO)).thenReturn(false);
+        when(providerRegistry.breaker(ExternalProvider.COINGECKO)).thenReturn(new CircuitBreaker("coingecko", 3, 1_000, 10_000, 1));
+
+        CoinGeckoService.HistoryResult result = coinGeckoService.fetchCryptoHistory("BTC", 30, "EUR");
+
+        assertEquals("{\"prices\":[[1,2.0]]}", result.data());
+        assertTrue(result.stale());
+        verifyNoInteractions(restTemplate);
+    }
+
+    @Test
+    @DisplayName("getCachedHistory ignora la serie expirada y getStaleHistory la sirve")
+    void getCachedHistoryExpirada() {
+        CryptoHistoryCoverage coverage = crearCobertura(HistoryGranularity.HOURLY, 0L, System.currentTimeMillis());
+        coverage.setExpiresAt(LocalDateTime.now().minusHours(1));
+        when(priceHistoryStore.findCoverage("BTC", "EUR", HistoryGranularity.HOURLY)).thenReturn(Optional.of(coverage));
+        when(priceHistoryStore.slice(eq("BTC"), eq("EUR"), eq(HistoryGranularity.HOURLY), anyLong()))
+                .thenReturn("{\"prices\":[]}");
+
+        assertNull(coinGeckoService.getCachedHistory("BTC", 30, "EUR"));
+        assertEquals("{\"prices\":[]}", coinGeckoService.getStaleHistory("BTC", 30, "EUR"));
+        verifyNoInteractions(restTemplate, providerRegistry);
+    }
+
+    @Test
+    @DisplayName("getCachedHistory de 1 día recorta la serie horaria si no hay serie de 5 minutos")
+    void getCachedHistoryUnDiaDesdeHoraria() {
+        long now = System.currentTimeMillis();
+        CryptoHistoryCoverage coverage = crearCobertura(HistoryGranularity.HOURLY, 0L, now);
+        when(priceHistoryStore.findCoverage("BTC", "EUR", HistoryGranularity.MINUTE_5)).thenReturn(Optional.empty());
+        when(priceHistoryStore.findCoverage("BTC", "EUR", HistoryGranularity.HOURLY)).thenReturn(Optional.of(coverage));
+        when(priceHistoryStore.slice(eq("BTC"), eq("EUR"), eq(HistoryGranularity.HOURLY), anyLong()))
+                .thenReturn("{\"prices\":[[1,2.0]]}");
+
+        assertEquals("{\"prices\":[[1,2.0]]}", coinGeckoService.getCachedHistory("BTC", 1, "EUR"));
+
+        ArgumentCaptor<Long> from = ArgumentCaptor.forClass(Long.class);
+        verify(priceHistoryStore).slice(eq("BTC"), eq("EUR"), eq(HistoryGranularity.HOURLY), from.capture());
+        // Solo las últimas 24 horas, no la serie entera
+        assertTrue(Math.abs(from.getValue() - (now - HistoryGranularity.DAY_MS)) < 60_000);
+    }
+
+    @Test
+    @DisplayName("getCryptoHistory pide a CoinGecko solo la cola que falta")
+    void getCryptoHistoryCompletaCola() {
+        long now = System.currentTimeMillis();
+        CryptoHistoryCoverage coverage = crearCobertura(HistoryGranularity.HOURLY, 0L, now - 3 * 3_600_000L);
+        coverage.setExpiresAt(LocalDateTime.now().minusMinutes(1));
+        when(priceHistoryStore.findCoverage("BTC", "EUR", HistoryGranularity.HOURLY)).thenReturn(Optional.of(coverage));
+        when(providerRegistry.isAvailable(ExternalProvider.COINGECKO)).thenReturn(true);
+        when(providerRegistry.call(eq(ExternalProvider.COINGECKO), any()))
+                .thenAnswer(inv -> ((Supplier<?>) inv.getArgument(1)).get());
+        when(restTemplate.exchange(contains("/coins/bitcoin/market_chart?vs_currency=eur&days=2"), eq(HttpMethod.GET), any(HttpEntity.class), eq(String.class)))
+                .thenReturn(ResponseEntity.ok("{\"prices\":[[1,2.0]]}"));
+        when(priceHistoryStore.merge(eq("BTC"), eq("EUR"), eq(HistoryGranularity.HOURLY), eq("{\"prices\":[[1,2.0]]}"), anyLong()))
+                .thenReturn(coverage);
+        when(priceHistoryStore.slice(eq("BTC"), eq("EUR"), eq(HistoryGranularity.HOURLY), anyLong()))
+                .thenReturn("{\"prices\":[[1,2.0]]}");
+
+        assertEquals("{\"prices\":[[1,2.0]]}", coinGeckoService.getCryptoHistory("BTC", 30, "EUR"));
+        verify(priceHistoryStore).merge(eq("BTC"), eq("EUR"), eq(HistoryGranularity.HOURLY), anyString(), anyLong());
+    }
+
+    @Test
+    @DisplayName("getCryptoHistory descarga la ventana completa si la serie no cubre su inicio")
+    void getCryptoHistoryVentanaCompleta() {
+        long now = System.currentTimeMillis();
+        CryptoHistoryCoverage merged = crearCobertura(HistoryGranularity.DAILY, now - 365 * HistoryGranularity.DAY_MS, now);
+        when(priceHistoryStore.findCoverage("BTC", "EUR", HistoryGranularity.DAILY)).thenReturn(Optional.empty());
+        when(providerRegistry.isAvailable(ExternalProvider.COINGECKO)).thenReturn(true);
+        when(providerRegistry.call(eq(ExternalProvider.COINGECKO), any()))
+                .thenAnswer(inv -> ((Supplier<?>) inv.getArgument(1)).get());
+        when(restTemplate.exchange(contains("days=365&interval=daily"), eq(HttpMethod.GET), any(HttpEntity.class), eq(String.class)))
+                .thenReturn(ResponseEntity.ok("{\"prices\":[[1,2.0]]}"));
+        when(priceHistoryStore.merge(eq("BTC"), eq("EUR"), eq(HistoryGranularity.DAILY), anyString(), anyLong()))
+                .thenReturn(merged);
+        when(priceHistoryStore.slice(eq("BTC"), eq("EUR"), eq(HistoryGranularity.DAILY), anyLong()))
+                .thenReturn("{\"prices\":[[1,2.0]]}");
+
+        assertEquals("{\"prices\":[[1,2.0]]}", coinGeckoService.getCryptoHistory("BTC", 365, "EUR"));
+
+        ArgumentCaptor<Long> requestedFrom = ArgumentCaptor.forClass(Long.class);
+        verify(priceHistoryStore).merge(eq("BTC"), eq("EUR"), eq(HistoryGranularity.DAILY), anyString(), requestedFrom.capture());
+        assertTrue(Math.abs(requestedFrom.getValue() - (now - 365 * HistoryGranularity.DAY_MS)) < 60_000);
+    }
+
+    @Test
+    @DisplayName("getCryptoHistory de 7 y 30 días a la vez comparte una sola descarga y fusión de la serie horaria")
+    void getCryptoHistoryMismaSerieUnaFusion() throws Exception {
+        long now = System.currentTimeMillis();
+        CryptoHistoryCoverage merged = crearCobertura(HistoryGranularity.HOURLY, now - 90 * HistoryGranularity.DAY_MS, now);
+        CountDownLatch downloading = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        when(priceHistoryStore.findCoverage("BTC", "EUR", HistoryGranularity.HOURLY)).thenReturn(Optional.empty());
+        when(providerRegistry.isAvailable(ExternalProvider.COINGECKO)).thenReturn(true);
+        when(providerRegistry.call(eq(ExternalProvider.COINGECKO), any()))
+                .thenAnswer(inv -> ((Supplier<?>) inv.getArgument(1)).get());
+        when(restTemplate.exchange(contains("/coins/bitcoin/market_chart"), eq(HttpMethod.GET), any(HttpEntity.class), eq(String.class)))
+                .thenAnswer(inv -> {
+                    downloading.countDown();
+                    release.await(5, TimeUnit.SECONDS);
+                    return ResponseEntity.ok("{\"prices\":[[1,2.0]]}");
+                });
+        when(priceHistoryStore.merge(eq("BTC"), eq("EUR"), eq(HistoryGranularity.HOURLY), anyString(), anyLong()))
+                .thenReturn(merged);
+        when(priceHistoryStore.slice(eq("BTC"), eq("EUR"), eq(HistoryGranularity.HOURLY), anyLong()))
+                .thenReturn("{\"prices\":[[1,2.0]]}");
+
+        ExecutorService pool = Executors.newFixedThreadPool(2);
+        try {
+            Future<String> week = pool.submit(() -> coinGeckoService.getCryptoHistory("BTC", 7, "EUR"));
+            assertTrue(downloading.await(5, TimeUnit.SECONDS));
+            Future<String> month = pool.submit(() -> coinGeckoService.getCryptoHistory("BTC", 30, "EUR"));
+            SingleFlight<?, ?> flight = (SingleFlight<?, ?>) ReflectionTestUtils.getField(coinGeckoService, "historyFlight");
+            for (int i = 0; i < 500 && flight.getJoinedCount() == 0; i++) {
+                Thread.sleep(10);
+            }
+            release.countDown();
+
+            assertEquals("{\"prices\":[[1,2.0]]}", week.get(5, TimeUnit.SECONDS));
+            assertEquals("{\"prices\":[[1,2.0]]}", month.get(5, TimeUnit.SECONDS));
+        } finally {
+            pool.shutdownNow();
+        }
+        verify(priceHistoryStore, times(1)).merge(eq("BTC"), eq("EUR"), eq(HistoryGranularity.HOURLY), anyString(), anyLong());
+        verify(restTemplate, times(1)).exchange(anyString(), eq(HttpMethod.GET), any(HttpEntity.class), eq(String.class));
+    }
+
+    @Test
+    @DisplayName("getCryptoHistory vuelve a descargar si la fusión compartida no cubre su ventana")
+    void getCryptoHistoryFusionCompartidaCorta() {
+        long now = System.currentTimeMillis();
+        CryptoHistoryCoverage week = crearCobertura(HistoryGranularity.HOURLY, now - 7 * HistoryGranularity.DAY_MS, now);
+        CryptoHistoryCoverage month = crearCobertura(HistoryGranularity.HOURLY, now - 30 * HistoryGranularity.DAY_MS - 60_000, now);
+        when(priceHistoryStore.findCoverage("BTC", "EUR", HistoryGranularity.HOURLY)).thenReturn(Optional.empty());
+        when(providerRegistry.isAvailable(ExternalProvider.COINGECKO)).thenReturn(true);
+        when(providerRegistry.call(eq(ExternalProvider.COINGECKO), any()))
+                .thenAnswer(inv -> ((Supplier<?>) inv.getArgument(1)).get());
+        when(restTemplate.exchange(contains("/coins/bitcoin/market_chart"), eq(HttpMethod.GET), any(HttpEntity.class), eq(String.class)))
+                .thenReturn(ResponseEntity.ok("{\"prices\":[[1,2.0]]}"));
+        when(priceHistoryStore.merge(eq("BTC"), eq("EUR"), eq(HistoryGranularity.HOURLY), anyString(), anyLong()))
+                .thenReturn(week, month);
+        when(priceHistoryStore.slice(eq("BTC"), eq("EUR"), eq(HistoryGranularity.HOURLY), anyLong()))
+                .thenReturn("{\"prices\":[[1,2.0]]}");
+
+        coinGeckoService.getCryptoHistory("BTC", 30, "EUR");
+
+        verify(priceHistoryStore, times(2)).merge(eq("BTC"), eq("EUR"), eq(HistoryGranularity.HOURLY), anyString(), anyLong());
+        verify(historyMemoryCache).put(eq("BTC"), eq(30), eq("EUR"), anyString(), eq(month.getExpiresAt()));
+    }
 }
@@ -0,0 +1,216 @@
+package com.valenciaBank.valenciaBank.service;
+
+import com.valenciaBank.valenciaBank.model.Crypto;
+import com.valenciaBank.valenciaBank.repository.CryptoRepository;
+import com.valenciaBank.valenciaBank.utils.CircuitBreaker;
+import org.json.JSONArray;
+import org.json.JSONObject;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Captor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.Limit;
+import reactor.core.publisher.Mono;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+@DisplayName("CryptoService - Tests unitarios")
+class CryptoServiceTest {
+
+    private static final String SERIE = "{\"Time Series (Digital Currency Daily)\":{"
+            + "\"2026-01-03\":{\"1. open\":\"3\",\"2. high\":\"4\",\"3. low\":\"2\",\"4. close\":\"3.5\",\"5. volume\":\"30\"},"
+            + "\"2026-01-02\":{\"1. open\":\"2\",\"2. high\":\"3\",\"3. low\":\"1\",\"4. close\":\"2.5\",\"5. volume\":\"20\"},"
+            + "\"2026-01-01\":{\"1. open\":\"1\",\"2. high\":\"2\",\"3. low\":\"0.5\",\"4. close\":\"1.5\",\"5. volume\":\"10\"}}}";
+
+    @Mock
+    private CryptoRepository cryptoRepository;
+
+    @Mock
+    private ProviderRegistry providerRegistry;
+
+    @Mock
+    private IndicatorService indicatorService;
+
+    @InjectMocks
+    private CryptoService cryptoService;
+
+    @Captor
+    private ArgumentCaptor<List<Crypto>> rowsCaptor;
+
+    @Test
+    @DisplayName("saveDataInOurBBDD solo inserta las fechas posteriores a la última en BD")
+    void ingestaIncremental() {
+        when(cryptoRepository.findLatestDate("BTC")).thenReturn(LocalDate.of(2026, 1, 2));
+
+        int inserted = cryptoService.saveDataInOurBBDD(Map.of("BTC-EUR", SERIE), "BTC", "EUR");
+
+        assertEquals(1, inserted);
+        verify(cryptoRepository).saveAll(rowsCaptor.capture());
+        List<Crypto> rows = rowsCaptor.getValue();
+        assertEquals(1, rows.size());
+        assertEquals("BTC", rows.get(0).getName());
+        assertEquals(LocalDate.of(2026, 1, 3), rows.get(0).getDate());
+        assertEquals(3.5, rows.get(0).getClose());
+        assertTrue(rows.get(0).isNew());
+        verify(cryptoRepository, never()).save(any());
+        verify(indicatorService).updateIndicators("BTC");
+    }
+
+    @Test
+    @DisplayName("saveDataInOurBBDD inserta toda la serie en lote si no hay datos previos")
+    void ingestaInicial() {
+        when(cryptoRepository.findLatestDate("BTC")).thenReturn(null);
+
+        int inserted = cryptoService.saveDataInOurBBDD(Map.of("BTC-EUR", SERIE), "BTC", "EUR");
+
+        assertEquals(3, inserted);
+        verify(cryptoRepository).saveAll(rowsCaptor.capture());
+        assertEquals(3, rowsCaptor.getValue().size());
+    }
+
+    @Test
+    @DisplayName("saveDataInOurBBDD no escribe nada si la serie ya está al día")
+    void ingestaAlDia() {
+        when(cryptoRepository.findLatestDate("BTC")).thenReturn(LocalDate.of(2026, 1, 3));
+
+        int inserted = cryptoService.saveDataInOurBBDD(Map.of("BTC-EUR", SERIE), "BTC", "EUR");
+
+        assertEquals(0, inserted);
+        verify(cryptoRepository, never()).saveAll(any());
+        verifyNoInteractions(indicatorService);
+    }
+
+    @Test
+    @DisplayName("saveDataInOurBBDD ignora respuestas sin Time Series")
+    void ingestaSinTimeSeries() {
+        int inserted = cryptoService.saveDataInOurBBDD(Map.of("BTC-EUR", "{\"Note\":\"rate limit\"}"), "BTC", "EUR");
+
+        assertEquals(0, inserted);
+        verifyNoInteractions(cryptoRepository);
+    }
+
+    @Test
+    @DisplayName("getAnalysis calcula la ventana de las últimas N velas en una pasada")
+    void getAnalysisUltimasVelas() throws Exception {
+        // findLatest devuelve de la más reciente a la más antigua
+        when(cryptoRepository.findLatest("BTC", Limit.of(3))).thenReturn(List.of(
+                new Crypto("BTC", LocalDate.of(2026, 1, 3), 3.5, 4.0, 2.0, 3.0, 30.0),
+                new Crypto("BTC", LocalDate.of(2026, 1, 2), 2.5, 3.0, 1.0, 2.0, 20.0),
+                new Crypto("BTC", LocalDate.of(2026, 1, 1), 1.5, 2.0, 0.5, 1.0, 10.0)));
+
+        JSONObject result = new JSONObject(cryptoService.getAnalysis("BTC", 3));
+
+        assertEquals(2.5, result.getDouble("average_price"));
+        assertEquals(133.33, result.getDouble("percent_change"));
+        assertEquals(0.82, result.getDouble("volatility"));
+        assertEquals(4.0, result.getDouble("highest_price"));
+        assertEquals(0.5, result.getDouble("lowest_price"));
+        assertEquals(3.5, result.getDouble("current_price"));
+        assertEquals(0.0, result.getDouble("max_drawdown"));
+        verify(cryptoRepository, never()).findByCryptoName(any());
+    }
+
+    @Test
+    @DisplayName("getAnalysis devuelve error si no hay velas")
+    void getAnalysisSinDatos() {
+        when(cryptoRepository.findLatest("BTC", Limit.of(30))).thenReturn(List.of());
+
+        String result = cryptoService.getAnalysis("BTC", 30);
+
+        assertTrue(result.contains("No data found for BTC"));
+    }
+
+    @Test
+    @DisplayName("getHistoryByDateRange consulta solo el rango pedido")
+    void getHistoryByDateRange() throws Exception {
+        LocalDate start = LocalDate.of(2026, 1, 1);
+        LocalDate end = LocalDate.of(2026, 1, 2);
+        when(cryptoRepository.findByNameAndDateRange("BTC", start, end)).thenReturn(List.of(
+                new Crypto("BTC", start, 1.5, 2.0, 0.5, 1.0, 10.0),
+                new Crypto("BTC", end, 2.5, 3.0, 1.0, 2.0, 20.0)));
+
+        JSONObject result = new JSONObject(cryptoService.getHistoryByDateRange("BTC", "2026-01-01", "2026-01-02"));
+
+        JSONObject data = result.getJSONObject("data");
+        assertEquals(2, data.length());
+        assertEquals(2.5, data.getJSONObject("2026-01-02").getDouble("close"));
+    }
+
+    @Test
+    @DisplayName("compareCryptos pide la última vela de todos los símbolos en una consulta")
+    void compareCryptosUnaConsulta() throws Exception {
+        when(cryptoRepository.findLatestByNames(any())).thenReturn(List.of(
+                new Crypto("ETH", LocalDate.of(2026, 1, 3), 3500.0, 3600.0, 3400.0, 3450.0, 1.0),
+                new Crypto("BTC", LocalDate.of(2026, 1, 3), 95000.0, 96000.0, 94000.0, 94500.0, 1.0)));
+
+        JSONObject result = new JSONObject(cryptoService.compareCryptos("BTC, ETH, XRP"));
+
+        JSONArray comparison = result.getJSONArray("comparison");
+        assertEquals(2, comparison.length());
+        assertEquals("BTC", comparison.getJSONObject(0).getString("symbol"));
+        assertEquals(95000.0, comparison.getJSONObject(0).getDouble("latest_price"));
+        assertEquals("ETH", comparison.getJSONObject(1).getString("symbol"));
+        verify(cryptoRepository).findLatestByNames(Set.of("BTC", "ETH", "XRP"));
+    }
+
+    @Test
+    @DisplayName("llamarEquityAPIMono devuelve la serie si la respuesta es válida")
+    void equityMonoValida() {
+        String serie = "{\"Time Series (Daily)\":{}}";
+        when(providerRegistry.<String>callReactive(eq(ExternalProvider.ALPHA_VANTAGE), any()))
+                .thenReturn(Mono.just(serie));
+
+        assertEquals(serie, cryptoService.llamarEquityAPIMono("SPY").block());
+    }
+
+    @Test
+    @DisplayName("llamarEquityAPIMono: el aviso de cuota de Alpha Vantage abre el circuito")
+    void equityMonoRateLimit() {
+        CircuitBreaker breaker = new CircuitBreaker("alphavantage", 3, 60000, 600000, 1);
+        when(providerRegistry.<String>callReactive(eq(ExternalProvider.ALPHA_VANTAGE), any()))
+                .thenReturn(Mono.just("{\"Information\":\"standard API rate limit is 25 requests per day\"}"));
+        when(providerRegistry.breaker(ExternalProvider.ALPHA_VANTAGE)).thenReturn(breaker);
+
+        String result = cryptoService.llamarEquityAPIMono("SPY").block();
+
+        assertTrue(result.contains("premium"));
+        assertEquals(CircuitBreaker.State.OPEN, breaker.getState());
+    }
+
+    @Test
+    @DisplayName("llamarEquityAPIMono convierte el circuito abierto y los errores en JSON de error")
+    void equityMonoErrores() {
+        when(providerRegistry.<String>callReactive(eq(ExternalProvider.ALPHA_VANTAGE), any()))
+                .thenReturn(Mono.error(new CircuitBreaker.OpenException("Circuito abierto para alphavantage")))
+                .thenReturn(Mono.error(new RuntimeException("Connection reset")));
+
+        assertTrue(cryptoService.llamarEquityAPIMono("SPY").block().contains("premium"));
+        assertTrue(cryptoService.llamarEquityAPIMono("SPY").block().contains("De momento no trabajamos con el símbolo SPY"));
+    }
+
+    @Test
+    @DisplayName("llamarAPIMono sirve desde BD si la serie es de hoy, sin llamar al proveedor")
+    void llamarAPIMonoDesdeBD() throws Exception {
+        when(cryptoRepository.findLatestDate("BTC")).thenReturn(LocalDate.now());
+        when(cryptoRepository.findByCryptoName("BTC")).thenReturn(List.of(
+                new Crypto("BTC", LocalDate.now(), 3.5, 4.0, 2.0, 3.0, 30.0)));
+
+        JSONObject result = new JSONObject(cryptoService.llamarAPIMono("BTC", "EUR").block());
+
+        assertEquals(1, result.getJSONObject("Time Series (Digital Currency Daily)").length());
+        verifyNoInteractions(providerRegistry);
+    }
+}
@@ -20,6 +20,9 @@ class FinnhubServiceTest {
     @Mock
     private RestTemplate restTemplate;
 
+    @Mock
+    private ProviderRegistry providerRegistry;
+
     @InjectMocks
     private FinnhubService finnhubService;
 
@@ -0,0 +1,101 @@
+package com.valenciaBank.valenciaBank.service;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.DisplayName;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DisplayName("HistoryMemoryCache - Tests unitarios")
+class HistoryMemoryCacheTest {
+
+    private static final long STALE_MS = 3_600_000;
+
+    private final List<Runnable> tasks = new ArrayList<>();
+
+    private HistoryMemoryCache crearCache(long maxBytes) {
+        return new HistoryMemoryCache(maxBytes, STALE_MS, tasks::add, Runnable::run);
+    }
+
+    @Test
+    @DisplayName("Guarda y devuelve una entrada vigente")
+    void putGetVigente() {
+        HistoryMemoryCache cache = crearCache(1_000_000);
+        cache.put("BTC", 30, "EUR", "{\"prices\":[]}", LocalDateTime.now().plusHours(1));
+
+        HistoryMemoryCache.Entry entry = cache.get("BTC", 30, "EUR");
+
+        assertNotNull(entry);
+        assertTrue(entry.isFresh());
+        assertEquals("{\"prices\":[]}", entry.data());
+        assertNull(cache.get("BTC", 7, "EUR"));
+    }
+
+    @Test
+    @DisplayName("Mantiene la entrada caducada durante la ventana stale")
+    void ventanaStale() {
+        HistoryMemoryCache cache = crearCache(1_000_000);
+        cache.put("BTC", 30, "EUR", "{}", LocalDateTime.now().minusMinutes(5));
+
+        HistoryMemoryCache.Entry entry = cache.get("BTC", 30, "EUR");
+
+        assertNotNull(entry);
+        assertFalse(entry.isFresh());
+    }
+
+    @Test
+    @DisplayName("Descarta la entrada pasada la ventana stale")
+    void fueraDeVentanaStale() {
+        HistoryMemoryCache cache = crearCache(1_000_000);
+        cache.put("BTC", 30, "EUR", "{}", LocalDateTime.now().minusHours(2));
+
+        assertNull(cache.get("BTC", 30, "EUR"));
+    }
+
+    @Test
+    @DisplayName("Expulsa entradas al superar el peso máximo en bytes")
+    void expulsionPorPeso() {
+        HistoryMemoryCache cache = crearCache(1_000);
+        String payload = "x".repeat(400);
+        cache.put("BTC", 30, "EUR", payload, LocalDateTime.now().plusHours(1));
+        cache.put("ETH", 30, "EUR", payload, LocalDateTime.now().plusHours(1));
+        cache.put("SOL", 30, "EUR", payload, LocalDateTime.now().plusHours(1));
+        cache.cleanUp();
+
+        assertTrue((long) cache.getMetrics().get("entries") <= 2);
+        assertTrue((long) cache.getMetrics().get("weightBytes") <= 1_000);
+    }
+
+    @Test
+    @DisplayName("refreshAsync lanza una sola revalidación a la vez por clave")
+    void revalidacionUnicaPorClave() {
+        HistoryMemoryCache cache = crearCache(1_000_000);
+        AtomicInteger refreshes = new AtomicInteger();
+
+        assertTrue(cache.refreshAsync("BTC", 30, "EUR", refreshes::incrementAndGet));
+        assertFalse(cache.refreshAsync("BTC", 30, "EUR", refreshes::incrementAndGet));
+        assertTrue(cache.refreshAsync("ETH", 30, "EUR", refreshes::incrementAndGet));
+        assertEquals(2, tasks.size());
+
+        tasks.get(0).run();
+        assertEquals(1, refreshes.get());
+        assertTrue(cache.refreshAsync("BTC", 30, "EUR", refreshes::incrementAndGet));
+    }
+
+    @Test
+    @DisplayName("Un error en la revalidación no bloquea las siguientes")
+    void revalidacionConError() {
+        HistoryMemoryCache cache = crearCache(1_000_000);
+
+        cache.refreshAsync("BTC", 30, "EUR", () -> {
+            throw new IllegalStateException("429");
+        });
+        tasks.get(0).run();
+
+        assertTrue(cache.refreshAsync("BTC", 30, "EUR", () -> { }));
+    }
+}
@@ -0,0 +1,54 @@
+package com.valenciaBank.valenciaBank.service;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.DisplayName;
+import reactor.netty.resources.ConnectionPoolMetrics;
+
+import java.net.InetSocketAddress;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DisplayName("HttpPoolMetrics - Tests unitarios")
+class HttpPoolMetricsTest {
+
+    private static ConnectionPoolMetrics pool(int acquired, int idle, int pending) {
+        return new ConnectionPoolMetrics() {
+            public int acquiredSize() { return acquired; }
+            public int allocatedSize() { return acquired + idle; }
+            public int idleSize() { return idle; }
+            public int pendingAcquireSize() { return pending; }
+            public int maxAllocatedSize() { return 10; }
+            public int maxPendingAcquireSize() { return 20; }
+        };
+    }
+
+    @SuppressWarnings("unchecked")
+    @Test
+    @DisplayName("Agrupa los pools por host y lee los valores en el momento de consultar")
+    void metricasPorHost() {
+        HttpPoolMetrics metrics = new HttpPoolMetrics();
+        InetSocketAddress coingecko = InetSocketAddress.createUnresolved("api.coingecko.com", 443);
+        metrics.registerMetrics("providers", "1", coingecko, pool(2, 1, 0));
+        metrics.registerMetrics("providers", "2", coingecko, pool(1, 0, 3));
+
+        Map<String, Object> host = (Map<String, Object>) metrics.getMetrics().get("api.coingecko.com:443");
+
+        assertEquals(3, host.get("acquired"));
+        assertEquals(4, host.get("allocated"));
+        assertEquals(3, host.get("pendingAcquire"));
+        assertEquals(20, host.get("maxConnections"));
+    }
+
+    @Test
+    @DisplayName("Un pool dado de baja deja de aparecer")
+    void bajaDePool() {
+        HttpPoolMetrics metrics = new HttpPoolMetrics();
+        InetSocketAddress finnhub = InetSocketAddress.createUnresolved("finnhub.io", 443);
+        metrics.registerMetrics("providers", "1", finnhub, pool(0, 2, 0));
+
+        metrics.deRegisterMetrics("providers", "1", finnhub);
+
+        assertTrue(metrics.getMetrics().isEmpty());
+    }
+}
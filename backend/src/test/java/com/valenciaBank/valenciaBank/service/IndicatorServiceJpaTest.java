@@ -0,0 +1,107 @@
+package com.valenciaBank.valenciaBank.service;
+
+import com.valenciaBank.valenciaBank.model.Crypto;
+import com.valenciaBank.valenciaBank.model.CryptoIndicator;
+import com.valenciaBank.valenciaBank.repository.CryptoIndicatorRepository;
+import com.valenciaBank.valenciaBank.repository.CryptoRepository;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.SpringBootConfiguration;
+import org.springframework.boot.autoconfigure.domain.EntityScan;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.context.annotation.Import;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.config.EnableJpaRepositories;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Recálculo de indicadores contra una base de datos real (H2): la serie se borra y se vuelve a
+ * insertar con las filas antiguas ya cargadas en el mismo contexto de persistencia.
+ */
+@DataJpaTest
+@ActiveProfiles("test")
+@DisplayName("IndicatorService - Tests de persistencia")
+class IndicatorServiceJpaTest {
+
+    /**
+     * Configuración propia del slice: el @ComponentScan de ValenciaBankApplication anula los filtros
+     * de @DataJpaTest y cargaría también la seguridad y los controladores
+     */
+    @SpringBootConfiguration
+    @EntityScan(basePackageClasses = CryptoIndicator.class)
+    @EnableJpaRepositories(basePackageClasses = CryptoIndicatorRepository.class)
+    @Import(IndicatorService.class)
+    static class JpaSliceConfig {
+    }
+
+    private static final LocalDate D1 = LocalDate.of(2026, 1, 1);
+
+    @Autowired
+    private IndicatorService indicatorService;
+
+    @Autowired
+    private CryptoRepository cryptoRepository;
+
+    @Autowired
+    private CryptoIndicatorRepository indicatorRepository;
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    private void velas(LocalDate from, double... closes) {
+        for (int i = 0; i < closes.length; i++) {
+            cryptoRepository.save(new Crypto("BTC", from.plusDays(i), closes[i], closes[i], closes[i], closes[i], 1.0));
+        }
+        entityManager.flush();
+    }
+
+    @Test
+    @DisplayName("Con el estado incoherente recalcula la serie aunque las filas antiguas estén cargadas")
+    void recalculoConFilasGestionadas() {
+        velas(D1, 10, 11, 12);
+        assertEquals(3, indicatorService.updateIndicators("BTC"));
+        entityManager.flush();
+
+        // Una vela anterior a la serie descuadra el estado guardado (3 velas procesadas, ahora hay 4)
+        velas(D1.minusDays(1), 9);
+        CryptoIndicator last = indicatorRepository.findLatest("BTC", Limit.of(1)).get(0);
+        assertTrue(entityManager.getEntityManager().contains(last));
+
+        assertEquals(4, indicatorService.updateIndicators("BTC"));
+        entityManager.flush();
+        entityManager.clear();
+
+        List<CryptoIndicator> rows = indicatorRepository.findLatest("BTC", Limit.of(10));
+        assertEquals(4, rows.size());
+        assertEquals(4L, rows.get(0).getSequence());
+        assertEquals(D1.minusDays(1), rows.get(3).getDate());
+    }
+
+    @Test
+    @DisplayName("getIndicators recalcula la serie incoherente y devuelve todos los días")
+    @SuppressWarnings("unchecked")
+    void getIndicatorsRecalcula() {
+        velas(D1, 10, 11, 12);
+        indicatorService.updateIndicators("BTC");
+        entityManager.flush();
+        entityManager.clear();
+
+        velas(D1.minusDays(1), 9);
+        velas(D1.plusDays(3), 13);
+
+        Map<String, Object> result = indicatorService.getIndicators("BTC", 30);
+
+        List<Map<String, Object>> points = (List<Map<String, Object>>) result.get("indicators");
+        assertEquals(5, points.size());
+        assertEquals("2025-12-31", points.get(0).get("date"));
+        assertEquals(13.0, points.get(4).get("close"));
+    }
+}
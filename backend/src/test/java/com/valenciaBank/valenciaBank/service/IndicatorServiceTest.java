@@ -0,0 +1,134 @@
+package com.valenciaBank.valenciaBank.service;
+
+import com.valenciaBank.valenciaBank.model.Crypto;
+import com.valenciaBank.valenciaBank.model.CryptoIndicator;
+import com.valenciaBank.valenciaBank.repository.CryptoIndicatorRepository;
+import com.valenciaBank.valenciaBank.repository.CryptoRepository;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Captor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.Limit;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+@DisplayName("IndicatorService - Tests unitarios")
+class IndicatorServiceTest {
+
+    private static final LocalDate D1 = LocalDate.of(2026, 1, 1);
+    private static final LocalDate D2 = LocalDate.of(2026, 1, 2);
+    private static final LocalDate D3 = LocalDate.of(2026, 1, 3);
+
+    @Mock
+    private CryptoRepository cryptoRepository;
+
+    @Mock
+    private CryptoIndicatorRepository indicatorRepository;
+
+    @InjectMocks
+    private IndicatorService indicatorService;
+
+    @Captor
+    private ArgumentCaptor<List<CryptoIndicator>> rowsCaptor;
+
+    private static Crypto vela(LocalDate date, double close) {
+        return new Crypto("BTC", date, close, close, close, close, 1.0);
+    }
+
+    @Test
+    @DisplayName("Sin indicadores previos calcula la serie completa")
+    void calculoCompleto() {
+        when(indicatorRepository.findLatest("BTC", Limit.of(1))).thenReturn(List.of());
+        when(cryptoRepository.findAllByNameAsc("BTC")).thenReturn(List.of(vela(D1, 10), vela(D2, 11), vela(D3, 12)));
+
+        int updated = indicatorService.updateIndicators("BTC");
+
+        assertEquals(3, updated);
+        verify(indicatorRepository).deleteByName("BTC");
+        verify(indicatorRepository).saveAll(rowsCaptor.capture());
+        List<CryptoIndicator> rows = rowsCaptor.getValue();
+        assertEquals(D3, rows.get(2).getDate());
+        assertEquals(3L, rows.get(2).getSequence());
+        assertEquals(12.0, rows.get(2).getClose());
+        assertNull(rows.get(2).getSma20());
+    }
+
+    @Test
+    @DisplayName("Con estado guardado solo calcula las velas nuevas")
+    void calculoIncremental() {
+        CryptoIndicator last = new CryptoIndicator("BTC", D2, 11.0);
+        last.setSequence(2L);
+        last.setEmaFastState(10.5);
+        last.setEmaSlowState(10.5);
+        last.setSignalState(0.0);
+        last.setAvgGainState(1.0);
+        last.setAvgLossState(0.0);
+        when(indicatorRepository.findLatest("BTC", Limit.of(1))).thenReturn(List.of(last));
+        when(cryptoRepository.findLatestUpTo("BTC", D2, Limit.of(50))).thenReturn(List.of(vela(D2, 11), vela(D1, 10)));
+        when(cryptoRepository.findAfter("BTC", D2)).thenReturn(List.of(vela(D3, 12)));
+
+        int updated = indicatorService.updateIndicators("BTC");
+
+        assertEquals(1, updated);
+        verify(indicatorRepository, never()).deleteByName(anyString());
+        verify(cryptoRepository, never()).findAllByNameAsc(anyString());
+        verify(indicatorRepository).saveAll(rowsCaptor.capture());
+        assertEquals(3L, rowsCaptor.getValue().get(0).getSequence());
+        assertEquals(D3, rowsCaptor.getValue().get(0).getDate());
+    }
+
+    @Test
+    @DisplayName("Si el estado no cuadra con las velas recalcula desde cero")
+    void estadoIncoherente() {
+        CryptoIndicator last = new CryptoIndicator("BTC", D2, 11.0);
+        last.setSequence(5L);
+        when(indicatorRepository.findLatest("BTC", Limit.of(1))).thenReturn(List.of(last));
+        when(cryptoRepository.findLatestUpTo("BTC", D2, Limit.of(50))).thenReturn(List.of(vela(D2, 11), vela(D1, 10)));
+        when(cryptoRepository.findAllByNameAsc("BTC")).thenReturn(List.of(vela(D1, 10), vela(D2, 11)));
+
+        int updated = indicatorService.updateIndicators("BTC");
+
+        assertEquals(2, updated);
+        verify(indicatorRepository).deleteByName("BTC");
+    }
+
+    @Test
+    @DisplayName("getIndicators devuelve error si no hay velas del símbolo")
+    void getIndicatorsSinDatos() {
+        when(cryptoRepository.findLatestDate("XXX")).thenReturn(null);
+
+        Map<String, Object> result = indicatorService.getIndicators("XXX", 30);
+
+        assertTrue(result.containsKey("error"));
+        verifyNoInteractions(indicatorRepository);
+    }
+
+    @Test
+    @DisplayName("getIndicators sirve los indicadores guardados en orden cronológico")
+    @SuppressWarnings("unchecked")
+    void getIndicatorsAlDia() {
+        when(cryptoRepository.findLatestDate("BTC")).thenReturn(D2);
+        when(indicatorRepository.findLatest("BTC", Limit.of(2))).thenReturn(List.of(
+                new CryptoIndicator("BTC", D2, 11.0), new CryptoIndicator("BTC", D1, 10.0)));
+
+        Map<String, Object> result = indicatorService.getIndicators("BTC", 2);
+
+        List<Map<String, Object>> points = (List<Map<String, Object>>) result.get("indicators");
+        assertEquals(2, points.size());
+        assertEquals("2026-01-01", points.get(0).get("date"));
+        assertEquals(11.0, points.get(1).get("close"));
+        verify(indicatorRepository, never()).saveAll(any());
+    }
+}
@@ -0,0 +1,171 @@
+package com.valenciaBank.valenciaBank.service;
+
+import com.valenciaBank.valenciaBank.model.NewsArticle;
+import com.valenciaBank.valenciaBank.repository.NewsArticleRepository;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.Limit;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+@DisplayName("NewsArchiveService - Tests unitarios")
+class NewsArchiveServiceTest {
+
+    @Mock
+    private NewsArticleRepository newsArticleRepository;
+
+    @InjectMocks
+    private NewsArchiveService newsArchiveService;
+
+    private static NewsArticle crearArticulo(String title, String url, String publishedAt) {
+        return new NewsArticle(title, "Resumen de la noticia", url, "", "CoinDesk", "crypto", publishedAt);
+    }
+
+    private static NewsArticle archivada(long id, long publishedTs) {
+        NewsArticle article = crearArticulo("Noticia " + id, "https://example.com/" + id, "");
+        article.setId(id);
+        article.setPublishedTs(publishedTs);
+        return article;
+    }
+
+    @Test
+    @DisplayName("archive inserta solo las URLs nuevas y una vez por URL normalizada")
+    void archiveDeduplica() {
+        NewsArticle existente = crearArticulo("Ya archivada", "https://example.com/a", "");
+        NewsArticle nueva = crearArticulo("Bitcoin supera los 100.000 dólares en el ETF",
+                "https://example.com/b", "Sat, 17 Oct 2026 10:00:00 GMT");
+        // Misma URL que la anterior con fragmento, host en mayúsculas y barra final
+        NewsArticle repetida = crearArticulo("Otra fuente", "https://EXAMPLE.com/b/#comentarios", "");
+        nueva.setSymbols(Set.of("BTC"));
+        when(newsArticleRepository.findExistingHashes(anyCollection()))
+                .thenReturn(Set.of(NewsArchiveService.urlHash("https://example.com/a")));
+
+        int inserted = newsArchiveService.archive(List.of(existente, nueva, repetida));
+
+        assertEquals(1, inserted);
+        ArgumentCaptor<NewsArticle> saved = ArgumentCaptor.forClass(NewsArticle.class);
+        verify(newsArticleRepository).save(saved.capture());
+        NewsArticle archivada = saved.getValue();
+        assertEquals("https://example.com/b", archivada.getUrl());
+        assertEquals(NewsArchiveService.urlHash("https://example.com/b"), archivada.getUrlHash());
+        assertEquals(1_792_231_200_000L, archivada.getPublishedTs());
+        assertTrue(archivada.getTerms().containsAll(Set.of("bitcoin", "etf", "dolares", "resumen")));
+        assertFalse(archivada.getTerms().contains("de"));
+        // Los símbolos etiquetados se archivan y también se buscan como términos
+        assertEquals(Set.of("BTC"), archivada.getSymbols());
+        assertTrue(archivada.getTerms().contains("btc"));
+        // La instancia de la instantánea en memoria no se modifica
+        assertNull(nueva.getUrlHash());
+    }
+
+    @Test
+    @DisplayName("archive descarta URLs demasiado largas y la imagen que no cabe en su columna")
+    void archiveUrlsLargas() {
+        String larga = "https://cdn.example.com/img.jpg?" + "x".repeat(NewsArchiveService.MAX_URL_LENGTH);
+        NewsArticle conImagenLarga = crearArticulo("Imagen de CDN", "https://example.com/c", "");
+        conImagenLarga.setImageUrl(larga);
+        NewsArticle conUrlLarga = crearArticulo("Enlace enorme", "https://example.com/" + larga, "");
+        when(newsArticleRepository.findExistingHashes(anyCollection())).thenReturn(Set.of());
+
+        assertEquals(1, newsArchiveService.archive(List.of(conImagenLarga, conUrlLarga)));
+
+        ArgumentCaptor<NewsArticle> saved = ArgumentCaptor.forClass(NewsArticle.class);
+        verify(newsArticleRepository).save(saved.capture());
+        assertEquals("https://example.com/c", saved.getValue().getUrl());
+        assertNull(saved.getValue().getImageUrl());
+    }
+
+    @Test
+    @DisplayName("archive sigue con el resto si la base de datos rechaza una noticia")
+    void archiveErrorEnUnaNoticia() {
+        NewsArticle rechazada = crearArticulo("Rechazada", "https://example.com/a", "");
+        NewsArticle valida = crearArticulo("Válida", "https://example.com/b", "");
+        when(newsArticleRepository.findExistingHashes(anyCollection())).thenReturn(Set.of());
+        when(newsArticleRepository.save(any(NewsArticle.class)))
+                .thenThrow(new DataIntegrityViolationException("uk_news_url_hash"))
+                .thenAnswer(invocation -> invocation.getArgument(0));
+
+        assertEquals(1, newsArchiveService.archive(List.of(rechazada, valida)));
+        verify(newsArticleRepository, times(2)).save(any(NewsArticle.class));
+    }
+
+    @Test
+    @DisplayName("archive no consulta la base de datos si ninguna noticia tiene URL")
+    void archiveSinUrls() {
+        assertEquals(0, newsArchiveService.archive(List.of(crearArticulo("Sin enlace", "", ""))));
+        verifyNoInteractions(newsArticleRepository);
+    }
+
+    @Test
+    @DisplayName("search devuelve el cursor de la siguiente página si hay más resultados")
+    void searchConSiguientePagina() {
+        List<NewsArticle> rows = new ArrayList<>(List.of(archivada(30, 3000), archivada(20, 2000), archivada(10, 2000)));
+        when(newsArticleRepository.findPage(eq("crypto"), eq(Long.MAX_VALUE), eq(Long.MAX_VALUE), eq(Limit.of(3))))
+                .thenReturn(rows);
+
+        NewsArchiveService.NewsPage page = newsArchiveService.search("Crypto", null, null, 2);
+
+        assertEquals(2, page.articles().size());
+        assertEquals("2000_20", page.nextCursor());
+    }
+
+    @Test
+    @DisplayName("search con texto busca por términos normalizados a partir del cursor")
+    void searchPorTerminos() {
+        when(newsArticleRepository.searchPage(isNull(), eq(List.of("btc", "etf")), eq(2L), eq(2000L), eq(20L),
+                eq(Limit.of(NewsArchiveService.DEFAULT_PAGE_SIZE + 1))))
+                .thenReturn(List.of(archivada(10, 2000)));
+
+        NewsArchiveService.NewsPage page = newsArchiveService.search(null, "BTC, el ETF", "2000_20", null);
+
+        assertEquals(1, page.articles().size());
+        assertNull(page.nextCursor());
+    }
+
+    @Test
+    @DisplayName("search sin términos buscables devuelve una página vacía, no el listado sin filtrar")
+    void searchSoloStopwords() {
+        NewsArchiveService.NewsPage page = newsArchiveService.search(null, "de la y a", null, 10);
+
+        assertTrue(page.articles().isEmpty());
+        assertNull(page.nextCursor());
+        verifyNoInteractions(newsArticleRepository);
+    }
+
+    @Test
+    @DisplayName("search rechaza un cursor mal formado")
+    void searchCursorInvalido() {
+        assertThrows(IllegalArgumentException.class, () -> newsArchiveService.search(null, null, "abc", 10));
+        verifyNoInteractions(newsArticleRepository);
+    }
+
+    @Test
+    @DisplayName("tokenize quita tildes, mayúsculas, stopwords y tokens de un carácter")
+    void tokenize() {
+        assertEquals(Set.of("bce", "sube", "tipos", "interes", "eurozona"),
+                NewsArchiveService.tokenize("El BCE sube los tipos de interés en la eurozona a 4"));
+        assertTrue(NewsArchiveService.tokenize(null).isEmpty());
+    }
+
+    @Test
+    @DisplayName("parsePublished entiende RFC 1123 e ISO-8601 y si no usa la fecha de descarga")
+    void parsePublished() {
+        assertEquals(1_792_231_200_000L, NewsArchiveService.parsePublished("Sat, 17 Oct 2026 10:00:00 GMT", 0));
+        assertEquals(1_792_231_200_000L, NewsArchiveService.parsePublished("2026-10-17T12:00:00+02:00", 0));
+        assertEquals(42L, NewsArchiveService.parsePublished("hace 5 minutos", 42L));
+        assertEquals(42L, NewsArchiveService.parsePublished("", 42L));
+    }
+}
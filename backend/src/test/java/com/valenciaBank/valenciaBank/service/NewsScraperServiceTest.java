@@ -0,0 +1,212 @@
+package com.valenciaBank.valenciaBank.service;
+
+import com.valenciaBank.valenciaBank.model.NewsArticle;
+import com.valenciaBank.valenciaBank.utils.ValidatorStore;
+import org.jsoup.Jsoup;
+import org.jsoup.nodes.Document;
+import org.jsoup.parser.Parser;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.DisplayName;
+import org.mockito.ArgumentCaptor;
+
+import java.io.IOException;
+import java.net.SocketTimeoutException;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@DisplayName("NewsScraperService - Tests unitarios")
+class NewsScraperServiceTest {
+
+    // Respuesta de cada fuente: documento o null si falla
+    private final Map<String, Document> responses = new ConcurrentHashMap<>();
+    // ETag actual de cada fuente: si la petición lo trae en If-None-Match se responde 304
+    private final Map<String, String> etags = new ConcurrentHashMap<>();
+    private final AtomicInteger fetches = new AtomicInteger();
+    private final AtomicInteger notModified = new AtomicInteger();
+
+    private final NewsArchiveService newsArchiveService = mock(NewsArchiveService.class);
+
+    private NewsScraperService newsScraperService;
+
+    @BeforeEach
+    void setUp() {
+        // Executor síncrono y red simulada
+        newsScraperService = new NewsScraperService(Runnable::run, newsArchiveService, new NewsSymbolTagger()) {
+            @Override
+            FetchResult fetch(Feed feed, Map<String, String> headers) throws IOException {
+                fetches.incrementAndGet();
+                String etag = etags.get(feed.source());
+                if (etag != null && etag.equals(headers.get(ValidatorStore.IF_NONE_MATCH))) {
+                    notModified.incrementAndGet();
+                    return FetchResult.notModifiedResult();
+                }
+                Document doc = responses.get(feed.source());
+                if (doc == null) {
+                    throw new SocketTimeoutException("Read timed out");
+                }
+                return new FetchResult(200, doc, etag, null);
+            }
+        };
+    }
+
+    private static Document rss(String... titles) {
+        StringBuilder xml = new StringBuilder("<rss><channel>");
+        for (String title : titles) {
+            xml.append("<item><title>").append(title).append("</title>")
+                    .append("<description>&lt;p&gt;Resumen&lt;/p&gt;</description>")
+                    .append("<link>https://example.com/").append(Math.abs(title.hashCode())).append("</link>")
+                    .append("<pubDate>Sat, 17 Oct 2026 10:00:00 GMT</pubDate></item>");
+        }
+        return Jsoup.parse(xml.append("</channel></rss>").toString(), "", Parser.xmlParser());
+    }
+
+    @Test
+    @DisplayName("Antes del primer refresco las lecturas devuelven vacío sin hacer scraping")
+    void sinRefrescoNoHaceScraping() {
+        assertEquals(List.of(), newsScraperService.getCryptoNews());
+        assertEquals(List.of(), newsScraperService.getAllNews());
+        assertNull(newsScraperService.getRefreshedAt());
+        assertEquals(0, fetches.get());
+    }
+
+    @Test
+    @DisplayName("refresh usa la fuente alternativa si la principal falla y publica ambas categorías")
+    void refreshConFallback() {
+        responses.put("CoinDesk", rss("Bitcoin supera los 100.000 dólares"));
+        responses.put("Investing.com", rss("El BCE mantiene los tipos", "La inflación baja en la eurozona"));
+        responses.put("CNBC", rss("Ignorada porque Investing.com responde"));
+
+        newsScraperService.refresh();
+
+        List<NewsArticle> crypto = newsScraperService.getCryptoNews();
+        assertEquals(1, crypto.size());
+        assertEquals("CoinDesk", crypto.get(0).getSource());
+        assertEquals("Resumen", crypto.get(0).getDescription());
+        assertEquals("crypto", crypto.get(0).getCategory());
+        assertEquals(2, newsScraperService.getEconomyNews().size());
+        assertEquals("Investing.com", newsScraperService.getEconomyNews().get(0).getSource());
+        assertEquals(3, newsScraperService.getAllNews().size());
+        assertNotNull(newsScraperService.getRefreshedAt());
+        // Todas las fuentes se piden en el mismo refresco
+        assertEquals(NewsScraperService.FEEDS.size(), fetches.get());
+    }
+
+    @Test
+    @DisplayName("Si todas las fuentes de una categoría fallan se mantienen las noticias anteriores")
+    void refreshSinFuentesMantieneAnteriores() {
+        responses.put("CoinDesk", rss("Ethereum completa la actualización"));
+        responses.put("Investing.com", rss("El PIB crece un 0,4%"));
+        newsScraperService.refresh();
+
+        responses.clear();
+        responses.put("CNBC", rss("Wall Street cierra en máximos"));
+        newsScraperService.refresh();
+
+        assertEquals("Ethereum completa la actualización", newsScraperService.getCryptoNews().get(0).getTitle());
+        assertEquals("CNBC", newsScraperService.getEconomyNews().get(0).getSource());
+    }
+
+    @Test
+    @DisplayName("Cada fuente aporta como máximo MAX_ARTICLES noticias")
+    void refreshLimitaArticulos() {
+        String[] titles = new String[12];
+        for (int i = 0; i < titles.length; i++) {
+            titles[i] = "Noticia número " + i;
+        }
+        responses.put("CoinDesk", rss(titles));
+
+        newsScraperService.refresh();
+
+        assertEquals(NewsScraperService.MAX_ARTICLES, newsScraperService.getCryptoNews().size());
+        assertThrows(UnsupportedOperationException.class, () -> newsScraperService.getCryptoNews().clear());
+    }
+
+    @Test
+    @DisplayName("Una fuente sin cambios responde 304 y se reutilizan sus artículos sin volver a parsear")
+    void refreshNoModificadoReutilizaArticulos() {
+        responses.put("CoinDesk", rss("Bitcoin supera los 100.000 dólares"));
+        responses.put("Investing.com", rss("El BCE mantiene los tipos"));
+        etags.put("CoinDesk", "\"v1\"");
+        newsScraperService.refresh();
+        List<NewsArticle> first = newsScraperService.getCryptoNews();
+
+        // El cuerpo ha cambiado pero el ETag no: el 304 sirve la lista anterior sin leerlo
+        responses.put("CoinDesk", rss("Ethereum sube un 5% en la sesión"));
+        newsScraperService.refresh();
+
+        assertEquals(1, notModified.get());
+        assertSame(first, newsScraperService.getCryptoNews());
+        assertEquals("Bitcoin supera los 100.000 dólares", newsScraperService.getCryptoNews().get(0).getTitle());
+
+        // ETag nuevo: respuesta completa y artículos nuevos
+        etags.put("CoinDesk", "\"v2\"");
+        newsScraperService.refresh();
+        assertEquals("Ethereum sube un 5% en la sesión", newsScraperService.getCryptoNews().get(0).getTitle());
+    }
+
+    @Test
+    @DisplayName("refresh archiva todo lo descargado, también las fuentes alternativas")
+    @SuppressWarnings("unchecked")
+    void refreshArchivaNoticias() {
+        responses.put("CoinDesk", rss("Bitcoin supera los 100.000 dólares"));
+        responses.put("Investing.com", rss("El BCE mantiene los tipos"));
+        responses.put("CNBC", rss("Wall Street cierra en máximos"));
+
+        newsScraperService.refresh();
+
+        ArgumentCaptor<List<NewsArticle>> archived = ArgumentCaptor.forClass(List.class);
+        verify(newsArchiveService).archive(archived.capture());
+        assertEquals(3, archived.getValue().size());
+    }
+
+    @Test
+    @DisplayName("Un fallo al archivar no impide publicar el refresco")
+    void refreshConFalloDeArchivo() {
+        responses.put("CoinDesk", rss("Bitcoin supera los 100.000 dólares"));
+        when(newsArchiveService.archive(anyList())).thenThrow(new IllegalStateException("Duplicate entry"));
+
+        newsScraperService.refresh();
+
+        assertEquals(1, newsScraperService.getCryptoNews().size());
+    }
+
+    @Test
+    @DisplayName("Al arrancar se publican las últimas noticias archivadas sin hacer scraping")
+    void warmFromArchive() {
+        NewsArticle archivada = new NewsArticle("ETF de Ethereum aprobado", "", "https://example.com/eth", "",
+                "CoinDesk", "crypto", "");
+        when(newsArchiveService.latest("crypto", NewsScraperService.MAX_ARTICLES)).thenReturn(List.of(archivada));
+        when(newsArchiveService.latest("economy", NewsScraperService.MAX_ARTICLES)).thenReturn(List.of());
+
+        newsScraperService.warmFromArchive();
+
+        assertEquals(List.of(archivada), newsScraperService.getCryptoNews());
+        assertEquals(List.of(), newsScraperService.getEconomyNews());
+        assertNull(newsScraperService.getRefreshedAt());
+        assertEquals(0, fetches.get());
+    }
+
+    @Test
+    @DisplayName("refresh etiqueta las noticias y getNewsForSymbols sirve el índice por símbolo sin repetir")
+    void refreshIndexaPorSimbolo() {
+        responses.put("CoinDesk", rss("Bitcoin supera los 100.000 dólares", "Solana y Bitcoin lideran el mercado",
+                "Ethereum completa la actualización"));
+        responses.put("CNBC", rss("Apple (AAPL) presenta resultados"));
+
+        newsScraperService.refresh();
+
+        assertEquals(List.of("BTC"), List.copyOf(newsScraperService.getCryptoNews().get(0).getSymbols()));
+        List<NewsArticle> forUser = newsScraperService.getNewsForSymbols(List.of("btc", "SOL", "AAPL"), 10);
+        assertEquals(3, forUser.size());
+        assertTrue(forUser.stream().noneMatch(article -> article.getTitle().startsWith("Ethereum")));
+        assertEquals(1, newsScraperService.getNewsForSymbols(List.of("BTC", "SOL", "AAPL"), 1).size());
+        assertEquals(List.of(), newsScraperService.getNewsForSymbols(List.of("XRP"), 10));
+    }
+}
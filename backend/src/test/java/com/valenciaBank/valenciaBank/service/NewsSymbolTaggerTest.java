@@ -0,0 +1,52 @@
+package com.valenciaBank.valenciaBank.service;
+
+import com.valenciaBank.valenciaBank.model.NewsArticle;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.DisplayName;
+
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DisplayName("NewsSymbolTagger - Tests unitarios")
+class NewsSymbolTaggerTest {
+
+    private final NewsSymbolTagger tagger = new NewsSymbolTagger();
+
+    @Test
+    @DisplayName("Etiqueta por nombre de la cripto y por ticker de los tres proveedores")
+    void nombresYTickers() {
+        assertEquals(List.of("BTC", "ETH"),
+                List.copyOf(tagger.tag("Bitcoin supera los 100.000 dólares mientras ETH se estanca", null)));
+        assertEquals(List.of("AAPL", "NVDA", "SPY"),
+                List.copyOf(tagger.tag("Apple (AAPL) y NVDA tiran del Nasdaq", "El SPY marca máximos")));
+        assertEquals(Set.of("SHIB", "BTC", "SOL"), tagger.tag("Shiba Inu, $BTC y $SOL", null));
+    }
+
+    @Test
+    @DisplayName("Los tickers exigen mayúsculas y palabra completa")
+    void tickersEstrictos() {
+        assertEquals(Set.of(), tagger.tag("El sol y el ETHER no son activos", null));
+        assertEquals(Set.of(), tagger.tag("Near the end of the day, the flow of ripple effects", null));
+        assertEquals(Set.of("NEAR"), tagger.tag("NEAR Protocol lanza su nueva red", null));
+    }
+
+    @Test
+    @DisplayName("Una coincidencia dentro de otra más larga no cuenta y los índices de Yahoo conservan ^")
+    void coincidenciaMasLarga() {
+        assertEquals(Set.of("ETC"), tagger.tag("Ethereum Classic sube un 5%", null));
+        assertEquals(Set.of("^IBEX"), tagger.tag("El IBEX 35 cierra en verde", null));
+    }
+
+    @Test
+    @DisplayName("tag(NewsArticle) asigna los símbolos del título y la descripción")
+    void etiquetaNoticia() {
+        NewsArticle article = new NewsArticle("Solana ETF aprobado", "Cardano y Polkadot también suben",
+                "https://example.com/1", "", "CoinDesk", "crypto", "");
+
+        tagger.tag(article);
+
+        assertEquals(List.of("SOL", "ADA", "DOT"), List.copyOf(article.getSymbols()));
+    }
+}
@@ -1,6 +1,8 @@
 package com.valenciaBank.valenciaBank.service;
 
 import com.valenciaBank.valenciaBank.model.CryptoPurchase;
+import com.valenciaBank.valenciaBank.model.Position;
+import com.valenciaBank.valenciaBank.model.PriceQuote;
 import com.valenciaBank.valenciaBank.model.User;
 import com.valenciaBank.valenciaBank.repository.CryptoPriceRepository;
 import com.valenciaBank.valenciaBank.repository.CryptoPurchaseRepository;
@@ -11,13 +13,18 @@ import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
 
+import java.time.LocalDateTime;
+import java.time.ZoneId;
 import java.util.Arrays;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.concurrent.Executor;
 
 import static org.junit.jupiter.api.Assertions.*;
-import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.*;
 import static org.mockito.Mockito.*;
 
 @ExtendWith(MockitoExtension.class)
@@ -36,6 +43,12 @@ class PortfolioServiceTest {
     @Mock
     private CryptoPriceRepository cryptoPriceRepository;
 
+    @Mock
+    private PriceBookService priceBookService;
+
+    @Mock
+    private PositionService positionService;
+
     @InjectMocks
     private PortfolioService portfolioService;
 
@@ -65,6 +78,7 @@ class PortfolioServiceTest {
         assertEquals(0.5, purchase.getQuantity());
         assertEquals(95000.0, purchase.getPurchasePrice());
         verify(cryptoPurchaseRepository).save(any(CryptoPurchase.class));
+        verify(positionService).recordPurchase(purchase);
     }
 
     @Test
@@ -107,59 +121,85 @@ class PortfolioServiceTest {
         assertEquals("BTC", holdings.get(0).getSymbol());
     }
 
+    // Posición agregada de dos lotes: 0.3 a 90000 (27000) y 0.2 a 95000 (19000)
+    private Position crearPosicionBtc() {
+        Position position = new Position(1L, Position.AssetType.CRYPTO, "BTC");
+        position.setQuantity(0.5);
+        position.setCostBasis(46000.0);
+        position.setFirstPurchaseDate(LocalDateTime.of(2025, 1, 1, 0, 0));
+        return position;
+    }
+
     @Test
-    @DisplayName("getTotalQuantity suma cantidades correctamente")
+    @DisplayName("getTotalQuantity lee la cantidad de la posición agregada")
     void getTotalQuantity() {
-        User user = crearUsuarioTest();
-        CryptoPurchase p1 = new CryptoPurchase(user, "BTC", 0.3, 90000.0, "EUR");
-        CryptoPurchase p2 = new CryptoPurchase(user, "BTC", 0.2, 95000.0, "EUR");
-
-        when(cryptoPurchaseRepository.findByUserIdAndSymbol(1L, "BTC")).thenReturn(Arrays.asList(p1, p2));
+        when(positionService.getPosition(1L, Position.AssetType.CRYPTO, "BTC"))
+                .thenReturn(Optional.of(crearPosicionBtc()));
 
         Double total = portfolioService.getTotalQuantity(1L, "BTC");
 
         assertEquals(0.5, total, 0.001);
+        verifyNoInteractions(cryptoPurchaseRepository);
     }
 
     @Test
     @DisplayName("getAverageCost calcula coste medio ponderado")
     void getAverageCost() {
-        User user = crearUsuarioTest();
-        CryptoPurchase p1 = new CryptoPurchase(user, "BTC", 0.3, 90000.0, "EUR"); // 27000
-        CryptoPurchase p2 = new CryptoPurchase(user, "BTC", 0.2, 95000.0, "EUR"); // 19000
-
-        when(cryptoPurchaseRepository.findByUserIdAndSymbol(1L, "BTC")).thenReturn(Arrays.asList(p1, p2));
+        when(positionService.getPosition(1L, Position.AssetType.CRYPTO, "BTC"))
+                .thenReturn(Optional.of(crearPosicionBtc()));
 
         Double avgCost = portfolioService.getAverageCost(1L, "BTC");
 
         // Total cost: 27000 + 19000 = 46000, Total qty: 0.5, Avg: 92000
         assertEquals(92000.0, avgCost, 0.01);
+        verifyNoInteractions(cryptoPurchaseRepository);
     }
 
     @Test
     @DisplayName("getAverageCost retorna 0 si no hay compras")
     void getAverageCostSinCompras() {
-        when(cryptoPurchaseRepository.findByUserIdAndSymbol(1L, "BTC")).thenReturn(List.of());
+        when(positionService.getPosition(1L, Position.AssetType.CRYPTO, "BTC")).thenReturn(Optional.empty());
 
         Double avgCost = portfolioService.getAverageCost(1L, "BTC");
 
         assertEquals(0.0, avgCost);
     }
 
+    @Test
+    @DisplayName("getDetailedPortfolio valora las posiciones agregadas sin leer los lotes")
+    @SuppressWarnings("unchecked")
+    void getDetailedPortfolio() {
+        when(userRepository.findById(1L)).thenReturn(Optional.of(crearUsuarioTest()));
+        when(positionService.getPositions(1L, Position.AssetType.CRYPTO)).thenReturn(List.of(crearPosicionBtc()));
+        when(priceBookService.ensureQuotes(anyCollection(), eq("EUR")))
+                .thenReturn(Map.of("BTC", new PriceQuote("BTC", "EUR", 100000.0, null, 0L)));
+
+        Map<String, Object> result = portfolioService.getDetailedPortfolio(1L);
+
+        List<Map<String, Object>> positions = (List<Map<String, Object>>) result.get("positions");
+        assertEquals(1, positions.size());
+        assertEquals(92000.0, (Double) positions.get(0).get("averagePrice"), 0.01);
+        assertEquals(50000.0, (Double) positions.get(0).get("currentValue"), 0.01);
+        assertEquals("2025-01-01T00:00", positions.get(0).get("firstPurchaseDate"));
+        verify(cryptoPurchaseRepository, never()).findByUser(any());
+    }
+
     @Test
     @DisplayName("removeCryptoPurchase elimina compra existente")
     void removeCryptoPurchase() {
-        when(cryptoPurchaseRepository.existsById(1L)).thenReturn(true);
+        CryptoPurchase purchase = new CryptoPurchase(crearUsuarioTest(), "BTC", 0.5, 95000.0, "EUR");
+        when(cryptoPurchaseRepository.findById(1L)).thenReturn(Optional.of(purchase));
 
         portfolioService.removeCryptoPurchase(1L);
 
         verify(cryptoPurchaseRepository).deleteById(1L);
+        verify(positionService).recordLotChange(purchase, -0.5, true);
     }
 
     @Test
     @DisplayName("removeCryptoPurchase lanza excepción si no existe")
     void removeCryptoPurchaseNoExiste() {
-        when(cryptoPurchaseRepository.existsById(999L)).thenReturn(false);
+        when(cryptoPurchaseRepository.findById(999L)).thenReturn(Optional.empty());
 
         RuntimeException ex = assertThrows(RuntimeException.class,
                 () -> portfolioService.removeCryptoPurchase(999L));
@@ -179,6 +219,7 @@ class PortfolioServiceTest {
         CryptoPurchase updated = portfolioService.updateQuantity(1L, 0.3);
 
         assertEquals(0.3, updated.getQuantity());
+        verify(positionService).recordLotChange(eq(purchase), doubleThat(d -> Math.abs(d + 0.2) < 1e-9), eq(false));
     }
 
     @Test
@@ -193,5 +234,131 @@ class PortfolioServiceTest {
 
         assertNull(result);
         verify(cryptoPurchaseRepository).deleteById(1L);
+        verify(positionService).recordLotChange(purchase, -0.5, true);
+    }
+
+    @Test
+    @DisplayName("getPortfolioHistory valora las compras con la serie de precios de CoinGecko")
+    void getPortfolioHistory() {
+        User user = crearUsuarioTest();
+        // Compra posterior al primer punto: solo cuenta a partir del segundo
+        LocalDateTime t0 = LocalDateTime.of(2025, 1, 1, 0, 0);
+        long ts0 = t0.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+        long ts1 = ts0 + 86_400_000L;
+        CryptoPurchase compra = new CryptoPurchase(user, "BTC", 2.0, 100.0, "EUR");
+        compra.setPurchaseDate(t0.plusHours(12));
+
+        when(userRepository.findById(1L)).thenReturn(Optional.of(user));
+        when(cryptoPurchaseRepository.findByUser(user)).thenReturn(List.of(compra));
+        when(coinGeckoService.fetchCryptoHistory("BTC", 30, "EUR")).thenReturn(new CoinGeckoService.HistoryResult(
+                "{\"prices\":[[" + ts0 + ",90.0],[" + ts1 + ",110.0]]}", false));
+        ReflectionTestUtils.setField(portfolioService, "providerExecutor", (Executor) Runnable::run);
+
+        Map<String, Object> result = portfolioService.getPortfolioHistory(1L, 30);
+
+        assertEquals(true, result.get("success"));
+        assertEquals(List.of(String.valueOf(ts0), String.valueOf(ts1)), result.get("dates"));
+        assertEquals(List.of(0.0, 220.0), result.get("values"));
+        assertEquals(List.of(0.0, 200.0), result.get("invested"));
+        assertEquals(List.of(), result.get("stale"));
+        assertEquals(List.of(), result.get("missing"));
+    }
+
+    @Test
+    @DisplayName("getPortfolioHistory sirve la caché vigente sin llamar a CoinGecko")
+    void getPortfolioHistoryDesdeCache() {
+        User user = crearUsuarioTest();
+        CryptoPurchase compra = new CryptoPurchase(user, "BTC", 1.0, 100.0, "EUR");
+        compra.setPurchaseDate(LocalDateTime.of(2025, 1, 1, 0, 0));
+        long ts = LocalDateTime.of(2025, 1, 2, 0, 0).atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+
+        when(userRepository.findById(1L)).thenReturn(Optional.of(user));
+        when(cryptoPurchaseRepository.findByUser(user)).thenReturn(List.of(compra));
+        when(coinGeckoService.getCachedHistory("BTC", 30, "EUR")).thenReturn("{\"prices\":[[" + ts + ",150.0]]}");
+
+        Map<String, Object> result = portfolioService.getPortfolioHistory(1L, 30);
+
+        assertEquals(true, result.get("success"));
+        assertEquals(List.of(150.0), result.get("values"));
+        verify(coinGeckoService, never()).fetchCryptoHistory(anyString(), anyInt(), anyString());
+    }
+
+    @Test
+    @DisplayName("getPortfolioHistory devuelve datos parciales si se agota el deadline")
+    void getPortfolioHistoryDeadline() {
+        User user = crearUsuarioTest();
+        CryptoPurchase btc = new CryptoPurchase(user, "BTC", 1.0, 100.0, "EUR");
+        btc.setPurchaseDate(LocalDateTime.of(2025, 1, 1, 0, 0));
+        CryptoPurchase eth = new CryptoPurchase(user, "ETH", 1.0, 10.0, "EUR");
+        eth.setPurchaseDate(LocalDateTime.of(2025, 1, 1, 0, 0));
+        long ts = LocalDateTime.of(2025, 1, 2, 0, 0).atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+
+        when(userRepository.findById(1L)).thenReturn(Optional.of(user));
+        when(cryptoPurchaseRepository.findByUser(user)).thenReturn(List.of(btc, eth));
+        when(coinGeckoService.getStaleHistory("BTC", 30, "EUR")).thenReturn("{\"prices\":[[" + ts + ",120.0]]}");
+        when(coinGeckoService.getStaleHistory("ETH", 30, "EUR")).thenReturn(null);
+        // Executor que nunca ejecuta: ninguna petición a CoinGecko termina a tiempo
+        ReflectionTestUtils.setField(portfolioService, "providerExecutor", (Executor) task -> { });
+        ReflectionTestUtils.setField(portfolioService, "historyDeadlineMs", 20L);
+
+        Map<String, Object> result = portfolioService.getPortfolioHistory(1L, 30);
+
+        assertEquals(true, result.get("success"));
+        assertEquals(List.of("BTC"), result.get("stale"));
+        assertEquals(List.of("ETH"), result.get("missing"));
+        assertEquals(List.of(120.0), result.get("values"));
+        // ETH sin precios se valora a 0 pero sigue contando lo invertido
+        assertEquals(List.of(110.0), result.get("invested"));
+    }
+
+    @Test
+    @DisplayName("getPortfolioHistory marca como stale la caché expirada que sirve CoinGecko en modo fallback")
+    void getPortfolioHistoryFallbackStale() {
+        User user = crearUsuarioTest();
+        CryptoPurchase compra = new CryptoPurchase(user, "BTC", 1.0, 100.0, "EUR");
+        compra.setPurchaseDate(LocalDateTime.of(2025, 1, 1, 0, 0));
+        long ts = LocalDateTime.of(2025, 1, 2, 0, 0).atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+
+        when(userRepository.findById(1L)).thenReturn(Optional.of(user));
+        when(cryptoPurchaseRepository.findByUser(user)).thenReturn(List.of(compra));
+        when(coinGeckoService.fetchCryptoHistory("BTC", 30, "EUR"))
+                .thenReturn(new CoinGeckoService.HistoryResult("{\"prices\":[[" + ts + ",130.0]]}", true));
+        ReflectionTestUtils.setField(portfolioService, "providerExecutor", (Executor) Runnable::run);
+
+        Map<String, Object> result = portfolioService.getPortfolioHistory(1L, 30);
+
+        assertEquals(List.of(130.0), result.get("values"));
+        assertEquals(List.of("BTC"), result.get("stale"));
+        assertEquals(List.of(), result.get("missing"));
+        verify(coinGeckoService, never()).getStaleHistory(anyString(), anyInt(), anyString());
+    }
+
+    @Test
+    @DisplayName("getPortfolioHistoryColumnar devuelve timestamps en delta y columnas primitivas")
+    @SuppressWarnings("unchecked")
+    void getPortfolioHistoryColumnar() {
+        User user = crearUsuarioTest();
+        LocalDateTime t0 = LocalDateTime.of(2025, 1, 1, 0, 0);
+        long ts0 = t0.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+        long ts1 = ts0 + 86_400_000L;
+        CryptoPurchase compra = new CryptoPurchase(user, "BTC", 2.0, 100.0, "EUR");
+        compra.setPurchaseDate(t0.plusHours(12));
+
+        when(userRepository.findById(1L)).thenReturn(Optional.of(user));
+        when(cryptoPurchaseRepository.findByUser(user)).thenReturn(List.of(compra));
+        when(coinGeckoService.fetchCryptoHistory("BTC", 30, "EUR")).thenReturn(new CoinGeckoService.HistoryResult(
+                "{\"prices\":[[" + ts0 + ",90.0],[" + ts1 + ",110.0]]}", false));
+        ReflectionTestUtils.setField(portfolioService, "providerExecutor", (Executor) Runnable::run);
+
+        Map<String, Object> result = portfolioService.getPortfolioHistoryColumnar(1L, 30);
+
+        assertEquals(true, result.get("success"));
+        assertEquals("columnar-v1", result.get("format"));
+        assertEquals(ts0, result.get("t0"));
+        assertArrayEquals(new long[]{86_400_000L}, (long[]) result.get("dt"));
+        Map<String, double[]> columns = (Map<String, double[]>) result.get("columns");
+        assertArrayEquals(new double[]{0.0, 220.0}, columns.get("values"));
+        assertArrayEquals(new double[]{0.0, 200.0}, columns.get("invested"));
+        assertFalse(result.containsKey("dates"));
     }
 }
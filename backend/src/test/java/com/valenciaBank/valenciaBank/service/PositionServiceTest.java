@@ -0,0 +1,223 @@
+package com.valenciaBank.valenciaBank.service;
+
+import com.valenciaBank.valenciaBank.model.CryptoPurchase;
+import com.valenciaBank.valenciaBank.model.FundPurchase;
+import com.valenciaBank.valenciaBank.model.Position;
+import com.valenciaBank.valenciaBank.model.Position.AssetType;
+import com.valenciaBank.valenciaBank.model.User;
+import com.valenciaBank.valenciaBank.repository.CryptoPurchaseRepository;
+import com.valenciaBank.valenciaBank.repository.FundPurchaseRepository;
+import com.valenciaBank.valenciaBank.repository.LotTotals;
+import com.valenciaBank.valenciaBank.repository.PositionRepository;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+@DisplayName("PositionService - Tests unitarios")
+class PositionServiceTest {
+
+    private static final LocalDateTime D1 = LocalDateTime.of(2026, 1, 1, 10, 0);
+    private static final LocalDateTime D2 = LocalDateTime.of(2026, 1, 2, 10, 0);
+
+    @Mock
+    private PositionRepository positionRepository;
+
+    @Mock
+    private CryptoPurchaseRepository cryptoPurchaseRepository;
+
+    @Mock
+    private FundPurchaseRepository fundPurchaseRepository;
+
+    @InjectMocks
+    private PositionService positionService;
+
+    private static User usuario() {
+        User user = new User();
+        user.setId(1L);
+        return user;
+    }
+
+    private static CryptoPurchase lote(double quantity, double price, LocalDateTime date) {
+        CryptoPurchase lot = new CryptoPurchase(usuario(), "BTC", quantity, price, "EUR");
+        lot.setPurchaseDate(date);
+        return lot;
+    }
+
+    private static Position posicion(double quantity, double costBasis, LocalDateTime firstPurchaseDate) {
+        Position position = new Position(1L, AssetType.CRYPTO, "BTC");
+        position.setId(7L);
+        position.setQuantity(quantity);
+        position.setCostBasis(costBasis);
+        position.setFirstPurchaseDate(firstPurchaseDate);
+        position.setCurrency("EUR");
+        return position;
+    }
+
+    private static LotTotals totales(double quantity, double costBasis, LocalDateTime first) {
+        return new LotTotals() {
+            public Long getUserId() { return 1L; }
+            public String getSymbol() { return "BTC"; }
+            public Double getQuantity() { return quantity; }
+            public Double getCostBasis() { return costBasis; }
+            public LocalDateTime getFirstPurchaseDate() { return first; }
+            public String getCurrency() { return "EUR"; }
+        };
+    }
+
+    @Test
+    @DisplayName("Una compra suma cantidad y coste a la posición existente")
+    void compraSobrePosicion() {
+        Position position = posicion(0.3, 27000.0, D1);
+        when(positionRepository.findForUpdate(1L, AssetType.CRYPTO, "BTC")).thenReturn(Optional.of(position));
+
+        positionService.recordPurchase(lote(0.2, 95000.0, D2));
+
+        assertEquals(0.5, position.getQuantity(), 1e-12);
+        assertEquals(46000.0, position.getCostBasis(), 1e-6);
+        assertEquals(D1, position.getFirstPurchaseDate());
+        verify(positionRepository).save(position);
+        verifyNoInteractions(cryptoPurchaseRepository);
+    }
+
+    @Test
+    @DisplayName("Sin posición previa se crea desde los lotes del símbolo")
+    void compraSinPosicion() {
+        when(positionRepository.findForUpdate(1L, AssetType.CRYPTO, "BTC")).thenReturn(Optional.empty());
+        when(positionRepository.findByUserIdAndAssetTypeAndSymbol(1L, AssetType.CRYPTO, "BTC")).thenReturn(Optional.empty());
+        when(cryptoPurchaseRepository.sumByUserAndSymbol(1L, "BTC"))
+                .thenReturn(Optional.of(totales(0.5, 46000.0, D1)));
+        when(positionRepository.save(any(Position.class))).thenAnswer(inv -> inv.getArgument(0));
+
+        positionService.recordPurchase(lote(0.2, 95000.0, D2));
+
+        ArgumentCaptor<Position> captor = ArgumentCaptor.forClass(Position.class);
+        verify(positionRepository).save(captor.capture());
+        assertEquals(0.5, captor.getValue().getQuantity());
+        assertEquals(46000.0, captor.getValue().getCostBasis());
+        assertEquals(D1, captor.getValue().getFirstPurchaseDate());
+    }
+
+    @Test
+    @DisplayName("Una venta parcial resta la cantidad al precio del lote")
+    void ventaParcial() {
+        Position position = posicion(0.5, 46000.0, D1);
+        when(positionRepository.findForUpdate(1L, AssetType.CRYPTO, "BTC")).thenReturn(Optional.of(position));
+
+        positionService.recordLotChange(lote(0.1, 95000.0, D2), -0.1, false);
+
+        assertEquals(0.4, position.getQuantity(), 1e-12);
+        assertEquals(36500.0, position.getCostBasis(), 1e-6);
+    }
+
+    @Test
+    @DisplayName("Vender toda la cantidad elimina la posición")
+    void ventaTotal() {
+        Position position = posicion(0.2, 19000.0, D1);
+        when(positionRepository.findForUpdate(1L, AssetType.CRYPTO, "BTC")).thenReturn(Optional.of(position));
+
+        positionService.recordLotChange(lote(0.2, 95000.0, D1), -0.2, true);
+
+        verify(positionRepository).delete(position);
+        verify(positionRepository, never()).save(any());
+    }
+
+    @Test
+    @DisplayName("Cerrar el lote más antiguo recalcula la primera fecha desde los lotes")
+    void cierreLoteMasAntiguo() {
+        Position position = posicion(0.5, 46000.0, D1);
+        when(positionRepository.findForUpdate(1L, AssetType.CRYPTO, "BTC")).thenReturn(Optional.of(position));
+        when(positionRepository.findByUserIdAndAssetTypeAndSymbol(1L, AssetType.CRYPTO, "BTC"))
+                .thenReturn(Optional.of(position));
+        when(cryptoPurchaseRepository.sumByUserAndSymbol(1L, "BTC"))
+                .thenReturn(Optional.of(totales(0.2, 19000.0, D2)));
+        when(positionRepository.save(position)).thenReturn(position);
+
+        positionService.recordLotChange(lote(0.3, 90000.0, D1), -0.3, true);
+
+        assertEquals(0.2, position.getQuantity());
+        assertEquals(D2, position.getFirstPurchaseDate());
+    }
+
+    @Test
+    @DisplayName("getPositions reconstruye las posiciones si solo existen los lotes")
+    void getPositionsRelleno() {
+        Position rebuilt = posicion(0.5, 46000.0, D1);
+        when(positionRepository.findByUserIdAndAssetTypeOrderBySymbolAsc(1L, AssetType.CRYPTO))
+                .thenReturn(List.of(), List.of(rebuilt));
+        when(cryptoPurchaseRepository.existsByUserId(1L)).thenReturn(true);
+        doReturn(List.of(totales(0.5, 46000.0, D1))).when(cryptoPurchaseRepository).sumByUser(1L);
+
+        List<Position> positions = positionService.getPositions(1L, AssetType.CRYPTO);
+
+        assertEquals(List.of(rebuilt), positions);
+        verify(positionRepository).save(any(Position.class));
+    }
+
+    @Test
+    @DisplayName("getPositions no consulta los lotes si ya hay posiciones")
+    void getPositionsDirecto() {
+        Position position = posicion(0.5, 46000.0, D1);
+        when(positionRepository.findByUserIdAndAssetTypeOrderBySymbolAsc(1L, AssetType.CRYPTO))
+                .thenReturn(List.of(position));
+
+        assertEquals(List.of(position), positionService.getPositions(1L, AssetType.CRYPTO));
+        verifyNoInteractions(cryptoPurchaseRepository);
+    }
+
+    @Test
+    @DisplayName("getAllPositions devuelve criptos y fondos y solo reconstruye el tipo que falta")
+    void getAllPositions() {
+        Position btc = posicion(0.5, 46000.0, D1);
+        Position spy = new Position(1L, AssetType.FUND, "SPY");
+        when(positionRepository.findByUserIdOrderByAssetTypeAscSymbolAsc(1L))
+                .thenReturn(List.of(btc), List.of(btc, spy));
+        when(fundPurchaseRepository.existsByUserId(1L)).thenReturn(true);
+        doReturn(List.of()).when(fundPurchaseRepository).sumByUser(1L);
+
+        List<Position> positions = positionService.getAllPositions(1L);
+
+        assertEquals(List.of(btc, spy), positions);
+        verify(cryptoPurchaseRepository, never()).existsByUserId(any());
+    }
+
+    @Test
+    @DisplayName("Las posiciones de fondos guardan nombre y tipo de los lotes")
+    void compraFondoSinPosicion() {
+        FundPurchase lot = new FundPurchase(usuario(), "SPY", "SPDR S&P 500", "ETF", 2.0, 500.0, "USD");
+        FundPurchaseRepository.FundLotTotals totals = new FundPurchaseRepository.FundLotTotals() {
+            public Long getUserId() { return 1L; }
+            public String getSymbol() { return "SPY"; }
+            public Double getQuantity() { return 2.0; }
+            public Double getCostBasis() { return 1000.0; }
+            public LocalDateTime getFirstPurchaseDate() { return D1; }
+            public String getCurrency() { return "USD"; }
+            public String getName() { return "SPDR S&P 500"; }
+            public String getType() { return "ETF"; }
+        };
+        when(positionRepository.findForUpdate(1L, AssetType.FUND, "SPY")).thenReturn(Optional.empty());
+        when(positionRepository.findByUserIdAndAssetTypeAndSymbol(1L, AssetType.FUND, "SPY")).thenReturn(Optional.empty());
+        when(fundPurchaseRepository.sumByUserAndSymbol(1L, "SPY")).thenReturn(Optional.of(totals));
+        when(positionRepository.save(any(Position.class))).thenAnswer(inv -> inv.getArgument(0));
+
+        positionService.recordPurchase(lot);
+
+        ArgumentCaptor<Position> captor = ArgumentCaptor.forClass(Position.class);
+        verify(positionRepository).save(captor.capture());
+        assertEquals(AssetType.FUND, captor.getValue().getAssetType());
+        assertEquals("SPDR S&P 500", captor.getValue().getName());
+        assertEquals("ETF", captor.getValue().getType());
+    }
+}
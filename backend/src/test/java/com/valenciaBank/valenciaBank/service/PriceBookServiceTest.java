@@ -0,0 +1,134 @@
+package com.valenciaBank.valenciaBank.service;
+
+import com.valenciaBank.valenciaBank.model.CryptoPrice;
+import com.valenciaBank.valenciaBank.model.PriceQuote;
+import com.valenciaBank.valenciaBank.repository.CryptoPriceRepository;
+import com.valenciaBank.valenciaBank.repository.CryptoPurchaseRepository;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+@DisplayName("PriceBookService - Tests unitarios")
+class PriceBookServiceTest {
+
+    @Mock
+    private CoinGeckoService coinGeckoService;
+
+    @Mock
+    private CryptoPriceRepository cryptoPriceRepository;
+
+    @Mock
+    private CryptoPurchaseRepository cryptoPurchaseRepository;
+
+    @InjectMocks
+    private PriceBookService priceBookService;
+
+    @Test
+    @DisplayName("getQuote retorna vacío si el libro aún no tiene el par")
+    void getQuoteVacio() {
+        Optional<PriceQuote> quote = priceBookService.getQuote("BTC", "EUR");
+
+        assertTrue(quote.isEmpty());
+        verifyNoInteractions(coinGeckoService);
+    }
+
+    @Test
+    @DisplayName("refresh hace una sola llamada batch y rellena el libro")
+    void refreshRellenaLibro() {
+        when(cryptoPriceRepository.findAll()).thenReturn(List.of(new CryptoPrice("BTC", "EUR", 95000.0)));
+        when(cryptoPurchaseRepository.findDistinctSymbols()).thenReturn(List.of("ETH"));
+        long now = System.currentTimeMillis();
+        when(coinGeckoService.getCryptoPrices(anyCollection(), anyCollection())).thenReturn(Map.of(
+                "BTC", Map.of("EUR", new PriceQuote("BTC", "EUR", 61000.5, 1.5, now)),
+                "ETH", Map.of("EUR", new PriceQuote("ETH", "EUR", 3100.0, null, now))));
+
+        priceBookService.refresh();
+
+        Optional<PriceQuote> btc = priceBookService.getQuote("BTC", "EUR");
+        Optional<PriceQuote> eth = priceBookService.getQuote("eth", "eur");
+        assertTrue(btc.isPresent());
+        assertEquals(61000.5, btc.get().getPrice());
+        assertEquals(1.5, btc.get().getChange24h());
+        assertTrue(eth.isPresent());
+        assertNull(eth.get().getChange24h());
+        verify(coinGeckoService, times(1)).getCryptoPrices(anyCollection(), anyCollection());
+        verify(cryptoPriceRepository).saveAll(anyList());
+    }
+
+    @Test
+    @DisplayName("getQuote de pares desconocidos no amplía la llamada batch del refresco")
+    @SuppressWarnings("unchecked")
+    void getQuoteParDesconocidoNoSeSigue() {
+        when(cryptoPriceRepository.findAll()).thenReturn(List.of());
+        when(cryptoPurchaseRepository.findDistinctSymbols()).thenReturn(List.of());
+        when(coinGeckoService.getCryptoPrices(anyCollection(), anyCollection())).thenReturn(Map.of());
+
+        priceBookService.getQuote("BTC", "XYZ");
+        priceBookService.getQuote("NOEXISTE", "EUR");
+        priceBookService.getQuote("eth", "usd");
+        priceBookService.refresh();
+
+        ArgumentCaptor<Collection<String>> symbols = ArgumentCaptor.forClass(Collection.class);
+        ArgumentCaptor<Collection<String>> currencies = ArgumentCaptor.forClass(Collection.class);
+        verify(coinGeckoService).getCryptoPrices(symbols.capture(), currencies.capture());
+        assertEquals(Set.of("ETH"), Set.copyOf(symbols.getValue()));
+        assertEquals(Set.of("EUR", "USD"), Set.copyOf(currencies.getValue()));
+        assertFalse(priceBookService.track("NOEXISTE", "EUR"));
+    }
+
+    @Test
+    @DisplayName("refresh no modifica el libro si CoinGecko devuelve error")
+    void refreshConError() {
+        when(cryptoPriceRepository.findAll()).thenReturn(List.of(new CryptoPrice("BTC", "EUR", 95000.0)));
+        when(cryptoPurchaseRepository.findDistinctSymbols()).thenReturn(List.of());
+        when(coinGeckoService.getCryptoPrices(anyCollection(), anyCollection())).thenReturn(Map.of());
+
+        priceBookService.refresh();
+
+        assertEquals(0, priceBookService.size());
+        verify(cryptoPriceRepository, never()).saveAll(anyList());
+    }
+
+    @Test
+    @DisplayName("isFresh distingue cotizaciones recientes de antiguas")
+    void isFresh() {
+        PriceQuote reciente = new PriceQuote("BTC", "EUR", 60000.0, null, System.currentTimeMillis());
+        PriceQuote antigua = new PriceQuote("BTC", "EUR", 60000.0, null, System.currentTimeMillis() - 3_600_000);
+
+        assertTrue(priceBookService.isFresh(reciente));
+        assertFalse(priceBookService.isFresh(antigua));
+        assertFalse(priceBookService.isFresh(null));
+    }
+
+    @Test
+    @DisplayName("ensureQuotes pide en un solo batch solo los símbolos que faltan")
+    void ensureQuotesSoloFaltantes() {
+        long now = System.currentTimeMillis();
+        when(coinGeckoService.getCryptoPrices(anyCollection(), anyCollection())).thenReturn(Map.of(
+                "BTC", Map.of("EUR", new PriceQuote("BTC", "EUR", 61000.0, null, now)),
+                "SOL", Map.of("EUR", new PriceQuote("SOL", "EUR", 140.0, null, now))));
+
+        Map<String, PriceQuote> first = priceBookService.ensureQuotes(List.of("BTC", "sol"), "EUR");
+        Map<String, PriceQuote> second = priceBookService.ensureQuotes(List.of("BTC", "SOL"), "EUR");
+
+        assertEquals(61000.0, first.get("BTC").getPrice());
+        assertEquals(140.0, first.get("SOL").getPrice());
+        assertEquals(2, second.size());
+        verify(coinGeckoService, times(1)).getCryptoPrices(anyCollection(), anyCollection());
+    }
+}
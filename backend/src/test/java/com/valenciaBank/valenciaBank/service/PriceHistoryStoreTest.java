@@ -0,0 +1,160 @@
+package com.valenciaBank.valenciaBank.service;
+
+import com.valenciaBank.valenciaBank.model.CryptoHistoryCoverage;
+import com.valenciaBank.valenciaBank.model.CryptoPricePoint;
+import com.valenciaBank.valenciaBank.model.HistoryGranularity;
+import com.valenciaBank.valenciaBank.repository.CryptoHistoryCoverageRepository;
+import com.valenciaBank.valenciaBank.repository.CryptoPricePointRepository;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InOrder;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+@DisplayName("PriceHistoryStore - Tests unitarios")
+class PriceHistoryStoreTest {
+
+    @Mock
+    private CryptoPricePointRepository pointRepository;
+
+    @Mock
+    private CryptoHistoryCoverageRepository coverageRepository;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    @InjectMocks
+    private PriceHistoryStore priceHistoryStore;
+
+    @Test
+    @DisplayName("slice devuelve la ventana en formato market_chart")
+    void sliceFormatoMarketChart() {
+        when(pointRepository.findBySymbolAndCurrencyAndGranularityAndTimestampGreaterThanEqualOrderByTimestampAsc(
+                "BTC", "EUR", HistoryGranularity.HOURLY, 1000L)).thenReturn(List.of(
+                new CryptoPricePoint("BTC", "EUR", HistoryGranularity.HOURLY, 1000L, 10.5, 1.0E9, 2.0E6),
+                new CryptoPricePoint("BTC", "EUR", HistoryGranularity.HOURLY, 2000L, 11.0, null, null)));
+
+        String json = priceHistoryStore.slice("BTC", "EUR", HistoryGranularity.HOURLY, 1000L);
+
+        assertEquals("{\"prices\":[[1000,10.5],[2000,11.0]],\"market_caps\":[[1000,1.0E9]],"
+                + "\"total_volumes\":[[1000,2000000.0]]}", json);
+    }
+
+    @Test
+    @DisplayName("slice devuelve null si no hay puntos en la ventana")
+    void sliceVacio() {
+        assertNull(priceHistoryStore.slice("BTC", "EUR", HistoryGranularity.DAILY, 0L));
+    }
+
+    @Test
+    @DisplayName("merge sustituye el tramo descargado y crea la cobertura")
+    @SuppressWarnings("unchecked")
+    void mergeNuevaSerie() {
+        long now = System.currentTimeMillis();
+        long t1 = now - 7_200_000L;
+        long t2 = now - 3_600_000L;
+        String json = "{\"prices\":[[" + t1 + ",10.0],[" + t2 + ",11.0],[" + t2 + ",11.0]],"
+                + "\"market_caps\":[[" + t1 + ",100.0],[" + t2 + ",110.0]],"
+                + "\"total_volumes\":[[" + t2 + ",5.0]]}";
+        when(coverageRepository.findBySymbolAndCurrencyAndGranularity("BTC", "EUR", HistoryGranularity.HOURLY))
+                .thenReturn(Optional.empty());
+        CryptoHistoryCoverage created = CryptoHistoryCoverage.empty("BTC", "EUR", HistoryGranularity.HOURLY);
+        when(coverageRepository.findForUpdate("BTC", "EUR", HistoryGranularity.HOURLY))
+                .thenReturn(Optional.of(created));
+
+        CryptoHistoryCoverage coverage = priceHistoryStore.merge("BTC", "EUR", HistoryGranularity.HOURLY, json,
+                now - 2 * HistoryGranularity.DAY_MS);
+
+        // La cobertura vacía se crea en su propia transacción y se bloquea antes de tocar los puntos
+        InOrder order = inOrder(coverageRepository, transactionManager, pointRepository);
+        order.verify(coverageRepository).saveAndFlush(any(CryptoHistoryCoverage.class));
+        order.verify(transactionManager).commit(any());
+        order.verify(coverageRepository).findForUpdate("BTC", "EUR", HistoryGranularity.HOURLY);
+        order.verify(pointRepository).deleteFrom("BTC", "EUR", HistoryGranularity.HOURLY, t1);
+        verify(pointRepository).deleteBefore(eq("BTC"), eq("EUR"), eq(HistoryGranularity.HOURLY), anyLong());
+        ArgumentCaptor<List<CryptoPricePoint>> saved = ArgumentCaptor.forClass(List.class);
+        verify(pointRepository).saveAll(saved.capture());
+        List<CryptoPricePoint> points = saved.getValue();
+        assertEquals(2, points.size()); // El timestamp repetido se descarta
+        assertEquals(100.0, points.get(0).getMarketCap());
+        assertNull(points.get(0).getTotalVolume());
+        assertEquals(5.0, points.get(1).getTotalVolume());
+
+        assertEquals(now - 2 * HistoryGranularity.DAY_MS, coverage.getCoveredFrom());
+        assertEquals(t2, coverage.getLastPoint());
+        assertTrue(coverage.isValid());
+        assertSame(created, coverage);
+        verify(coverageRepository).save(coverage);
+    }
+
+    @Test
+    @DisplayName("merge bloquea la cobertura que otro nodo acaba de crear")
+    void mergeCoberturaCreadaPorOtroNodo() {
+        long now = System.currentTimeMillis();
+        when(coverageRepository.findBySymbolAndCurrencyAndGranularity("BTC", "EUR", HistoryGranularity.DAILY))
+                .thenReturn(Optional.empty());
+        when(coverageRepository.saveAndFlush(any(CryptoHistoryCoverage.class)))
+                .thenThrow(new DataIntegrityViolationException("uk_history_coverage"));
+        CryptoHistoryCoverage other = new CryptoHistoryCoverage("BTC", "EUR", HistoryGranularity.DAILY);
+        other.setCoveredFrom(now - 30 * HistoryGranularity.DAY_MS);
+        other.setLastPoint(now - HistoryGranularity.DAY_MS);
+        when(coverageRepository.findForUpdate("BTC", "EUR", HistoryGranularity.DAILY)).thenReturn(Optional.of(other));
+        String json = "{\"prices\":[[" + (now - 2 * HistoryGranularity.DAY_MS) + ",10.0],[" + now + ",12.0]]}";
+
+        CryptoHistoryCoverage coverage = priceHistoryStore.merge("BTC", "EUR", HistoryGranularity.DAILY, json,
+                now - 2 * HistoryGranularity.DAY_MS);
+
+        assertSame(other, coverage);
+        // Enlaza con lo que escribió el otro nodo, así que conserva su inicio
+        assertEquals(now - 30 * HistoryGranularity.DAY_MS, coverage.getCoveredFrom());
+        verify(transactionManager).rollback(any());
+        verify(coverageRepository).save(other);
+    }
+
+    @Test
+    @DisplayName("merge de la cola conserva el inicio de la cobertura existente")
+    void mergeCola() {
+        long now = System.currentTimeMillis();
+        CryptoHistoryCoverage existing = new CryptoHistoryCoverage("BTC", "EUR", HistoryGranularity.DAILY);
+        existing.setCoveredFrom(now - 365 * HistoryGranularity.DAY_MS);
+        existing.setLastPoint(now - 2 * HistoryGranularity.DAY_MS);
+        when(coverageRepository.findBySymbolAndCurrencyAndGranularity("BTC", "EUR", HistoryGranularity.DAILY))
+                .thenReturn(Optional.of(existing));
+        when(coverageRepository.findForUpdate("BTC", "EUR", HistoryGranularity.DAILY))
+                .thenReturn(Optional.of(existing));
+        long t1 = now - 3 * HistoryGranularity.DAY_MS;
+        String json = "{\"prices\":[[" + t1 + ",10.0],[" + now + ",12.0]]}";
+
+        CryptoHistoryCoverage coverage = priceHistoryStore.merge("BTC", "EUR", HistoryGranularity.DAILY, json,
+                now - 3 * HistoryGranularity.DAY_MS);
+
+        assertEquals(now - 365 * HistoryGranularity.DAY_MS, coverage.getCoveredFrom());
+        assertEquals(now, coverage.getLastPoint());
+        // La serie diaria no tiene retención
+        verify(pointRepository, never()).deleteBefore(any(), any(), any(), anyLong());
+        // La fila ya existía: se bloquea sin abrir otra transacción
+        verify(coverageRepository, never()).saveAndFlush(any());
+        verifyNoInteractions(transactionManager);
+    }
+
+    @Test
+    @DisplayName("merge rechaza una respuesta de error sin tocar la serie")
+    void mergeRespuestaError() {
+        assertThrows(IllegalStateException.class, () -> priceHistoryStore.merge("BTC", "EUR",
+                HistoryGranularity.HOURLY, "{\"error\":\"rate limit\"}", 0L));
+        verifyNoInteractions(pointRepository, coverageRepository, transactionManager);
+    }
+}
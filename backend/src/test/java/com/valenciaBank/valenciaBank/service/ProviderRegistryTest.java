@@ -0,0 +1,192 @@
+package com.valenciaBank.valenciaBank.service;
+
+import com.valenciaBank.valenciaBank.utils.CircuitBreaker;
+import com.valenciaBank.valenciaBank.utils.RateLimiter;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.DisplayName;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.mock.env.MockEnvironment;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.client.HttpClientErrorException;
+import org.springframework.web.client.ResourceAccessException;
+import org.springframework.web.reactive.function.client.WebClientResponseException;
+import reactor.core.Disposable;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DisplayName("ProviderRegistry - Tests unitarios")
+class ProviderRegistryTest {
+
+    private ProviderRegistry providerRegistry;
+
+    @BeforeEach
+    void setUp() {
+        MockEnvironment environment = new MockEnvironment()
+                .withProperty("providers.coingecko.permits-per-second", "100")
+                .withProperty("providers.coingecko.burst", "10")
+                .withProperty("providers.coingecko.failure-threshold", "2")
+                .withProperty("providers.coingecko.max-concurrent", "1");
+        providerRegistry = new ProviderRegistry(environment);
+    }
+
+    @Test
+    @DisplayName("call devuelve el resultado y mantiene el circuito cerrado")
+    void callExitosa() {
+        String result = providerRegistry.call(ExternalProvider.COINGECKO, () -> "ok");
+
+        assertEquals("ok", result);
+        assertEquals(CircuitBreaker.State.CLOSED, providerRegistry.breaker(ExternalProvider.COINGECKO).getState());
+    }
+
+    @Test
+    @DisplayName("Un 429 abre el circuito y las siguientes llamadas no llegan al proveedor")
+    void call429AbreCircuito() {
+        HttpHeaders headers = new HttpHeaders();
+        headers.set(HttpHeaders.RETRY_AFTER, "30");
+        AtomicInteger calls = new AtomicInteger();
+
+        assertThrows(HttpClientErrorException.class, () -> providerRegistry.call(ExternalProvider.COINGECKO, () -> {
+            calls.incrementAndGet();
+            throw HttpClientErrorException.create(HttpStatus.TOO_MANY_REQUESTS, "Too Many Requests", headers, null, null);
+        }));
+        assertThrows(CircuitBreaker.OpenException.class, () -> providerRegistry.call(ExternalProvider.COINGECKO, () -> {
+            calls.incrementAndGet();
+            return "ok";
+        }));
+
+        assertEquals(1, calls.get());
+        assertFalse(providerRegistry.isAvailable(ExternalProvider.COINGECKO));
+        assertEquals("DEGRADED", providerRegistry.getHealth().get("status"));
+    }
+
+    @Test
+    @DisplayName("Un 404 no penaliza al proveedor")
+    void call404NoPenaliza() {
+        for (int i = 0; i < 3; i++) {
+            assertThrows(HttpClientErrorException.class, () -> providerRegistry.call(ExternalProvider.COINGECKO, () -> {
+                throw HttpClientErrorException.create(HttpStatus.NOT_FOUND, "Not Found", null, null, null);
+            }));
+        }
+
+        assertTrue(providerRegistry.isAvailable(ExternalProvider.COINGECKO));
+    }
+
+    @Test
+    @DisplayName("Errores de red seguidos abren el circuito al llegar al umbral")
+    void callErroresDeRed() {
+        for (int i = 0; i < 2; i++) {
+            assertThrows(ResourceAccessException.class, () -> providerRegistry.call(ExternalProvider.COINGECKO, () -> {
+                throw new ResourceAccessException("Connection refused");
+            }));
+        }
+
+        assertFalse(providerRegistry.isAvailable(ExternalProvider.COINGECKO));
+    }
+
+    @SuppressWarnings("unchecked")
+    @Test
+    @DisplayName("Sin hueco libre la llamada se rechaza sin llegar al proveedor ni penalizarlo")
+    void callSinHuecoLibre() {
+        ReflectionTestUtils.setField(providerRegistry, "acquireTimeoutMs", 50L);
+        AtomicInteger calls = new AtomicInteger();
+
+        String result = providerRegistry.call(ExternalProvider.COINGECKO, () -> {
+            Map<String, Object> coingecko = (Map<String, Object>) providerRegistry.getStatus().get("coingecko");
+            assertEquals(1, ((Map<String, Object>) coingecko.get("concurrency")).get("inFlight"));
+            // La única plaza está ocupada por esta llamada
+            assertThrows(RateLimiter.RejectedException.class, () -> providerRegistry.call(ExternalProvider.COINGECKO, () -> {
+                calls.incrementAndGet();
+                return "anidada";
+            }));
+            return "ok";
+        });
+
+        assertEquals("ok", result);
+        assertEquals(0, calls.get());
+        assertTrue(providerRegistry.isAvailable(ExternalProvider.COINGECKO));
+        Map<String, Object> coingecko = (Map<String, Object>) providerRegistry.getStatus().get("coingecko");
+        assertEquals(0, ((Map<String, Object>) coingecko.get("concurrency")).get("inFlight"));
+    }
+
+    @Test
+    @DisplayName("callReactive no llama al proveedor hasta suscribirse y cierra con éxito")
+    void callReactiveExitosa() {
+        AtomicInteger calls = new AtomicInteger();
+        Mono<String> result = providerRegistry.callReactive(ExternalProvider.COINGECKO,
+                () -> Mono.fromSupplier(() -> "ok" + calls.incrementAndGet()));
+
+        assertEquals(0, calls.get());
+        assertEquals("ok1", result.block());
+        // Cada suscripción (p. ej. un retry) vuelve a pedir permiso y a llamar
+        assertEquals("ok2", result.block());
+        assertEquals(CircuitBreaker.State.CLOSED, providerRegistry.breaker(ExternalProvider.COINGECKO).getState());
+    }
+
+    @Test
+    @DisplayName("callReactive: un 429 de WebClient abre el circuito y la siguiente llamada falla sin salir")
+    void callReactive429AbreCircuito() {
+        HttpHeaders headers = new HttpHeaders();
+        headers.set(HttpHeaders.RETRY_AFTER, "30");
+        AtomicInteger calls = new AtomicInteger();
+
+        assertThrows(WebClientResponseException.class, () -> providerRegistry.callReactive(ExternalProvider.COINGECKO,
+                () -> {
+                    calls.incrementAndGet();
+                    return Mono.<String>error(WebClientResponseException.create(429, "Too Many Requests",
+                            headers, null, null));
+                }).block());
+        assertThrows(CircuitBreaker.OpenException.class, () -> providerRegistry.callReactive(ExternalProvider.COINGECKO,
+                () -> {
+                    calls.incrementAndGet();
+                    return Mono.just("ok");
+                }).block());
+
+        assertEquals(1, calls.get());
+        assertFalse(providerRegistry.isAvailable(ExternalProvider.COINGECKO));
+    }
+
+    @SuppressWarnings("unchecked")
+    @Test
+    @DisplayName("callReactive rechaza al momento si no hay hueco y libera la plaza al terminar")
+    void callReactiveSinHuecoLibre() {
+        Sinks.One<String> pending = Sinks.one();
+        Disposable inFlight = providerRegistry.callReactive(ExternalProvider.COINGECKO, pending::asMono).subscribe();
+
+        assertThrows(RateLimiter.RejectedException.class,
+                () -> providerRegistry.callReactive(ExternalProvider.COINGECKO, () -> Mono.just("ok")).block());
+
+        // Cancelar la llamada en vuelo libera la plaza sin contar como fallo
+        inFlight.dispose();
+        Map<String, Object> coingecko = (Map<String, Object>) providerRegistry.getStatus().get("coingecko");
+        assertEquals(0, ((Map<String, Object>) coingecko.get("concurrency")).get("inFlight"));
+        assertEquals("ok", providerRegistry.callReactive(ExternalProvider.COINGECKO, () -> Mono.just("ok")).block());
+        assertTrue(providerRegistry.isAvailable(ExternalProvider.COINGECKO));
+    }
+
+    @SuppressWarnings("unchecked")
+    @Test
+    @DisplayName("getStatus incluye rate limiter y circuit breaker de cada proveedor")
+    void getStatus() {
+        Map<String, Object> status = providerRegistry.getStatus();
+
+        assertEquals(ExternalProvider.values().length, status.size());
+        Map<String, Object> coingecko = (Map<String, Object>) status.get("coingecko");
+        assertTrue(coingecko.containsKey("rateLimiter"));
+        assertEquals("CLOSED", ((Map<String, Object>) coingecko.get("circuitBreaker")).get("state"));
+    }
+
+    @Test
+    @DisplayName("fromHost identifica el proveedor de una URL y null si no es de ninguno")
+    void fromHost() {
+        assertEquals(ExternalProvider.COINGECKO, ExternalProvider.fromHost("api.coingecko.com"));
+        assertEquals(ExternalProvider.YAHOO, ExternalProvider.fromHost("QUERY1.finance.yahoo.com"));
+        assertNull(ExternalProvider.fromHost("www.coindesk.com"));
+    }
+}
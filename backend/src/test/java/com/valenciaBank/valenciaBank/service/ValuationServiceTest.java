@@ -0,0 +1,153 @@
+package com.valenciaBank.valenciaBank.service;
+
+import com.valenciaBank.valenciaBank.model.CryptoPrice;
+import com.valenciaBank.valenciaBank.model.Position;
+import com.valenciaBank.valenciaBank.model.Position.AssetType;
+import com.valenciaBank.valenciaBank.model.PriceQuote;
+import com.valenciaBank.valenciaBank.model.User;
+import com.valenciaBank.valenciaBank.repository.CryptoPriceRepository;
+import com.valenciaBank.valenciaBank.repository.UserRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+@DisplayName("ValuationService - Tests unitarios")
+class ValuationServiceTest {
+
+    @Mock
+    private PositionService positionService;
+
+    @Mock
+    private UserRepository userRepository;
+
+    @Mock
+    private PriceBookService priceBookService;
+
+    @Mock
+    private CryptoPriceRepository cryptoPriceRepository;
+
+    @Mock
+    private BuyFundService buyFundService;
+
+    private ValuationService valuationService;
+
+    @BeforeEach
+    void setUp() {
+        // Executor síncrono: las consultas de precio terminan antes de esperar
+        valuationService = new ValuationService(positionService, userRepository, priceBookService,
+                cryptoPriceRepository, buyFundService, Runnable::run, 5000);
+    }
+
+    private void usuarioExistente() {
+        User user = new User();
+        user.setId(1L);
+        when(userRepository.findById(1L)).thenReturn(Optional.of(user));
+    }
+
+    private static Position posicion(AssetType assetType, String symbol, double quantity, double costBasis,
+                                     String currency) {
+        Position position = new Position(1L, assetType, symbol);
+        position.setQuantity(quantity);
+        position.setCostBasis(costBasis);
+        position.setCurrency(currency);
+        position.setFirstPurchaseDate(LocalDateTime.of(2026, 1, 1, 10, 0));
+        return position;
+    }
+
+    @SuppressWarnings("unchecked")
+    @Test
+    @DisplayName("Valora criptos y fondos con sus precios actuales y separa el resumen por tipo")
+    void valoracionConjunta() {
+        usuarioExistente();
+        Position spy = posicion(AssetType.FUND, "SPY", 2.0, 1000.0, "USD");
+        spy.setName("SPDR S&P 500");
+        spy.setType("ETF");
+        when(positionService.getAllPositions(1L))
+                .thenReturn(List.of(posicion(AssetType.CRYPTO, "BTC", 0.5, 20000.0, "EUR"), spy));
+        when(priceBookService.ensureQuotes(anyCollection(), eq("EUR")))
+                .thenReturn(Map.of("BTC", new PriceQuote("BTC", "EUR", 50000.0, null, 0L)));
+        when(buyFundService.getCurrentFundPrice("SPY")).thenReturn(550.0);
+
+        Map<String, Object> result = valuationService.getValuation(1L);
+
+        List<Map<String, Object>> positions = (List<Map<String, Object>>) result.get("positions");
+        assertEquals(2, positions.size());
+        assertEquals("CRYPTO", positions.get(0).get("assetType"));
+        assertEquals(25000.0, (Double) positions.get(0).get("currentValue"), 0.001);
+        assertEquals("FUND", positions.get(1).get("assetType"));
+        assertEquals("SPDR S&P 500", positions.get(1).get("name"));
+        assertEquals("USD", positions.get(1).get("currency"));
+        assertEquals(10.0, (Double) positions.get(1).get("gainLossPercent"), 0.001);
+
+        Map<String, Object> summary = (Map<String, Object>) result.get("summary");
+        assertEquals(21000.0, (Double) summary.get("totalInvested"), 0.001);
+        assertEquals(26100.0, (Double) summary.get("totalCurrentValue"), 0.001);
+        assertEquals(5000.0, (Double) ((Map<String, Object>) summary.get("crypto")).get("totalGainLoss"), 0.001);
+        assertEquals(100.0, (Double) ((Map<String, Object>) summary.get("funds")).get("totalGainLoss"), 0.001);
+        assertEquals(List.of(), result.get("unpriced"));
+        verifyNoInteractions(cryptoPriceRepository);
+    }
+
+    @SuppressWarnings("unchecked")
+    @Test
+    @DisplayName("Sin cotización usa el precio de BD (cripto) o el precio medio (fondo) y lo indica en unpriced")
+    void valoracionSinPrecio() {
+        usuarioExistente();
+        when(positionService.getAllPositions(1L)).thenReturn(List.of(
+                posicion(AssetType.CRYPTO, "ETH", 2.0, 4000.0, "EUR"),
+                posicion(AssetType.FUND, "QQQ", 1.0, 400.0, "USD")));
+        when(priceBookService.ensureQuotes(anyCollection(), eq("EUR"))).thenReturn(Map.of());
+        when(cryptoPriceRepository.findBySymbolAndMarket("ETH", "EUR"))
+                .thenReturn(Optional.of(new CryptoPrice("ETH", "EUR", 2500.0)));
+        when(buyFundService.getCurrentFundPrice("QQQ")).thenReturn(null);
+
+        Map<String, Object> result = valuationService.getValuation(1L);
+
+        List<Map<String, Object>> positions = (List<Map<String, Object>>) result.get("positions");
+        assertEquals(2500.0, (Double) positions.get(0).get("currentPrice"), 0.001);
+        assertEquals(400.0, (Double) positions.get(1).get("currentPrice"), 0.001);
+        assertEquals(List.of("QQQ"), result.get("unpriced"));
+    }
+
+    @Test
+    @DisplayName("Los precios que no llegan antes del plazo no bloquean la respuesta")
+    void valoracionFueraDePlazo() {
+        // Executor que nunca ejecuta: ninguna consulta termina
+        valuationService = new ValuationService(positionService, userRepository, priceBookService,
+                cryptoPriceRepository, buyFundService, task -> { }, 20);
+        usuarioExistente();
+        when(positionService.getAllPositions(1L)).thenReturn(List.of(
+                posicion(AssetType.CRYPTO, "BTC", 0.5, 20000.0, "EUR"),
+                posicion(AssetType.FUND, "SPY", 2.0, 1000.0, "USD")));
+        when(cryptoPriceRepository.findBySymbolAndMarket("BTC", "EUR")).thenReturn(Optional.empty());
+
+        Map<String, Object> result = valuationService.getValuation(1L);
+
+        assertEquals(List.of("BTC", "SPY"), result.get("unpriced"));
+        verifyNoInteractions(priceBookService, buyFundService);
+    }
+
+    @Test
+    @DisplayName("Usuario inexistente lanza excepción sin consultar precios")
+    void usuarioNoEncontrado() {
+        when(userRepository.findById(999L)).thenReturn(Optional.empty());
+
+        RuntimeException ex = assertThrows(RuntimeException.class, () -> valuationService.getValuation(999L));
+
+        assertEquals("Usuario no encontrado", ex.getMessage());
+        verifyNoInteractions(positionService, priceBookService, buyFundService);
+    }
+}
@@ -0,0 +1,54 @@
+package com.valenciaBank.valenciaBank.utils;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.DisplayName;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DisplayName("AhoCorasick - Tests unitarios")
+class AhoCorasickTest {
+
+    private static List<String> encontrar(AhoCorasick<String> automaton, String text) {
+        return automaton.findAll(text).stream()
+                .map(match -> match.value() + "@" + match.start() + "-" + match.end())
+                .toList();
+    }
+
+    @Test
+    @DisplayName("Encuentra patrones solapados y los que son sufijo de otros")
+    void patronesSolapados() {
+        Map<String, String> patterns = new LinkedHashMap<>();
+        for (String pattern : List.of("he", "she", "his", "hers")) {
+            patterns.put(pattern, pattern);
+        }
+        AhoCorasick<String> automaton = new AhoCorasick<>(patterns);
+
+        assertEquals(List.of("she@1-4", "he@2-4", "hers@2-6"), encontrar(automaton, "ushers"));
+        assertEquals(List.of("his@0-3"), encontrar(automaton, "his"));
+    }
+
+    @Test
+    @DisplayName("No distingue mayúsculas y devuelve posiciones del texto original")
+    void sinMayusculas() {
+        AhoCorasick<String> automaton = new AhoCorasick<>(Map.of("bitcoin", "BTC"));
+
+        assertEquals(List.of("BTC@4-11", "BTC@17-24"), encontrar(automaton, "Sub BITCOIN y el bitcoin"));
+    }
+
+    @Test
+    @DisplayName("Sin coincidencias, texto nulo o patrones vacíos devuelven lista vacía")
+    void sinCoincidencias() {
+        Map<String, String> patterns = new LinkedHashMap<>();
+        patterns.put("", "vacio");
+        patterns.put("eth", "ETH");
+        AhoCorasick<String> automaton = new AhoCorasick<>(patterns);
+
+        assertEquals(List.of(), encontrar(automaton, "solana"));
+        assertTrue(automaton.findAll(null).isEmpty());
+        assertEquals(4, automaton.size());
+    }
+}
@@ -0,0 +1,141 @@
+package com.valenciaBank.valenciaBank.utils;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.DisplayName;
+
+import java.time.Duration;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DisplayName("CircuitBreaker - Tests unitarios")
+class CircuitBreakerTest {
+
+    private AtomicLong now;
+    private CircuitBreaker breaker;
+
+    @BeforeEach
+    void setUp() {
+        now = new AtomicLong(1_000_000);
+        breaker = new CircuitBreaker("test", 3, 60_000, 600_000, 1, now::get);
+    }
+
+    @Test
+    @DisplayName("Se abre tras N fallos seguidos y deja de conceder permisos")
+    void abreTrasFallos() {
+        for (int i = 0; i < 3; i++) {
+            assertTrue(breaker.tryAcquirePermission());
+            breaker.onFailure("timeout");
+        }
+
+        assertEquals(CircuitBreaker.State.OPEN, breaker.getState());
+        assertFalse(breaker.tryAcquirePermission());
+        assertEquals(60_000, breaker.getRemainingOpenMillis());
+    }
+
+    @Test
+    @DisplayName("Un éxito reinicia el contador de fallos")
+    void exitoReiniciaFallos() {
+        breaker.onFailure("timeout");
+        breaker.onFailure("timeout");
+        breaker.onSuccess();
+        breaker.onFailure("timeout");
+
+        assertEquals(CircuitBreaker.State.CLOSED, breaker.getState());
+    }
+
+    @Test
+    @DisplayName("Un 429 abre el circuito durante el Retry-After indicado")
+    void rateLimitedRespetaRetryAfter() {
+        breaker.onRateLimited(Duration.ofSeconds(30));
+
+        assertEquals(CircuitBreaker.State.OPEN, breaker.getState());
+        assertEquals(30_000, breaker.getRemainingOpenMillis());
+
+        now.addAndGet(30_000);
+        assertEquals(CircuitBreaker.State.HALF_OPEN, breaker.getState());
+    }
+
+    @Test
+    @DisplayName("Half-open deja pasar una sonda y se cierra si va bien")
+    void halfOpenSondaExitosa() {
+        breaker.onRateLimited(null);
+        now.addAndGet(60_000);
+
+        assertTrue(breaker.tryAcquirePermission());
+        assertFalse(breaker.tryAcquirePermission()); // Solo una sonda a la vez
+        breaker.onSuccess();
+
+        assertEquals(CircuitBreaker.State.CLOSED, breaker.getState());
+        assertTrue(breaker.tryAcquirePermission());
+    }
+
+    @Test
+    @DisplayName("Half-open vuelve a abrirse si la sonda falla")
+    void halfOpenSondaFallida() {
+        breaker.onRateLimited(null);
+        now.addAndGet(60_000);
+
+        assertTrue(breaker.tryAcquirePermission());
+        breaker.onFailure("500");
+
+        assertEquals(CircuitBreaker.State.OPEN, breaker.getState());
+        assertEquals(2L, breaker.getMetrics().get("openedCount"));
+    }
+
+    @Test
+    @DisplayName("releasePermission libera la sonda sin cambiar de estado")
+    void releasePermissionLiberaSonda() {
+        breaker.onRateLimited(null);
+        now.addAndGet(60_000);
+
+        assertTrue(breaker.tryAcquirePermission());
+        breaker.releasePermission();
+
+        assertTrue(breaker.tryAcquirePermission());
+    }
+
+    @Test
+    @DisplayName("En half-open con muchos hilos virtuales a la vez solo pasan las sondas configuradas")
+    void halfOpenConcurrente() throws InterruptedException {
+        breaker.onRateLimited(Duration.ofSeconds(10));
+        now.addAndGet(10_000);
+        AtomicInteger permitted = new AtomicInteger();
+
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int i = 0; i < 1000; i++) {
+                executor.execute(() -> {
+                    if (breaker.tryAcquirePermission()) {
+                        permitted.incrementAndGet();
+                    }
+                });
+            }
+            executor.shutdown();
+            assertTrue(executor.awaitTermination(10, TimeUnit.SECONDS));
+        }
+
+        assertEquals(1, permitted.get());
+        assertEquals(999L, breaker.getMetrics().get("notPermittedCount"));
+    }
+
+    @Test
+    @DisplayName("El Retry-After se limita al cooldown máximo")
+    void retryAfterLimitado() {
+        breaker.onRateLimited(Duration.ofHours(2));
+        assertEquals(600_000, breaker.getRemainingOpenMillis());
+    }
+
+    @Test
+    @DisplayName("parseRetryAfter interpreta segundos y valores inválidos")
+    void parseRetryAfter() {
+        assertEquals(Duration.ofSeconds(120), CircuitBreaker.parseRetryAfter("120"));
+        assertNull(CircuitBreaker.parseRetryAfter(null));
+        assertNull(CircuitBreaker.parseRetryAfter("pronto"));
+        assertEquals(Duration.ZERO, CircuitBreaker.parseRetryAfter("Wed, 21 Oct 2015 07:28:00 GMT"));
+    }
+}
@@ -0,0 +1,59 @@
+package com.valenciaBank.valenciaBank.utils;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.DisplayName;
+
+import java.io.StringWriter;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DisplayName("ColumnarSeries - Tests unitarios")
+class ColumnarSeriesTest {
+
+    @Test
+    @DisplayName("Las diferencias reconstruyen los timestamps originales")
+    void deltasIdaYVuelta() {
+        long[] timestamps = {1_700_000_000_000L, 1_700_000_360_000L, 1_700_000_720_000L, 1_700_001_000_000L};
+
+        long[] dt = ColumnarSeries.deltas(timestamps);
+
+        assertArrayEquals(new long[]{360_000L, 360_000L, 280_000L}, dt);
+        assertArrayEquals(timestamps, ColumnarSeries.undelta(timestamps[0], dt));
+    }
+
+    @Test
+    @DisplayName("Escribe el formato columnar con null en los huecos")
+    void escribeJson() throws Exception {
+        ColumnarSeries series = new ColumnarSeries(new long[]{1000, 2000, 3500}, "ms")
+                .column("price", new double[]{1.0, Double.NaN, 3.5});
+
+        StringWriter writer = new StringWriter();
+        try (JsonGenerator json = new JsonFactory().createGenerator(writer)) {
+            series.write(json);
+        }
+
+        assertEquals("{\"format\":\"columnar-v1\",\"unit\":\"ms\",\"size\":3,\"t0\":1000,\"dt\":[1000,1500],"
+                + "\"columns\":{\"price\":[1.0,null,3.5]}}", writer.toString());
+    }
+
+    @Test
+    @DisplayName("Serie vacía sin t0 ni diferencias")
+    void serieVacia() {
+        Map<String, Object> map = new ColumnarSeries(new long[0], "ms").column("values", new double[0]).toMap();
+
+        assertEquals(0, map.get("size"));
+        assertNull(map.get("t0"));
+        assertArrayEquals(new long[0], (long[]) map.get("dt"));
+    }
+
+    @Test
+    @DisplayName("Rechaza columnas con distinto número de valores")
+    void columnaIncorrecta() {
+        ColumnarSeries series = new ColumnarSeries(new long[]{1, 2}, "s");
+
+        assertThrows(IllegalArgumentException.class, () -> series.column("c", new double[]{1.0}));
+    }
+}
@@ -0,0 +1,99 @@
+package com.valenciaBank.valenciaBank.utils;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.DisplayName;
+
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DisplayName("Downsampler - Tests unitarios")
+class DownsamplerTest {
+
+    private static long[] timestamps(int n) {
+        long[] x = new long[n];
+        for (int i = 0; i < n; i++) {
+            x[i] = 1_700_000_000_000L + i * 3_600_000L;
+        }
+        return x;
+    }
+
+    @Test
+    @DisplayName("LTTB devuelve maxPoints índices ascendentes con el primero y el último")
+    void lttbReduce() {
+        int n = 1000;
+        double[] y = new double[n];
+        for (int i = 0; i < n; i++) {
+            y[i] = Math.sin(i / 20.0);
+        }
+
+        int[] indices = Downsampler.lttb(timestamps(n), y, n, 100);
+
+        assertEquals(100, indices.length);
+        assertEquals(0, indices[0]);
+        assertEquals(n - 1, indices[indices.length - 1]);
+        for (int i = 1; i < indices.length; i++) {
+            assertTrue(indices[i] > indices[i - 1]);
+        }
+    }
+
+    @Test
+    @DisplayName("LTTB conserva un pico aislado")
+    void lttbConservaPico() {
+        int n = 500;
+        double[] y = new double[n];
+        Arrays.fill(y, 100.0);
+        y[237] = 500.0;
+
+        int[] indices = Downsampler.lttb(timestamps(n), y, n, 20);
+
+        assertTrue(Arrays.stream(indices).anyMatch(i -> i == 237));
+    }
+
+    @Test
+    @DisplayName("LTTB devuelve todos los puntos si ya caben")
+    void lttbSinReduccion() {
+        int[] indices = Downsampler.lttb(timestamps(5), new double[]{1, 2, 3, 4, 5}, 5, 10);
+
+        assertArrayEquals(new int[]{0, 1, 2, 3, 4}, indices);
+    }
+
+    @Test
+    @DisplayName("OHLC agrega open, high, low, close y volumen por bucket")
+    void ohlcAgrega() {
+        Downsampler.Candles candles = new Downsampler.Candles(
+                new long[]{1, 2, 3, 4},
+                new double[]{10, 11, 12, 13},
+                new double[]{15, 18, 14, 20},
+                new double[]{9, 8, 11, 12},
+                new double[]{11, 12, 13, 14},
+                new long[]{100, 200, 300, 400});
+
+        Downsampler.Candles reduced = Downsampler.ohlc(candles, 2);
+
+        assertEquals(2, reduced.size());
+        assertArrayEquals(new long[]{1, 3}, reduced.getT());
+        assertArrayEquals(new double[]{10, 12}, reduced.getO());
+        assertArrayEquals(new double[]{18, 20}, reduced.getH());
+        assertArrayEquals(new double[]{8, 11}, reduced.getL());
+        assertArrayEquals(new double[]{12, 14}, reduced.getC());
+        assertArrayEquals(new long[]{300, 700}, reduced.getV());
+    }
+
+    @Test
+    @DisplayName("OHLC devuelve la misma instancia si ya caben")
+    void ohlcSinReduccion() {
+        Downsampler.Candles candles = new Downsampler.Candles(new long[]{1}, new double[]{1}, new double[]{1},
+                new double[]{1}, new double[]{1}, new long[]{1});
+
+        assertSame(candles, Downsampler.ohlc(candles, 10));
+    }
+
+    @Test
+    @DisplayName("Las columnas de las velas deben tener la misma longitud")
+    void columnasDistintas() {
+        assertThrows(IllegalArgumentException.class, () -> new Downsampler.Candles(
+                new long[]{1, 2}, new double[]{1}, new double[]{1, 2},
+                new double[]{1, 2}, new double[]{1, 2}, new long[]{1, 2}));
+    }
+}
@@ -0,0 +1,115 @@
+package com.valenciaBank.valenciaBank.utils;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.DisplayName;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DisplayName("IndicatorEngine - Tests unitarios")
+class IndicatorEngineTest {
+
+    private static double[] serie(int size) {
+        Random random = new Random(7);
+        double[] closes = new double[size];
+        double price = 100;
+        for (int i = 0; i < size; i++) {
+            price *= 1 + random.nextGaussian() * 0.02;
+            closes[i] = price;
+        }
+        return closes;
+    }
+
+    private static IndicatorEngine calcular(double[] closes, int to) {
+        IndicatorEngine engine = new IndicatorEngine();
+        for (int i = 0; i < to; i++) {
+            engine.add(closes[i]);
+        }
+        return engine;
+    }
+
+    @Test
+    @DisplayName("Los indicadores son null hasta tener suficientes velas")
+    void arranque() {
+        double[] closes = serie(60);
+        IndicatorEngine engine = calcular(closes, 19);
+
+        assertNull(engine.getSma20());
+        assertNull(engine.getBollingerUpper());
+        assertNotNull(engine.getEma12());
+        assertNotNull(engine.getRsi14());
+        assertNull(engine.getMacd());
+
+        engine.add(closes[19]);
+        assertNotNull(engine.getSma20());
+        assertNull(engine.getSma50());
+    }
+
+    @Test
+    @DisplayName("SMA y Bollinger coinciden con el cálculo directo sobre la ventana")
+    void smaYBollinger() {
+        double[] closes = serie(200);
+        IndicatorEngine engine = calcular(closes, closes.length);
+
+        double[] last20 = Arrays.copyOfRange(closes, 180, 200);
+        double mean = Arrays.stream(last20).average().orElse(0);
+        double deviation = Math.sqrt(Arrays.stream(last20).map(c -> (c - mean) * (c - mean)).sum() / 20);
+
+        assertEquals(mean, engine.getSma20(), 1e-9);
+        assertEquals(Arrays.stream(closes, 150, 200).average().orElse(0), engine.getSma50(), 1e-9);
+        assertEquals(mean + 2 * deviation, engine.getBollingerUpper(), 1e-9);
+        assertEquals(mean - 2 * deviation, engine.getBollingerLower(), 1e-9);
+    }
+
+    @Test
+    @DisplayName("La EMA arranca con la media simple de sus primeros valores")
+    void emaSembrada() {
+        double[] closes = serie(12);
+        IndicatorEngine engine = calcular(closes, 12);
+
+        assertEquals(Arrays.stream(closes).average().orElse(0), engine.getEma12(), 1e-9);
+    }
+
+    @Test
+    @DisplayName("RSI es 100 con una serie solo alcista")
+    void rsiAlcista() {
+        IndicatorEngine engine = new IndicatorEngine();
+        for (int i = 1; i <= 20; i++) {
+            engine.add(i);
+        }
+
+        assertEquals(100.0, engine.getRsi14());
+    }
+
+    @Test
+    @DisplayName("Retomar desde el estado guardado da el mismo resultado que recalcular")
+    void resumeEquivalente() {
+        double[] closes = serie(300);
+        IndicatorEngine full = calcular(closes, closes.length);
+
+        for (int cut : new int[]{5, 30, 50, 120}) {
+            IndicatorEngine partial = calcular(closes, cut);
+            int recent = Math.min(cut, IndicatorEngine.CAPACITY);
+            IndicatorEngine resumed = IndicatorEngine.resume(Arrays.copyOfRange(closes, cut - recent, cut),
+                    partial.getCount(), partial.getEmaFastState(), partial.getEmaSlowState(),
+                    partial.getSignalState(), partial.getAvgGainState(), partial.getAvgLossState());
+            for (int i = cut; i < closes.length; i++) {
+                resumed.add(closes[i]);
+            }
+
+            assertEquals(full.getSma50(), resumed.getSma50(), 1e-9);
+            assertEquals(full.getMacdSignal(), resumed.getMacdSignal(), 1e-9);
+            assertEquals(full.getRsi14(), resumed.getRsi14(), 1e-9);
+            assertEquals(full.getBollingerUpper(), resumed.getBollingerUpper(), 1e-9);
+        }
+    }
+
+    @Test
+    @DisplayName("resume rechaza un número de cierres que no cuadra con el estado")
+    void resumeIncoherente() {
+        assertThrows(IllegalArgumentException.class,
+                () -> IndicatorEngine.resume(new double[10], 60, 0, 0, 0, 0, 0));
+    }
+}
@@ -0,0 +1,92 @@
+package com.valenciaBank.valenciaBank.utils;
+
+import com.valenciaBank.valenciaBank.model.PriceSeries;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.DisplayName;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DisplayName("MarketChartParser - Tests unitarios")
+class MarketChartParserTest {
+
+    @Test
+    @DisplayName("parsePrices lee los pares en columnas primitivas")
+    void parsePrices() throws Exception {
+        String json = "{\"prices\":[[1700000000000,35000.5],[1700003600000,35100.25]],"
+                + "\"market_caps\":[[1700000000000,6.8E11]],\"total_volumes\":[[1700000000000,1.2E10]]}";
+
+        PriceSeries series = MarketChartParser.parsePrices(json);
+
+        assertEquals(2, series.size());
+        assertEquals(1700000000000L, series.timestampAt(0));
+        assertEquals(35000.5, series.priceAt(0));
+        assertEquals(1700003600000L, series.timestampAt(1));
+        assertEquals(35100.25, series.priceAt(1));
+    }
+
+    @Test
+    @DisplayName("parsePrices encuentra prices aunque no sea el primer campo")
+    void parsePricesNoPrimerCampo() throws Exception {
+        String json = "{\"market_caps\":[[1,2]],\"meta\":{\"a\":[1,2,3]},\"prices\":[[1700000000000,10]]}";
+
+        PriceSeries series = MarketChartParser.parsePrices(json);
+
+        assertEquals(1, series.size());
+        assertEquals(10.0, series.priceAt(0));
+    }
+
+    @Test
+    @DisplayName("parsePrices descarta pares con null o incompletos")
+    void parsePricesDescartaInvalidos() throws Exception {
+        String json = "{\"prices\":[[1700000000000,null],[1700000000001],[],[1700000000002,5.5,99]]}";
+
+        PriceSeries series = MarketChartParser.parsePrices(json);
+
+        assertEquals(1, series.size());
+        assertEquals(1700000000002L, series.timestampAt(0));
+        assertEquals(5.5, series.priceAt(0));
+    }
+
+    @Test
+    @DisplayName("parsePrices acepta timestamps con decimales")
+    void parsePricesTimestampDecimal() throws Exception {
+        PriceSeries series = MarketChartParser.parsePrices("{\"prices\":[[1.7E12,1.0]]}");
+
+        assertEquals(1700000000000L, series.timestampAt(0));
+    }
+
+    @Test
+    @DisplayName("parsePrices crece más allá de la capacidad inicial")
+    void parsePricesSerieLarga() throws Exception {
+        StringBuilder json = new StringBuilder("{\"prices\":[");
+        for (int i = 0; i < 2000; i++) {
+            if (i > 0) json.append(',');
+            json.append('[').append(1700000000000L + i * 3600000L).append(',').append(i).append(".5]");
+        }
+        json.append("]}");
+
+        PriceSeries series = MarketChartParser.parsePrices(json.toString());
+
+        assertEquals(2000, series.size());
+        assertEquals(1999.5, series.priceAt(1999));
+    }
+
+    @Test
+    @DisplayName("parsePrices retorna null para errores, JSON nulo o sin prices")
+    void parsePricesSinDatos() throws Exception {
+        assertNull(MarketChartParser.parsePrices(null));
+        assertNull(MarketChartParser.parsePrices("{\"error\": \"Rate limit y sin caché disponible\"}"));
+        assertNull(MarketChartParser.parsePrices("{\"market_caps\":[[1,2]]}"));
+        assertNull(MarketChartParser.parsePrices("[]"));
+    }
+
+    @Test
+    @DisplayName("parseSeries permite leer otras series del market_chart")
+    void parseSeriesVolumenes() throws Exception {
+        String json = "{\"prices\":[[1,2]],\"total_volumes\":[[1700000000000,1.2E10]]}";
+
+        PriceSeries volumes = MarketChartParser.parseSeries(json, "total_volumes");
+
+        assertEquals(1.2E10, volumes.priceAt(0));
+    }
+}
@@ -0,0 +1,108 @@
+package com.valenciaBank.valenciaBank.utils;
+
+import com.valenciaBank.valenciaBank.benchmark.PortfolioHistoryBenchmark;
+import com.valenciaBank.valenciaBank.model.CryptoPurchase;
+import com.valenciaBank.valenciaBank.model.PriceSeries;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.DisplayName;
+
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DisplayName("PortfolioHistoryCalculator - Tests unitarios")
+class PortfolioHistoryCalculatorTest {
+
+    private static final ZoneId UTC = ZoneOffset.UTC;
+
+    private CryptoPurchase compra(String symbol, double quantity, double price, long epochMillis) {
+        CryptoPurchase purchase = new CryptoPurchase(null, symbol, quantity, price, "EUR");
+        purchase.setPurchaseDate(LocalDateTime.ofInstant(Instant.ofEpochMilli(epochMillis), UTC));
+        return purchase;
+    }
+
+    @Test
+    @DisplayName("Acumula compras por fecha y alinea el precio más cercano de cada símbolo")
+    void computeBasico() {
+        PriceSeries btc = new PriceSeries(new long[]{1000, 2000, 3000}, new double[]{10, 20, 30});
+        PriceSeries eth = new PriceSeries(new long[]{1400, 2600}, new double[]{1, 2});
+        Map<String, PriceSeries> prices = new LinkedHashMap<>();
+        prices.put("BTC", btc);
+        prices.put("ETH", eth);
+        Map<String, List<CryptoPurchase>> purchases = new LinkedHashMap<>();
+        // Desordenadas a propósito
+        purchases.put("BTC", List.of(compra("BTC", 1, 25, 2500), compra("BTC", 2, 10, 1000)));
+        purchases.put("ETH", List.of(compra("ETH", 10, 1, 2000)));
+
+        PortfolioHistoryCalculator.Result result = PortfolioHistoryCalculator.compute(btc, prices, purchases, UTC);
+
+        assertArrayEquals(new long[]{1000, 2000, 3000}, result.getTimestamps());
+        // t=1000: 2 BTC * 10
+        // t=2000: 2 BTC * 20 + 10 ETH * 1 (1400 más cerca que 2600)
+        // t=3000: 3 BTC * 30 + 10 ETH * 2
+        assertArrayEquals(new double[]{20, 50, 110}, result.getValues(), 1e-9);
+        assertArrayEquals(new double[]{20, 30, 55}, result.getInvested(), 1e-9);
+    }
+
+    @Test
+    @DisplayName("Un símbolo sin serie de precios se valora a 0 pero cuenta lo invertido")
+    void simboloSinPrecios() {
+        PriceSeries btc = new PriceSeries(new long[]{1000, 2000}, new double[]{10, 20});
+        Map<String, List<CryptoPurchase>> purchases = new LinkedHashMap<>();
+        purchases.put("XYZ", List.of(compra("XYZ", 5, 2, 500)));
+
+        PortfolioHistoryCalculator.Result result = PortfolioHistoryCalculator.compute(
+                btc, Map.of("BTC", btc), purchases, UTC);
+
+        assertArrayEquals(new double[]{0, 0}, result.getValues(), 1e-9);
+        assertArrayEquals(new double[]{10, 10}, result.getInvested(), 1e-9);
+    }
+
+    @Test
+    @DisplayName("Da el mismo resultado que el algoritmo anterior con datos aleatorios")
+    void equivalenteAlAlgoritmoAnterior() {
+        Random random = new Random(7);
+        ZoneId zone = ZoneId.systemDefault();
+        long start = 1_700_000_000_000L;
+        Map<String, PriceSeries> series = new LinkedHashMap<>();
+        Map<String, List<List<Number>>> legacy = new LinkedHashMap<>();
+        Map<String, List<CryptoPurchase>> purchases = new LinkedHashMap<>();
+
+        for (int c = 0; c < 5; c++) {
+            String symbol = "C" + c;
+            int points = 50 + random.nextInt(50);
+            long[] ts = new long[points];
+            double[] prices = new double[points];
+            List<List<Number>> legacyPoints = new ArrayList<>();
+            for (int i = 0; i < points; i++) {
+                ts[i] = start + i * 3_600_000L + random.nextInt(600_000);
+                prices[i] = 100 + random.nextDouble() * 50;
+                legacyPoints.add(List.of(ts[i], prices[i]));
+            }
+            series.put(symbol, new PriceSeries(ts, prices));
+            legacy.put(symbol, legacyPoints);
+
+            List<CryptoPurchase> lots = new ArrayList<>();
+            for (int p = 0; p < 8; p++) {
+                CryptoPurchase purchase = new CryptoPurchase(null, symbol, random.nextDouble(), prices[0], "EUR");
+                purchase.setPurchaseDate(LocalDateTime.ofInstant(
+                        Instant.ofEpochMilli(start + random.nextInt(100 * 3_600_000)), zone));
+                lots.add(purchase);
+            }
+            purchases.put(symbol, lots);
+        }
+
+        PortfolioHistoryCalculator.Result result = PortfolioHistoryCalculator.compute(
+                series.get("C0"), series, purchases, zone);
+        double[] expected = PortfolioHistoryBenchmark.legacyHistory(legacy, purchases);
+
+        for (int i = 0; i < result.getTimestamps().length; i++) {
+            assertEquals(expected[2 * i], result.getValues()[i], 1e-6, "valor en punto " + i);
+            assertEquals(expected[2 * i + 1], result.getInvested()[i], 1e-6, "invertido en punto " + i);
+        }
+    }
+}
@@ -0,0 +1,89 @@
+package com.valenciaBank.valenciaBank.utils;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.DisplayName;
+
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DisplayName("PriceStats - Tests unitarios")
+class PriceStatsTest {
+
+    @Test
+    @DisplayName("Calcula media, varianza, extremos y variación en una pasada")
+    void estadisticasBasicas() {
+        PriceStats stats = PriceStats.of(new double[]{100, 120, 90, 110});
+
+        assertEquals(4, stats.getCount());
+        assertEquals(105.0, stats.getMean(), 1e-9);
+        assertEquals(125.0, stats.getVariance(), 1e-9);
+        assertEquals(Math.sqrt(125.0), stats.getStdDev(), 1e-9);
+        assertEquals(120.0, stats.getHigh());
+        assertEquals(90.0, stats.getLow());
+        assertEquals(100.0, stats.getFirst());
+        assertEquals(110.0, stats.getLast());
+        assertEquals(10.0, stats.getChangePercent(), 1e-9);
+    }
+
+    @Test
+    @DisplayName("Drawdown máximo es la mayor caída desde un máximo previo")
+    void drawdownMaximo() {
+        PriceStats stats = PriceStats.of(new double[]{100, 120, 90, 110, 130, 117});
+
+        assertEquals(25.0, stats.getMaxDrawdownPercent(), 1e-9);
+        assertEquals(0.0, PriceStats.of(new double[]{1, 2, 3}).getMaxDrawdownPercent());
+    }
+
+    @Test
+    @DisplayName("Volatilidad de retornos logarítmicos con desviación muestral")
+    void volatilidadLogaritmica() {
+        double[] prices = {100, 120, 90, 110};
+        double[] returns = {Math.log(120 / 100.0), Math.log(90 / 120.0), Math.log(110 / 90.0)};
+        double mean = Arrays.stream(returns).average().orElse(0);
+        double expected = Math.sqrt(Arrays.stream(returns).map(r -> (r - mean) * (r - mean)).sum() / 2) * 100;
+
+        assertEquals(expected, PriceStats.of(prices).getLogReturnVolatilityPercent(), 1e-9);
+    }
+
+    @Test
+    @DisplayName("Coincide con la varianza calculada en dos pasadas")
+    void coincideConDosPasadas() {
+        double[] prices = new double[1000];
+        for (int i = 0; i < prices.length; i++) {
+            prices[i] = 95000 + Math.sin(i / 10.0) * 500 + i;
+        }
+        double mean = Arrays.stream(prices).average().orElse(0);
+        double variance = Arrays.stream(prices).map(p -> Math.pow(p - mean, 2)).average().orElse(0);
+
+        PriceStats stats = PriceStats.of(prices);
+
+        assertEquals(mean, stats.getMean(), 1e-6);
+        assertEquals(variance, stats.getVariance(), 1e-6);
+    }
+
+    @Test
+    @DisplayName("Las velas usan high y low para los extremos")
+    void velasConHighLow() {
+        PriceStats stats = new PriceStats()
+                .add(100, 105, 95)
+                .add(110, 115, 98);
+
+        assertEquals(115.0, stats.getHigh());
+        assertEquals(95.0, stats.getLow());
+        assertEquals(105.0, stats.getMean(), 1e-9);
+    }
+
+    @Test
+    @DisplayName("Serie vacía devuelve ceros")
+    void serieVacia() {
+        PriceStats stats = new PriceStats();
+
+        assertEquals(0, stats.getCount());
+        assertEquals(0.0, stats.getMean());
+        assertEquals(0.0, stats.getStdDev());
+        assertEquals(0.0, stats.getHigh());
+        assertEquals(0.0, stats.getChangePercent());
+        assertEquals(0.0, stats.getLogReturnVolatilityPercent());
+    }
+}
@@ -0,0 +1,74 @@
+package com.valenciaBank.valenciaBank.utils;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.DisplayName;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DisplayName("RateLimiter - Tests unitarios")
+class RateLimiterTest {
+
+    @Test
+    @DisplayName("acquire concede la ráfaga inicial sin esperar")
+    void rafagaInicial() {
+        RateLimiter limiter = new RateLimiter("test", 1, 3, 10);
+
+        for (int i = 0; i < 3; i++) {
+            assertTrue(limiter.acquire().isDone());
+        }
+        assertFalse(limiter.tryAcquire());
+    }
+
+    @Test
+    @DisplayName("acquire encola cuando no hay permisos y completa al reponerse")
+    void encolaYCompleta() throws Exception {
+        RateLimiter limiter = new RateLimiter("test", 20, 1, 10);
+        assertTrue(limiter.acquire().isDone());
+
+        CompletableFuture<Void> waiting = limiter.acquire();
+        assertFalse(waiting.isDone());
+
+        waiting.get(2, TimeUnit.SECONDS);
+        Map<String, Object> metrics = limiter.getMetrics();
+        assertEquals(2L, metrics.get("acquired"));
+        assertEquals(1L, metrics.get("queued"));
+        assertTrue((Double) metrics.get("maxWaitMs") > 0);
+    }
+
+    @Test
+    @DisplayName("acquire rechaza cuando la cola está llena")
+    void rechazaColaLlena() {
+        RateLimiter limiter = new RateLimiter("test", 0.1, 1, 1);
+        limiter.acquire();
+        limiter.acquire(); // ocupa la única plaza de la cola
+
+        CompletableFuture<Void> rejected = limiter.acquire();
+
+        ExecutionException e = assertThrows(ExecutionException.class, rejected::get);
+        assertInstanceOf(RateLimiter.RejectedException.class, e.getCause());
+        assertEquals(1L, limiter.getRejectedCount());
+    }
+
+    @Test
+    @DisplayName("acquire con timeout lanza RejectedException si no llega el permiso")
+    void timeoutSincrono() {
+        RateLimiter limiter = new RateLimiter("test", 0.1, 1, 5);
+        limiter.acquire(Duration.ofMillis(100));
+
+        assertThrows(RateLimiter.RejectedException.class, () -> limiter.acquire(Duration.ofMillis(50)));
+        assertEquals(0, limiter.getMetrics().get("waiting"));
+    }
+
+    @Test
+    @DisplayName("Constructor valida la configuración")
+    void configuracionInvalida() {
+        assertThrows(IllegalArgumentException.class, () -> new RateLimiter("test", 0, 1, 1));
+        assertThrows(IllegalArgumentException.class, () -> new RateLimiter("test", 1, 0, 1));
+    }
+}
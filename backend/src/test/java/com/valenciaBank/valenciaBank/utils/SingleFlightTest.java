@@ -0,0 +1,135 @@
+package com.valenciaBank.valenciaBank.utils;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.DisplayName;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DisplayName("SingleFlight - Tests unitarios")
+class SingleFlightTest {
+
+    @Test
+    @DisplayName("Las peticiones simultáneas a la misma clave comparten una sola carga")
+    void peticionesSimultaneasUnaCarga() throws Exception {
+        SingleFlight<String, String> flight = new SingleFlight<>("test");
+        AtomicInteger loads = new AtomicInteger();
+        CountDownLatch loading = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            Future<String> leader = executor.submit(() -> flight.execute("BTC", () -> {
+                loads.incrementAndGet();
+                loading.countDown();
+                await(release);
+                return "precio";
+            }));
+            assertTrue(loading.await(2, TimeUnit.SECONDS));
+
+            List<Future<String>> followers = new ArrayList<>();
+            for (int i = 0; i < 20; i++) {
+                followers.add(executor.submit(() -> flight.execute("BTC", () -> {
+                    loads.incrementAndGet();
+                    return "otra carga";
+                })));
+            }
+            // Esperar a que todas estén esperando a la carga en curso
+            while (flight.getJoinedCount() < 20) {
+                Thread.sleep(5);
+            }
+            release.countDown();
+
+            assertEquals("precio", leader.get(2, TimeUnit.SECONDS));
+            for (Future<String> follower : followers) {
+                assertEquals("precio", follower.get(2, TimeUnit.SECONDS));
+            }
+        }
+        assertEquals(1, loads.get());
+        assertEquals(1, flight.getLoadCount());
+        assertEquals(0, flight.getInFlightCount());
+    }
+
+    @Test
+    @DisplayName("El error de la carga llega igual a todos los que esperaban")
+    void errorCompartido() throws Exception {
+        SingleFlight<String, String> flight = new SingleFlight<>("test");
+        CountDownLatch loading = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        IllegalStateException failure = new IllegalStateException("429 Too Many Requests");
+
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            Future<String> leader = executor.submit(() -> flight.execute("SPY", () -> {
+                loading.countDown();
+                await(release);
+                throw failure;
+            }));
+            assertTrue(loading.await(2, TimeUnit.SECONDS));
+            Future<String> follower = executor.submit(() -> flight.execute("SPY", () -> "no se ejecuta"));
+            while (flight.getJoinedCount() < 1) {
+                Thread.sleep(5);
+            }
+            release.countDown();
+
+            ExecutionException leaderError = assertThrows(ExecutionException.class, () -> leader.get(2, TimeUnit.SECONDS));
+            ExecutionException followerError = assertThrows(ExecutionException.class, () -> follower.get(2, TimeUnit.SECONDS));
+            assertSame(failure, leaderError.getCause());
+            assertSame(failure, followerError.getCause());
+        }
+    }
+
+    @Test
+    @DisplayName("Al terminar la carga la clave se libera y la siguiente petición vuelve a cargar")
+    void noCacheaResultados() {
+        SingleFlight<String, Integer> flight = new SingleFlight<>("test");
+        AtomicInteger loads = new AtomicInteger();
+
+        assertEquals(1, flight.execute("ETH", loads::incrementAndGet));
+        assertEquals(2, flight.execute("ETH", loads::incrementAndGet));
+        assertEquals(1, flight.execute("SOL", () -> 1));
+        assertEquals(3, flight.getLoadCount());
+        assertEquals(0, flight.getJoinedCount());
+    }
+
+    @Test
+    @DisplayName("executeAsync comparte el future y cancelar una copia no cancela la carga")
+    void asincronaComparteFuture() throws Exception {
+        SingleFlight<String, String> flight = new SingleFlight<>("test");
+        CompletableFuture<String> upstream = new CompletableFuture<>();
+        AtomicInteger loads = new AtomicInteger();
+
+        CompletableFuture<String> first = flight.executeAsync("top10", () -> {
+            loads.incrementAndGet();
+            return upstream;
+        });
+        CompletableFuture<String> second = flight.executeAsync("top10", () -> {
+            loads.incrementAndGet();
+            return CompletableFuture.completedFuture("otra");
+        });
+        first.cancel(true);
+        assertEquals(1, flight.getInFlightCount());
+
+        upstream.complete("lista");
+
+        assertEquals("lista", second.get(1, TimeUnit.SECONDS));
+        assertEquals(1, loads.get());
+        assertEquals(0, flight.getInFlightCount());
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(2, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
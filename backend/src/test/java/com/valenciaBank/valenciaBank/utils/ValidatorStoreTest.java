@@ -0,0 +1,81 @@
+package com.valenciaBank.valenciaBank.utils;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.DisplayName;
+
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DisplayName("ValidatorStore - Tests unitarios")
+class ValidatorStoreTest {
+
+    @Test
+    @DisplayName("Sin validadores guardados no hay cabeceras condicionales ni valor para un 304")
+    void sinValidadores() {
+        ValidatorStore<String> store = new ValidatorStore<>("test", 10);
+
+        assertEquals(Map.of(), store.conditionalHeaders("https://api.example.com/a"));
+        assertNull(store.notModified("https://api.example.com/a"));
+        assertEquals(0, store.getNotModifiedCount());
+    }
+
+    @Test
+    @DisplayName("Guarda ETag y Last-Modified y devuelve el valor en cada 304")
+    void guardaValidadores() {
+        ValidatorStore<String> store = new ValidatorStore<>("test", 10);
+        store.update("url", "\"abc\"", "Sat, 17 Oct 2026 10:00:00 GMT", "{\"precio\":1}");
+
+        Map<String, String> headers = store.conditionalHeaders("url");
+        assertEquals("\"abc\"", headers.get(ValidatorStore.IF_NONE_MATCH));
+        assertEquals("Sat, 17 Oct 2026 10:00:00 GMT", headers.get(ValidatorStore.IF_MODIFIED_SINCE));
+        assertEquals("{\"precio\":1}", store.notModified("url"));
+        assertEquals("{\"precio\":1}", store.notModified("url"));
+        assertEquals(2, store.getNotModifiedCount());
+    }
+
+    @Test
+    @DisplayName("Una respuesta sin validadores borra los anteriores")
+    void respuestaSinValidadoresBorra() {
+        ValidatorStore<String> store = new ValidatorStore<>("test", 10);
+        store.update("url", "\"abc\"", null, "viejo");
+
+        store.update("url", null, " ", "nuevo");
+
+        assertEquals(Map.of(), store.conditionalHeaders("url"));
+        assertNull(store.notModified("url"));
+    }
+
+    @Test
+    @DisplayName("Un valor nulo no se guarda aunque la respuesta traiga ETag")
+    void valorNuloNoSeGuarda() {
+        ValidatorStore<String> store = new ValidatorStore<>("test", 10);
+        store.update("url", "\"abc\"", null, "bueno");
+
+        store.update("url", "\"def\"", null, null);
+
+        assertNull(store.notModified("url"));
+        assertEquals(2L, store.getMetrics().get("modified"));
+    }
+
+    @Test
+    @DisplayName("Limitado por bytes desaloja cuerpos grandes y no conserva los que superan el límite")
+    void limitePorBytes() {
+        ValidatorStore<String> store = new ValidatorStore<>("test", 1000, String::length);
+        store.update("pequeña", "\"a\"", null, "{}");
+        store.update("grande", "\"b\"", null, "x".repeat(2000));
+
+        assertEquals("{}", store.notModified("pequeña"));
+        assertNull(store.notModified("grande"));
+        assertEquals(Map.of(), store.conditionalHeaders("grande"));
+        assertTrue((Long) store.getMetrics().get("weightBytes") <= 1000);
+    }
+
+    @Test
+    @DisplayName("Limitado por entradas no publica el peso en las métricas")
+    void limitePorEntradasSinPeso() {
+        ValidatorStore<String> store = new ValidatorStore<>("test", 10);
+
+        assertFalse(store.getMetrics().containsKey("weightBytes"));
+    }
+}